@@ -0,0 +1,99 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.util.convert.DBConvert;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量写入：批量创建（{@code createInSqlBatch} 多行 VALUES）及批量更新（JDBC 批处理），
+ * 分别在内存 H2 数据库及零延迟驱动上执行，两者之差近似为数据库本身的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+  private static final int WIDTH = 16;
+
+  @Param({"h2", "fake"})
+  private String driver;
+
+  @Param({"10", "100", "1000"})
+  private int size;
+
+  private DBTemplate        dbTemplate;
+  private List<Rows.Medium> inserts;
+  private List<Rows.Medium> updates;
+
+  @Setup
+  public void setUp() throws SQLException {
+    final InMemoryDataSource data     = new InMemoryDataSource().result(Rows.columns(WIDTH), Rows.rows(WIDTH, size * 2));
+    final List<Rows.Medium>  entities = DBConvert.toList(Rows.Medium.class, data.createResultSet());
+    updates = entities.subList(0, size);
+    inserts = entities.subList(size, size * 2);
+
+    if ("h2".equals(driver)) {
+      dbTemplate = Templates.h2("bench_batch_" + size);
+      try (Database database = dbTemplate.createDatabase()) {
+        final StringBuilder ddl = new StringBuilder("CREATE TABLE IF NOT EXISTS tb_medium (id BIGINT PRIMARY KEY");
+        final String[]      columns = Rows.columns(WIDTH);
+        final String[]      types   = {"VARCHAR(64)", "BIGINT", "DECIMAL(20, 2)", "TIMESTAMP", "INT", "BOOLEAN"};
+        for (int i = 1; i < WIDTH; i++) {
+          ddl.append(", ").append(columns[i]).append(' ').append(types[(i - 1) % types.length]);
+        }
+        database.createOrm().execute(new Sql(ddl.append(")").toString()));
+        database.createOrm().create(Rows.Medium.class, updates);
+        database.commit();
+      }
+    } else {
+      dbTemplate = Templates.fake("bench-batch-" + size, DbType.H2, new InMemoryDataSource().recordCalls(false));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Templates.close(dbTemplate);
+  }
+
+  @Benchmark
+  public int create() {
+    try (Database database = dbTemplate.createDatabase()) {
+      final int result = database.createOrm().create(Rows.Medium.class, inserts);
+      // 回滚以便重复使用相同的主键，并避免数据表持续增长
+      database.rollback();
+      return result;
+    }
+  }
+
+  @Benchmark
+  public int update() {
+    try (Database database = dbTemplate.createDatabase()) {
+      final int result = database.createOrm().update(Rows.Medium.class, updates);
+      database.commit();
+      return result;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 比较两次基准测试的 JSON 结果，按基准测试及参数输出得分的变化
+ * <pre>
+ * java -cp framework.orm.benchmarks/target/benchmarks.jar work.myfavs.framework.orm.benchmarks.BenchmarkDiff baseline.json jmh-result.json
+ * </pre>
+ * 变化方向已按测试模式换算：正数表示变好（耗时减少或吞吐量增加），负数表示变差。
+ * 结果中包含 {@code gc.alloc.rate.norm}（{@link BenchmarkMain} 默认使用 GC 分析器）时，另外输出每次操作分配内存的变化，分配减少为正数。
+ */
+public final class BenchmarkDiff {
+
+  /**
+   * GC 分析器输出的每次操作分配的内存
+   */
+  private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+  private BenchmarkDiff() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: BenchmarkDiff <baseline.json> <current.json>");
+      System.exit(1);
+    }
+
+    final Map<String, JSONObject> baseline = load(args[0]);
+    final Map<String, JSONObject> current  = load(args[1]);
+
+    System.out.printf("%-90s %14s %14s %10s %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+    for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+      final JSONObject now    = entry.getValue();
+      final JSONObject before = baseline.get(entry.getKey());
+      final double     score  = score(now);
+      final String     unit   = now.getJSONObject("primaryMetric").getString("scoreUnit");
+      if (null == before) {
+        System.out.printf("%-90s %14s %14.3f %10s %s%n", entry.getKey(), "-", score, "new", unit);
+        continue;
+      }
+      System.out.printf("%-90s %14.3f %14.3f %+9.1f%% %s%n", entry.getKey(), score(before), score,
+                        improvement(now.getString("mode"), score(before), score), unit);
+
+      final JSONObject allocated = allocation(now);
+      final JSONObject baseAlloc = allocation(before);
+      if (null != allocated && null != baseAlloc) {
+        System.out.printf("%-90s %14.1f %14.1f %+9.1f%% %s%n", "  " + ALLOCATION, baseAlloc.getDoubleValue("score"),
+                          allocated.getDoubleValue("score"),
+                          improvement("avgt", baseAlloc.getDoubleValue("score"), allocated.getDoubleValue("score")),
+                          allocated.getString("scoreUnit"));
+      }
+    }
+    for (String removed : baseline.keySet()) {
+      if (!current.containsKey(removed))
+        System.out.printf("%-90s %14.3f %14s %10s%n", removed, score(baseline.get(removed)), "-", "removed");
+    }
+  }
+
+  /**
+   * 计算改进比例：平均耗时等模式下得分越小越好，吞吐量模式下得分越大越好
+   *
+   * @param mode     测试模式
+   * @param baseline 基线得分
+   * @param current  当前得分
+   * @return 改进比例（百分比）
+   */
+  static double improvement(String mode, double baseline, double current) {
+    if (baseline == 0) return 0;
+    final double change = (current - baseline) / baseline * 100;
+    return "thrpt".equals(mode) ? change : 0 - change;
+  }
+
+  private static Map<String, JSONObject> load(String file) throws IOException {
+    final JSONArray               results = JSON.parseArray(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+    final Map<String, JSONObject> byKey   = new LinkedHashMap<>();
+    for (int i = 0; i < results.size(); i++) {
+      final JSONObject result = results.getJSONObject(i);
+      byKey.put(key(result), result);
+    }
+    return byKey;
+  }
+
+  private static String key(JSONObject result) {
+    final StringBuilder key    = new StringBuilder(result.getString("benchmark")).append(" [").append(result.getString("mode")).append("]");
+    final JSONObject    params = result.getJSONObject("params");
+    if (null != params) {
+      // 参数按名称排序，避免顺序不同导致无法匹配
+      new TreeMap<>(params).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+    }
+    return key.toString();
+  }
+
+  private static JSONObject allocation(JSONObject result) {
+    final JSONObject metrics = result.getJSONObject("secondaryMetrics");
+    if (null == metrics) return null;
+    // 旧版本 JMH 的指标名称带有前缀 "·"
+    for (String name : metrics.keySet()) {
+      if (name.endsWith(ALLOCATION)) return metrics.getJSONObject(name);
+    }
+    return null;
+  }
+
+  private static double score(JSONObject result) {
+    return result.getJSONObject("primaryMetric").getDoubleValue("score");
+  }
+}
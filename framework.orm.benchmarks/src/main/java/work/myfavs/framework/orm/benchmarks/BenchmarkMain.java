@@ -0,0 +1,47 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 基准测试入口，参数与 JMH 命令行相同，未指定结果格式时以 JSON 格式输出到 {@code jmh-result.json}；
+ * 未指定 {@code -prof} 时使用 {@link GCProfiler}，结果中包含每次操作分配的内存（{@code gc.alloc.rate.norm}，B/op）
+ * <pre>
+ * java -jar framework.orm.benchmarks/target/benchmarks.jar RowMapping -p width=16
+ * java -jar framework.orm.benchmarks/target/benchmarks.jar -rff baseline.json
+ * </pre>
+ * 使用 {@link BenchmarkDiff} 比较两次运行的结果。
+ */
+public final class BenchmarkMain {
+
+  /**
+   * 默认的结果文件
+   */
+  public static final String DEFAULT_RESULT = "jmh-result.json";
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+    final CommandLineOptions    cmd     = new CommandLineOptions(args);
+    final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+    if (!cmd.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+    if (!cmd.getResult().hasValue()) options.result(DEFAULT_RESULT);
+    if (cmd.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+
+    if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+        || cmd.shouldListResultFormats()) {
+      // 帮助、列表等命令交给 JMH 处理
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,61 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.util.lang.Snowflake;
+import work.myfavs.framework.orm.util.lang.UUIDv7;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主键生成：{@link Snowflake}、{@link UUIDv7} 单线程及 4 线程竞争下的吞吐量
+ * <p>
+ * Snowflake 每毫秒最多生成 4096 个 ID，达到上限后等待下一毫秒，因此吞吐量存在上限。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+  private final Snowflake snowflake = new Snowflake(1L, 1L);
+  private final UUIDv7    uuidv7    = new UUIDv7();
+
+  @Benchmark
+  public long snowflake() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  public long[] snowflakeBatch() {
+    return snowflake.nextIds(100);
+  }
+
+  @Benchmark
+  public UUID uuidv7() {
+    return uuidv7.next();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long snowflakeContended() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID uuidv7Contended() {
+    return uuidv7.next();
+  }
+}
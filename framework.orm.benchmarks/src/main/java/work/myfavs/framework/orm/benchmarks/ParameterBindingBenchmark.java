@@ -0,0 +1,76 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.BatchParameters;
+import work.myfavs.framework.orm.meta.Parameters;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参数绑定：{@link Parameters} 收集参数并按类型通过 {@code PropertyHandler} 设置到 {@link PreparedStatement}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterBindingBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int count;
+
+  private List<Object>      params;
+  private Connection        connection;
+  private PreparedStatement statement;
+
+  @Setup
+  public void setUp() throws SQLException {
+    // 参数类型与 Rows 中的字段类型一致
+    params = Arrays.asList(Rows.row(count + 1, 1L)).subList(1, count + 1);
+    connection = new InMemoryDataSource().recordCalls(false).getConnection();
+    statement = connection.prepareStatement("INSERT INTO tb_rows VALUES (?)");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Benchmark
+  public Parameters bind() {
+    final Parameters parameters = new Parameters();
+    parameters.addParameters(params);
+    parameters.applyParameters(statement);
+    return parameters;
+  }
+
+  @Benchmark
+  public BatchParameters bindBatch() {
+    final BatchParameters parameters = new BatchParameters();
+    for (int i = 0; i < 10; i++) {
+      parameters.addParameters(params);
+      parameters.addBatch();
+    }
+    parameters.applyBatchParameters(statement, 10);
+    return parameters;
+  }
+}
@@ -0,0 +1,72 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.util.convert.DBConvert;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果转换：不同宽度、行数的结果转换为实体及 {@link Record}，以及经过 {@code Orm#find} 完整路径的查询（零延迟驱动）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+  @Param({"4", "16", "64"})
+  private int width;
+
+  @Param({"1", "100", "1000"})
+  private int rows;
+
+  private Class<?>       entityClass;
+  private InMemoryDataSource dataSource;
+  private DBTemplate     dbTemplate;
+  private Sql            sql;
+
+  @Setup
+  public void setUp() {
+    entityClass = Rows.entityClass(width);
+    dataSource = new InMemoryDataSource().recordCalls(false).result(Rows.columns(width), Rows.rows(width, rows));
+    dbTemplate = Templates.fake("bench-row-mapping", DbType.MYSQL, dataSource);
+    sql = new Sql("SELECT * FROM tb_rows WHERE id > ?", 0L);
+  }
+
+  @Benchmark
+  public List<?> toEntities() throws SQLException {
+    return DBConvert.toList(entityClass, dataSource.createResultSet());
+  }
+
+  @Benchmark
+  public List<Record> toRecords() throws SQLException {
+    return DBConvert.toList(Record.class, dataSource.createResultSet());
+  }
+
+  @Benchmark
+  public List<?> find() {
+    try (Database database = dbTemplate.createDatabase()) {
+      return database.createOrm().find(entityClass, sql);
+    }
+  }
+}
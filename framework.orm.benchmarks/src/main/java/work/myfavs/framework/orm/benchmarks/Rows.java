@@ -0,0 +1,296 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * 基准测试使用的不同宽度（字段数量）的实体及数据
+ * <p>
+ * 第一个字段为主键，其余字段按 String、Long、BigDecimal、Date、Integer、Boolean 的顺序循环。
+ */
+public final class Rows {
+
+  private Rows() {}
+
+  /**
+   * 4 个字段
+   */
+  @Table(value = "tb_narrow", strategy = GenerationType.ASSIGNED)
+  public static class Narrow {
+    @Column
+    @PrimaryKey
+    private Long id;
+    @Column
+    private String col1;
+    @Column
+    private Long col2;
+    @Column
+    private BigDecimal col3;
+  }
+
+  /**
+   * 16 个字段
+   */
+  @Table(value = "tb_medium", strategy = GenerationType.ASSIGNED)
+  public static class Medium {
+    @Column
+    @PrimaryKey
+    private Long id;
+    @Column
+    private String col1;
+    @Column
+    private Long col2;
+    @Column
+    private BigDecimal col3;
+    @Column
+    private Date col4;
+    @Column
+    private Integer col5;
+    @Column
+    private Boolean col6;
+    @Column
+    private String col7;
+    @Column
+    private Long col8;
+    @Column
+    private BigDecimal col9;
+    @Column
+    private Date col10;
+    @Column
+    private Integer col11;
+    @Column
+    private Boolean col12;
+    @Column
+    private String col13;
+    @Column
+    private Long col14;
+    @Column
+    private BigDecimal col15;
+  }
+
+  /**
+   * 64 个字段
+   */
+  @Table(value = "tb_wide", strategy = GenerationType.ASSIGNED)
+  public static class Wide {
+    @Column
+    @PrimaryKey
+    private Long id;
+    @Column
+    private String col1;
+    @Column
+    private Long col2;
+    @Column
+    private BigDecimal col3;
+    @Column
+    private Date col4;
+    @Column
+    private Integer col5;
+    @Column
+    private Boolean col6;
+    @Column
+    private String col7;
+    @Column
+    private Long col8;
+    @Column
+    private BigDecimal col9;
+    @Column
+    private Date col10;
+    @Column
+    private Integer col11;
+    @Column
+    private Boolean col12;
+    @Column
+    private String col13;
+    @Column
+    private Long col14;
+    @Column
+    private BigDecimal col15;
+    @Column
+    private Date col16;
+    @Column
+    private Integer col17;
+    @Column
+    private Boolean col18;
+    @Column
+    private String col19;
+    @Column
+    private Long col20;
+    @Column
+    private BigDecimal col21;
+    @Column
+    private Date col22;
+    @Column
+    private Integer col23;
+    @Column
+    private Boolean col24;
+    @Column
+    private String col25;
+    @Column
+    private Long col26;
+    @Column
+    private BigDecimal col27;
+    @Column
+    private Date col28;
+    @Column
+    private Integer col29;
+    @Column
+    private Boolean col30;
+    @Column
+    private String col31;
+    @Column
+    private Long col32;
+    @Column
+    private BigDecimal col33;
+    @Column
+    private Date col34;
+    @Column
+    private Integer col35;
+    @Column
+    private Boolean col36;
+    @Column
+    private String col37;
+    @Column
+    private Long col38;
+    @Column
+    private BigDecimal col39;
+    @Column
+    private Date col40;
+    @Column
+    private Integer col41;
+    @Column
+    private Boolean col42;
+    @Column
+    private String col43;
+    @Column
+    private Long col44;
+    @Column
+    private BigDecimal col45;
+    @Column
+    private Date col46;
+    @Column
+    private Integer col47;
+    @Column
+    private Boolean col48;
+    @Column
+    private String col49;
+    @Column
+    private Long col50;
+    @Column
+    private BigDecimal col51;
+    @Column
+    private Date col52;
+    @Column
+    private Integer col53;
+    @Column
+    private Boolean col54;
+    @Column
+    private String col55;
+    @Column
+    private Long col56;
+    @Column
+    private BigDecimal col57;
+    @Column
+    private Date col58;
+    @Column
+    private Integer col59;
+    @Column
+    private Boolean col60;
+    @Column
+    private String col61;
+    @Column
+    private Long col62;
+    @Column
+    private BigDecimal col63;
+  }
+
+  /**
+   * 获取指定宽度的实体类型
+   *
+   * @param width 字段数量，4、16 或 64
+   * @return 实体类型
+   */
+  public static Class<?> entityClass(int width) {
+    switch (width) {
+      case 4:
+        return Narrow.class;
+      case 16:
+        return Medium.class;
+      case 64:
+        return Wide.class;
+      default:
+        throw new IllegalArgumentException("Unsupported width: " + width);
+    }
+  }
+
+  /**
+   * 获取指定宽度的字段名称，与实体属性按默认规则（驼峰转下划线）映射的名称一致
+   *
+   * @param width 字段数量
+   * @return 字段名称
+   */
+  public static String[] columns(int width) {
+    final String[] columns = new String[width];
+    columns[0] = "id";
+    for (int i = 1; i < width; i++) {
+      columns[i] = "col_" + i;
+    }
+    return columns;
+  }
+
+  /**
+   * 生成指定宽度及行数的数据
+   *
+   * @param width 字段数量
+   * @param count 行数
+   * @return 数据
+   */
+  public static Object[][] rows(int width, int count) {
+    final Object[][] rows = new Object[count][];
+    for (int row = 0; row < count; row++) {
+      rows[row] = row(width, row + 1L);
+    }
+    return rows;
+  }
+
+  /**
+   * 生成指定宽度的一行数据
+   *
+   * @param width 字段数量
+   * @param id    主键
+   * @return 一行数据
+   */
+  public static Object[] row(int width, long id) {
+    final Object[] row = new Object[width];
+    row[0] = id;
+    for (int i = 1; i < width; i++) {
+      switch ((i - 1) % 6) {
+        case 0:
+          row[i] = "value-" + id + "-" + i;
+          break;
+        case 1:
+          row[i] = id * i;
+          break;
+        case 2:
+          row[i] = BigDecimal.valueOf(id * i, 2);
+          break;
+        case 3:
+          row[i] = new Timestamp(1_600_000_000_000L + id * 1000L);
+          break;
+        case 4:
+          row[i] = (int) (id % 1000) + i;
+          break;
+        default:
+          row[i] = (id + i) % 2 == 0;
+          break;
+      }
+    }
+    return row;
+  }
+}
@@ -0,0 +1,62 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.FuzzyMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语句构建：使用 {@link Sql}、{@link Cond} 构建带条件、连接、排序的查询
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlBuildingBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int inSize;
+
+  private List<Long> ids;
+
+  @Setup
+  public void setUp() {
+    ids = new ArrayList<>(inSize);
+    for (long i = 1; i <= inSize; i++) {
+      ids.add(i);
+    }
+  }
+
+  @Benchmark
+  public Sql select() {
+    return Sql.Select("o.id", "o.code", "o.amount", "c.name")
+              .from("tb_order", "o")
+              .leftJoin("tb_customer", "c", "o.customer_id = c.id")
+              .where(Cond.eq("o.status", 1))
+              .and(Cond.in("o.id", ids))
+              .and(Cond.like("c.name", "abc", FuzzyMode.ALL))
+              .and(Cond.between("o.created", 1L, 2L).or(Cond.isNull("o.created")))
+              .orderBy("o.id DESC");
+  }
+
+  @Benchmark
+  public String selectToString() {
+    return select().toString();
+  }
+}
@@ -0,0 +1,61 @@
+package work.myfavs.framework.orm.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+
+import javax.sql.DataSource;
+
+/**
+ * 创建基准测试使用的 {@link DBTemplate}，关闭 SQL 日志等与被测路径无关的功能
+ */
+public final class Templates {
+
+  private Templates() {}
+
+  /**
+   * 使用零延迟的 JDBC 数据源创建 {@link DBTemplate}
+   *
+   * @param dsName     数据源名称
+   * @param dbType     数据库类型
+   * @param dataSource {@link InMemoryDataSource}
+   * @return {@link DBTemplate}
+   */
+  public static DBTemplate fake(String dsName, String dbType, InMemoryDataSource dataSource) {
+    return build(dsName, dbType, dataSource);
+  }
+
+  /**
+   * 创建内存 H2 数据库的 {@link DBTemplate}
+   *
+   * @param dsName 数据源名称，同时作为 H2 数据库名称
+   * @return {@link DBTemplate}
+   */
+  public static DBTemplate h2(String dsName) {
+    final HikariConfig configuration = new HikariConfig();
+    configuration.setJdbcUrl("jdbc:h2:mem:" + dsName + ";DB_CLOSE_DELAY=-1");
+    configuration.setAutoCommit(false);
+    return build(dsName, DbType.H2, new HikariDataSource(configuration));
+  }
+
+  /**
+   * 关闭 {@link #h2(String)} 创建的连接池
+   *
+   * @param dbTemplate {@link DBTemplate}
+   */
+  public static void close(DBTemplate dbTemplate) {
+    if (dbTemplate.getDataSource() instanceof HikariDataSource) {
+      ((HikariDataSource) dbTemplate.getDataSource()).close();
+    }
+  }
+
+  private static DBTemplate build(String dsName, String dbType, DataSource dataSource) {
+    return new DBTemplate.Builder(dsName)
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(dbType).setShowSql(false).setShowResult(false)
+                                .setBatchSize(1000).setWorkerId(1L).setDataCenterId(1L))
+        .build();
+  }
+}
@@ -0,0 +1,78 @@
+package work.myfavs.framework.orm.orm.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.benchmarks.Templates;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.orm.OrmFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页改写：各数据库方言把查询语句改写为分页语句（{@code AbstractOrm#selectPage}）
+ * <p>
+ * 位于 {@code orm.impl} 包内以直接调用受保护的改写方法，不经过执行及结果转换。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+
+  private static final String SIMPLE = "SELECT id, code, amount FROM tb_order WHERE status = ? ORDER BY id DESC";
+  private static final String JOINED = "SELECT o.id, o.code, c.name, (SELECT COUNT(*) FROM tb_item i WHERE i.order_id = o.id) AS items "
+      + "FROM tb_order o LEFT JOIN tb_customer c ON o.customer_id = c.id "
+      + "WHERE o.status = ? AND c.name LIKE ? ORDER BY o.created DESC, o.id";
+
+  @Param({DbType.MYSQL, DbType.SQL_SERVER, DbType.SQL_SERVER_2012, DbType.ORACLE})
+  private String dbType;
+
+  @Param({"simple", "joined"})
+  private String query;
+
+  private Database     database;
+  private AbstractOrm  orm;
+  private String       sql;
+  private List<Object> params;
+
+  @Setup
+  public void setUp() {
+    database = Templates.fake("bench-pagination-" + dbType, dbType, new InMemoryDataSource().recordCalls(false)).createDatabase();
+    orm = OrmFactory.newOrm(database);
+    sql = "simple".equals(query) ? SIMPLE : JOINED;
+    params = "simple".equals(query) ? Arrays.asList(1) : Arrays.asList(1, "%abc%");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public Sql firstPage() {
+    return orm.selectPage(sql, params, 1, 20);
+  }
+
+  @Benchmark
+  public Sql deepPage() {
+    return orm.selectPage(sql, params, 500, 20);
+  }
+}
@@ -1,8 +1,11 @@
 package work.myfavs.framework.orm;
 
 import java.sql.Connection;
+import java.util.function.Consumer;
 import javax.sql.DataSource;
 import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Spring 连接工厂
@@ -37,4 +40,47 @@ public class SpringConnFactory extends JdbcConnFactory {
 
     DataSourceUtils.releaseConnection(conn, super.dataSource);
   }
+
+  /**
+   * Spring 非只读事务中的查询使用主库，只读事务（如 {@code BaseService.tx(..., readOnly = true)}）可路由到只读副本
+   *
+   * @return 是否处于写事务中
+   */
+  @Override
+  public boolean isInWriteTransaction() {
+
+    return TransactionSynchronizationManager.isActualTransactionActive()
+        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  /**
+   * 处于 Spring 事务中时，回调在 Spring 事务结束后调用，参数为事务是否已提交；否则在释放连接时调用
+   *
+   * @param callback 回调
+   */
+  @Override
+  public void registerCompletion(Consumer<Boolean> callback) {
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      super.registerCompletion(callback);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        callback.accept(STATUS_COMMITTED == status);
+      }
+    });
+  }
+
+  /**
+   * 由 Spring 释放的连接不提交事务
+   *
+   * @return {@code false}
+   */
+  @Override
+  public boolean commitsOnRelease() {
+
+    return false;
+  }
 }
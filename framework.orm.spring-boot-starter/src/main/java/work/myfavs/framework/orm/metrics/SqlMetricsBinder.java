@@ -0,0 +1,132 @@
+package work.myfavs.framework.orm.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 {@link InMemorySqlMetrics} 注册到 Micrometer，每个语句指纹、每个执行阶段注册以下指标：
+ * <ul>
+ *   <li>{@code myfavs.orm.sql}：{@link FunctionTimer}，执行次数及总耗时，标签 {@code statement}、{@code phase}；</li>
+ *   <li>{@code myfavs.orm.sql.max}：{@link TimeGauge}，最大耗时，标签同上；</li>
+ *   <li>{@code myfavs.orm.sql.rows}：{@link FunctionCounter}，返回和影响的行数，标签 {@code statement}、{@code type}（returned / affected）；</li>
+ *   <li>{@code myfavs.orm.sql.allocated}：{@link FunctionCounter}，执行时分配的字节数（开启统计分配的内存时），标签 {@code statement}。</li>
+ * </ul>
+ * 另外注册数据库连接的指标：
+ * <ul>
+ *   <li>{@code myfavs.orm.connection}：{@link FunctionTimer}，获取连接、持有、忙碌及空闲的次数和总耗时，标签 {@code phase}；</li>
+ *   <li>{@code myfavs.orm.connection.max}：{@link TimeGauge}，最大耗时，标签同上；</li>
+ *   <li>{@code myfavs.orm.connection.active}：{@link Gauge}，当前持有的连接数量；</li>
+ *   <li>{@code myfavs.orm.connection.depth.max}：{@link Gauge}，连接的最大打开次数（嵌套深度）。</li>
+ * </ul>
+ * 开启统计分配的内存时，每个 ORM 操作注册 {@code myfavs.orm.operation.allocated}：{@link FunctionCounter}，分配的字节数，标签 {@code operation}。
+ * 之后出现的新语句指纹及 ORM 操作会自动注册。{@link InMemorySqlMetrics#reset()} 清零已注册的语句指纹，
+ * 对应的指标继续从 0 开始累计，不会重复注册。
+ * <pre>
+ * &#64;Bean
+ * public SqlMetricsBinder sqlMetricsBinder(InMemorySqlMetrics metrics) {
+ *   return new SqlMetricsBinder(metrics, Tags.of("datasource", "default"));
+ * }
+ * </pre>
+ */
+public class SqlMetricsBinder implements MeterBinder {
+
+  private final InMemorySqlMetrics metrics;
+  private final Iterable<Tag>      tags;
+
+  /**
+   * 构造方法
+   *
+   * @param metrics {@link InMemorySqlMetrics}，与 {@code DBTemplate.Builder#metrics} 中设置的为同一个实例
+   */
+  public SqlMetricsBinder(InMemorySqlMetrics metrics) {
+    this(metrics, Tags.empty());
+  }
+
+  /**
+   * 构造方法
+   *
+   * @param metrics {@link InMemorySqlMetrics}
+   * @param tags    附加到全部指标的标签，例如数据源名称
+   */
+  public SqlMetricsBinder(InMemorySqlMetrics metrics, Iterable<Tag> tags) {
+    this.metrics = metrics;
+    this.tags = tags;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    bind(registry, metrics.connection());
+    metrics.onStatement(statement -> bind(registry, statement));
+    metrics.operation().onOperation(operation -> bind(registry, operation));
+  }
+
+  private void bind(MeterRegistry registry, InMemorySqlMetrics.Connections connections) {
+    for (ConnectionPhase phase : ConnectionPhase.values()) {
+      final Tags phaseTags = Tags.of(tags).and("phase", phase.name().toLowerCase(Locale.ROOT));
+      FunctionTimer.builder("myfavs.orm.connection", connections, c -> c.getCount(phase), c -> c.getTotalNanos(phase), TimeUnit.NANOSECONDS)
+                   .tags(phaseTags)
+                   .description("数据库连接获取、持有、忙碌及空闲的次数和耗时")
+                   .register(registry);
+      TimeGauge.builder("myfavs.orm.connection.max", connections, TimeUnit.NANOSECONDS, c -> c.getMaxNanos(phase))
+               .tags(phaseTags)
+               .description("数据库连接获取、持有、忙碌及空闲的最大耗时")
+               .register(registry);
+    }
+
+    Gauge.builder("myfavs.orm.connection.active", connections, InMemorySqlMetrics.Connections::getActive)
+         .tags(tags)
+         .description("当前持有的数据库连接数量")
+         .register(registry);
+    Gauge.builder("myfavs.orm.connection.depth.max", connections, InMemorySqlMetrics.Connections::getMaxDepth)
+         .tags(tags)
+         .description("数据库连接的最大打开次数")
+         .register(registry);
+  }
+
+  private void bind(MeterRegistry registry, InMemorySqlMetrics.Statement statement) {
+    final Tags statementTags = Tags.of(tags).and("statement", statement.getFingerprint());
+
+    for (Phase phase : Phase.values()) {
+      final Tags phaseTags = statementTags.and("phase", phase.name().toLowerCase(Locale.ROOT));
+      FunctionTimer.builder("myfavs.orm.sql", statement, s -> s.getCount(phase), s -> s.getTotalNanos(phase), TimeUnit.NANOSECONDS)
+                   .tags(phaseTags)
+                   .description("SQL 语句各执行阶段的次数及耗时")
+                   .register(registry);
+      TimeGauge.builder("myfavs.orm.sql.max", statement, TimeUnit.NANOSECONDS, s -> s.getMaxNanos(phase))
+               .tags(phaseTags)
+               .description("SQL 语句各执行阶段的最大耗时")
+               .register(registry);
+    }
+
+    FunctionCounter.builder("myfavs.orm.sql.rows", statement, InMemorySqlMetrics.Statement::getRowsReturned)
+                   .tags(statementTags.and("type", "returned"))
+                   .description("查询返回的行数")
+                   .register(registry);
+    FunctionCounter.builder("myfavs.orm.sql.rows", statement, InMemorySqlMetrics.Statement::getRowsAffected)
+                   .tags(statementTags.and("type", "affected"))
+                   .description("更新影响的行数")
+                   .register(registry);
+    FunctionCounter.builder("myfavs.orm.sql.allocated", statement, InMemorySqlMetrics.Statement::getAllocatedBytes)
+                   .tags(statementTags)
+                   .baseUnit("bytes")
+                   .description("SQL 语句执行时分配的内存")
+                   .register(registry);
+  }
+
+  private void bind(MeterRegistry registry, InMemorySqlMetrics.Operation operation) {
+    FunctionCounter.builder("myfavs.orm.operation.allocated", operation, InMemorySqlMetrics.Operation::getAllocatedBytes)
+                   .tags(Tags.of(tags).and("operation", operation.getName()))
+                   .baseUnit("bytes")
+                   .description("ORM 操作分配的内存")
+                   .register(registry);
+  }
+}
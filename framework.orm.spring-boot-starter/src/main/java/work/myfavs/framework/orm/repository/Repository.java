@@ -2,6 +2,7 @@ package work.myfavs.framework.orm.repository;
 
 import work.myfavs.framework.orm.DBTemplate;
 import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.batch.BatchLoader;
 import work.myfavs.framework.orm.meta.clause.Cond;
 import work.myfavs.framework.orm.meta.clause.Sql;
 import work.myfavs.framework.orm.meta.schema.Metadata;
@@ -10,6 +11,7 @@ import work.myfavs.framework.orm.util.reflection.ReflectUtil;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 仓储基类
@@ -46,6 +48,23 @@ public class Repository<TModel> extends Query {
     }
   }
 
+  /**
+   * 根据主键获取记录，当前线程打开了 {@link BatchLoader} 作用域时加入批次，否则立即查询
+   * <p>
+   * 调用方需要从 {@link #getById(Object)} 改为本方法，并在需要结果时再等待返回的 {@link CompletableFuture}，才能与其他请求合并
+   *
+   * @param id 主键
+   * @return 记录
+   */
+  public CompletableFuture<TModel> loadById(Object id) {
+
+    final BatchLoader batchLoader = BatchLoader.current(this.dbTemplate);
+    if (null == batchLoader) {
+      return CompletableFuture.completedFuture(getById(id));
+    }
+    return batchLoader.getById(modelClass, id);
+  }
+
   /**
    * 根据指定字段获取记录
    *
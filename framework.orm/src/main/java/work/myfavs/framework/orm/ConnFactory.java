@@ -1,7 +1,12 @@
 package work.myfavs.framework.orm;
 
+import work.myfavs.framework.orm.metrics.ConnectionTracker;
+
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 数据库链接工厂
@@ -10,7 +15,10 @@ import java.sql.Connection;
  */
 public abstract class ConnFactory {
 
-  protected final DataSource dataSource;
+  protected final DataSource        dataSource;
+  protected       ConnectionTracker connectionTracker = ConnectionTracker.NOOP;
+
+  private final ThreadLocal<List<Consumer<Boolean>>> completions = new ThreadLocal<>();
 
   public ConnFactory(DataSource dataSource) {
 
@@ -31,10 +39,109 @@ public abstract class ConnFactory {
    */
   public abstract Connection getCurrentConnection();
 
+  /**
+   * 打开数据库链接，但推迟到第一次 {@link #getCurrentConnection()} 时才获取，与 {@link #closeConnection(Connection)} 配对使用；
+   * 只在只读副本上查询时不占用主库连接。默认立即获取，与 {@link #openConnection()} 相同
+   */
+  public void openLazily() {
+    openConnection();
+  }
+
+  /**
+   * 获取当前线程已获取的数据库链接，不会因此获取连接
+   *
+   * @return 数据库链接，尚未获取时返回 {@code null}
+   */
+  public Connection peekConnection() {
+    return getCurrentConnection();
+  }
+
+  /**
+   * 当前线程是否打开了数据库链接（包括已打开、尚未获取的链接）
+   *
+   * @return 是否已打开
+   */
+  public boolean isOpened() {
+    return null != getCurrentConnection();
+  }
+
   /**
    * 关闭数据库链接
    *
    * @param connection 数据库链接
    */
   public abstract void closeConnection(Connection connection);
+
+  /**
+   * 当前线程是否处于由外部管理的写事务中，写事务中的查询不路由到只读副本
+   *
+   * @return 是否处于写事务中
+   */
+  public boolean isInWriteTransaction() {
+    return false;
+  }
+
+  /**
+   * 释放数据库连接时是否提交事务，{@link Database#close()} 据此判断未显式提交的写操作是否生效
+   *
+   * @return 释放连接时提交事务返回 {@code true}
+   */
+  public boolean commitsOnRelease() {
+    return false;
+  }
+
+  /**
+   * 注册当前线程的事务结束时调用的回调，参数为事务是否已提交；
+   * 由 {@link #afterCompletion(boolean)} 在 {@link Database} 提交、回滚或释放连接时调用
+   *
+   * @param callback 回调
+   */
+  public void registerCompletion(Consumer<Boolean> callback) {
+    List<Consumer<Boolean>> callbacks = completions.get();
+    if (null == callbacks) {
+      callbacks = new ArrayList<>();
+      completions.set(callbacks);
+    }
+    callbacks.add(callback);
+  }
+
+  /**
+   * 当前线程的事务结束时调用，执行并清除已注册的回调
+   *
+   * @param committed 事务是否已提交
+   */
+  public void afterCompletion(boolean committed) {
+    final List<Consumer<Boolean>> callbacks = completions.get();
+    if (null == callbacks) return;
+
+    completions.remove();
+    for (Consumer<Boolean> callback : callbacks) {
+      callback.accept(committed);
+    }
+  }
+
+  /**
+   * 设置连接持有情况跟踪，由 {@link DBTemplate} 在创建连接工厂后调用
+   *
+   * @param connectionTracker {@link ConnectionTracker}
+   */
+  public void setConnectionTracker(ConnectionTracker connectionTracker) {
+    this.connectionTracker = connectionTracker;
+  }
+
+  /**
+   * 记录当前线程持有的数据库连接上的一次语句执行，用于区分持有期间的忙碌与空闲时间
+   *
+   * @param elapsedNanos 执行耗时（纳秒）
+   */
+  public void statementExecuted(long elapsedNanos) {}
+
+  /**
+   * 获取当前线程持有数据库连接的时长
+   *
+   * @return 持有时长（纳秒），未持有连接或无法获知时返回 -1
+   */
+  public long getConnectionHoldNanos() {
+    return -1;
+  }
 }
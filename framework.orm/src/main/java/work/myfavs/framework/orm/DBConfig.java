@@ -49,6 +49,149 @@ public class DBConfig {
    */
   private             long     dataCenterId            = 1L;
 
+  /**
+   * 是否从租约表自动申领终端ID、数据中心ID，开启后忽略 workerId、dataCenterId 配置
+   */
+  private boolean workerIdLease      = false;
+  /**
+   * 终端ID租约表名称
+   */
+  private String  workerIdLeaseTable = "id_worker_lease";
+  /**
+   * 终端ID租约有效期（秒），每 1/3 有效期续约一次
+   */
+  private int     workerIdLeaseTtl   = 60;
+
+  /**
+   * 异步 ORM 的最大并发数，应与连接池大小一致
+   */
+  private int asyncPoolSize = 10;
+
+  /**
+   * 只读副本连续失败多少次后摘除
+   */
+  private int replicaMaxFailures   = 3;
+  /**
+   * 只读副本摘除时长（秒）
+   */
+  private int replicaEjectSeconds  = 30;
+  /**
+   * 读己之写时间窗口（毫秒），写操作后该时间内的查询使用主库，0 表示不开启
+   */
+  private int readYourWritesMillis = 0;
+
+  /**
+   * 号段表名称
+   */
+  private String segmentTable         = "id_segment";
+  /**
+   * 首次创建号段记录时的号段长度
+   */
+  private int    segmentStep          = 1000;
+  /**
+   * 当前号段使用比例达到该值时，预取下一个号段
+   */
+  private double segmentPrefetchRatio = 0.5;
+
+  /**
+   * 实体二级缓存的最大条目数量
+   */
+  private int entityCacheSize        = 10000;
+  /**
+   * 实体二级缓存有效期（秒）
+   */
+  private int entityCacheTtl         = 300;
+  /**
+   * 实体二级缓存中空值（查询不到记录）的有效期（秒）
+   */
+  private int entityCacheNegativeTtl = 30;
+
+  /**
+   * 查询结果缓存的最大权重，按结果集单元格数量（行数 × 列数）计算
+   */
+  private long queryCacheWeight = 1000000;
+  /**
+   * 查询结果缓存默认有效期（秒）
+   */
+  private int  queryCacheTtl    = 60;
+
+  /**
+   * 是否合并并发执行的相同查询
+   */
+  private boolean singleFlight        = false;
+  /**
+   * 等待相同查询结果的最长时间（毫秒）
+   */
+  private long    singleFlightMaxWait = 1000;
+
+  /**
+   * 批量加载器自动执行的等待时间（毫秒）
+   */
+  private long batchLoaderWindow  = 0;
+  /**
+   * 批量加载器单次 findByIds 的最大主键数量
+   */
+  private int  batchLoaderMaxSize = 500;
+
+  /**
+   * 批量预加载关联数据时单条 IN 查询的最大参数数量
+   */
+  private int prefetchBatchSize = 1000;
+
+  /**
+   * 是否跟踪查询得到的实体的字段变更
+   */
+  private boolean dirtyTracking = false;
+
+  /**
+   * 慢查询阈值（毫秒），0 表示不记录慢查询
+   */
+  private long   slowQueryMillis         = 0;
+  /**
+   * 慢查询采样比例，取值 0 ~ 1
+   */
+  private double slowQuerySampleRate     = 1.0;
+  /**
+   * 慢查询环形缓冲区容量，缓冲区满时丢弃新的慢查询
+   */
+  private int    slowQueryBufferSize     = 1024;
+  /**
+   * 慢查询日志中单个参数的最大长度，超出部分截断
+   */
+  private int    slowQueryMaxParamLength = 128;
+  /**
+   * 慢查询日志及长时间持有连接报告中调用栈的最大深度
+   */
+  private int    slowQueryStackDepth     = 8;
+
+  /**
+   * 是否获取慢查询的执行计划
+   */
+  private boolean explainSlowQuery       = false;
+  /**
+   * 同一语句指纹获取执行计划的最小间隔（秒）
+   */
+  private int     explainIntervalSeconds = 300;
+
+  /**
+   * 同一作用域内同一语句指纹的最大执行次数，超出视为 N+1 查询，0 表示不检测
+   */
+  private int     repeatedQueryThreshold = 0;
+  /**
+   * 超出 {@link #repeatedQueryThreshold} 时是否抛出异常（用于测试），否则输出警告
+   */
+  private boolean repeatedQueryFail      = false;
+
+  /**
+   * 连接持有时长阈值（毫秒），超出时报告打开连接的调用栈，0 表示不检测
+   */
+  private long connectionHoldMillis = 0;
+
+  /**
+   * 是否统计每次执行语句及 ORM 操作分配的内存
+   */
+  private boolean trackAllocations = false;
+
   /**
    * 分页查询结果数据集合字段名称
    */
@@ -277,6 +420,651 @@ public class DBConfig {
     return this;
   }
 
+  /**
+   * 是否从租约表自动申领终端ID、数据中心ID
+   *
+   * @return 是否自动申领
+   */
+  public boolean isWorkerIdLease() {
+    return workerIdLease;
+  }
+
+  /**
+   * 设置是否从租约表自动申领终端ID、数据中心ID
+   *
+   * @param workerIdLease 是否自动申领
+   * @return Configuration
+   */
+  public DBConfig setWorkerIdLease(boolean workerIdLease) {
+    this.workerIdLease = workerIdLease;
+    return this;
+  }
+
+  /**
+   * 获取终端ID租约表名称
+   *
+   * @return 租约表名称
+   */
+  public String getWorkerIdLeaseTable() {
+    return workerIdLeaseTable;
+  }
+
+  /**
+   * 设置终端ID租约表名称
+   *
+   * @param workerIdLeaseTable 租约表名称
+   * @return Configuration
+   */
+  public DBConfig setWorkerIdLeaseTable(String workerIdLeaseTable) {
+    this.workerIdLeaseTable = workerIdLeaseTable;
+    return this;
+  }
+
+  /**
+   * 获取终端ID租约有效期（秒）
+   *
+   * @return 租约有效期
+   */
+  public int getWorkerIdLeaseTtl() {
+    return workerIdLeaseTtl;
+  }
+
+  /**
+   * 设置终端ID租约有效期（秒）
+   *
+   * @param workerIdLeaseTtl 租约有效期
+   * @return Configuration
+   */
+  public DBConfig setWorkerIdLeaseTtl(int workerIdLeaseTtl) {
+    this.workerIdLeaseTtl = workerIdLeaseTtl;
+    return this;
+  }
+
+  /**
+   * 获取异步 ORM 的最大并发数
+   *
+   * @return 最大并发数
+   */
+  public int getAsyncPoolSize() {
+    return asyncPoolSize;
+  }
+
+  /**
+   * 设置异步 ORM 的最大并发数，应与连接池大小一致
+   *
+   * @param asyncPoolSize 最大并发数
+   * @return Configuration
+   */
+  public DBConfig setAsyncPoolSize(int asyncPoolSize) {
+    this.asyncPoolSize = asyncPoolSize;
+    return this;
+  }
+
+  /**
+   * 获取只读副本摘除前允许的连续失败次数
+   *
+   * @return 连续失败次数
+   */
+  public int getReplicaMaxFailures() {
+    return replicaMaxFailures;
+  }
+
+  /**
+   * 设置只读副本摘除前允许的连续失败次数
+   *
+   * @param replicaMaxFailures 连续失败次数
+   * @return Configuration
+   */
+  public DBConfig setReplicaMaxFailures(int replicaMaxFailures) {
+    this.replicaMaxFailures = replicaMaxFailures;
+    return this;
+  }
+
+  /**
+   * 获取只读副本摘除时长（秒）
+   *
+   * @return 摘除时长
+   */
+  public int getReplicaEjectSeconds() {
+    return replicaEjectSeconds;
+  }
+
+  /**
+   * 设置只读副本摘除时长（秒），摘除时间结束后重新参与负载均衡
+   *
+   * @param replicaEjectSeconds 摘除时长
+   * @return Configuration
+   */
+  public DBConfig setReplicaEjectSeconds(int replicaEjectSeconds) {
+    this.replicaEjectSeconds = replicaEjectSeconds;
+    return this;
+  }
+
+  /**
+   * 获取读己之写时间窗口（毫秒）
+   *
+   * @return 时间窗口
+   */
+  public int getReadYourWritesMillis() {
+    return readYourWritesMillis;
+  }
+
+  /**
+   * 设置读己之写时间窗口（毫秒），当前线程写操作后该时间内的查询使用主库，0 表示不开启
+   *
+   * @param readYourWritesMillis 时间窗口
+   * @return Configuration
+   */
+  public DBConfig setReadYourWritesMillis(int readYourWritesMillis) {
+    this.readYourWritesMillis = readYourWritesMillis;
+    return this;
+  }
+
+  /**
+   * 获取号段表名称
+   *
+   * @return 号段表名称
+   */
+  public String getSegmentTable() {
+    return segmentTable;
+  }
+
+  /**
+   * 设置号段表名称
+   *
+   * @param segmentTable 号段表名称
+   * @return Configuration
+   */
+  public DBConfig setSegmentTable(String segmentTable) {
+    this.segmentTable = segmentTable;
+    return this;
+  }
+
+  /**
+   * 获取首次创建号段记录时的号段长度
+   *
+   * @return 号段长度
+   */
+  public int getSegmentStep() {
+    return segmentStep;
+  }
+
+  /**
+   * 设置首次创建号段记录时的号段长度，已存在的号段记录以号段表中 step 字段为准
+   *
+   * @param segmentStep 号段长度
+   * @return Configuration
+   */
+  public DBConfig setSegmentStep(int segmentStep) {
+    this.segmentStep = segmentStep;
+    return this;
+  }
+
+  /**
+   * 获取预取下一个号段的使用比例
+   *
+   * @return 使用比例
+   */
+  public double getSegmentPrefetchRatio() {
+    return segmentPrefetchRatio;
+  }
+
+  /**
+   * 设置预取下一个号段的使用比例，取值范围 (0, 1]
+   *
+   * @param segmentPrefetchRatio 使用比例
+   * @return Configuration
+   */
+  public DBConfig setSegmentPrefetchRatio(double segmentPrefetchRatio) {
+    this.segmentPrefetchRatio = segmentPrefetchRatio;
+    return this;
+  }
+
+  /**
+   * 获取实体二级缓存的最大条目数量
+   *
+   * @return 最大条目数量
+   */
+  public int getEntityCacheSize() {
+    return entityCacheSize;
+  }
+
+  /**
+   * 设置实体二级缓存的最大条目数量，超出时按访问频率淘汰
+   *
+   * @param entityCacheSize 最大条目数量
+   * @return Configuration
+   */
+  public DBConfig setEntityCacheSize(int entityCacheSize) {
+    this.entityCacheSize = entityCacheSize;
+    return this;
+  }
+
+  /**
+   * 获取实体二级缓存有效期（秒）
+   *
+   * @return 有效期
+   */
+  public int getEntityCacheTtl() {
+    return entityCacheTtl;
+  }
+
+  /**
+   * 设置实体二级缓存有效期（秒），用于兜底未经 ORM 执行的写操作，小于等于 0 表示不过期
+   *
+   * @param entityCacheTtl 有效期
+   * @return Configuration
+   */
+  public DBConfig setEntityCacheTtl(int entityCacheTtl) {
+    this.entityCacheTtl = entityCacheTtl;
+    return this;
+  }
+
+  /**
+   * 获取实体二级缓存中空值的有效期（秒）
+   *
+   * @return 有效期
+   */
+  public int getEntityCacheNegativeTtl() {
+    return entityCacheNegativeTtl;
+  }
+
+  /**
+   * 设置实体二级缓存中空值（查询不到记录）的有效期（秒）
+   *
+   * @param entityCacheNegativeTtl 有效期
+   * @return Configuration
+   */
+  public DBConfig setEntityCacheNegativeTtl(int entityCacheNegativeTtl) {
+    this.entityCacheNegativeTtl = entityCacheNegativeTtl;
+    return this;
+  }
+
+  /**
+   * 获取查询结果缓存的最大权重
+   *
+   * @return 最大权重
+   */
+  public long getQueryCacheWeight() {
+    return queryCacheWeight;
+  }
+
+  /**
+   * 设置查询结果缓存的最大权重，每个结果集的权重为行数 × 列数，超出时按访问频率淘汰
+   *
+   * @param queryCacheWeight 最大权重
+   * @return Configuration
+   */
+  public DBConfig setQueryCacheWeight(long queryCacheWeight) {
+    this.queryCacheWeight = queryCacheWeight;
+    return this;
+  }
+
+  /**
+   * 获取查询结果缓存默认有效期（秒）
+   *
+   * @return 有效期
+   */
+  public int getQueryCacheTtl() {
+    return queryCacheTtl;
+  }
+
+  /**
+   * 设置查询结果缓存默认有效期（秒），{@code Sql.cached()}、{@code Orm.cached()} 未指定有效期时使用，小于等于 0 表示不过期
+   *
+   * @param queryCacheTtl 有效期
+   * @return Configuration
+   */
+  public DBConfig setQueryCacheTtl(int queryCacheTtl) {
+    this.queryCacheTtl = queryCacheTtl;
+    return this;
+  }
+
+  /**
+   * 获取是否合并并发执行的相同查询
+   *
+   * @return 是否合并
+   */
+  public boolean isSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * 设置是否合并并发执行的相同查询，开启后 SQL、参数、结果类型都相同的并发查询只执行一次，其他线程等待并共享结果
+   *
+   * @param singleFlight 是否合并
+   * @return Configuration
+   */
+  public DBConfig setSingleFlight(boolean singleFlight) {
+    this.singleFlight = singleFlight;
+    return this;
+  }
+
+  /**
+   * 获取等待相同查询结果的最长时间（毫秒）
+   *
+   * @return 最长等待时间
+   */
+  public long getSingleFlightMaxWait() {
+    return singleFlightMaxWait;
+  }
+
+  /**
+   * 设置等待相同查询结果的最长时间（毫秒），超时后自行查询数据库
+   *
+   * @param singleFlightMaxWait 最长等待时间
+   * @return Configuration
+   */
+  public DBConfig setSingleFlightMaxWait(long singleFlightMaxWait) {
+    this.singleFlightMaxWait = singleFlightMaxWait;
+    return this;
+  }
+
+  /**
+   * 获取批量加载器自动执行的等待时间（毫秒）
+   *
+   * @return 等待时间
+   */
+  public long getBatchLoaderWindow() {
+    return batchLoaderWindow;
+  }
+
+  /**
+   * 设置批量加载器自动执行的等待时间（毫秒），第一个请求加入后经过该时间，下一次请求时在当前线程中执行批次，小于等于 0 表示只在需要结果时执行
+   *
+   * @param batchLoaderWindow 等待时间
+   * @return Configuration
+   */
+  public DBConfig setBatchLoaderWindow(long batchLoaderWindow) {
+    this.batchLoaderWindow = batchLoaderWindow;
+    return this;
+  }
+
+  /**
+   * 获取批量加载器单次 findByIds 的最大主键数量
+   *
+   * @return 最大主键数量
+   */
+  public int getBatchLoaderMaxSize() {
+    return batchLoaderMaxSize;
+  }
+
+  /**
+   * 设置批量加载器单次 findByIds 的最大主键数量，等待中的请求达到该数量时立即执行，应小于数据库允许的参数数量
+   *
+   * @param batchLoaderMaxSize 最大主键数量
+   * @return Configuration
+   */
+  public DBConfig setBatchLoaderMaxSize(int batchLoaderMaxSize) {
+    this.batchLoaderMaxSize = batchLoaderMaxSize;
+    return this;
+  }
+
+  /**
+   * 获取批量预加载关联数据时单条 IN 查询的最大参数数量
+   *
+   * @return 最大参数数量
+   */
+  public int getPrefetchBatchSize() {
+    return prefetchBatchSize;
+  }
+
+  /**
+   * 设置批量预加载关联数据时单条 IN 查询的最大参数数量，超出时分批查询，应小于数据库允许的参数数量
+   *
+   * @param prefetchBatchSize 最大参数数量
+   * @return Configuration
+   */
+  public DBConfig setPrefetchBatchSize(int prefetchBatchSize) {
+    this.prefetchBatchSize = prefetchBatchSize;
+    return this;
+  }
+
+  /**
+   * 获取是否跟踪查询得到的实体的字段变更
+   *
+   * @return 是否跟踪
+   */
+  public boolean isDirtyTracking() {
+    return dirtyTracking;
+  }
+
+  /**
+   * 设置是否跟踪查询得到的实体的字段变更，开启后 {@code update(Class, entity)} 只更新发生变更的字段，没有变更时不执行 UPDATE
+   *
+   * @param dirtyTracking 是否跟踪
+   * @return Configuration
+   */
+  public DBConfig setDirtyTracking(boolean dirtyTracking) {
+    this.dirtyTracking = dirtyTracking;
+    return this;
+  }
+
+  /**
+   * 获取慢查询阈值（毫秒）
+   *
+   * @return 慢查询阈值
+   */
+  public long getSlowQueryMillis() {
+    return slowQueryMillis;
+  }
+
+  /**
+   * 设置慢查询阈值（毫秒），语句执行（含参数绑定、读取结果）耗时达到该值时记录慢查询日志，0 表示不记录
+   *
+   * @param slowQueryMillis 慢查询阈值
+   * @return Configuration
+   */
+  public DBConfig setSlowQueryMillis(long slowQueryMillis) {
+    this.slowQueryMillis = slowQueryMillis;
+    return this;
+  }
+
+  /**
+   * 获取慢查询采样比例
+   *
+   * @return 采样比例
+   */
+  public double getSlowQuerySampleRate() {
+    return slowQuerySampleRate;
+  }
+
+  /**
+   * 设置慢查询采样比例，取值 0 ~ 1，例如 0.1 表示只记录十分之一的慢查询
+   *
+   * @param slowQuerySampleRate 采样比例
+   * @return Configuration
+   */
+  public DBConfig setSlowQuerySampleRate(double slowQuerySampleRate) {
+    this.slowQuerySampleRate = slowQuerySampleRate;
+    return this;
+  }
+
+  /**
+   * 获取慢查询环形缓冲区容量
+   *
+   * @return 缓冲区容量
+   */
+  public int getSlowQueryBufferSize() {
+    return slowQueryBufferSize;
+  }
+
+  /**
+   * 设置慢查询环形缓冲区容量，后台线程来不及输出、缓冲区满时丢弃新的慢查询
+   *
+   * @param slowQueryBufferSize 缓冲区容量
+   * @return Configuration
+   */
+  public DBConfig setSlowQueryBufferSize(int slowQueryBufferSize) {
+    this.slowQueryBufferSize = slowQueryBufferSize;
+    return this;
+  }
+
+  /**
+   * 获取慢查询日志中单个参数的最大长度
+   *
+   * @return 最大长度
+   */
+  public int getSlowQueryMaxParamLength() {
+    return slowQueryMaxParamLength;
+  }
+
+  /**
+   * 设置慢查询日志中单个参数的最大长度，超出部分截断
+   *
+   * @param slowQueryMaxParamLength 最大长度
+   * @return Configuration
+   */
+  public DBConfig setSlowQueryMaxParamLength(int slowQueryMaxParamLength) {
+    this.slowQueryMaxParamLength = slowQueryMaxParamLength;
+    return this;
+  }
+
+  /**
+   * 获取慢查询日志中调用栈的最大深度
+   *
+   * @return 最大深度
+   */
+  public int getSlowQueryStackDepth() {
+    return slowQueryStackDepth;
+  }
+
+  /**
+   * 设置慢查询日志及长时间持有连接报告中调用栈的最大深度（不含框架内部的调用）
+   *
+   * @param slowQueryStackDepth 最大深度
+   * @return Configuration
+   */
+  public DBConfig setSlowQueryStackDepth(int slowQueryStackDepth) {
+    this.slowQueryStackDepth = slowQueryStackDepth;
+    return this;
+  }
+
+  /**
+   * 获取是否获取慢查询的执行计划
+   *
+   * @return 是否获取
+   */
+  public boolean isExplainSlowQuery() {
+    return explainSlowQuery;
+  }
+
+  /**
+   * 设置是否获取慢查询的执行计划，开启后在慢查询日志的后台线程中使用独立的连接获取 SELECT 语句的执行计划，
+   * 通过 {@code DBTemplate#getPlanCollector()} 汇总报告
+   *
+   * @param explainSlowQuery 是否获取
+   * @return Configuration
+   */
+  public DBConfig setExplainSlowQuery(boolean explainSlowQuery) {
+    this.explainSlowQuery = explainSlowQuery;
+    return this;
+  }
+
+  /**
+   * 获取同一语句指纹获取执行计划的最小间隔（秒）
+   *
+   * @return 最小间隔
+   */
+  public int getExplainIntervalSeconds() {
+    return explainIntervalSeconds;
+  }
+
+  /**
+   * 设置同一语句指纹获取执行计划的最小间隔（秒），避免频繁出现的慢查询反复获取执行计划
+   *
+   * @param explainIntervalSeconds 最小间隔
+   * @return Configuration
+   */
+  public DBConfig setExplainIntervalSeconds(int explainIntervalSeconds) {
+    this.explainIntervalSeconds = explainIntervalSeconds;
+    return this;
+  }
+
+  /**
+   * 获取同一作用域内同一语句指纹的最大执行次数
+   *
+   * @return 最大执行次数，0 表示不检测
+   */
+  public int getRepeatedQueryThreshold() {
+    return repeatedQueryThreshold;
+  }
+
+  /**
+   * 设置同一作用域（最外层 {@code Database} 打开至关闭）内同一语句指纹的最大执行次数，超出视为 N+1 查询，
+   * 通过 {@code DBTemplate#getAccessAnalyzer()} 检测
+   *
+   * @param repeatedQueryThreshold 最大执行次数，小于等于 0 表示不检测
+   * @return Configuration
+   */
+  public DBConfig setRepeatedQueryThreshold(int repeatedQueryThreshold) {
+    this.repeatedQueryThreshold = repeatedQueryThreshold;
+    return this;
+  }
+
+  /**
+   * 获取超出最大执行次数时是否抛出异常
+   *
+   * @return 是否抛出异常
+   */
+  public boolean isRepeatedQueryFail() {
+    return repeatedQueryFail;
+  }
+
+  /**
+   * 设置超出最大执行次数时是否抛出异常，在测试（例如使用 H2 的 CI）中开启以发现 N+1 查询，默认只输出警告
+   *
+   * @param repeatedQueryFail 是否抛出异常
+   * @return Configuration
+   */
+  public DBConfig setRepeatedQueryFail(boolean repeatedQueryFail) {
+    this.repeatedQueryFail = repeatedQueryFail;
+    return this;
+  }
+
+  /**
+   * 获取连接持有时长阈值（毫秒）
+   *
+   * @return 阈值，0 表示不检测
+   */
+  public long getConnectionHoldMillis() {
+    return connectionHoldMillis;
+  }
+
+  /**
+   * 设置连接持有时长阈值（毫秒），设置后获取连接时记录调用栈（深度同 {@link #getSlowQueryStackDepth()}），
+   * 持有时长超出阈值的连接在释放时报告持有、执行语句及空闲的时间
+   *
+   * @param connectionHoldMillis 阈值，小于等于 0 表示不检测
+   * @return Configuration
+   */
+  public DBConfig setConnectionHoldMillis(long connectionHoldMillis) {
+    this.connectionHoldMillis = connectionHoldMillis;
+    return this;
+  }
+
+  /**
+   * 获取是否统计分配的内存
+   *
+   * @return 是否统计
+   */
+  public boolean isTrackAllocations() {
+    return trackAllocations;
+  }
+
+  /**
+   * 设置是否统计分配的内存：开启后通过 {@code com.sun.management.ThreadMXBean} 统计每次执行语句（按语句指纹）
+   * 及每次调用 {@link work.myfavs.framework.orm.orm.Orm} 方法时当前线程分配的字节数，记录到 {@code SqlMetrics} 中，
+   * JVM 不支持时忽略
+   *
+   * @param trackAllocations 是否统计
+   * @return Configuration
+   */
+  public DBConfig setTrackAllocations(boolean trackAllocations) {
+    this.trackAllocations = trackAllocations;
+    return this;
+  }
+
   /**
    * 获取分页查询结果数据集合字段名称
    *
@@ -1,19 +1,43 @@
 package work.myfavs.framework.orm;
 
+import work.myfavs.framework.orm.batch.BatchLoader;
+import work.myfavs.framework.orm.cache.EntityCache;
+import work.myfavs.framework.orm.cache.QueryCache;
+import work.myfavs.framework.orm.cache.SingleFlight;
 import work.myfavs.framework.orm.meta.handler.PropertyHandler;
 import work.myfavs.framework.orm.meta.handler.PropertyHandlerFactory;
 import work.myfavs.framework.orm.meta.pagination.Page;
 import work.myfavs.framework.orm.meta.pagination.PageLite;
+import work.myfavs.framework.orm.metrics.AccessAnalyzer;
+import work.myfavs.framework.orm.metrics.AccessReport;
+import work.myfavs.framework.orm.metrics.ConnectionHold;
+import work.myfavs.framework.orm.metrics.ConnectionTracker;
+import work.myfavs.framework.orm.metrics.InMemorySqlMetrics;
+import work.myfavs.framework.orm.metrics.PlanCollector;
+import work.myfavs.framework.orm.metrics.SlowQuery;
+import work.myfavs.framework.orm.metrics.SlowQueryLog;
+import work.myfavs.framework.orm.metrics.SqlMetrics;
+import work.myfavs.framework.orm.tracing.SqlTracer;
+import work.myfavs.framework.orm.orm.AsyncOrm;
+import work.myfavs.framework.orm.partition.TableRouter;
+import work.myfavs.framework.orm.replica.Replica;
+import work.myfavs.framework.orm.replica.ReplicaRouter;
 import work.myfavs.framework.orm.util.exception.DBException;
 import work.myfavs.framework.orm.util.id.PKGenerator;
+import work.myfavs.framework.orm.util.id.SegmentAllocator;
+import work.myfavs.framework.orm.util.id.WorkerIdLeaseManager;
+import work.myfavs.framework.orm.util.lang.AsyncExecutors;
 
 import javax.sql.DataSource;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -22,7 +46,7 @@ import java.util.function.Consumer;
  * @author tanqimin
  */
 @SuppressWarnings("rawtypes")
-public class DBTemplate {
+public class DBTemplate implements AutoCloseable {
   private static final Map<String/* dsName */, DBTemplate> POOL = new ConcurrentHashMap<>();
 
   public static DBTemplate get(String dsName) {
@@ -37,27 +61,79 @@ public class DBTemplate {
     return dbTemplate;
   }
 
+  /**
+   * 移除数据源，仅当已注册的实例为 {@code dbTemplate} 时移除
+   *
+   * @param dsName     数据源名称
+   * @param dbTemplate 数据源
+   */
+  static void remove(String dsName, DBTemplate dbTemplate) {
+    POOL.remove(dsName, dbTemplate);
+  }
+
   // region Attributes
   /**
    * 数据源名称
    */
-  private final String      dsName;
+  private final String        dsName;
   /**
    * 数据源
    */
-  private final DataSource  dataSource;
+  private final DataSource    dataSource;
   /**
    * 数据库配置
    */
-  private final DBConfig    dbConfig;
+  private final DBConfig      dbConfig;
   /**
    * 数据库连接工厂
    */
-  private final ConnFactory connectionFactory;
+  private final ConnFactory   connectionFactory;
+  /**
+   * 主键生成器，构造完成后在 {@link Builder#build()} 中创建
+   */
+  private volatile PKGenerator pkGenerator;
+  /**
+   * 异步 ORM 执行器线程池，关闭时停止
+   */
+  private final Executor      asyncPool;
+  /**
+   * 异步 ORM 执行器
+   */
+  private final Executor      asyncExecutor;
+  /**
+   * 读写分离路由，未注册只读副本时为 {@code null}
+   */
+  private final ReplicaRouter replicaRouter;
+  /**
+   * 实体分表路由
+   */
+  private final Map<Class<?>, TableRouter> tableRouters;
+  /**
+   * 实体二级缓存
+   */
+  private final EntityCache                entityCache;
+  private final QueryCache                 queryCache;
+  private final SingleFlight               singleFlight;
   /**
-   * 主键生成器
+   * SQL 执行指标
    */
-  private final PKGenerator pkGenerator;
+  private final SqlMetrics                 metrics;
+  /**
+   * 链路追踪
+   */
+  private final SqlTracer                  tracer;
+  /**
+   * 慢查询日志
+   */
+  private final SlowQueryLog               slowQueryLog;
+  /**
+   * 慢查询执行计划收集器
+   */
+  private final PlanCollector              planCollector;
+  /**
+   * 数据库访问分析器
+   */
+  private final AccessAnalyzer             accessAnalyzer;
   // endregion
 
   // region Constructor
@@ -72,12 +148,41 @@ public class DBTemplate {
     this.dataSource = builder.dataSource;
     this.dbConfig = builder.config;
     this.connectionFactory = createConnFactory(builder.connectionFactory, builder.dataSource);
-    this.pkGenerator =
-        new PKGenerator(this.dbConfig.getWorkerId(), this.dbConfig.getDataCenterId());
+    this.metrics = builder.metrics;
+    this.tracer = builder.tracer;
+    this.connectionFactory.setConnectionTracker(new ConnectionTracker(this.dsName, this.dbConfig, this.metrics.connection(),
+                                                                      builder.connectionHoldListener));
+    this.planCollector = new PlanCollector(this.dataSource, this.dbConfig);
+    this.slowQueryLog = new SlowQueryLog(this.dsName, this.dbConfig, this.dbConfig.isExplainSlowQuery()
+        ? builder.slowQueryListener.andThen(this.planCollector)
+        : builder.slowQueryListener);
+    this.accessAnalyzer = new AccessAnalyzer(this.dsName, this.dbConfig, builder.accessReportListener);
+    this.entityCache = new EntityCache(this.dbConfig);
+    this.queryCache = new QueryCache(this.dbConfig);
+    this.singleFlight = new SingleFlight(this.dbConfig, this.queryCache);
+    this.asyncPool = AsyncExecutors.create("orm-async-" + this.dsName, this.dbConfig.getAsyncPoolSize());
+    this.asyncExecutor = this.tracer.wrap(this.asyncPool);
+    this.replicaRouter = builder.replicas.isEmpty() ? null : new ReplicaRouter(builder.replicas, this.dbConfig);
+    this.tableRouters = new HashMap<>(builder.tableRouters);
     // 注册 PropertyHandler
     registerMapper(builder.mapper);
   }
 
+  /**
+   * 创建主键生成器，开启终端ID租约时从租约表申领终端ID、数据中心ID
+   * <p>
+   * 申领租约需要访问数据库，必须在所有字段赋值完成后调用
+   *
+   * @return 主键生成器
+   */
+  private PKGenerator createPKGenerator() {
+    final SegmentAllocator segmentAllocator = new SegmentAllocator(this);
+    if (this.dbConfig.isWorkerIdLease())
+      return new PKGenerator(new WorkerIdLeaseManager(this).acquire(), segmentAllocator);
+
+    return new PKGenerator(this.dbConfig.getWorkerId(), this.dbConfig.getDataCenterId(), segmentAllocator);
+  }
+
   /**
    * 注册 PropertyHandler
    *
@@ -160,6 +265,124 @@ public class DBTemplate {
     return new Database(this);
   }
 
+  /**
+   * 获取读写分离路由
+   *
+   * @return 读写分离路由，未注册只读副本时返回 {@code null}
+   */
+  public ReplicaRouter getReplicaRouter() {
+    return replicaRouter;
+  }
+
+  /**
+   * 获取实体的分表路由
+   *
+   * @param modelClass 实体类型
+   * @return 分表路由，未注册时返回 {@code null}
+   */
+  public TableRouter getTableRouter(Class<?> modelClass) {
+    return tableRouters.get(modelClass);
+  }
+
+  /**
+   * 获取实体二级缓存
+   *
+   * @return {@link EntityCache}
+   */
+  public EntityCache getEntityCache() {
+    return entityCache;
+  }
+
+  /**
+   * 获取查询结果缓存
+   *
+   * @return {@link QueryCache}
+   */
+  public QueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  /**
+   * 获取相同查询合并器，{@link DBConfig#isSingleFlight()} 开启时使用
+   *
+   * @return {@link SingleFlight}
+   */
+  public SingleFlight getSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * 获取 SQL 执行指标
+   *
+   * @return {@link SqlMetrics}，未设置时为 {@link SqlMetrics#NOOP}
+   */
+  public SqlMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * 获取链路追踪
+   *
+   * @return {@link SqlTracer}，未设置时为 {@link SqlTracer#NOOP}
+   */
+  public SqlTracer getTracer() {
+    return tracer;
+  }
+
+  /**
+   * 获取慢查询日志，可按语句指纹单独设置慢查询阈值
+   *
+   * @return {@link SlowQueryLog}
+   */
+  public SlowQueryLog getSlowQueryLog() {
+    return slowQueryLog;
+  }
+
+  /**
+   * 获取慢查询执行计划收集器，开启 {@link DBConfig#isExplainSlowQuery()} 后收集慢查询的执行计划
+   *
+   * @return {@link PlanCollector}
+   */
+  public PlanCollector getPlanCollector() {
+    return planCollector;
+  }
+
+  /**
+   * 获取数据库访问分析器，设置 {@link DBConfig#getRepeatedQueryThreshold()} 后检测作用域内的 N+1 查询
+   *
+   * @return {@link AccessAnalyzer}
+   */
+  public AccessAnalyzer getAccessAnalyzer() {
+    return accessAnalyzer;
+  }
+
+  /**
+   * 获取异步 ORM 执行器，设置链路追踪时提交任务的上下文传递到执行任务的线程
+   *
+   * @return 执行器
+   */
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * 创建 {@link AsyncOrm} 对象
+   *
+   * @return {@link AsyncOrm}
+   */
+  public AsyncOrm createAsyncOrm() {
+    return new AsyncOrm(this);
+  }
+
+  /**
+   * 打开当前线程的批量加载器作用域，作用域内的 {@link BatchLoader#getById(Class, Object)} 合并为每个实体类型一次 {@code findByIds}
+   *
+   * @return {@link BatchLoader}，使用完毕后需要关闭
+   */
+  public BatchLoader createBatchLoader() {
+    return new BatchLoader(this);
+  }
+
   /**
    * 创建 {@link Page} 对象
    *
@@ -223,12 +446,34 @@ public class DBTemplate {
     return instance;
   }
 
+  /**
+   * 关闭数据源：释放终端ID租约，停止号段预加载、异步执行器及慢查询日志线程，并从数据源池中移除
+   * <p>
+   * 不关闭 {@link DataSource}，连接池由创建方管理；在 Spring 中声明为 Bean 时容器销毁时自动调用
+   */
+  @Override
+  public void close() {
+    DBTemplate.remove(dsName, this);
+    final PKGenerator generator = this.pkGenerator;
+    if (null != generator) generator.close();
+    if (asyncPool instanceof ExecutorService) ((ExecutorService) asyncPool).shutdown();
+    slowQueryLog.close();
+  }
+
   public static class Builder {
 
-    private final String     dsName;
-    private       DataSource dataSource;
-    private       DBConfig   config;
-    public final  Mapper     mapper = new Mapper();
+    private final String        dsName;
+    private       DataSource    dataSource;
+    private       DBConfig      config;
+    private final List<Replica> replicas = new ArrayList<>();
+    public final  Mapper        mapper   = new Mapper();
+
+    private final Map<Class<?>, TableRouter> tableRouters           = new HashMap<>();
+    private       SqlMetrics                 metrics                = SqlMetrics.NOOP;
+    private       SqlTracer                  tracer                 = SqlTracer.NOOP;
+    private       Consumer<SlowQuery>        slowQueryListener      = SlowQueryLog.LOGGER;
+    private       Consumer<AccessReport>     accessReportListener   = AccessAnalyzer.LOGGER;
+    private       Consumer<ConnectionHold>   connectionHoldListener = ConnectionTracker.LOGGER;
 
     public Builder() {
       this(DBConfig.DEFAULT_DATASOURCE_NAME);
@@ -246,6 +491,104 @@ public class DBTemplate {
       return this;
     }
 
+    /**
+     * 注册只读副本，权重为 1
+     *
+     * @param dataSource 只读副本数据源
+     * @return Builder
+     */
+    public Builder replica(DataSource dataSource) {
+
+      return replica(dataSource, 1);
+    }
+
+    /**
+     * 注册只读副本，事务外的查询按权重及平均耗时路由到只读副本
+     *
+     * @param dataSource 只读副本数据源
+     * @param weight     权重
+     * @return Builder
+     */
+    public Builder replica(DataSource dataSource, int weight) {
+
+      this.replicas.add(new Replica(Objects.requireNonNull(dataSource, "Replica DataSource is required."), weight));
+      return this;
+    }
+
+    /**
+     * 为实体注册分表路由，实体的增、删、改及按主键查询根据分表键路由到物理表
+     *
+     * @param modelClass  实体类型
+     * @param tableRouter 分表路由
+     * @return Builder
+     */
+    public Builder tableRouter(Class<?> modelClass, TableRouter tableRouter) {
+
+      this.tableRouters.put(modelClass, Objects.requireNonNull(tableRouter, "TableRouter is required."));
+      return this;
+    }
+
+    /**
+     * 设置 SQL 执行指标，记录每条语句各执行阶段的耗时及行数，例如 {@link InMemorySqlMetrics}
+     *
+     * @param metrics {@link SqlMetrics}
+     * @return Builder
+     */
+    public Builder metrics(SqlMetrics metrics) {
+
+      this.metrics = Objects.requireNonNull(metrics, "SqlMetrics is required.");
+      return this;
+    }
+
+    /**
+     * 设置链路追踪，为 Orm 操作及 SQL 语句创建 span，例如 {@link work.myfavs.framework.orm.tracing.OpenTelemetryTracer}
+     *
+     * @param tracer {@link SqlTracer}
+     * @return Builder
+     */
+    public Builder tracer(SqlTracer tracer) {
+
+      this.tracer = Objects.requireNonNull(tracer, "SqlTracer is required.");
+      return this;
+    }
+
+    /**
+     * 设置慢查询监听器，在后台线程中调用，默认以 WARN 级别输出到日志
+     *
+     * @param slowQueryListener 慢查询监听器
+     * @return Builder
+     */
+    public Builder slowQueryListener(Consumer<SlowQuery> slowQueryListener) {
+
+      this.slowQueryListener = Objects.requireNonNull(slowQueryListener, "Slow query listener is required.");
+      return this;
+    }
+
+    /**
+     * 设置数据库访问报告监听器，作用域内存在超出最大执行次数的语句时调用，默认以 WARN 级别输出到日志
+     *
+     * @param accessReportListener 数据库访问报告监听器
+     * @return Builder
+     */
+    public Builder accessReportListener(Consumer<AccessReport> accessReportListener) {
+
+      this.accessReportListener = Objects.requireNonNull(accessReportListener, "Access report listener is required.");
+      return this;
+    }
+
+    /**
+     * 设置长时间持有连接的监听器，持有时长超出 {@link DBConfig#getConnectionHoldMillis()} 的连接在释放时调用，
+     * 默认以 WARN 级别输出到日志
+     *
+     * @param connectionHoldListener 长时间持有连接的监听器
+     * @return Builder
+     */
+    public Builder connectionHoldListener(Consumer<ConnectionHold> connectionHoldListener) {
+
+      this.connectionHoldListener = Objects.requireNonNull(connectionHoldListener, "Connection hold listener is required.");
+      return this;
+    }
+
     public Builder config(Consumer<DBConfig> consumer) {
 
       config = new DBConfig();
@@ -273,7 +616,14 @@ public class DBTemplate {
         this.config = new DBConfig();
       }
 
-      return DBTemplate.add(dsName, new DBTemplate(this));
+      final DBTemplate dbTemplate = new DBTemplate(this);
+      try {
+        dbTemplate.pkGenerator = dbTemplate.createPKGenerator();
+      } catch (RuntimeException ex) {
+        dbTemplate.close();
+        throw ex;
+      }
+      return DBTemplate.add(dsName, dbTemplate);
     }
   }
 
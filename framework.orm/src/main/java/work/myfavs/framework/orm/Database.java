@@ -1,8 +1,12 @@
 package work.myfavs.framework.orm;
 
+import work.myfavs.framework.orm.batch.BatchLoader;
 import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.orm.AsyncOrm;
 import work.myfavs.framework.orm.orm.Orm;
 import work.myfavs.framework.orm.orm.OrmFactory;
+import work.myfavs.framework.orm.replica.Replica;
+import work.myfavs.framework.orm.replica.ReplicaRouter;
 import work.myfavs.framework.orm.util.common.StringUtil;
 import work.myfavs.framework.orm.util.exception.DBException;
 import work.myfavs.framework.orm.util.func.ThrowingConsumer;
@@ -12,16 +16,23 @@ import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.util.function.Consumer;
 
 /**
  * 数据库
+ * <p>
+ * 主库连接在第一次写操作或主库查询时才获取，只在只读副本上查询时不占用主库连接池
  */
 public class Database implements Closeable {
 
   protected final DBTemplate  dbTemplate;
   protected final ConnFactory connFactory;
 
-  private Query query;
+  private Query   query;
+  /**
+   * 是否固定使用主库，为 {@code true} 时查询不路由到只读副本
+   */
+  private boolean primaryOnly;
 
   /**
    * 构造方法，建议通过 {@link DBTemplate#createDatabase()} 创建
@@ -67,6 +78,11 @@ public class Database implements Closeable {
   }
 
 
+  /**
+   * 获取当前线程的主库连接，尚未获取时从连接池获取
+   *
+   * @return 数据库连接
+   */
   public Connection getConnection() {
     return this.connFactory.getCurrentConnection();
   }
@@ -74,11 +90,12 @@ public class Database implements Closeable {
   /**
    * 打开数据库连接，需要与 {@link #close()} 配对使用
    *
-   * @return 如果连接不存在，则创建，否则记录数据库连接打开次数 {@code +1}，并返回 {@link ConnFactory#openConnection()}
+   * @return 记录数据库连接打开次数 {@code +1}，连接推迟到第一次 {@link #getConnection()} 时获取，参考 {@link ConnFactory#openLazily()}
    */
   @SuppressWarnings("resource")
   public Database open() {
-    this.connFactory.openConnection();
+    this.connFactory.openLazily();
+    this.dbTemplate.getAccessAnalyzer().enter();
     return this;
   }
 
@@ -90,9 +107,21 @@ public class Database implements Closeable {
    */
   @Override
   public void close() {
-    if (null != this.query)
-      this.query.close();
-    this.connFactory.closeConnection(getConnection());
+    try {
+      if (null != this.query)
+        this.query.close();
+      boolean released = false;
+      try {
+        this.connFactory.closeConnection(this.connFactory.peekConnection());
+        released = true;
+      } finally {
+        // 连接已释放，由连接工厂决定释放时是否提交事务
+        if (!this.connFactory.isOpened())
+          afterCompletion(released && this.connFactory.commitsOnRelease());
+      }
+    } finally {
+      this.dbTemplate.getAccessAnalyzer().exit();
+    }
   }
 
   /**
@@ -122,6 +151,66 @@ public class Database implements Closeable {
     return OrmFactory.createOrm(this);
   }
 
+  /**
+   * 创建 {@link AsyncOrm}，异步操作使用独立的数据库连接，不参与当前事务
+   *
+   * @return {@link AsyncOrm}
+   */
+  public AsyncOrm createAsyncOrm() {
+    return this.dbTemplate.createAsyncOrm();
+  }
+
+  /**
+   * 打开当前线程的批量加载器作用域，在当前线程执行的批次与当前事务使用同一个连接
+   *
+   * @return {@link BatchLoader}，使用完毕后需要关闭
+   */
+  public BatchLoader createBatchLoader() {
+    return this.dbTemplate.createBatchLoader();
+  }
+
+
+  /**
+   * 固定使用主库，之后通过当前 {@link Database} 执行的查询不路由到只读副本
+   * <p>
+   * 用于先读后乐观更新的场景（如号段、终端ID租约），避免副本复制延迟导致更新反复失败
+   *
+   * @return 当前 {@link Database}
+   */
+  public Database usePrimary() {
+    this.primaryOnly = true;
+    return this;
+  }
+
+  /**
+   * 为当前查询选择只读副本
+   *
+   * @return 只读副本，需要使用主库时返回 {@code null}
+   */
+  public Replica selectReplica() {
+    final ReplicaRouter router = this.dbTemplate.getReplicaRouter();
+    if (null == router || this.primaryOnly || this.connFactory.isInWriteTransaction()) return null;
+
+    return router.select(this.connFactory.peekConnection());
+  }
+
+  /**
+   * 记录在主库连接上执行了写操作，之后当前连接上的查询使用主库
+   */
+  public void markWrite() {
+    final ReplicaRouter router = this.dbTemplate.getReplicaRouter();
+    if (null != router) router.markWrite(getConnection());
+  }
+
+  /**
+   * 记录在主库连接上执行了写操作，并删除 SQL 引用的数据表的查询结果缓存
+   *
+   * @param sql 写操作 SQL 语句
+   */
+  public void markWrite(String sql) {
+    markWrite();
+    this.dbTemplate.getQueryCache().invalidate(sql);
+  }
 
   public Savepoint setSavepoint() {
     try {
@@ -146,10 +235,15 @@ public class Database implements Closeable {
   public void rollback(Savepoint savepoint) {
     try {
       if (null == savepoint) {
-        getConnection().rollback();
+        // 尚未获取主库连接时没有需要回滚的写操作
+        final Connection connection = this.connFactory.peekConnection();
+        if (null != connection) connection.rollback();
+        afterCompletion(false);
         return;
       }
       getConnection().rollback(savepoint);
+      // 无法确定回滚到保存点撤销了哪些写操作，按未提交处理已注册的回调
+      this.connFactory.afterCompletion(false);
 
     } catch (SQLException e) {
       throw new DBException(e, "回滚事务时发生异常: %s", e.getMessage());
@@ -158,19 +252,56 @@ public class Database implements Closeable {
 
   public void commit() {
 
-    Connection connection = getConnection();
+    Connection connection = this.connFactory.peekConnection();
     if (null == connection) return;
 
+    boolean committed = false;
     try {
-      if (connection.getAutoCommit()) return;
+      // 自动提交模式下语句执行时已提交
+      committed = connection.getAutoCommit();
+      if (committed) return;
       if (connection.isClosed()) return;
 
       connection.commit();
+      committed = true;
     } catch (SQLException e) {
       throw new DBException(e, "提交事务时发生异常: %s", e.getMessage());
+    } finally {
+      afterCompletion(committed);
     }
   }
 
+  /**
+   * 注册当前事务结束时调用的回调，参数为写操作是否已提交：自动提交模式下立即以 {@code true} 调用，
+   * 否则在 {@link #commit()}、{@link #rollback()} 或释放连接时调用，由外部（如 Spring）管理事务时在外部事务结束时调用
+   *
+   * @param callback 回调
+   */
+  public void registerCompletion(Consumer<Boolean> callback) {
+    final Connection connection = this.connFactory.peekConnection();
+    try {
+      if (null == connection || connection.getAutoCommit()) {
+        callback.accept(null != connection);
+        return;
+      }
+    } catch (SQLException e) {
+      throw new DBException(e, "获取事务提交模式时发生异常: %s", e.getMessage());
+    }
+    this.connFactory.registerCompletion(callback);
+  }
+
+  /**
+   * 当前线程的事务结束（提交、回滚或释放连接）后，再次删除事务中写过的实体缓存和查询结果缓存，
+   * 并执行已注册的回调
+   *
+   * @param committed 事务是否已提交
+   */
+  private void afterCompletion(boolean committed) {
+    this.dbTemplate.getEntityCache().afterCompletion();
+    this.dbTemplate.getQueryCache().afterCompletion();
+    this.connFactory.afterCompletion(committed);
+  }
+
   /**
    * 在事务中执行 {@link ThrowingFunction#apply(Object)}
    *
@@ -180,6 +311,7 @@ public class Database implements Closeable {
    */
   public <TResult> TResult tx(ThrowingFunction<Orm, TResult, SQLException> func) {
 
+    beginWriteTx();
     try (Database database = this.open()) {
       Orm     orm    = database.createOrm();
       TResult result = func.apply(orm);
@@ -188,6 +320,8 @@ public class Database implements Closeable {
     } catch (SQLException e) {
       this.rollback();
       throw new DBException(e, "执行事务过程中发生异常: %s", e.getMessage());
+    } finally {
+      endWriteTx();
     }
   }
 
@@ -198,6 +332,7 @@ public class Database implements Closeable {
    */
   public void tx(ThrowingConsumer<Orm, SQLException> consumer) {
 
+    beginWriteTx();
     try (Database database = this.open()) {
       Orm orm = database.createOrm();
       consumer.accept(orm);
@@ -205,6 +340,18 @@ public class Database implements Closeable {
     } catch (SQLException e) {
       this.rollback();
       throw new DBException(e, "执行事务过程中发生异常: %s", e.getMessage());
+    } finally {
+      endWriteTx();
     }
   }
+
+  private void beginWriteTx() {
+    final ReplicaRouter router = this.dbTemplate.getReplicaRouter();
+    if (null != router) router.beginWriteTx();
+  }
+
+  private void endWriteTx() {
+    final ReplicaRouter router = this.dbTemplate.getReplicaRouter();
+    if (null != router) router.endWriteTx();
+  }
 }
@@ -1,5 +1,8 @@
 package work.myfavs.framework.orm;
 
+import work.myfavs.framework.orm.jfr.ConnectionAcquireEvent;
+import work.myfavs.framework.orm.jfr.ConnectionReleaseEvent;
+import work.myfavs.framework.orm.metrics.ConnectionTracker;
 import work.myfavs.framework.orm.util.exception.DBException;
 
 import javax.sql.DataSource;
@@ -8,13 +11,17 @@ import java.sql.SQLException;
 
 /**
  * JDBC 连接工厂
+ * <p>
+ * 连接与线程绑定，并记录打开次数；{@link #openLazily()} 打开后，到第一次 {@link #getCurrentConnection()} 时才从数据源获取连接，
+ * 打开次数归零时释放
  *
  * @author tanqimin
  */
 public class JdbcConnFactory extends ConnFactory {
 
-  private final ThreadLocal<Connection> connectionHolder     = new ThreadLocal<>();
-  private final ThreadLocal<Integer>    connectionDeepHolder = new ThreadLocal<>();
+  private final ThreadLocal<Connection>             connectionHolder     = new ThreadLocal<>();
+  private final ThreadLocal<Integer>                connectionDeepHolder = new ThreadLocal<>();
+  private final ThreadLocal<ConnectionTracker.Hold> holdHolder           = new ThreadLocal<>();
 
   public JdbcConnFactory(DataSource dataSource) {
 
@@ -24,24 +31,84 @@ public class JdbcConnFactory extends ConnFactory {
   @Override
   public Connection openConnection() {
 
-    Connection connection = getCurrentConnection();
-    if (null == connection) {
-      connectionDeepHolder.set(1);
-      connection = createConnection();
-      connectionHolder.set(connection);
-      return connection;
-    }
+    openLazily();
+    return getCurrentConnection();
+  }
 
-    connectionDeepHolder.set(connectionDeepHolder.get() + 1);
-    return connection;
+  @Override
+  public void openLazily() {
+
+    final Integer current = connectionDeepHolder.get();
+    final int     depth   = null == current ? 1 : current + 1;
+    connectionDeepHolder.set(depth);
+    final ConnectionTracker.Hold hold = holdHolder.get();
+    if (null != hold) hold.opened(depth);
   }
 
+  /**
+   * 获取当前线程的连接，已打开但尚未获取时从数据源获取
+   *
+   * @return 数据库链接，未打开时返回 {@code null}
+   */
   @Override
   public Connection getCurrentConnection() {
 
+    Connection connection = connectionHolder.get();
+    if (null != connection) return connection;
+
+    final Integer depth = connectionDeepHolder.get();
+    if (null == depth) return null;
+
+    final ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+    event.begin();
+    final long start = System.nanoTime();
+    connection = createConnection();
+    event.commit(connectionTracker.getDsName());
+    connectionHolder.set(connection);
+
+    final ConnectionTracker.Hold hold = connectionTracker.acquired(start);
+    hold.opened(depth);
+    holdHolder.set(hold);
+    return connection;
+  }
+
+  @Override
+  public Connection peekConnection() {
+
     return connectionHolder.get();
   }
 
+  @Override
+  public boolean isOpened() {
+
+    return null != connectionDeepHolder.get();
+  }
+
+  @Override
+  public long getConnectionHoldNanos() {
+
+    final ConnectionTracker.Hold hold = holdHolder.get();
+    return null == hold ? -1 : hold.getHoldNanos();
+  }
+
+  @Override
+  public void statementExecuted(long elapsedNanos) {
+
+    final ConnectionTracker.Hold hold = holdHolder.get();
+    if (null != hold) hold.executed(elapsedNanos);
+  }
+
+  /**
+   * 释放连接时提交未提交的事务，参考 {@link #releaseConnection(Connection)}
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean commitsOnRelease() {
+
+    return true;
+  }
+
   @Override
   public void closeConnection(Connection connection) {
     final Integer connDeep = connectionDeepHolder.get();
@@ -52,11 +119,20 @@ public class JdbcConnFactory extends ConnFactory {
 
     Connection conn = connection;
     if (null == conn)
-      conn = getCurrentConnection();
+      conn = connectionHolder.get();
 
-    releaseConnection(conn);
-    connectionHolder.remove();
-    connectionDeepHolder.remove();
+    final ConnectionTracker.Hold hold  = holdHolder.get();
+    final ConnectionReleaseEvent event = new ConnectionReleaseEvent();
+    event.begin();
+    try {
+      releaseConnection(conn);
+      if (null != hold) event.commit(connectionTracker.getDsName(), hold);
+    } finally {
+      connectionHolder.remove();
+      connectionDeepHolder.remove();
+      holdHolder.remove();
+      if (null != hold) connectionTracker.released(hold);
+    }
   }
 
   /**
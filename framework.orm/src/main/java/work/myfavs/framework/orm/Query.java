@@ -1,7 +1,15 @@
 package work.myfavs.framework.orm;
 
+import work.myfavs.framework.orm.jfr.QueryEvent;
 import work.myfavs.framework.orm.meta.BatchParameters;
 import work.myfavs.framework.orm.meta.SqlLog;
+import work.myfavs.framework.orm.metrics.Phase;
+import work.myfavs.framework.orm.metrics.StatementMetrics;
+import work.myfavs.framework.orm.metrics.ThreadAllocations;
+import work.myfavs.framework.orm.replica.Replica;
+import work.myfavs.framework.orm.replica.ReplicaRouter;
+import work.myfavs.framework.orm.tracing.SqlSpan;
+import work.myfavs.framework.orm.tracing.SqlTracer;
 import work.myfavs.framework.orm.util.common.CollectionUtil;
 import work.myfavs.framework.orm.util.convert.DBConvert;
 import work.myfavs.framework.orm.util.exception.DBException;
@@ -13,6 +21,7 @@ import java.sql.*;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 对 JDBC 查询基本封装
@@ -23,6 +32,8 @@ public class Query implements Closeable {
   private final int               batchSize;
   private final int               fetchSize;
   private final SqlLog            sqlLog;
+  private final boolean           trackAllocations;
+  private final SqlTracer         tracer;
   private       PreparedStatement preparedStatement;
   private       String            sql;
   private       boolean           autoGeneratedPK     = false;
@@ -32,6 +43,16 @@ public class Query implements Closeable {
   //批量查询参数
   private final BatchParameters batchParameters = new BatchParameters();
 
+  /**
+   * 当前 SQL 语句的指标记录器
+   */
+  private StatementMetrics metrics = StatementMetrics.NOOP;
+
+  /**
+   * 当前 SQL 语句的慢查询阈值（纳秒）
+   */
+  private long slowQueryNanos = Long.MAX_VALUE;
+
   /**
    * 构造方法，推荐使用 {@link Database#createQuery(String, boolean)} 创建示例
    *
@@ -48,6 +69,8 @@ public class Query implements Closeable {
         database.getDbConfig().getShowSql(),
         database.getDbConfig().getShowResult()
     );
+    this.trackAllocations = database.getDbConfig().isTrackAllocations() && ThreadAllocations.isSupported();
+    this.tracer = database.getDbTemplate().getTracer();
 
     createQuery(sql, autoGeneratedPK);
   }
@@ -74,6 +97,8 @@ public class Query implements Closeable {
 
     this.sql = sql;
     this.autoGeneratedPK = autoGeneratedPK;
+    this.metrics = this.database.getDbTemplate().getMetrics().statement(this.database.getDbConfig().getDbType(), sql);
+    this.slowQueryNanos = this.database.getDbTemplate().getSlowQueryLog().thresholdNanos(sql);
     this.alreadySetFetchSize = false;
     this.clearParameters();
     this.closePreparedStatement();
@@ -90,12 +115,15 @@ public class Query implements Closeable {
 
     if (null != this.preparedStatement) return this.preparedStatement;
 
+    final long start = System.nanoTime();
     try {
       if (this.autoGeneratedPK) {
-        return this.preparedStatement = getConnection().prepareStatement(this.sql, Statement.RETURN_GENERATED_KEYS);
+        this.preparedStatement = getConnection().prepareStatement(this.sql, Statement.RETURN_GENERATED_KEYS);
+      } else {
+        this.preparedStatement = getConnection().prepareStatement(this.sql);
       }
-
-      return this.preparedStatement = getConnection().prepareStatement(this.sql);
+      this.metrics.record(Phase.PREPARE, System.nanoTime() - start);
+      return this.preparedStatement;
     } catch (SQLException e) {
       throw new DBException(e, "创建 preparedStatement 时发生异常: %s", e.getMessage());
     }
@@ -154,14 +182,60 @@ public class Query implements Closeable {
    */
   public <TModel> List<TModel> find(Class<TModel> modelClass) {
 
+    final SqlSpan span = this.startSpan("find");
+    try {
+      final List<TModel> result = this.doFind(modelClass);
+      span.rows(result.size());
+      return result;
+    } catch (RuntimeException ex) {
+      span.error(ex);
+      throw ex;
+    } finally {
+      span.end();
+    }
+  }
+
+  /**
+   * 执行查询，优先在只读副本上执行
+   *
+   * @param modelClass 实体类型
+   * @param <TModel>   实体类型泛型
+   * @return 实体集合
+   */
+  private <TModel> List<TModel> doFind(Class<TModel> modelClass) {
+
+    final QueryEvent event = new QueryEvent("find");
+    event.begin();
+
+    final long    allocatedAt = this.allocatedBytes();
+    final Replica replica     = this.database.selectReplica();
+    if (null != replica) {
+      try {
+        return this.findOnReplica(replica, modelClass, event, allocatedAt);
+      } catch (SQLException ex) {
+        if (!ReplicaRouter.isConnectionFailure(ex)) {
+          this.clearParameters();
+          throw new DBException(ex, "执行 executeQuery 查询时发生异常: %s", ex.getMessage());
+        }
+        // 副本连接不可用时记录失败并回退到主库
+        this.database.getDbTemplate().getReplicaRouter().failure(replica, ex);
+      } catch (RuntimeException ex) {
+        this.clearParameters();
+        throw ex;
+      }
+    }
+
     final PreparedStatement preparedStatement = createPreparedStatement();
+    final long              start             = System.nanoTime();
 
     this.setFetchSize(preparedStatement);
     this.applyParameters(preparedStatement);
     this.showParameters();
 
     try (final ResultSet resultSet = this.execQuery(preparedStatement)) {
-      return this.convertToList(modelClass, resultSet);
+      final List<TModel> result = this.convertToList(modelClass, resultSet);
+      this.afterExecute(event, start, allocatedAt, result.size(), false);
+      return result;
     } catch (SQLException ex) {
       throw new DBException(ex, "执行 executeQuery 查询时发生异常: %s", ex.getMessage());
     } finally {
@@ -169,6 +243,60 @@ public class Query implements Closeable {
     }
   }
 
+  /**
+   * 在只读副本上执行查询，使用独立的连接，查询结束后立即归还
+   *
+   * @param replica     只读副本
+   * @param modelClass  实体类型
+   * @param event       JFR 事件
+   * @param allocatedAt 开始时当前线程累计分配的字节数，不统计时为 {@code -1}
+   * @param <TModel>    实体类型泛型
+   * @return 实体集合
+   * @throws SQLException 副本连接或执行查询时发生的异常
+   */
+  private <TModel> List<TModel> findOnReplica(Replica replica, Class<TModel> modelClass, QueryEvent event, long allocatedAt) throws SQLException {
+
+    final long       start = System.nanoTime();
+    final Connection connection;
+    try {
+      connection = replica.getConnection();
+    } catch (SQLException ex) {
+      // 无法获取副本连接均视为副本不可用
+      throw new SQLTransientConnectionException(ex.getMessage(), "08001", ex);
+    }
+
+    try (connection;
+         final PreparedStatement preparedStatement = this.prepareOnReplica(connection)) {
+
+      if (this.fetchSize > 0) preparedStatement.setFetchSize(this.fetchSize);
+      this.applyParameters(preparedStatement);
+      this.showParameters();
+
+      try (final ResultSet resultSet = this.execQuery(preparedStatement)) {
+        final List<TModel> result = this.convertToList(modelClass, resultSet);
+        replica.success(System.nanoTime() - start);
+        this.afterExecute(event, start, allocatedAt, result.size(), true);
+        this.clearParameters();
+        return result;
+      }
+    }
+  }
+
+  /**
+   * 在副本连接上创建 {@link PreparedStatement}，并进行性能统计
+   *
+   * @param connection 副本连接
+   * @return {@link PreparedStatement}
+   * @throws SQLException 创建过程抛出的异常
+   */
+  private PreparedStatement prepareOnReplica(Connection connection) throws SQLException {
+
+    final long              start             = System.nanoTime();
+    final PreparedStatement preparedStatement = connection.prepareStatement(this.sql);
+    this.metrics.record(Phase.PREPARE, System.nanoTime() - start);
+    return preparedStatement;
+  }
+
   /**
    * 执行查询，并返回指定类型的实体
    *
@@ -192,16 +320,47 @@ public class Query implements Closeable {
   public int execute(ThrowingConsumer<PreparedStatement, SQLException> configConsumer,
                      ThrowingConsumer<ResultSet, SQLException> keysConsumer) {
 
+    final SqlSpan span = this.startSpan("execute");
+    try {
+      final int result = this.doExecute(configConsumer, keysConsumer);
+      span.rows(result);
+      return result;
+    } catch (RuntimeException ex) {
+      span.error(ex);
+      throw ex;
+    } finally {
+      span.end();
+    }
+  }
+
+  /**
+   * 执行更新
+   *
+   * @param configConsumer 在执行查询前允许，可对 PreparedStatement 进行设置
+   * @param keysConsumer   在执行查询后执行，获取生成的 Key 值
+   * @return 影响行数
+   */
+  private int doExecute(ThrowingConsumer<PreparedStatement, SQLException> configConsumer,
+                        ThrowingConsumer<ResultSet, SQLException> keysConsumer) {
+
+    final QueryEvent event = new QueryEvent("execute");
+    event.begin();
+
+    final long              allocatedAt       = this.allocatedBytes();
     final PreparedStatement preparedStatement = createPreparedStatement();
 
     try {
       if (null != configConsumer)
         configConsumer.accept(preparedStatement);
+
+      final long start = System.nanoTime();
       this.applyParameters(preparedStatement);
       this.showParameters();
 
       final int result = execUpdate(preparedStatement);
+      this.database.markWrite(this.sql);
       this.generatedKeys(preparedStatement, keysConsumer);
+      this.afterExecute(event, start, allocatedAt, result, false);
       return result;
     } catch (SQLException e) {
       throw new DBException(e, "执行 executeUpdate 查询时发生异常: %s", e.getMessage());
@@ -236,14 +395,43 @@ public class Query implements Closeable {
    */
   public int[] executeBatch(ThrowingConsumer<ResultSet, SQLException> keysConsumer) {
 
+    final SqlSpan span = this.startSpan("executeBatch");
+    try {
+      if (span.isRecording()) span.batchSize(this.batchParameters.size());
+      final int[] result = this.doExecuteBatch(keysConsumer);
+      span.rows(affectedRows(result));
+      return result;
+    } catch (RuntimeException ex) {
+      span.error(ex);
+      throw ex;
+    } finally {
+      span.end();
+    }
+  }
+
+  /**
+   * 执行批量更新
+   *
+   * @param keysConsumer 在执行查询后执行，获取生成的 Key 值
+   * @return 返回数组，包含每个查询的影响行数
+   */
+  private int[] doExecuteBatch(ThrowingConsumer<ResultSet, SQLException> keysConsumer) {
+
+    final QueryEvent event = new QueryEvent("executeBatch");
+    event.begin();
+
+    final long              allocatedAt       = this.allocatedBytes();
     final PreparedStatement preparedStatement = createPreparedStatement();
 
     try {
+      final long start = System.nanoTime();
       this.applyBatchParameters(preparedStatement);
       this.showParameters();
 
       final int[] result = execBatch(preparedStatement);
+      this.database.markWrite(this.sql);
       this.generatedKeys(preparedStatement, keysConsumer);
+      this.afterExecute(event, start, allocatedAt, affectedRows(result), false);
       return result;
     } catch (SQLException e) {
       throw new DBException(e, "执行 executeBatch 查询时发生异常: %s", e.getMessage());
@@ -296,11 +484,12 @@ public class Query implements Closeable {
    */
   private ResultSet execQuery(PreparedStatement preparedStatement) throws SQLException {
 
-    final long start     = System.currentTimeMillis();
+    final long start     = System.nanoTime();
     ResultSet  resultSet = preparedStatement.executeQuery();
-    final long end       = System.currentTimeMillis();
+    final long elapsed   = System.nanoTime() - start;
 
-    this.sqlLog.showResult("执行 executeQuery 查询消耗时间: {} ms", end - start);
+    this.metrics.record(Phase.EXECUTE, elapsed);
+    this.sqlLog.showResult("执行 executeQuery 查询消耗时间: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
     return resultSet;
   }
 
@@ -315,12 +504,14 @@ public class Query implements Closeable {
    */
   private <TModel> List<TModel> convertToList(Class<TModel> modelClass, ResultSet resultSet) throws SQLException {
 
-    final long   start  = System.currentTimeMillis();
-    List<TModel> result = DBConvert.toList(modelClass, resultSet);
-    final long   end    = System.currentTimeMillis();
+    final long   start   = System.nanoTime();
+    List<TModel> result  = DBConvert.toList(modelClass, resultSet, this.database.getDbConfig().isDirtyTracking());
+    final long   elapsed = System.nanoTime() - start;
 
+    this.metrics.record(Phase.FETCH, elapsed);
+    this.metrics.rowsReturned(result.size());
     this.sqlLog.showResult(modelClass, result);
-    this.sqlLog.showResult("ResultSet 转换成 List<{}> 消耗时间: {} ms", modelClass.getSimpleName(), end - start);
+    this.sqlLog.showResult("ResultSet 转换成 List<{}> 消耗时间: {} ms", modelClass.getSimpleName(), TimeUnit.NANOSECONDS.toMillis(elapsed));
     return result;
   }
 
@@ -334,11 +525,11 @@ public class Query implements Closeable {
    */
   private ResultSet getGeneratedKeys(PreparedStatement preparedStatement) throws SQLException {
 
-    final long start     = System.currentTimeMillis();
+    final long start     = System.nanoTime();
     ResultSet  resultSet = preparedStatement.getGeneratedKeys();
-    final long end       = System.currentTimeMillis();
+    final long elapsed   = System.nanoTime() - start;
 
-    this.sqlLog.showResult("生成主键消耗时间: {} ms", end - start);
+    this.sqlLog.showResult("生成主键消耗时间: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
     return resultSet;
   }
 
@@ -351,12 +542,14 @@ public class Query implements Closeable {
    */
   private Integer execUpdate(PreparedStatement preparedStatement) throws SQLException {
 
-    final long start  = System.currentTimeMillis();
-    int        result = preparedStatement.executeUpdate();
-    final long end    = System.currentTimeMillis();
+    final long start   = System.nanoTime();
+    int        result  = preparedStatement.executeUpdate();
+    final long elapsed = System.nanoTime() - start;
 
+    this.metrics.record(Phase.EXECUTE, elapsed);
+    this.metrics.rowsAffected(result);
     this.sqlLog.showAffectedRows(result);
-    this.sqlLog.showResult("执行 executeUpdate 查询消耗时间: {} ms", end - start);
+    this.sqlLog.showResult("执行 executeUpdate 查询消耗时间: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
     return result;
   }
 
@@ -369,15 +562,77 @@ public class Query implements Closeable {
    */
   private int[] execBatch(PreparedStatement preparedStatement) throws SQLException {
 
-    final long start  = System.currentTimeMillis();
-    int[]      result = preparedStatement.executeBatch();
-    final long end    = System.currentTimeMillis();
+    final long start   = System.nanoTime();
+    int[]      result  = this.batchParameters.executeBatch(preparedStatement);
+    final long elapsed = System.nanoTime() - start;
 
+    this.metrics.record(Phase.EXECUTE, elapsed);
+    this.metrics.rowsAffected(affectedRows(result));
     this.sqlLog.showAffectedRows(result.length);
-    this.sqlLog.showResult("执行 executeBatch 查询消耗时间: {} ms", end - start);
+    this.sqlLog.showResult("执行 executeBatch 查询消耗时间: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
     return result;
   }
 
+  /**
+   * 合计批量更新的影响行数
+   *
+   * @param result 每个查询的影响行数
+   * @return 影响行数
+   */
+  private static long affectedRows(int[] result) {
+
+    long affected = 0;
+    for (int rows : result) {
+      // 驱动无法获知影响行数时返回 SUCCESS_NO_INFO（负数）
+      if (rows > 0) affected += rows;
+    }
+    return affected;
+  }
+
+  /**
+   * 执行结束后记录本次往返（N+1 查询检测）、分配的内存、连接的忙碌时间及 JFR 事件，执行耗时（含参数绑定、读取结果）达到慢查询阈值时，记录慢查询日志（异步输出）
+   *
+   * @param event       JFR 事件
+   * @param start       开始时间（纳秒）
+   * @param allocatedAt 开始时当前线程累计分配的字节数，不统计时为 {@code -1}
+   * @param rows        返回或影响的行数
+   * @param onReplica   是否在只读副本上执行，只读副本的连接在查询开始时获取
+   */
+  private void afterExecute(QueryEvent event, long start, long allocatedAt, long rows, boolean onReplica) {
+
+    if (allocatedAt >= 0) this.metrics.allocated(ThreadAllocations.since(allocatedAt));
+    event.commit(this.database.getDbTemplate().getDsName(), this.database.getDbConfig().getDbType(), this.sql, rows, onReplica);
+    this.database.getDbTemplate().getAccessAnalyzer().record(this.sql, rows);
+
+    final long elapsed = System.nanoTime() - start;
+    if (!onReplica) this.database.connFactory.statementExecuted(elapsed);
+    if (elapsed < this.slowQueryNanos) return;
+
+    final long holdNanos = onReplica ? elapsed : this.database.connFactory.getConnectionHoldNanos();
+    this.database.getDbTemplate().getSlowQueryLog().offer(this.sql, this.batchParameters, rows, elapsed, holdNanos);
+  }
+
+  /**
+   * 开始追踪当前 SQL 语句的执行，未设置链路追踪时返回 {@link SqlSpan#NOOP}
+   *
+   * @param operation find、execute 或 executeBatch
+   * @return {@link SqlSpan}
+   */
+  private SqlSpan startSpan(String operation) {
+
+    return this.tracer.statement(this.database.getDbTemplate().getDsName(), this.database.getDbConfig().getDbType(), operation, this.sql);
+  }
+
+  /**
+   * 获取当前线程累计分配的字节数
+   *
+   * @return 字节数，未开启统计分配的内存时返回 {@code -1}
+   */
+  private long allocatedBytes() {
+
+    return this.trackAllocations ? ThreadAllocations.current() : -1;
+  }
+
   /**
    * 封装主键值转换为主键类型，并进行性能统计
    *
@@ -386,11 +641,11 @@ public class Query implements Closeable {
    */
   private void acceptKeysRunnable(ThrowingRunnable<SQLException> runnable) throws SQLException {
 
-    final long start = System.currentTimeMillis();
+    final long start = System.nanoTime();
     runnable.run();
-    final long end = System.currentTimeMillis();
+    final long elapsed = System.nanoTime() - start;
 
-    this.sqlLog.showResult("主键 ResultSet 转换消耗时间: {} ms", end - start);
+    this.sqlLog.showResult("主键 ResultSet 转换消耗时间: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
   }
 
   /**
@@ -408,7 +663,9 @@ public class Query implements Closeable {
    */
   private void applyParameters(PreparedStatement preparedStatement) {
 
+    final long start = System.nanoTime();
     this.batchParameters.applyParameters(preparedStatement);
+    this.metrics.record(Phase.BIND, System.nanoTime() - start);
   }
 
   /**
@@ -418,7 +675,9 @@ public class Query implements Closeable {
    */
   private void applyBatchParameters(PreparedStatement preparedStatement) {
 
+    final long start = System.nanoTime();
     this.batchParameters.applyBatchParameters(preparedStatement, this.batchSize);
+    this.metrics.record(Phase.BIND, System.nanoTime() - start);
   }
 
   /**
@@ -443,9 +702,11 @@ public class Query implements Closeable {
 
     if (!this.autoGeneratedPK) return;
 
+    final long start = System.nanoTime();
     try (final ResultSet resultSet = getGeneratedKeys(preparedStatement)) {
       this.acceptKeysRunnable(() -> keysConsumer.accept(resultSet));
     }
+    this.metrics.record(Phase.GENERATED_KEYS, System.nanoTime() - start);
   }
 
   /**
@@ -0,0 +1,247 @@
+package work.myfavs.framework.orm.batch;
+
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.util.common.CollectionUtil;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 批量加载器，把多次按主键查询合并为每个实体类型一次 {@code findByIds}
+ * <p>
+ * 在 {@link DBTemplate#createBatchLoader()} 打开的作用域内，{@link #getById(Class, Object)} 不会立即查询数据库，而是返回
+ * {@link CompletableFuture}；以下任一情况发生时，按实体类型分组执行 {@code findByIds} 并完成全部等待中的结果：
+ * <ul>
+ *   <li>调用 {@link #dispatch()}，或对返回的结果（及其派生结果）调用 {@code join()}、{@code get()}；</li>
+ *   <li>等待中的主键数量达到 {@link DBConfig#getBatchLoaderMaxSize()}；</li>
+ *   <li>{@link DBConfig#getBatchLoaderWindow()} 大于 0 时，第一个请求加入后经过该时间的下一次 {@link #getById(Class, Object)}；</li>
+ *   <li>关闭作用域 {@link #close()}。</li>
+ * </ul>
+ * 同一批次中相同实体类型、相同主键的请求共享同一个结果；查询不到记录时结果为 {@code null}，查询失败时结果以该异常完成。
+ * 作用域与线程绑定，{@link #current(DBTemplate)} 获取当前线程打开的批量加载器；批次在触发执行的线程中查询，
+ * 与该线程当前的连接和事务相同，可以读到事务中未提交的写入。
+ * <p>
+ * 批次只在创建批量加载器的线程中执行：其他线程的 {@link #getById(Class, Object)} 只加入请求，
+ * 其他线程调用 {@link #dispatch()} 或等待尚未完成的结果时抛出 {@link DBException}，避免在其他线程的连接上查询。
+ */
+public class BatchLoader implements AutoCloseable {
+
+  private static final ThreadLocal<Map<DBTemplate, BatchLoader>> SCOPES = ThreadLocal.withInitial(HashMap::new);
+
+  private final DBTemplate  dbTemplate;
+  private final Thread      owner;
+  private final BatchLoader previous;
+  private final long        windowNanos;
+  private final int         maxSize;
+
+  /**
+   * 等待中的请求：实体类型 - 主键 - 结果
+   */
+  private Map<Class<?>, Map<Object, LoaderFuture<?>>> queue = new LinkedHashMap<>();
+  private int                                         pendingCount;
+
+  /**
+   * 批次的到期时间（{@link System#nanoTime()}），第一个请求加入时开始计时
+   */
+  private long deadline;
+
+  /**
+   * 构造方法，推荐使用 {@link DBTemplate#createBatchLoader()} 创建实例
+   *
+   * @param dbTemplate {@link DBTemplate}
+   */
+  public BatchLoader(DBTemplate dbTemplate) {
+    final DBConfig dbConfig = dbTemplate.getDbConfig();
+    this.dbTemplate = dbTemplate;
+    this.owner = Thread.currentThread();
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(dbConfig.getBatchLoaderWindow());
+    this.maxSize = Math.max(dbConfig.getBatchLoaderMaxSize(), 1);
+    this.previous = SCOPES.get().put(dbTemplate, this);
+  }
+
+  /**
+   * 获取当前线程打开的批量加载器
+   *
+   * @param dbTemplate {@link DBTemplate}
+   * @return {@link BatchLoader}，未打开时返回 {@code null}
+   */
+  public static BatchLoader current(DBTemplate dbTemplate) {
+    return SCOPES.get().get(dbTemplate);
+  }
+
+  /**
+   * 根据主键获取记录，返回的结果在批次执行后完成
+   *
+   * @param modelClass 实体类型
+   * @param id         主键
+   * @param <TModel>   实体类型泛型
+   * @return 记录，查询不到时为 {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public <TModel> CompletableFuture<TModel> getById(Class<TModel> modelClass, Object id) {
+    if (null == id) return CompletableFuture.completedFuture(null);
+
+    final LoaderFuture<TModel> future;
+    final boolean              due;
+    synchronized (this) {
+      final long now = System.nanoTime();
+      if (0 == pendingCount) deadline = now + windowNanos;
+
+      final Map<Object, LoaderFuture<?>> ids      = queue.computeIfAbsent(modelClass, k -> new LinkedHashMap<>());
+      final Object                       key      = normalize(id);
+      final LoaderFuture<?>              existing = ids.get(key);
+      if (null != existing) return (CompletableFuture<TModel>) existing;
+
+      future = new LoaderFuture<>(this);
+      ids.put(key, future);
+      due = ++pendingCount >= maxSize || (windowNanos > 0 && now - deadline >= 0);
+    }
+
+    if (due && Thread.currentThread() == owner) dispatch();
+    return future;
+  }
+
+  /**
+   * 获取等待中的请求数量
+   *
+   * @return 请求数量
+   */
+  public synchronized int getPendingCount() {
+    return pendingCount;
+  }
+
+  /**
+   * 执行等待中的全部请求：每个实体类型执行一次 {@code findByIds}（超过 {@link DBConfig#getBatchLoaderMaxSize()} 时分批执行）
+   * <p>
+   * 查询失败时对应的结果以该异常完成；发生 {@link Error} 时先完成全部结果，再抛出该 {@link Error}
+   *
+   * @throws DBException 不在创建批量加载器的线程中调用时
+   */
+  public void dispatch() {
+    if (Thread.currentThread() != owner)
+      throw new DBException("批量加载器只能在创建它的线程 %s 中执行批次, 当前线程: %s", owner.getName(), Thread.currentThread().getName());
+
+    final Map<Class<?>, Map<Object, LoaderFuture<?>>> batch;
+    synchronized (this) {
+      if (0 == pendingCount) return;
+      batch = queue;
+      queue = new LinkedHashMap<>();
+      pendingCount = 0;
+    }
+
+    Error error = null;
+    for (Map.Entry<Class<?>, Map<Object, LoaderFuture<?>>> entry : batch.entrySet()) {
+      final Throwable ex = load(entry.getKey(), entry.getValue());
+      if (ex instanceof Error && null == error) error = (Error) ex;
+    }
+    if (null != error) throw error;
+  }
+
+  /**
+   * 执行等待中的请求并关闭作用域
+   */
+  @Override
+  public void close() {
+    try {
+      dispatch();
+    } finally {
+      final Map<DBTemplate, BatchLoader> scopes = SCOPES.get();
+      if (scopes.get(dbTemplate) == this) {
+        if (null == previous) {
+          scopes.remove(dbTemplate);
+        } else {
+          scopes.put(dbTemplate, previous);
+        }
+      }
+    }
+  }
+
+  /**
+   * 查询一个实体类型的请求，返回失败的异常，成功时返回 {@code null}
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Throwable load(Class<?> modelClass, Map<Object, LoaderFuture<?>> futures) {
+    try {
+      final Attribute    primaryKey = Metadata.entityMeta(modelClass).checkPrimaryKey();
+      final List<Object> ids        = new ArrayList<>(futures.keySet());
+      for (List<Object> chunk : CollectionUtil.split(ids, maxSize)) {
+        final List<?> entities;
+        try (Database database = dbTemplate.createDatabase()) {
+          entities = database.createOrm().findByIds(modelClass, chunk);
+        }
+        for (Object entity : entities) {
+          final LoaderFuture future = futures.remove(normalize(primaryKey.getValue(entity)));
+          if (null != future) future.complete(entity);
+        }
+        for (Object id : chunk) {
+          final LoaderFuture<?> future = futures.remove(id);
+          if (null != future) future.complete(null);
+        }
+      }
+      return null;
+    } catch (Throwable ex) {
+      futures.values().forEach(future -> future.completeExceptionally(ex));
+      return ex;
+    }
+  }
+
+  /**
+   * 统一整数类型主键，使 {@code 1} 和 {@code 1L} 对应同一个请求
+   */
+  private static Object normalize(Object id) {
+    if (id instanceof Integer || id instanceof Short || id instanceof Byte) {
+      return ((Number) id).longValue();
+    }
+    return id;
+  }
+
+  /**
+   * 等待结果前先执行所属批次的 {@link CompletableFuture}，派生的结果同样如此；
+   * 在创建批量加载器以外的线程中等待尚未完成的结果时抛出 {@link DBException}
+   *
+   * @param <T> 结果类型
+   */
+  private static final class LoaderFuture<T> extends CompletableFuture<T> {
+
+    private final BatchLoader loader;
+
+    private LoaderFuture(BatchLoader loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new LoaderFuture<>(loader);
+    }
+
+    @Override
+    public T join() {
+      if (!isDone()) loader.dispatch();
+      return super.join();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      if (!isDone()) loader.dispatch();
+      return super.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!isDone()) loader.dispatch();
+      return super.get(timeout, unit);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package work.myfavs.framework.orm.cache;
+
+/**
+ * 缓存统计快照
+ */
+public class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long size;
+
+  public CacheStats(long hitCount, long missCount, long evictionCount, long size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+  }
+
+  /**
+   * 获取命中次数，包括命中空值缓存的次数
+   *
+   * @return 命中次数
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * 获取未命中次数
+   *
+   * @return 未命中次数
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * 获取因容量不足被淘汰的条目数量
+   *
+   * @return 淘汰数量
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * 获取当前缓存条目数量
+   *
+   * @return 条目数量
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * 获取请求次数
+   *
+   * @return 命中次数 + 未命中次数
+   */
+  public long getRequestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * 获取命中率，没有请求时为 1.0
+   *
+   * @return 命中率
+   */
+  public double getHitRatio() {
+    final long requestCount = getRequestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CacheStats{hitCount=%d, missCount=%d, hitRatio=%.4f, evictionCount=%d, size=%d}",
+                         hitCount, missCount, getHitRatio(), evictionCount, size);
+  }
+}
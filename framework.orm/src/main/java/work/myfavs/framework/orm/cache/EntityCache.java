@@ -0,0 +1,321 @@
+package work.myfavs.framework.orm.cache;
+
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.jfr.CacheEvent;
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+import work.myfavs.framework.orm.util.reflection.ReflectUtil;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实体二级缓存，缓存 {@code getById}、{@code findByIds} 按主键查询的结果，每个 {@link work.myfavs.framework.orm.DBTemplate} 一个实例
+ * <p>
+ * 只缓存使用 {@code @Table(cache = true)} 标记的实体；查询不到的主键也会缓存（空值缓存），有效期较短。
+ * {@code AbstractOrm} 的写操作会删除相关主键的缓存，并在事务结束时再次删除，避免并发查询把事务提交前的旧值写回缓存；
+ * 通过 {@code execute} 等方式直接执行的 SQL 不会更新缓存，只能等待缓存过期。
+ * <p>
+ * 缓存中保存实体的副本，读取时也返回副本，调用方修改返回的实体不会影响缓存。
+ * <p>
+ * 缓存条目按结果类型和主键区分，并以数据表名称作为标签（与 {@link QueryCache} 相同）：同一数据表可以映射多个实体类型，
+ * 使用任一类型写入时按数据表删除全部类型的缓存。
+ */
+public class EntityCache {
+
+  private static final Object NEGATIVE = new Object();
+
+  private final TinyLfuCache<Key, Object> cache;
+  private final long                      ttlMillis;
+  private final long                      negativeTtlMillis;
+
+  /**
+   * 每个数据表的失效版本号，写入缓存前检查版本号，查询期间发生过失效时不写入
+   */
+  private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * 每个数据表写入过缓存的结果类型，按主键删除时删除这些类型的缓存
+   */
+  private final Map<String, Set<Class<?>>> classes = new ConcurrentHashMap<>();
+
+  /**
+   * 当前线程（即当前连接）事务中写过的数据表及主键，事务结束时再次删除；值为 {@code null} 表示该数据表的全部缓存
+   */
+  private final ThreadLocal<Map<String, Set<Object>>> pending = new ThreadLocal<>();
+
+  /**
+   * 构造方法
+   *
+   * @param dbConfig 数据库配置
+   */
+  public EntityCache(DBConfig dbConfig) {
+    this.cache = new TinyLfuCache<>(dbConfig.getEntityCacheSize(), value -> 1, key -> Collections.singleton(tableOf(key.clazz)));
+    this.ttlMillis = TimeUnit.SECONDS.toMillis(dbConfig.getEntityCacheTtl());
+    this.negativeTtlMillis = TimeUnit.SECONDS.toMillis(dbConfig.getEntityCacheNegativeTtl());
+  }
+
+  /**
+   * 判断实体是否开启缓存
+   *
+   * @param classMeta 实体类元数据
+   * @return 是否开启缓存
+   */
+  public boolean isEnabled(ClassMeta classMeta) {
+    return classMeta.isCache();
+  }
+
+  /**
+   * 获取实体类型对应数据表当前的失效版本号，在查询数据库之前获取，写入缓存时传入
+   *
+   * @param clazz 实体类型
+   * @return 版本号
+   */
+  public long version(Class<?> clazz) {
+    return versionOf(tableOf(clazz)).get();
+  }
+
+  /**
+   * 查询缓存
+   *
+   * @param clazz 实体类型
+   * @param id    主键
+   * @param <T>   实体类型泛型
+   * @return 缓存结果
+   */
+  public <T> Lookup<T> get(Class<T> clazz, Object id) {
+    final CacheEvent event = new CacheEvent();
+    event.begin();
+
+    final Object value = cache.get(new Key(clazz, id));
+    event.commit(CacheEvent.ENTITY, null == value ? CacheEvent.MISS : CacheEvent.HIT, clazz, id);
+    if (null == value) return Lookup.miss();
+    if (value == NEGATIVE) return Lookup.hit(null);
+    return Lookup.hit(copy(clazz, clazz.cast(value)));
+  }
+
+  /**
+   * 写入缓存，entity 为 {@code null} 时写入空值缓存；查询期间数据表发生过失效时不写入
+   *
+   * @param clazz   实体类型
+   * @param id      主键
+   * @param entity  实体
+   * @param version 查询数据库之前获取的版本号 {@link #version(Class)}
+   * @param <T>     实体类型泛型
+   */
+  public <T> void put(Class<T> clazz, Object id, T entity, long version) {
+    classes.computeIfAbsent(tableOf(clazz), k -> ConcurrentHashMap.newKeySet()).add(clazz);
+    if (version != version(clazz)) return;
+
+    if (null == entity) {
+      cache.put(new Key(clazz, id), NEGATIVE, negativeTtlMillis);
+    } else {
+      cache.put(new Key(clazz, id), copy(clazz, entity), ttlMillis);
+    }
+  }
+
+  /**
+   * 写入多个主键的查询结果，requestIds 中查询不到记录的主键写入空值缓存
+   *
+   * @param clazz      实体类型
+   * @param requestIds 查询的主键集合
+   * @param entities   查询结果
+   * @param version    查询数据库之前获取的版本号 {@link #version(Class)}
+   * @param <T>        实体类型泛型
+   */
+  public <T> void putAll(Class<T> clazz, Collection<?> requestIds, Collection<T> entities, long version) {
+    final Attribute primaryKey = Metadata.entityMeta(clazz).checkPrimaryKey();
+    final Set<Key>  found      = new HashSet<>();
+    for (T entity : entities) {
+      final Object id = primaryKey.getValue(entity);
+      found.add(new Key(clazz, id));
+      put(clazz, id, entity, version);
+    }
+    for (Object id : requestIds) {
+      if (!found.contains(new Key(clazz, id))) put(clazz, id, null, version);
+    }
+  }
+
+  /**
+   * 删除实体对应数据表中指定主键的缓存（包括映射到该数据表的全部结果类型），当前线程的事务结束时 {@link #afterCompletion()} 再次删除
+   *
+   * @param clazz 实体类型
+   * @param ids   主键集合
+   */
+  public void invalidate(Class<?> clazz, Collection<?> ids) {
+    final String table = tableOf(clazz);
+    evict(table, ids);
+
+    final Map<String, Set<Object>> map = pendingOf();
+    // 已标记删除该数据表的全部缓存
+    if (map.containsKey(table) && null == map.get(table)) return;
+    map.computeIfAbsent(table, k -> new HashSet<>()).addAll(ids);
+  }
+
+  /**
+   * 删除实体对应数据表的全部缓存，用于无法确定受影响主键的写操作，如 {@code deleteByCond}
+   *
+   * @param clazz 实体类型
+   */
+  public void invalidateAll(Class<?> clazz) {
+    final String table = tableOf(clazz);
+    evict(table, null);
+    pendingOf().put(table, null);
+  }
+
+  /**
+   * 判断当前线程的事务中是否写过实体对应的数据表，写过时读取不经过缓存，避免缓存未提交的数据
+   *
+   * @param clazz 实体类型
+   * @return 是否写过
+   */
+  public boolean isDirty(Class<?> clazz) {
+    final Map<String, Set<Object>> map = pending.get();
+    return null != map && map.containsKey(tableOf(clazz));
+  }
+
+  /**
+   * 当前线程的事务结束（提交、回滚或释放连接）时调用，再次删除事务中写过的实体缓存，
+   * 防止其他线程在事务提交前把旧值写回缓存
+   */
+  public void afterCompletion() {
+    final Map<String, Set<Object>> map = pending.get();
+    if (null == map) return;
+
+    pending.remove();
+    map.forEach(this::evict);
+  }
+
+  private void evict(String table, Collection<?> ids) {
+    versionOf(table).incrementAndGet();
+    if (null == ids) {
+      cache.invalidateAll(table);
+      return;
+    }
+    for (Class<?> clazz : classes.getOrDefault(table, Collections.emptySet())) {
+      for (Object id : ids) {
+        cache.invalidate(new Key(clazz, id));
+      }
+    }
+  }
+
+  private Map<String, Set<Object>> pendingOf() {
+    Map<String, Set<Object>> map = pending.get();
+    if (null == map) {
+      map = new HashMap<>();
+      pending.set(map);
+    }
+    return map;
+  }
+
+  /**
+   * 清空缓存
+   */
+  public void clear() {
+    versions.values().forEach(AtomicLong::incrementAndGet);
+    cache.clear();
+  }
+
+  /**
+   * 获取缓存统计信息
+   *
+   * @return {@link CacheStats}
+   */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  private AtomicLong versionOf(String table) {
+    return versions.computeIfAbsent(table, k -> new AtomicLong());
+  }
+
+  private static String tableOf(Class<?> clazz) {
+    return DruidUtil.normalizeTableName(Metadata.entityMeta(clazz).getTableName());
+  }
+
+  /**
+   * 按 {@code @Column} 属性浅复制实体
+   */
+  static <T> T copy(Class<T> clazz, T entity) {
+    final T copy = ReflectUtil.newInstance(clazz);
+    for (Attribute attribute : Metadata.classMeta(clazz).getQueryAttributes().values()) {
+      attribute.setValue(copy, attribute.getValue(entity));
+    }
+    return copy;
+  }
+
+  /**
+   * 缓存查询结果
+   *
+   * @param <T> 实体类型泛型
+   */
+  public static final class Lookup<T> {
+
+    private static final Lookup<?> MISS = new Lookup<>(false, null);
+
+    private final boolean hit;
+    private final T       value;
+
+    private Lookup(boolean hit, T value) {
+      this.hit = hit;
+      this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Lookup<T> miss() {
+      return (Lookup<T>) MISS;
+    }
+
+    private static <T> Lookup<T> hit(T value) {
+      return new Lookup<>(true, value);
+    }
+
+    /**
+     * 是否命中缓存，命中空值缓存时 {@link #getValue()} 为 {@code null}
+     *
+     * @return 是否命中
+     */
+    public boolean isHit() {
+      return hit;
+    }
+
+    public T getValue() {
+      return value;
+    }
+  }
+
+  private static final class Key {
+
+    private final Class<?> clazz;
+    private final Object   id;
+
+    private Key(Class<?> clazz, Object id) {
+      this.clazz = clazz;
+      // getById(User.class, 1) 与实体中 Long 类型的主键 1L 使用同一个键
+      this.id = id instanceof Integer || id instanceof Short || id instanceof Byte ? ((Number) id).longValue() : id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      final Key key = (Key) o;
+      return clazz == key.clazz && Objects.equals(id, key.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * clazz.hashCode() + Objects.hashCode(id);
+    }
+  }
+}
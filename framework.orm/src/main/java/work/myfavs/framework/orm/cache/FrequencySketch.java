@@ -0,0 +1,92 @@
+package work.myfavs.framework.orm.cache;
+
+/**
+ * Count-Min Sketch 频率估算，每个计数器 4 位（最大 15），
+ * 记录次数达到采样数量后全部计数器减半，使历史热点逐渐老化
+ * <p>
+ * 非线程安全，由 {@link TinyLfuCache} 在锁内调用
+ */
+class FrequencySketch {
+
+  private static final int    DEPTH      = 4;
+  private static final long[] SEEDS      = {
+      0x97CB3127L, 0xB492B66FL, 0x9AE16A3BL, 0xC3A5C85CL
+  };
+  private static final long   RESET_MASK = 0x7777777777777777L;
+
+  /**
+   * 每个 long 存放 16 个 4 位计数器
+   */
+  private final long[] table;
+  private final int    mask;
+  private final int    sampleSize;
+  private       int    additions;
+
+  FrequencySketch(int capacity) {
+    final int counters = Math.max(tableSizeFor(capacity) * 4, 64);
+    this.table = new long[counters / 16];
+    this.mask = counters - 1;
+    this.sampleSize = Math.max(capacity, 1) * 10;
+  }
+
+  /**
+   * 记录一次访问
+   *
+   * @param hash 键的哈希值
+   */
+  void increment(int hash) {
+    boolean added = false;
+    for (int depth = 0; depth < DEPTH; depth++) {
+      added |= incrementAt(indexOf(hash, depth));
+    }
+    if (added && ++additions >= sampleSize) reset();
+  }
+
+  /**
+   * 估算访问频率
+   *
+   * @param hash 键的哈希值
+   * @return 访问频率，0 ~ 15
+   */
+  int frequency(int hash) {
+    int frequency = Integer.MAX_VALUE;
+    for (int depth = 0; depth < DEPTH; depth++) {
+      frequency = Math.min(frequency, counterAt(indexOf(hash, depth)));
+    }
+    return frequency;
+  }
+
+  private int indexOf(int hash, int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    h += h >>> 32;
+    return (int) h & mask;
+  }
+
+  private int counterAt(int index) {
+    return (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 0xFL);
+  }
+
+  private boolean incrementAt(int index) {
+    final int  offset = (index & 15) << 2;
+    final long value  = table[index >>> 4];
+    if (((value >>> offset) & 0xFL) == 0xFL) return false;
+
+    table[index >>> 4] = value + (1L << offset);
+    return true;
+  }
+
+  /**
+   * 全部计数器减半
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions >>>= 1;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    if (capacity <= 1) return 1;
+    return Integer.highestOneBit(Math.min(capacity, 1 << 28) - 1) << 1;
+  }
+}
@@ -0,0 +1,332 @@
+package work.myfavs.framework.orm.cache;
+
+import com.alibaba.druid.DbType;
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.jfr.CacheEvent;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.util.common.Constant;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 查询结果缓存，缓存 {@code Sql.cached()}、{@code Orm.cached()} 标记的查询结果，每个 {@link work.myfavs.framework.orm.DBTemplate} 一个实例
+ * <p>
+ * 缓存键为原始的 SQL 语句（不合并空白字符，以免改变字符串常量的内容）、参数和结果类型，并以 Druid 解析出的数据表名称作为标签；
+ * 通过 {@link work.myfavs.framework.orm.Query} 执行的写操作（包括 ORM 生成的语句和直接执行的 SQL）会删除引用了相同数据表的缓存，
+ * 并在事务结束时再次删除。无法解析的查询不缓存，无法解析的写操作删除全部数据表的缓存。
+ * <p>
+ * 失效只按数据表进行：写操作只增加所写数据表的版本号并删除以这些数据表为标签的缓存，不影响其他数据表的缓存和合并查询（{@link SingleFlight}）。
+ * 缓存首次使用（或开启 {@link DBConfig#isSingleFlight()}）之前，写操作不解析 SQL，也不删除缓存；此时已写入数据、尚未结束的事务在缓存启用后不受跟踪。
+ * <p>
+ * 容量按结果集的单元格数量（行数 × 列数）计算，大结果集占用更多容量；缓存中保存结果的副本，读取时也返回副本。
+ */
+public class QueryCache {
+
+  private final DbType                            dbType;
+  private final TinyLfuCache<Key, List<?>>        cache;
+  private final TinyLfuCache<String, Set<String>> tableNames = new TinyLfuCache<>(1024);
+  private final long                              ttlMillis;
+
+  /**
+   * 每个数据表的失效版本号，写入缓存前检查版本号，查询期间发生过失效时不写入
+   */
+  private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * 当前线程（即当前连接）事务中写过的数据表，事务结束时再次删除
+   */
+  private final ThreadLocal<Pending> pending = new ThreadLocal<>();
+
+  /**
+   * 是否跟踪写操作：开启合并查询时始终跟踪，否则在首次写入缓存时开始跟踪；未跟踪时写操作无需解析 SQL
+   */
+  private volatile boolean active;
+
+  /**
+   * 构造方法
+   *
+   * @param dbConfig 数据库配置
+   */
+  public QueryCache(DBConfig dbConfig) {
+    this.dbType = DruidUtil.convert(dbConfig.getDbType());
+    this.cache = new TinyLfuCache<>(dbConfig.getQueryCacheWeight(), QueryCache::weigh, key -> key.tables);
+    this.ttlMillis = TimeUnit.SECONDS.toMillis(dbConfig.getQueryCacheTtl());
+    this.active = dbConfig.isSingleFlight();
+  }
+
+  /**
+   * 执行查询，优先从缓存读取；当前线程的事务写过查询涉及的数据表时直接查询数据库
+   *
+   * @param viewClass 结果类型
+   * @param sql       SQL 语句
+   * @param params    参数
+   * @param ttl       有效期（秒），小于 0 时使用 {@link DBConfig#getQueryCacheTtl()}
+   * @param loader    查询数据库
+   * @param <T>       结果类型泛型
+   * @return 查询结果
+   */
+  public <T> List<T> find(Class<T> viewClass, String sql, Collection<?> params, int ttl, Supplier<List<T>> loader) {
+    final CacheEvent event = new CacheEvent();
+    event.begin();
+
+    final Set<String> tables = tableNames(sql);
+    if (tables.isEmpty() || isDirty(tables)) {
+      final List<T> result = loader.get();
+      event.commit(CacheEvent.QUERY, CacheEvent.BYPASS, viewClass, sql);
+      return result;
+    }
+
+    final Key     key    = Key.of(viewClass, sql, params, tables);
+    final List<?> cached = cache.get(key);
+    if (null != cached) {
+      final List<T> result = copy(viewClass, cached);
+      event.commit(CacheEvent.QUERY, CacheEvent.HIT, viewClass, sql);
+      return result;
+    }
+
+    this.active = true;
+    final long    version = version(tables);
+    final List<T> result  = loader.get();
+    if (version == version(tables)) {
+      cache.put(key, copy(viewClass, result), ttl < 0 ? ttlMillis : TimeUnit.SECONDS.toMillis(ttl));
+    }
+    event.commit(CacheEvent.QUERY, CacheEvent.MISS, viewClass, sql);
+    return result;
+  }
+
+  /**
+   * 执行写操作后调用，删除 SQL 中引用的数据表的缓存，当前线程的事务结束时 {@link #afterCompletion()} 再次删除
+   *
+   * @param sql 写操作 SQL 语句
+   */
+  public void invalidate(String sql) {
+    if (!this.active) return;
+
+    Pending map = pending.get();
+    if (null == map) {
+      map = new Pending();
+      pending.set(map);
+    }
+    if (map.all) return;
+
+    final Set<String> tables = tableNames(sql);
+    if (tables.isEmpty()) {
+      map.all = true;
+      evictAll();
+      return;
+    }
+    map.tables.addAll(tables);
+    evict(tables);
+  }
+
+  /**
+   * 判断当前线程的事务中是否写过这些数据表，写过时读取不经过缓存
+   *
+   * @param tables 数据表名称
+   * @return 是否写过
+   */
+  public boolean isDirty(Set<String> tables) {
+    final Pending map = pending.get();
+    return null != map && (map.all || !Collections.disjoint(map.tables, tables));
+  }
+
+  /**
+   * 当前线程的事务结束（提交、回滚或释放连接）时调用，再次删除事务中写过的数据表的缓存
+   */
+  public void afterCompletion() {
+    if (!this.active) return;
+
+    final Pending map = pending.get();
+    if (null == map) return;
+
+    pending.remove();
+    if (map.all) {
+      evictAll();
+    } else {
+      evict(map.tables);
+    }
+  }
+
+  /**
+   * 清空缓存
+   */
+  public void clear() {
+    evictAll();
+  }
+
+  /**
+   * 获取缓存统计信息
+   *
+   * @return {@link CacheStats}
+   */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /**
+   * 获取缓存当前的总权重
+   *
+   * @return 总权重
+   */
+  public long getWeightedSize() {
+    return cache.weightedSize();
+  }
+
+  /**
+   * 解析 SQL 引用的数据表，结果按 SQL 语句缓存；无法解析时返回空集合
+   */
+  Set<String> tableNames(String sql) {
+    Set<String> tables = tableNames.get(sql);
+    if (null != tables) return tables;
+
+    try {
+      tables = Collections.unmodifiableSet(DruidUtil.getTableNames(dbType, sql));
+    } catch (RuntimeException ex) {
+      tables = Collections.emptySet();
+    }
+    tableNames.put(sql, tables, 0);
+    return tables;
+  }
+
+  /**
+   * 获取数据表当前的失效版本号，写入数据表或事务结束时版本号增加
+   */
+  long version(Set<String> tables) {
+    long version = 0;
+    for (String table : tables) {
+      version += versionOf(table).get();
+    }
+    return version;
+  }
+
+  private AtomicLong versionOf(String table) {
+    return versions.computeIfAbsent(table, k -> new AtomicLong());
+  }
+
+  private void evict(Set<String> tables) {
+    for (String table : tables) {
+      versionOf(table).incrementAndGet();
+    }
+    for (String table : tables) {
+      cache.invalidateAll(table);
+    }
+  }
+
+  /**
+   * 删除全部数据表的缓存：缓存中的查询和正在执行的查询涉及的数据表都已登记版本号，逐个增加版本号即可阻止写入
+   */
+  private void evictAll() {
+    for (AtomicLong version : versions.values()) {
+      version.incrementAndGet();
+    }
+    cache.clear();
+  }
+
+  /**
+   * 复制结果集：{@link Record} 复制字段，简单类型直接使用，其他类型按 {@code @Column} 属性浅复制
+   */
+  @SuppressWarnings("unchecked")
+  static <T> List<T> copy(Class<T> viewClass, List<?> rows) {
+    final List<T> copy = new ArrayList<>(rows.size());
+    if (isScalar(viewClass)) {
+      copy.addAll((List<T>) rows);
+      return copy;
+    }
+    for (Object row : rows) {
+      if (null == row) {
+        copy.add(null);
+      } else if (row instanceof Record) {
+        final Record record = new Record();
+        record.putAll((Record) row);
+        copy.add((T) record);
+      } else {
+        copy.add(EntityCache.copy(viewClass, viewClass.cast(row)));
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * 结果集权重：行数 × 列数
+   */
+  private static int weigh(List<?> rows) {
+    if (rows.isEmpty()) return 1;
+
+    final Object first   = rows.get(0);
+    final int    columns;
+    if (null == first) {
+      columns = 1;
+    } else if (first instanceof Record) {
+      columns = ((Record) first).size();
+    } else if (isScalar(first.getClass())) {
+      columns = 1;
+    } else {
+      columns = Metadata.classMeta(first.getClass()).getQueryAttributes().size();
+    }
+    return (int) Math.min((long) rows.size() * Math.max(columns, 1), Integer.MAX_VALUE);
+  }
+
+  private static boolean isScalar(Class<?> clazz) {
+    return clazz.isPrimitive() || Constant.PRIMITIVE_TYPES.contains(clazz) || Number.class.isAssignableFrom(clazz)
+        || CharSequence.class.isAssignableFrom(clazz);
+  }
+
+  /**
+   * 事务中写过的数据表，{@code all} 为 {@code true} 时表示无法确定，按写过全部数据表处理
+   */
+  private static final class Pending {
+
+    private final Set<String> tables = new HashSet<>();
+    private       boolean     all    = false;
+  }
+
+  /**
+   * 缓存键：原始的 SQL 语句、参数和结果类型，tables 为标签，不参与比较
+   */
+  static final class Key {
+
+    private final Class<?>     viewClass;
+    private final String       sql;
+    private final List<Object> params;
+    private final Set<String>  tables;
+    private final int          hashCode;
+
+    private Key(Class<?> viewClass, String sql, Collection<?> params, Set<String> tables) {
+      this.viewClass = viewClass;
+      this.sql = sql;
+      this.params = null == params ? Collections.emptyList() : new ArrayList<>(params);
+      this.tables = tables;
+      this.hashCode = Objects.hash(viewClass, sql, this.params);
+    }
+
+    static Key of(Class<?> viewClass, String sql, Collection<?> params, Set<String> tables) {
+      return new Key(viewClass, sql, params, tables);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      final Key key = (Key) o;
+      return viewClass == key.viewClass && sql.equals(key.sql) && params.equals(key.params);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package work.myfavs.framework.orm.cache;
+
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.jfr.CacheEvent;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 合并并发执行的相同查询（SQL、参数、结果类型都相同），同一时刻只有一个线程查询数据库，其他线程等待并共享结果，每个 {@link work.myfavs.framework.orm.DBTemplate} 一个实例
+ * <p>
+ * 查询开始时记录涉及的数据表的失效版本号（{@link QueryCache}），之后写过这些数据表时新的查询不再等待该结果，写其他数据表不影响合并；
+ * 当前线程的事务写过涉及的数据表时不参与合并，避免共享未提交的数据。等待超时或正在执行的查询失败时，自行查询数据库。
+ * <p>
+ * 共享的结果为副本，调用方修改返回的结果不会相互影响。
+ */
+public class SingleFlight {
+
+  private final QueryCache                     queryCache;
+  private final long                           maxWaitMillis;
+  private final Map<QueryCache.Key, Flight<?>> flights = new ConcurrentHashMap<>();
+
+  /**
+   * 构造方法
+   *
+   * @param dbConfig   数据库配置
+   * @param queryCache 查询结果缓存，用于获取数据表的失效版本号
+   */
+  public SingleFlight(DBConfig dbConfig, QueryCache queryCache) {
+    this.queryCache = queryCache;
+    this.maxWaitMillis = dbConfig.getSingleFlightMaxWait();
+  }
+
+  /**
+   * 执行查询，已有相同的查询正在执行时等待其结果
+   *
+   * @param viewClass 结果类型
+   * @param sql       SQL 语句
+   * @param params    参数
+   * @param loader    查询数据库
+   * @param <T>       结果类型泛型
+   * @return 查询结果
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> execute(Class<T> viewClass, String sql, Collection<?> params, Supplier<List<T>> loader) {
+    final CacheEvent event = new CacheEvent();
+    event.begin();
+
+    final Set<String> tables = queryCache.tableNames(sql);
+    if (tables.isEmpty() || queryCache.isDirty(tables)) {
+      final List<T> result = loader.get();
+      event.commit(CacheEvent.SINGLE_FLIGHT, CacheEvent.BYPASS, viewClass, sql);
+      return result;
+    }
+
+    final QueryCache.Key key     = QueryCache.Key.of(viewClass, sql, params, tables);
+    final long           version = queryCache.version(tables);
+    final Flight<T>      created = new Flight<>(version);
+    final Flight<?>      flight  = flights.compute(key, (k, existing) -> null != existing && existing.version == version ? existing : created);
+
+    final boolean leader = flight == created;
+    final List<T> result = leader ? lead(key, created, viewClass, loader) : follow(viewClass, (Flight<T>) flight, loader);
+    event.commit(CacheEvent.SINGLE_FLIGHT, leader ? CacheEvent.LEAD : CacheEvent.FOLLOW, viewClass, sql);
+    return result;
+  }
+
+  /**
+   * 获取正在执行的查询数量
+   *
+   * @return 查询数量
+   */
+  public int getInFlightCount() {
+    return flights.size();
+  }
+
+  private <T> List<T> lead(QueryCache.Key key, Flight<T> flight, Class<T> viewClass, Supplier<List<T>> loader) {
+    try {
+      final List<T> result = loader.get();
+      flight.future.complete(QueryCache.copy(viewClass, result));
+      return result;
+    } catch (RuntimeException ex) {
+      flight.future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private <T> List<T> follow(Class<T> viewClass, Flight<T> flight, Supplier<List<T>> loader) {
+    try {
+      return QueryCache.copy(viewClass, flight.future.get(maxWaitMillis, TimeUnit.MILLISECONDS));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new DBException(ex, "等待查询结果时线程被中断");
+    } catch (ExecutionException | TimeoutException ex) {
+      return loader.get();
+    }
+  }
+
+  private static final class Flight<T> {
+
+    private final long                       version;
+    private final CompletableFuture<List<T>> future = new CompletableFuture<>();
+
+    private Flight(long version) {
+      this.version = version;
+    }
+  }
+}
@@ -0,0 +1,485 @@
+package work.myfavs.framework.orm.cache;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * 容量有限的 W-TinyLFU 缓存
+ * <p>
+ * 新条目先进入窗口区（容量的 1%，LRU），被窗口区淘汰时与主区（SLRU：试用区 20%、保护区 80%）的淘汰候选比较
+ * {@link FrequencySketch} 估算的访问频率，频率更高者留下；试用区中再次被访问的条目晋升到保护区。
+ * 偶发的大范围扫描只会冲刷窗口区，不会挤掉主区中的热点条目。
+ * <p>
+ * 容量按权重计算，未指定权重函数时每个条目的权重为 1；权重超过总容量的条目不会被缓存。
+ * <p>
+ * 条目保存在 {@link ConcurrentHashMap} 中，读取不加锁：访问记录写入按线程分段的有损环形缓冲区，写操作写入队列，
+ * 由获得淘汰锁（{@link ReentrantLock#tryLock()}，不阻塞）的线程批量回放到淘汰策略中，因此容量可能短暂超出。
+ * 指定标签函数时按标签建立索引，{@link #invalidateAll(Object)} 只访问带该标签的条目。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TinyLfuCache<K, V> {
+
+  private static final int READ_BUFFER_STRIPES = 16;
+  private static final int READ_BUFFER_SIZE    = 64;
+
+  private final long                                 capacity;
+  private final long                                 windowCapacity;
+  private final long                                 protectedCapacity;
+  private final ToIntFunction<V>                     weigher;
+  private final Function<K, ? extends Collection<?>> tagger;
+
+  private final ConcurrentHashMap<K, Node<K, V>>  data         = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Object, Set<K>> tagIndex     = new ConcurrentHashMap<>();
+  private final Queue<Runnable>                   writeBuffer  = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock                     evictionLock = new ReentrantLock();
+  private final ReadBuffer[]                      readBuffers;
+
+  // 以下字段只在持有 evictionLock 时访问
+  private final LinkedHashMap<K, Node<K, V>> window    = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<K, Node<K, V>> protect   = new LinkedHashMap<>(16, 0.75f, true);
+  private final FrequencySketch              sketch;
+
+  private long windowWeight;
+  private long probationWeight;
+  private long protectWeight;
+
+  private final LongAdder hitCount      = new LongAdder();
+  private final LongAdder missCount     = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * 构造方法
+   *
+   * @param capacity 最大条目数量
+   */
+  public TinyLfuCache(int capacity) {
+    this(capacity, value -> 1);
+  }
+
+  /**
+   * 构造方法
+   *
+   * @param capacity 最大总权重
+   * @param weigher  条目权重函数，返回值小于 1 时按 1 计算
+   */
+  public TinyLfuCache(long capacity, ToIntFunction<V> weigher) {
+    this(capacity, weigher, null);
+  }
+
+  /**
+   * 构造方法
+   *
+   * @param capacity 最大总权重
+   * @param weigher  条目权重函数，返回值小于 1 时按 1 计算
+   * @param tagger   条目标签函数，用于 {@link #invalidateAll(Object)}，为 {@code null} 时不建立标签索引
+   */
+  public TinyLfuCache(long capacity, ToIntFunction<V> weigher, Function<K, ? extends Collection<?>> tagger) {
+    this.capacity = Math.max(capacity, 2);
+    this.windowCapacity = Math.max(this.capacity / 100, 1);
+    this.protectedCapacity = (this.capacity - this.windowCapacity) * 4 / 5;
+    this.weigher = weigher;
+    this.tagger = tagger;
+    this.sketch = new FrequencySketch((int) Math.min(this.capacity, 1 << 20));
+    this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+    for (int i = 0; i < READ_BUFFER_STRIPES; i++) {
+      this.readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  /**
+   * 获取缓存值
+   *
+   * @param key 键
+   * @return 缓存值，不存在或已过期时返回 {@code null}
+   */
+  public V get(K key) {
+    final Node<K, V> node = data.get(key);
+    if (null == node || node.isExpired()) {
+      if (null != node) remove(node);
+      missCount.increment();
+      afterRead(key);
+      return null;
+    }
+    hitCount.increment();
+    afterRead(node);
+    return node.value;
+  }
+
+  /**
+   * 写入缓存
+   *
+   * @param key       键
+   * @param value     值
+   * @param ttlMillis 有效期（毫秒），小于等于 0 表示不过期
+   */
+  public void put(K key, V value, long ttlMillis) {
+    final Node<K, V> node = new Node<>(key, value, Math.max(weigher.applyAsInt(value), 1), ttlMillis);
+    if (node.weight > capacity) {
+      invalidate(key);
+      return;
+    }
+
+    // 在映射的同一原子操作中建立标签索引，避免存在未被索引的条目
+    final Object[] replaced = new Object[1];
+    data.compute(key, (k, current) -> {
+      if (null == current) index(k);
+      replaced[0] = current;
+      return node;
+    });
+    @SuppressWarnings("unchecked") final Node<K, V> existing = (Node<K, V>) replaced[0];
+    afterWrite(() -> {
+      if (null != existing) policyRemove(existing);
+      policyAdd(node);
+    });
+  }
+
+  /**
+   * 删除缓存
+   *
+   * @param key 键
+   */
+  public void invalidate(K key) {
+    final Node<K, V> node = data.get(key);
+    if (null != node) remove(node);
+  }
+
+  /**
+   * 删除带有指定标签的缓存，只访问标签索引中的条目
+   *
+   * @param tag 标签
+   */
+  public void invalidateAll(Object tag) {
+    final Set<K> keys = tagIndex.get(tag);
+    if (null == keys) return;
+
+    for (K key : keys) {
+      final Node<K, V> node = data.get(key);
+      if (null == node) {
+        keys.remove(key);
+      } else {
+        remove(node);
+      }
+    }
+  }
+
+  /**
+   * 删除满足条件的缓存，需要遍历全部条目，按标签删除时使用 {@link #invalidateAll(Object)}
+   *
+   * @param predicate 键的条件
+   */
+  public void invalidateIf(Predicate<K> predicate) {
+    for (K key : data.keySet()) {
+      if (predicate.test(key)) invalidate(key);
+    }
+  }
+
+  /**
+   * 清空缓存
+   */
+  public void clear() {
+    for (Node<K, V> node : data.values()) {
+      remove(node);
+    }
+  }
+
+  /**
+   * 获取当前条目数量
+   *
+   * @return 条目数量
+   */
+  public int size() {
+    drain();
+    return data.size();
+  }
+
+  /**
+   * 获取当前总权重
+   *
+   * @return 总权重
+   */
+  public long weightedSize() {
+    evictionLock.lock();
+    try {
+      drainBuffers();
+      return windowWeight + probationWeight + protectWeight;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * 获取统计信息
+   *
+   * @return {@link CacheStats}
+   */
+  public CacheStats stats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), data.size());
+  }
+
+  // region Concurrency
+
+  /**
+   * 记录访问，缓冲区已满时尝试回放
+   *
+   * @param access 命中时为条目，未命中时为键
+   */
+  private void afterRead(Object access) {
+    final int stripe = System.identityHashCode(Thread.currentThread()) & (READ_BUFFER_STRIPES - 1);
+    if (!readBuffers[stripe].offer(access) || !writeBuffer.isEmpty()) tryDrain();
+  }
+
+  private void afterWrite(Runnable task) {
+    writeBuffer.add(task);
+    drain();
+  }
+
+  /**
+   * 在不阻塞的前提下回放缓冲区；持有锁的线程释放锁后若仍有写操作则继续回放，避免写操作滞留
+   */
+  private void drain() {
+    do {
+      if (!tryDrain()) return;
+    } while (!writeBuffer.isEmpty());
+  }
+
+  private boolean tryDrain() {
+    if (!evictionLock.tryLock()) return false;
+    try {
+      drainBuffers();
+    } finally {
+      evictionLock.unlock();
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void drainBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drainTo(access -> {
+        if (access instanceof Node) {
+          onAccess((Node<K, V>) access);
+        } else {
+          sketch.increment(access.hashCode());
+        }
+      });
+    }
+
+    Runnable task;
+    while (null != (task = writeBuffer.poll())) {
+      task.run();
+    }
+  }
+
+  /**
+   * 从映射及标签索引中删除条目，并从淘汰策略中移除
+   */
+  private void remove(Node<K, V> node) {
+    if (unlink(node)) afterWrite(() -> policyRemove(node));
+  }
+
+  /**
+   * 条目仍为当前映射时，从映射及标签索引中删除
+   *
+   * @return 删除成功返回 {@code true}
+   */
+  private boolean unlink(Node<K, V> node) {
+    final boolean[] removed = new boolean[1];
+    data.computeIfPresent(node.key, (key, current) -> {
+      if (current != node) return current;
+      unindex(key);
+      removed[0] = true;
+      return null;
+    });
+    return removed[0];
+  }
+
+  private void index(K key) {
+    if (null == tagger) return;
+    for (Object tag : tagger.apply(key)) {
+      tagIndex.computeIfAbsent(tag, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+  }
+
+  private void unindex(K key) {
+    if (null == tagger) return;
+    for (Object tag : tagger.apply(key)) {
+      final Set<K> keys = tagIndex.get(tag);
+      if (null != keys) keys.remove(key);
+    }
+  }
+
+  // endregion
+
+  // region Policy
+
+  /**
+   * 命中的条目：更新访问顺序，试用区的条目晋升到保护区
+   */
+  private void onAccess(Node<K, V> node) {
+    sketch.increment(node.key.hashCode());
+
+    if (window.get(node.key) == node || protect.get(node.key) == node) return;
+    if (probation.get(node.key) == node) {
+      probation.remove(node.key);
+      probationWeight -= node.weight;
+      protect.put(node.key, node);
+      protectWeight += node.weight;
+      demoteProtected();
+    }
+  }
+
+  private void policyAdd(Node<K, V> node) {
+    sketch.increment(node.key.hashCode());
+    // 回放前已被删除或替换
+    if (data.get(node.key) != node) return;
+
+    window.put(node.key, node);
+    windowWeight += node.weight;
+    while (windowWeight > windowCapacity) {
+      final Map.Entry<K, Node<K, V>> candidate = pollFirst(window);
+      windowWeight -= candidate.getValue().weight;
+      admit(candidate.getValue());
+    }
+  }
+
+  private void policyRemove(Node<K, V> node) {
+    if (removeFrom(window, node)) {
+      windowWeight -= node.weight;
+    } else if (removeFrom(probation, node)) {
+      probationWeight -= node.weight;
+    } else if (removeFrom(protect, node)) {
+      protectWeight -= node.weight;
+    }
+  }
+
+  /**
+   * 窗口区淘汰的条目进入主区：主区空间足够时直接进入试用区，否则依次与主区淘汰候选比较访问频率，
+   * 候选条目频率不高于任一淘汰候选时放弃写入
+   */
+  private void admit(Node<K, V> candidate) {
+    final long mainCapacity = capacity - windowCapacity;
+    final int  frequency    = sketch.frequency(candidate.key.hashCode());
+    while (probationWeight + protectWeight + candidate.weight > mainCapacity) {
+      final boolean                      fromProbation = !probation.isEmpty();
+      final LinkedHashMap<K, Node<K, V>> victims       = fromProbation ? probation : protect;
+      evictionCount.increment();
+      if (victims.isEmpty() || frequency <= sketch.frequency(victims.keySet().iterator().next().hashCode())) {
+        unlink(candidate);
+        return;
+      }
+      final Node<K, V> victim = pollFirst(victims).getValue();
+      unlink(victim);
+      if (fromProbation) {
+        probationWeight -= victim.weight;
+      } else {
+        protectWeight -= victim.weight;
+      }
+    }
+    probation.put(candidate.key, candidate);
+    probationWeight += candidate.weight;
+  }
+
+  /**
+   * 保护区超出容量时，把最久未访问的条目降级到试用区
+   */
+  private void demoteProtected() {
+    while (protectWeight > protectedCapacity) {
+      final Map.Entry<K, Node<K, V>> demoted = pollFirst(protect);
+      protectWeight -= demoted.getValue().weight;
+      probation.put(demoted.getKey(), demoted.getValue());
+      probationWeight += demoted.getValue().weight;
+    }
+  }
+
+  private static <K, V> boolean removeFrom(LinkedHashMap<K, Node<K, V>> map, Node<K, V> node) {
+    // 按访问顺序排序的 LinkedHashMap#get 会调整顺序，通过 remove 判断后放回
+    final Node<K, V> current = map.remove(node.key);
+    if (current == node) return true;
+    if (null != current) map.put(node.key, current);
+    return false;
+  }
+
+  private static <K, V> Map.Entry<K, V> pollFirst(LinkedHashMap<K, V> map) {
+    final Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+    final Map.Entry<K, V>           first    = new AbstractMap.SimpleImmutableEntry<>(iterator.next());
+    iterator.remove();
+    return first;
+  }
+
+  // endregion
+
+  private static final class Node<K, V> {
+
+    private final K    key;
+    private final V    value;
+    private final int  weight;
+    private final long expireAt;
+
+    private Node(K key, V value, int weight, long ttlMillis) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() >= expireAt;
+    }
+  }
+
+  /**
+   * 有损环形缓冲区：多个线程写入，持有淘汰锁的线程读取；已满或写入竞争失败时丢弃访问记录
+   */
+  private static final class ReadBuffer {
+
+    private final AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong                   tail   = new AtomicLong();
+    private volatile long                      head;
+
+    /**
+     * 写入访问记录
+     *
+     * @return 缓冲区已满时返回 {@code false}
+     */
+    private boolean offer(Object access) {
+      final long position = tail.get();
+      if (position - head >= READ_BUFFER_SIZE) return false;
+      if (tail.compareAndSet(position, position + 1)) {
+        buffer.lazySet((int) (position & (READ_BUFFER_SIZE - 1)), access);
+      }
+      return true;
+    }
+
+    private void drainTo(Consumer<Object> consumer) {
+      long       position = head;
+      final long end      = tail.get();
+      for (; position < end; position++) {
+        final int    index  = (int) (position & (READ_BUFFER_SIZE - 1));
+        final Object access = buffer.get(index);
+        // 位置已被占用但尚未写入
+        if (null == access) break;
+        buffer.lazySet(index, null);
+        consumer.accept(access);
+      }
+      head = position;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 批量执行事件，{@link work.myfavs.framework.orm.meta.BatchParameters} 每执行一批（{@code PreparedStatement#executeBatch()}）提交一次，
+ * 所属语句见外层的 {@link QueryEvent}
+ */
+@Name(BatchEvent.NAME)
+@Label("SQL Batch")
+@Category({"MyFavs ORM", "SQL"})
+@Description("MyFavs ORM 分批执行批量更新")
+public final class BatchEvent extends jdk.jfr.Event {
+
+  /**
+   * 事件名称
+   */
+  public static final String NAME = "myfavs.orm.Batch";
+
+  @Label("Chunk")
+  @Description("批次序号，从 1 开始")
+  private int chunk;
+
+  @Label("Parameters")
+  @Description("本批次的参数数量")
+  private int parameters;
+
+  @Label("Affected Rows")
+  @Description("本批次影响的行数，驱动无法获知时不计入")
+  private long affectedRows;
+
+  /**
+   * 结束事件，JFR 开启该事件且耗时达到阈值时填充字段并提交
+   *
+   * @param chunk      批次序号
+   * @param parameters 本批次的参数数量
+   * @param result     {@code executeBatch} 的返回值
+   */
+  public void commit(int chunk, int parameters, int[] result) {
+    end();
+    if (!shouldCommit()) return;
+
+    this.chunk = chunk;
+    this.parameters = parameters;
+    for (int rows : result) {
+      if (rows > 0) this.affectedRows += rows;
+    }
+    commit();
+  }
+}
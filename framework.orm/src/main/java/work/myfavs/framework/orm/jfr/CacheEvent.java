@@ -0,0 +1,97 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 缓存访问事件，由 {@link work.myfavs.framework.orm.cache.QueryCache}、{@link work.myfavs.framework.orm.cache.EntityCache}
+ * 及 {@link work.myfavs.framework.orm.cache.SingleFlight} 提交；未命中时持续时间包括查询数据库
+ * <p>
+ * 缓存访问非常频繁，默认关闭，需要时在 JFR 配置中开启 {@value #NAME}。
+ */
+@Name(CacheEvent.NAME)
+@Label("Cache Access")
+@Category({"MyFavs ORM", "Cache"})
+@Description("MyFavs ORM 查询结果缓存、实体缓存及合并查询的访问")
+@Enabled(false)
+@StackTrace(false)
+public final class CacheEvent extends jdk.jfr.Event {
+
+  /**
+   * 事件名称
+   */
+  public static final String NAME = "myfavs.orm.Cache";
+
+  /**
+   * 查询结果缓存
+   */
+  public static final String QUERY         = "query";
+  /**
+   * 实体缓存
+   */
+  public static final String ENTITY        = "entity";
+  /**
+   * 合并并发执行的相同查询
+   */
+  public static final String SINGLE_FLIGHT = "singleFlight";
+
+  /**
+   * 命中缓存
+   */
+  public static final String HIT    = "hit";
+  /**
+   * 未命中，查询数据库
+   */
+  public static final String MISS   = "miss";
+  /**
+   * 不使用缓存（无法解析数据表或当前事务写过），直接查询数据库
+   */
+  public static final String BYPASS = "bypass";
+  /**
+   * 合并查询中负责查询数据库
+   */
+  public static final String LEAD   = "lead";
+  /**
+   * 合并查询中等待其他线程的结果
+   */
+  public static final String FOLLOW = "follow";
+
+  @Label("Cache")
+  @Description("query、entity 或 singleFlight")
+  private String cache;
+
+  @Label("Result")
+  @Description("hit、miss、bypass、lead 或 follow")
+  private String result;
+
+  @Label("Type")
+  @Description("结果类型或实体类型")
+  private Class<?> type;
+
+  @Label("Key")
+  @Description("SQL 语句或主键")
+  private String key;
+
+  /**
+   * 结束事件，JFR 开启该事件且耗时达到阈值时填充字段并提交
+   *
+   * @param cache  缓存名称
+   * @param result 访问结果
+   * @param type   结果类型或实体类型
+   * @param key    SQL 语句或主键
+   */
+  public void commit(String cache, String result, Class<?> type, Object key) {
+    end();
+    if (!shouldCommit()) return;
+
+    this.cache = cache;
+    this.result = result;
+    this.type = type;
+    this.key = String.valueOf(key);
+    commit();
+  }
+}
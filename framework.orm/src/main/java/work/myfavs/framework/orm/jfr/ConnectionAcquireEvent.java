@@ -0,0 +1,37 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 获取数据库连接事件，持续时间为 {@code DataSource#getConnection()} 的耗时，由 {@link work.myfavs.framework.orm.JdbcConnFactory} 提交
+ */
+@Name(ConnectionAcquireEvent.NAME)
+@Label("Connection Acquire")
+@Category({"MyFavs ORM", "Connection"})
+@Description("MyFavs ORM 从数据源获取连接")
+public final class ConnectionAcquireEvent extends jdk.jfr.Event {
+
+  /**
+   * 事件名称
+   */
+  public static final String NAME = "myfavs.orm.ConnectionAcquire";
+
+  @Label("Data Source")
+  private String dataSource;
+
+  /**
+   * 结束事件，JFR 开启该事件且耗时达到阈值时填充字段并提交
+   *
+   * @param dataSource 数据源名称
+   */
+  public void commit(String dataSource) {
+    end();
+    if (!shouldCommit()) return;
+
+    this.dataSource = dataSource;
+    commit();
+  }
+}
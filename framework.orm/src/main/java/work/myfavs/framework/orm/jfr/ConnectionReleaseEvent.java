@@ -0,0 +1,63 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import work.myfavs.framework.orm.metrics.ConnectionTracker;
+
+/**
+ * 释放数据库连接事件，持续时间为提交事务及关闭连接的耗时，由 {@link work.myfavs.framework.orm.JdbcConnFactory} 提交，
+ * 同时记录本次持有连接的时长、执行语句的时长和数量
+ */
+@Name(ConnectionReleaseEvent.NAME)
+@Label("Connection Release")
+@Category({"MyFavs ORM", "Connection"})
+@Description("MyFavs ORM 提交事务并归还连接")
+public final class ConnectionReleaseEvent extends jdk.jfr.Event {
+
+  /**
+   * 事件名称
+   */
+  public static final String NAME = "myfavs.orm.ConnectionRelease";
+
+  @Label("Data Source")
+  private String dataSource;
+
+  @Label("Hold Time")
+  @Description("从获取连接到释放完成的时长")
+  @Timespan
+  private long holdTime;
+
+  @Label("Busy Time")
+  @Description("持有期间执行语句的时长")
+  @Timespan
+  private long busyTime;
+
+  @Label("Statements")
+  @Description("持有期间执行的语句数量")
+  private int statements;
+
+  @Label("Max Depth")
+  @Description("连接的最大打开次数（嵌套深度）")
+  private int maxDepth;
+
+  /**
+   * 结束事件，JFR 开启该事件且耗时达到阈值时填充字段并提交
+   *
+   * @param dataSource 数据源名称
+   * @param hold       本次持有连接的状态
+   */
+  public void commit(String dataSource, ConnectionTracker.Hold hold) {
+    end();
+    if (!shouldCommit()) return;
+
+    this.dataSource = dataSource;
+    this.holdTime = hold.getHoldNanos();
+    this.busyTime = hold.getBusyNanos();
+    this.statements = hold.getStatements();
+    this.maxDepth = hold.getMaxDepth();
+    commit();
+  }
+}
@@ -0,0 +1,77 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+/**
+ * SQL 语句执行事件，由 {@link work.myfavs.framework.orm.Query} 在每次 find、execute、executeBatch 结束时提交，
+ * 持续时间包括参数绑定、执行及读取结果
+ * <p>
+ * 语句指纹只在事件需要提交时生成，从 {@link DruidUtil#fingerprint(String, String)} 的共享缓存中获取。
+ */
+@Name(QueryEvent.NAME)
+@Label("SQL Statement")
+@Category({"MyFavs ORM", "SQL"})
+@Description("MyFavs ORM 执行的 SQL 语句")
+public final class QueryEvent extends jdk.jfr.Event {
+
+  /**
+   * 事件名称
+   */
+  public static final String NAME = "myfavs.orm.Query";
+
+  @Label("Data Source")
+  private String dataSource;
+
+  @Label("Operation")
+  @Description("find、execute 或 executeBatch")
+  private String operation;
+
+  @Label("Fingerprint")
+  @Description("常量替换为 ? 后的语句指纹")
+  private String fingerprint;
+
+  @Label("SQL")
+  private String sql;
+
+  @Label("Rows")
+  @Description("返回或影响的行数")
+  private long rows;
+
+  @Label("Replica")
+  @Description("是否在只读副本上执行")
+  private boolean replica;
+
+  /**
+   * 构造方法
+   *
+   * @param operation 操作名称
+   */
+  public QueryEvent(String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * 结束事件，JFR 开启该事件且耗时达到阈值时填充字段并提交
+   *
+   * @param dataSource 数据源名称
+   * @param dbType     数据库类型，用于生成语句指纹
+   * @param sql        SQL 语句
+   * @param rows       返回或影响的行数
+   * @param replica    是否在只读副本上执行
+   */
+  public void commit(String dataSource, String dbType, String sql, long rows, boolean replica) {
+    end();
+    if (!shouldCommit()) return;
+
+    this.dataSource = dataSource;
+    this.fingerprint = DruidUtil.fingerprint(dbType, sql);
+    this.sql = sql;
+    this.rows = rows;
+    this.replica = replica;
+    commit();
+  }
+}
@@ -1,5 +1,6 @@
 package work.myfavs.framework.orm.meta;
 
+import work.myfavs.framework.orm.jfr.BatchEvent;
 import work.myfavs.framework.orm.util.exception.DBException;
 
 import java.sql.PreparedStatement;
@@ -12,6 +13,8 @@ public class BatchParameters {
   private final Map<Integer/*batchIndex*/, Parameters> batchParameters = new LinkedHashMap<>();
 
   private int currentBatchSize;
+  private int executedChunks;
+  private int pendingParameters;
 
   public BatchParameters() {
     currentBatchSize = 1;
@@ -42,21 +45,54 @@ public class BatchParameters {
 
   public void applyBatchParameters(PreparedStatement statement, int batchSize) {
     try {
+      this.executedChunks = 0;
+      this.pendingParameters = 0;
       for (Map.Entry<Integer, Parameters> entry : batchParameters.entrySet()) {
         Parameters parameters = entry.getValue();
         if (parameters.isEmpty()) continue;
 
         parameters.applyParameters(statement);
         statement.addBatch();
+        this.pendingParameters++;
 
         if (batchSize > 0 && entry.getKey() % batchSize == 0)
-          statement.executeBatch();
+          executeBatch(statement);
       }
     } catch (SQLException ex) {
       throw new DBException(ex, "设置批量参数时发生异常: %s", ex.getMessage());
     }
   }
 
+  /**
+   * 执行已添加但未执行的批量参数，每执行一批提交一次 {@link BatchEvent}
+   *
+   * @param statement {@link PreparedStatement}
+   * @return 返回数组，包含每个查询的影响行数
+   * @throws SQLException 执行批量更新过程抛出的异常
+   */
+  public int[] executeBatch(PreparedStatement statement) throws SQLException {
+    final BatchEvent event = new BatchEvent();
+    event.begin();
+
+    final int[] result = statement.executeBatch();
+    event.commit(++this.executedChunks, this.pendingParameters, result);
+    this.pendingParameters = 0;
+    return result;
+  }
+
+  /**
+   * 获取批量参数的数量
+   *
+   * @return 参数数量
+   */
+  public int size() {
+    int size = 0;
+    for (Parameters parameters : batchParameters.values()) {
+      if (!parameters.isEmpty()) size++;
+    }
+    return size;
+  }
+
   public boolean isBatch() {
     return this.currentBatchSize > 1;
   }
@@ -0,0 +1,15 @@
+package work.myfavs.framework.orm.meta.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 分表键标记，用于标记分表时决定记录所在物理表的实体属性，必须和 {@code @Column} 配合使用
+ * <p>
+ * 未标记时使用主键作为分表键
+ */
+@java.lang.annotation.Inherited
+@java.lang.annotation.Target({ElementType.FIELD})
+@java.lang.annotation.Retention(RetentionPolicy.RUNTIME)
+@java.lang.annotation.Documented
+public @interface PartitionKey {}
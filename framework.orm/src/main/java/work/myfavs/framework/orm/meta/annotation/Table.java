@@ -29,6 +29,9 @@ public @interface Table {
    *
    * <pre>
    * UUID : 值由系统字段生成;
+   * UUID_V7 : 按时间排序的 UUID，值由系统字段生成;
+   * SNOW_FLAKE : 雪花算法生成，由程序生成字段;
+   * SEGMENT : 号段分配，从号段表中租用ID范围，由程序生成字段;
    * IDENTITY : 数据库自增，值由数据库生成;
    * ASSIGNED : 自然主键，值由用户自定义;
    * COMPOSITE : 联合主键，值由用户自定义;
@@ -37,4 +40,11 @@ public @interface Table {
    * @return 主键生成策略
    */
   GenerationType strategy() default GenerationType.SNOW_FLAKE;
+
+  /**
+   * 是否开启实体二级缓存，开启后 getById、findByIds 优先从缓存读取，写操作时删除相关缓存
+   *
+   * @return 是否开启缓存
+   */
+  boolean cache() default false;
 }
@@ -23,6 +23,12 @@ import static work.myfavs.framework.orm.util.common.Constant.*;
  */
 public class Cond extends Clause {
 
+  /**
+   * 使用 AND 拼接的 =、IN、BETWEEN、&gt;、&ge;、&lt;、&le; 条件，用于按分表键确定需要访问的物理表；
+   * 使用 OR 拼接或直接设置 SQL 语句后无法确定，为 {@code null}
+   */
+  private List<Restriction> restrictions = new ArrayList<>();
+
   /**
    * 构造方法
    */
@@ -100,7 +106,7 @@ public class Cond extends Clause {
       return ignoreNull ? new Cond() : isNull(field);
     }
 
-    Cond cond = new Cond(String.format(" %s = ?", field), param);
+    Cond cond = new Cond(String.format(" %s = ?", field), param).restrict(field, "=", param);
 
     if (param instanceof String && StringUtil.length(param) == 0) {
       return ignoreNull ? new Cond() : cond;
@@ -171,7 +177,7 @@ public class Cond extends Clause {
     if (null == param) {
       return new Cond();
     }
-    return new Cond(String.format(" %s > ?", field), param);
+    return new Cond(String.format(" %s > ?", field), param).restrict(field, ">", param);
   }
 
   /**
@@ -186,7 +192,7 @@ public class Cond extends Clause {
     if (null == param) {
       return new Cond();
     }
-    return new Cond(String.format(" %s >= ?", field), param);
+    return new Cond(String.format(" %s >= ?", field), param).restrict(field, ">=", param);
   }
 
   /**
@@ -201,7 +207,7 @@ public class Cond extends Clause {
     if (null == param) {
       return new Cond();
     }
-    return new Cond(String.format(" %s < ?", field), param);
+    return new Cond(String.format(" %s < ?", field), param).restrict(field, "<", param);
   }
 
   /**
@@ -216,7 +222,7 @@ public class Cond extends Clause {
     if (null == param) {
       return new Cond();
     }
-    return new Cond(String.format(" %s <= ?", field), param);
+    return new Cond(String.format(" %s <= ?", field), param).restrict(field, "<=", param);
   }
 
   /**
@@ -307,7 +313,7 @@ public class Cond extends Clause {
     if (null == param1) {
       return le(field, param2);
     }
-    return new Cond(String.format(" %s BETWEEN ? AND ?", field), param1, param2);
+    return new Cond(String.format(" %s BETWEEN ? AND ?", field), param1, param2).restrict(field, "BETWEEN", param1, param2);
   }
 
   /**
@@ -347,7 +353,7 @@ public class Cond extends Clause {
     if (paramCnt == 1) {
       return eq(field, sqlParams.get(0), false);
     }
-    return new Cond(String.format(" %s IN (%s)", field, sql), sqlParams);
+    return new Cond(String.format(" %s IN (%s)", field, sql), sqlParams).restrict(field, "IN", sqlParams.toArray());
   }
 
   /**
@@ -503,6 +509,8 @@ public class Cond extends Clause {
     }
     this.sql.append(String.format(" AND %s", StringUtil.trimStart(cond.sql)));
     this.params.addAll(cond.params);
+    if (null == cond.restrictions) this.restrictions = null;
+    else if (null != this.restrictions) this.restrictions.addAll(cond.restrictions);
     return this;
   }
 
@@ -519,6 +527,7 @@ public class Cond extends Clause {
     }
     this.sql.append(String.format(" OR %s", StringUtil.trimStart(cond.sql)));
     this.params.addAll(cond.params);
+    this.restrictions = null;
     return this;
   }
 
@@ -624,6 +633,77 @@ public class Cond extends Clause {
     return this.sql.toString();
   }
 
+  @Override
+  public void setSql(StringBuilder sql) {
+
+    super.setSql(sql);
+    this.restrictions = null;
+  }
+
+  @Override
+  public void setParams(Collection<?> params) {
+
+    super.setParams(params);
+    this.restrictions = null;
+  }
+
+  /**
+   * 获取使用 AND 拼接的 =、IN、BETWEEN、&gt;、&ge;、&lt;、&le; 条件，用于按分表键确定需要访问的物理表
+   *
+   * @return 条件集合，使用 OR 拼接或直接设置 SQL 语句后无法确定时返回 {@code null}
+   */
+  public List<Restriction> getRestrictions() {
+
+    return null == this.restrictions ? null : Collections.unmodifiableList(this.restrictions);
+  }
+
+  private Cond restrict(String field, String operator, Object... values) {
+
+    this.restrictions.add(new Restriction(field, operator, Arrays.asList(values)));
+    return this;
+  }
+
+  /**
+   * 单个字段上的条件
+   */
+  public static final class Restriction {
+
+    private final String       field;
+    private final String       operator;
+    private final List<Object> values;
+
+    private Restriction(String field, String operator, List<Object> values) {
+
+      this.field = field;
+      this.operator = operator;
+      this.values = values;
+    }
+
+    /**
+     * @return 字段
+     */
+    public String getField() {
+
+      return field;
+    }
+
+    /**
+     * @return 运算符：=、IN、BETWEEN、&gt;、&gt;=、&lt;、&lt;=
+     */
+    public String getOperator() {
+
+      return operator;
+    }
+
+    /**
+     * @return 参数值
+     */
+    public List<Object> getValues() {
+
+      return values;
+    }
+  }
+
   /**
    * 设置转义符，用于使用 {@link Cond#like(String, Object, FuzzyMode)} 方法后设置
    *
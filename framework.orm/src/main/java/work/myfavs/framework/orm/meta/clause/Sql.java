@@ -18,6 +18,11 @@ import java.util.function.Supplier;
  */
 public class Sql extends Clause implements Serializable {
 
+  /**
+   * 查询结果缓存有效期（秒），0 表示不缓存，小于 0 表示使用默认有效期
+   */
+  private int cacheTtl = 0;
+
   // region Constructor
 
   /**
@@ -61,6 +66,7 @@ public class Sql extends Clause implements Serializable {
 
   public Sql(Sql sql) {
     super(sql.toString(), sql.getParams());
+    this.cacheTtl = sql.cacheTtl;
   }
   // endregion
 
@@ -79,6 +85,35 @@ public class Sql extends Clause implements Serializable {
     return this;
   }
 
+  /**
+   * 缓存查询结果，使用 {@code DBConfig#getQueryCacheTtl()} 作为有效期
+   *
+   * @return {@link Sql}
+   */
+  public Sql cached() {
+    return cached(-1);
+  }
+
+  /**
+   * 缓存查询结果，查询涉及的数据表通过 ORM 写入时自动删除缓存
+   *
+   * @param ttl 有效期（秒），小于 0 时使用默认有效期，等于 0 时不缓存
+   * @return {@link Sql}
+   */
+  public Sql cached(int ttl) {
+    this.cacheTtl = ttl;
+    return this;
+  }
+
+  /**
+   * 获取查询结果缓存有效期（秒），0 表示不缓存，小于 0 表示使用默认有效期
+   *
+   * @return 有效期
+   */
+  public int getCacheTtl() {
+    return cacheTtl;
+  }
+
   /**
    * 追加拼接 SQL
    *
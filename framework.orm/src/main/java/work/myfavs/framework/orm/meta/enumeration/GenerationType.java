@@ -7,10 +7,18 @@ public enum GenerationType {
    * UUID，值由系统字段生成
    */
   UUID,
+  /**
+   * 按时间排序的 UUID (Version 7)，值由系统字段生成，主键字段可为 String 或 {@link java.util.UUID}
+   */
+  UUID_V7,
   /**
    * 雪花算法生成，由程序生成字段
    */
   SNOW_FLAKE,
+  /**
+   * 号段分配，从号段表中租用ID范围，由程序生成字段
+   */
+  SEGMENT,
   /**
    * 数据库自增，值由数据库生成
    */
@@ -25,10 +33,14 @@ public enum GenerationType {
     switch (this) {
       case SNOW_FLAKE:
         return "GenerationType.SNOW_FLAKE";
+      case SEGMENT:
+        return "GenerationType.SEGMENT";
       case IDENTITY:
         return "GenerationType.IDENTITY";
       case UUID:
         return "GenerationType.UUID";
+      case UUID_V7:
+        return "GenerationType.UUID_V7";
       case ASSIGNED:
         return "GenerationType.ASSIGNED";
       default:
@@ -0,0 +1,113 @@
+package work.myfavs.framework.orm.meta.handler.impls;
+
+import work.myfavs.framework.orm.meta.handler.PropertyHandler;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * UUID 以 16 字节二进制存储（BINARY(16) / uniqueidentifier），替代 36 位字符串存储
+ * <p>
+ * 默认按大端字节序存储，适用于 MySQL、H2 等 BINARY(16) 字段，字节顺序与 UUID v7 时间顺序一致；
+ * SQL Server 的 uniqueidentifier 前三段为小端字节序，使用 {@code new UUIDBinaryPropertyHandler(true)}，
+ * 以保证数据库中显示的值与 {@link UUID#toString()} 一致。
+ * <p>
+ * 通过 {@code DBTemplate.Builder#mapping(mapper -> mapper.register(UUID.class, new UUIDBinaryPropertyHandler()))} 注册
+ */
+public class UUIDBinaryPropertyHandler extends PropertyHandler<UUID> {
+
+  private static final int UUID_BYTES = 16;
+
+  /**
+   * 是否使用 SQL Server uniqueidentifier 的混合字节序
+   */
+  private final boolean mixedEndian;
+
+  public UUIDBinaryPropertyHandler() {
+    this(false);
+  }
+
+  public UUIDBinaryPropertyHandler(boolean mixedEndian) {
+    this.mixedEndian = mixedEndian;
+  }
+
+  @Override
+  public UUID convert(ResultSet rs, int columnIndex, Class<UUID> clazz) throws SQLException {
+
+    Object val = rs.getObject(columnIndex);
+    if (null == val) return null;
+
+    if (val instanceof UUID) return (UUID) val;
+    if (val instanceof byte[]) return toUUID((byte[]) val);
+    if (val instanceof String) return UUID.fromString(((String) val).trim());
+
+    throw new DBException("不能把 %s 类型转换成 UUID 类型", val.getClass().getName());
+  }
+
+  @Override
+  public void addParameter(PreparedStatement ps, int paramIndex, UUID param) throws SQLException {
+
+    ps.setBytes(paramIndex, toBytes(param));
+  }
+
+  @Override
+  public int getSqlType() {
+    return Types.BINARY;
+  }
+
+  /**
+   * 把 UUID 转换为 16 字节数组
+   *
+   * @param uuid UUID
+   * @return 字节数组
+   */
+  public byte[] toBytes(UUID uuid) {
+    byte[] bytes = ByteBuffer.allocate(UUID_BYTES)
+                             .putLong(uuid.getMostSignificantBits())
+                             .putLong(uuid.getLeastSignificantBits())
+                             .array();
+    if (mixedEndian) swapGuidBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * 把 16 字节数组转换为 UUID
+   *
+   * @param bytes 字节数组
+   * @return UUID
+   */
+  public UUID toUUID(byte[] bytes) {
+    if (bytes.length != UUID_BYTES)
+      throw new DBException("UUID 字节长度必须为 %d, 实际为 %d", UUID_BYTES, bytes.length);
+
+    byte[] buf = bytes.clone();
+    if (mixedEndian) swapGuidBytes(buf);
+
+    ByteBuffer buffer = ByteBuffer.wrap(buf);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * 转换 uniqueidentifier 前三段（4、2、2 字节）的字节序，该操作可逆
+   *
+   * @param bytes 字节数组
+   */
+  private static void swapGuidBytes(byte[] bytes) {
+    reverse(bytes, 0, 4);
+    reverse(bytes, 4, 2);
+    reverse(bytes, 6, 2);
+  }
+
+  private static void reverse(byte[] bytes, int offset, int length) {
+    for (int i = offset, j = offset + length - 1; i < j; i++, j--) {
+      byte tmp = bytes[i];
+      bytes[i] = bytes[j];
+      bytes[j] = tmp;
+    }
+  }
+}
@@ -2,7 +2,9 @@ package work.myfavs.framework.orm.meta.schema;
 
 import work.myfavs.framework.orm.meta.annotation.Column;
 import work.myfavs.framework.orm.meta.annotation.LogicDelete;
+import work.myfavs.framework.orm.meta.annotation.PartitionKey;
 import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.ShardKey;
 import work.myfavs.framework.orm.meta.handler.PropertyHandler;
 import work.myfavs.framework.orm.meta.handler.PropertyHandlerFactory;
 import work.myfavs.framework.orm.util.common.StringUtil;
@@ -48,6 +50,14 @@ public class Attribute implements Serializable {
    * 是否逻辑删除字段？
    */
   private final boolean         logicDelete;
+  /**
+   * 是否分片键？
+   */
+  private final boolean         shardKey;
+  /**
+   * 是否分表键？
+   */
+  private final boolean         partitionKey;
   /**
    * 类型处理器
    */
@@ -81,6 +91,14 @@ public class Attribute implements Serializable {
     return logicDelete;
   }
 
+  public boolean isShardKey() {
+    return shardKey;
+  }
+
+  public boolean isPartitionKey() {
+    return partitionKey;
+  }
+
   // endregion
 
   // region Constructor
@@ -91,6 +109,8 @@ public class Attribute implements Serializable {
     this.fieldVisitor = new FieldVisitor(field);
     this.primaryKey = isPrimaryKey(field);
     this.logicDelete = isLogicDelete(field);
+    this.shardKey = null != field.getAnnotation(ShardKey.class);
+    this.partitionKey = null != field.getAnnotation(PartitionKey.class);
     this.columnName = StringUtil.isEmpty(column.value())
         ? StringUtil.toUnderlineCase(field.getName())
         : column.value();
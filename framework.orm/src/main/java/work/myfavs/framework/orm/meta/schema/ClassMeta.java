@@ -10,6 +10,7 @@ import work.myfavs.framework.orm.util.reflection.ReflectUtil;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 类元数据
@@ -18,7 +19,7 @@ import java.util.*;
  */
 public class ClassMeta {
 
-  private static final Map<String/* className */, ClassMeta> CLASS_META_CACHE = new HashMap<>();
+  private static final Map<String/* className */, ClassMeta> CLASS_META_CACHE = new ConcurrentHashMap<>();
 
   // region Attributes
 
@@ -46,6 +47,18 @@ public class ClassMeta {
    * 逻辑删除字段，null为不使用逻辑删除
    */
   private       Attribute      logicDelete;
+  /**
+   * 分片键，null为使用主键分片
+   */
+  private       Attribute      shardKey;
+  /**
+   * 分表键，null为使用主键分表
+   */
+  private       Attribute      partitionKey;
+  /**
+   * 是否开启实体二级缓存
+   */
+  private       boolean        cache;
 
 //  private final Constructor<?>                          modelConstructor;
   /**
@@ -81,6 +94,18 @@ public class ClassMeta {
     return logicDelete;
   }
 
+  public Attribute getShardKey() {
+    return shardKey;
+  }
+
+  public Attribute getPartitionKey() {
+    return partitionKey;
+  }
+
+  public boolean isCache() {
+    return cache;
+  }
+
   public boolean isEntity() {
     return isEntity;
   }
@@ -123,6 +148,7 @@ public class ClassMeta {
     if (null != table) {
       this.isEntity = true;
       this.strategy = table.strategy();
+      this.cache = table.cache();
       this.tableName = getTableName(table, clazz);
     }
 
@@ -139,6 +165,9 @@ public class ClassMeta {
       String columnName = attr.getColumnName().toUpperCase();
       this.queryAttributes.put(columnName, attr);
 
+      if (attr.isShardKey()) this.shardKey = attr;
+      if (attr.isPartitionKey()) this.partitionKey = attr;
+
       if (attr.isReadonly()) continue;
 
       if (attr.isPrimaryKey()) {
@@ -174,6 +203,15 @@ public class ClassMeta {
     return classMeta;
   }
 
+  /**
+   * 获取已解析的类元数据
+   *
+   * @return 类元数据集合
+   */
+  static Collection<ClassMeta> cached() {
+    return CLASS_META_CACHE.values();
+  }
+
   /**
    * 检查主键，如果不为 null，则返回主键
    *
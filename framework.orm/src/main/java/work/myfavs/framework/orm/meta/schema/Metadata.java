@@ -1,5 +1,6 @@
 package work.myfavs.framework.orm.meta.schema;
 
+import work.myfavs.framework.orm.util.common.DruidUtil;
 import work.myfavs.framework.orm.util.exception.DBException;
 
 /**
@@ -33,4 +34,19 @@ public class Metadata {
       return classMeta;
     throw new DBException("类型 %s 不是实体类, 实体类必须使用 @Table 注释. ", clazz.getName());
   }
+
+  /**
+   * 根据数据表名称查找已解析的实体类元数据
+   *
+   * @param tableName 数据表名称，忽略引号、schema 前缀及大小写
+   * @return 类元数据，没有对应的实体类或实体类尚未使用过时返回 {@code null}
+   */
+  public static ClassMeta findEntityMeta(String tableName) {
+    final String name = DruidUtil.normalizeTableName(tableName);
+    for (ClassMeta classMeta : ClassMeta.cached()) {
+      if (classMeta.isEntity() && name.equals(DruidUtil.normalizeTableName(classMeta.getTableName())))
+        return classMeta;
+    }
+    return null;
+  }
 }
@@ -0,0 +1,143 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 作用域级别的数据库访问分析器，用于发现 N+1 查询
+ * <p>
+ * 作用域为当前线程最外层 {@link work.myfavs.framework.orm.Database} 打开至关闭的区间（嵌套打开共用同一个作用域），
+ * 记录往返次数、每个语句指纹的执行次数及总行数。同一语句指纹的执行次数超出
+ * {@link DBConfig#getRepeatedQueryThreshold()} 时记录调用的 {@link work.myfavs.framework.orm.orm.Orm} 方法及调用位置：
+ * 开启 {@link DBConfig#isRepeatedQueryFail()} 时立即抛出 {@link DBException}，否则在作用域结束时将 {@link AccessReport}
+ * 交给监听器处理。未设置阈值时不做任何记录。
+ */
+public final class AccessAnalyzer {
+
+  private static final Logger log = LoggerFactory.getLogger(AccessAnalyzer.class);
+
+  /**
+   * 默认的监听器，以 WARN 级别输出到日志
+   */
+  public static final Consumer<AccessReport> LOGGER = report -> log.warn("{}", report);
+
+  private final String                 dsName;
+  private final DBConfig               dbConfig;
+  private final Consumer<AccessReport> listener;
+
+  private final ThreadLocal<Scope> scopeHolder = new ThreadLocal<>();
+
+  /**
+   * 构造方法
+   *
+   * @param dsName   数据源名称
+   * @param dbConfig 数据库配置
+   * @param listener 访问报告监听器，作用域内存在超出最大执行次数的语句时，在作用域结束时调用
+   */
+  public AccessAnalyzer(String dsName, DBConfig dbConfig, Consumer<AccessReport> listener) {
+    this.dsName = dsName;
+    this.dbConfig = dbConfig;
+    this.listener = Objects.requireNonNull(listener, "Access report listener is required.");
+  }
+
+  /**
+   * 进入作用域，与 {@link #exit()} 配对使用
+   */
+  public void enter() {
+    if (dbConfig.getRepeatedQueryThreshold() <= 0) return;
+
+    Scope scope = scopeHolder.get();
+    if (null == scope) {
+      scope = new Scope();
+      scopeHolder.set(scope);
+    }
+    scope.depth++;
+  }
+
+  /**
+   * 退出作用域，退出最外层作用域时，如果存在超出最大执行次数的语句，将报告交给监听器处理
+   */
+  public void exit() {
+    final Scope scope = scopeHolder.get();
+    if (null == scope || --scope.depth > 0) return;
+
+    scopeHolder.remove();
+    if (scope.violations.isEmpty()) return;
+
+    try {
+      listener.accept(scope.report(dsName));
+    } catch (RuntimeException ex) {
+      log.warn("处理数据库访问报告时发生异常: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * 记录一次往返
+   *
+   * @param sql  SQL 语句
+   * @param rows 返回或影响的行数
+   */
+  public void record(String sql, long rows) {
+    final Scope scope = scopeHolder.get();
+    if (null == scope) return;
+
+    final String fingerprint = DruidUtil.fingerprint(dbConfig.getDbType(), sql);
+    final long   executions  = scope.add(fingerprint, rows);
+    if (executions != dbConfig.getRepeatedQueryThreshold() + 1L) return;
+
+    final StackTraceElement[] call = CallSites.ormCall();
+    scope.violations.put(fingerprint, call);
+    if (dbConfig.isRepeatedQueryFail()) {
+      throw new DBException("同一作用域内语句执行次数超过 %d 次（疑似 N+1 查询）: %s, Orm 方法: %s, 调用位置: %s",
+                            dbConfig.getRepeatedQueryThreshold(), fingerprint,
+                            null == call[0] ? "-" : call[0].getClassName() + "." + call[0].getMethodName(),
+                            null == call[1] ? "-" : call[1]);
+    }
+  }
+
+  /**
+   * 获取当前线程作用域的访问报告
+   *
+   * @return {@link AccessReport}，不在作用域内或未设置阈值时返回 {@code null}
+   */
+  public AccessReport current() {
+    final Scope scope = scopeHolder.get();
+    return null == scope ? null : scope.report(dsName);
+  }
+
+  private static final class Scope {
+
+    private int  depth;
+    private long roundTrips;
+    private long rows;
+
+    private final Map<String, AccessReport.Statement> statements = new LinkedHashMap<>();
+    private final Map<String, StackTraceElement[]>    violations = new LinkedHashMap<>();
+
+    private long add(String fingerprint, long rows) {
+      this.roundTrips++;
+      this.rows += rows;
+      return statements.computeIfAbsent(fingerprint, AccessReport.Statement::new).add(rows);
+    }
+
+    private AccessReport report(String dsName) {
+      final Map<String, AccessReport.Statement> statements = new LinkedHashMap<>();
+      this.statements.forEach((fingerprint, statement) -> statements.put(fingerprint, new AccessReport.Statement(statement)));
+
+      final List<AccessReport.Violation> violations = new ArrayList<>();
+      this.violations.forEach((fingerprint, call) -> violations.add(
+          new AccessReport.Violation(fingerprint, statements.get(fingerprint).getExecutions(), call[0], call[1])));
+      return new AccessReport(dsName, roundTrips, rows, statements, violations);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.util.common.Constant;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个作用域（最外层 {@link work.myfavs.framework.orm.Database} 打开至关闭）的数据库访问报告
+ * <p>
+ * 记录往返次数（批量执行计为一次）、返回或影响的总行数、每个语句指纹的执行次数，以及超出
+ * {@link work.myfavs.framework.orm.DBConfig#getRepeatedQueryThreshold()} 的语句（疑似 N+1 查询）。
+ */
+public final class AccessReport {
+
+  private final String                 dsName;
+  private final long                   roundTrips;
+  private final long                   rows;
+  private final Map<String, Statement> statements;
+  private final List<Violation>        violations;
+
+  AccessReport(String dsName, long roundTrips, long rows, Map<String, Statement> statements, List<Violation> violations) {
+    this.dsName = dsName;
+    this.roundTrips = roundTrips;
+    this.rows = rows;
+    this.statements = Collections.unmodifiableMap(statements);
+    this.violations = Collections.unmodifiableList(violations);
+  }
+
+  /**
+   * 获取数据源名称
+   *
+   * @return 数据源名称
+   */
+  public String getDsName() {
+    return dsName;
+  }
+
+  /**
+   * 获取往返次数，批量执行计为一次
+   *
+   * @return 往返次数
+   */
+  public long getRoundTrips() {
+    return roundTrips;
+  }
+
+  /**
+   * 获取返回或影响的总行数
+   *
+   * @return 行数
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * 获取执行过的语句，按首次执行的顺序排列
+   *
+   * @return 语句集合
+   */
+  public Collection<Statement> getStatements() {
+    return statements.values();
+  }
+
+  /**
+   * 获取语句指纹的执行次数
+   *
+   * @param fingerprint 语句指纹
+   * @return 执行次数
+   */
+  public long getExecutions(String fingerprint) {
+    final Statement statement = statements.get(fingerprint);
+    return null == statement ? 0 : statement.getExecutions();
+  }
+
+  /**
+   * 获取超出最大执行次数的语句
+   *
+   * @return 超出最大执行次数的语句集合
+   */
+  public List<Violation> getViolations() {
+    return violations;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("数据源 ").append(dsName).append(" 的作用域内共 ").append(roundTrips).append(" 次往返, ")
+           .append(statements.size()).append(" 个语句, ").append(rows).append(" 行");
+    for (Violation violation : violations) {
+      builder.append(Constant.LINE_SEPARATOR).append("\t").append(violation);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * 单个语句指纹的执行汇总
+   */
+  public static final class Statement {
+
+    private final String fingerprint;
+    private       long   executions;
+    private       long   rows;
+
+    Statement(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    Statement(Statement statement) {
+      this.fingerprint = statement.fingerprint;
+      this.executions = statement.executions;
+      this.rows = statement.rows;
+    }
+
+    long add(long rows) {
+      this.rows += rows;
+      return ++this.executions;
+    }
+
+    /**
+     * 获取语句指纹
+     *
+     * @return 语句指纹
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * 获取执行次数
+     *
+     * @return 执行次数
+     */
+    public long getExecutions() {
+      return executions;
+    }
+
+    /**
+     * 获取返回或影响的总行数
+     *
+     * @return 行数
+     */
+    public long getRows() {
+      return rows;
+    }
+  }
+
+  /**
+   * 超出最大执行次数的语句
+   */
+  public static final class Violation {
+
+    private final String            fingerprint;
+    private final long              executions;
+    private final StackTraceElement ormMethod;
+    private final StackTraceElement callSite;
+
+    Violation(String fingerprint, long executions, StackTraceElement ormMethod, StackTraceElement callSite) {
+      this.fingerprint = fingerprint;
+      this.executions = executions;
+      this.ormMethod = ormMethod;
+      this.callSite = callSite;
+    }
+
+    /**
+     * 获取语句指纹
+     *
+     * @return 语句指纹
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * 获取作用域内的执行次数
+     *
+     * @return 执行次数
+     */
+    public long getExecutions() {
+      return executions;
+    }
+
+    /**
+     * 获取首次超出最大执行次数时调用的 {@link work.myfavs.framework.orm.orm.Orm} 方法
+     *
+     * @return 方法所在的栈帧，不是通过 {@link work.myfavs.framework.orm.orm.Orm} 执行时为 {@code null}
+     */
+    public StackTraceElement getOrmMethod() {
+      return ormMethod;
+    }
+
+    /**
+     * 获取首次超出最大执行次数时的调用位置（框架外第一个栈帧）
+     *
+     * @return 调用位置，找不到时为 {@code null}
+     */
+    public StackTraceElement getCallSite() {
+      return callSite;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("语句执行 %d 次: %s, Orm 方法: %s, 调用位置: %s", executions, fingerprint,
+                           null == ormMethod ? "-" : ormMethod.getClassName() + "." + ormMethod.getMethodName(),
+                           null == callSite ? "-" : callSite);
+    }
+  }
+}
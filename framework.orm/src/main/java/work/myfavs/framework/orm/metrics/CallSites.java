@@ -0,0 +1,70 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.orm.Orm;
+
+import java.security.CodeSource;
+import java.util.Objects;
+
+/**
+ * 定位调用框架的业务代码
+ * <p>
+ * 框架内部的调用指与当前类在同一个包及 jar（或类路径目录）中的类，业务代码中同名包下的类（例如测试类）不视为框架内部的调用。
+ */
+final class CallSites {
+
+  private static final String      ORM_PACKAGE      = "work.myfavs.framework.orm.";
+  private static final String      INSTRUMENTED_ORM = ORM_PACKAGE + "orm.InstrumentedOrm";
+  private static final CodeSource  ORM_SOURCE       = codeSource(CallSites.class);
+  private static final StackWalker STACK_WALKER     = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+  private CallSites() {}
+
+  /**
+   * 获取当前线程的调用栈，不包含框架内部的调用
+   *
+   * @param depth 最大深度
+   * @return 调用栈
+   */
+  static StackTraceElement[] callerStack(int depth) {
+    if (depth <= 0) return new StackTraceElement[0];
+
+    return STACK_WALKER.walk(frames -> frames.dropWhile(CallSites::isInternal)
+                                             .limit(depth)
+                                             .map(StackWalker.StackFrame::toStackTraceElement)
+                                             .toArray(StackTraceElement[]::new));
+  }
+
+  /**
+   * 获取业务代码调用的 {@link Orm} 方法及调用位置
+   *
+   * @return 长度为 2 的数组：{@link Orm} 方法（不是通过 {@link Orm} 调用时为 {@code null}）、调用位置（找不到时为 {@code null}）
+   */
+  static StackTraceElement[] ormCall() {
+    return STACK_WALKER.walk(frames -> {
+      final StackTraceElement[] call = new StackTraceElement[2];
+      frames.filter(frame -> {
+        if (!isInternal(frame)) return true;
+        // 记录最外层的 Orm 方法实现，跳过统计分配的内存或链路追踪时包装 Orm 实例的装饰器
+        if (Orm.class.isAssignableFrom(frame.getDeclaringClass()) && !INSTRUMENTED_ORM.equals(frame.getClassName())) {
+          call[0] = frame.toStackTraceElement();
+        }
+        return false;
+      }).findFirst().ifPresent(frame -> call[1] = frame.toStackTraceElement());
+      return call;
+    });
+  }
+
+  private static boolean isInternal(StackWalker.StackFrame frame) {
+    final Class<?> declaringClass = frame.getDeclaringClass();
+    return declaringClass.getName().startsWith(ORM_PACKAGE)
+        && Objects.equals(codeSource(declaringClass), ORM_SOURCE);
+  }
+
+  private static CodeSource codeSource(Class<?> type) {
+    try {
+      return type.getProtectionDomain().getCodeSource();
+    } catch (SecurityException ex) {
+      return null;
+    }
+  }
+}
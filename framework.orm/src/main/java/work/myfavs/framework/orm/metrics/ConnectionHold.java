@@ -0,0 +1,142 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.util.common.Constant;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 持有时长超出阈值的数据库连接
+ */
+public final class ConnectionHold {
+
+  private final long                timestamp;
+  private final String              dsName;
+  private final long                acquireNanos;
+  private final long                holdNanos;
+  private final long                busyNanos;
+  private final int                 statements;
+  private final int                 maxDepth;
+  private final String              threadName;
+  private final StackTraceElement[] stack;
+
+  ConnectionHold(String dsName, long acquireNanos, long holdNanos, long busyNanos, int statements, int maxDepth,
+                 StackTraceElement[] stack) {
+    this.timestamp = System.currentTimeMillis();
+    this.dsName = dsName;
+    this.acquireNanos = acquireNanos;
+    this.holdNanos = holdNanos;
+    this.busyNanos = busyNanos;
+    this.statements = statements;
+    this.maxDepth = maxDepth;
+    this.threadName = Thread.currentThread().getName();
+    this.stack = stack;
+  }
+
+  /**
+   * 获取释放连接的时间
+   *
+   * @return 时间戳（毫秒）
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * 获取数据源名称
+   *
+   * @return 数据源名称
+   */
+  public String getDsName() {
+    return dsName;
+  }
+
+  /**
+   * 获取从数据源获取连接的耗时
+   *
+   * @return 耗时（纳秒）
+   */
+  public long getAcquireNanos() {
+    return acquireNanos;
+  }
+
+  /**
+   * 获取持有时长
+   *
+   * @return 持有时长（纳秒）
+   */
+  public long getHoldNanos() {
+    return holdNanos;
+  }
+
+  /**
+   * 获取持有期间执行语句的时间
+   *
+   * @return 时间（纳秒）
+   */
+  public long getBusyNanos() {
+    return busyNanos;
+  }
+
+  /**
+   * 获取持有期间未执行语句的时间
+   *
+   * @return 时间（纳秒）
+   */
+  public long getIdleNanos() {
+    return Math.max(holdNanos - busyNanos, 0);
+  }
+
+  /**
+   * 获取持有期间执行的语句数量
+   *
+   * @return 语句数量
+   */
+  public int getStatements() {
+    return statements;
+  }
+
+  /**
+   * 获取持有期间连接的最大打开次数（嵌套深度）
+   *
+   * @return 最大打开次数
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * 获取持有连接的线程名称
+   *
+   * @return 线程名称
+   */
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * 获取打开连接时的调用栈，不包含框架内部的调用
+   *
+   * @return 调用栈
+   */
+  public List<StackTraceElement> getStack() {
+    return Collections.unmodifiableList(Arrays.asList(stack));
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("长时间持有连接 [").append(dsName).append("] ")
+           .append(TimeUnit.NANOSECONDS.toMillis(holdNanos)).append(" ms, 执行语句 ")
+           .append(TimeUnit.NANOSECONDS.toMillis(busyNanos)).append(" ms (").append(statements).append(" 个), 空闲 ")
+           .append(TimeUnit.NANOSECONDS.toMillis(getIdleNanos())).append(" ms, 获取连接 ")
+           .append(TimeUnit.NANOSECONDS.toMillis(acquireNanos)).append(" ms, 最大打开次数 ").append(maxDepth)
+           .append(", 线程 ").append(threadName);
+    for (StackTraceElement element : stack) {
+      builder.append(Constant.LINE_SEPARATOR).append("\tat ").append(element);
+    }
+    return builder.toString();
+  }
+}
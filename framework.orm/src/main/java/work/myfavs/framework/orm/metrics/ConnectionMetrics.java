@@ -0,0 +1,35 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * 数据库连接的指标记录器，由 {@link SqlMetrics#connection()} 在创建 {@link work.myfavs.framework.orm.DBTemplate} 时获取，
+ * 记录方法在获取、释放连接时调用，实现不应分配对象或加锁
+ */
+public interface ConnectionMetrics {
+
+  /**
+   * 不记录任何指标
+   */
+  ConnectionMetrics NOOP = new ConnectionMetrics() {
+    @Override
+    public void acquired(long acquireNanos) {}
+
+    @Override
+    public void released(long holdNanos, long busyNanos, int maxDepth) {}
+  };
+
+  /**
+   * 记录一次获取连接
+   *
+   * @param acquireNanos 从数据源获取连接的耗时（纳秒）
+   */
+  void acquired(long acquireNanos);
+
+  /**
+   * 记录一次释放连接
+   *
+   * @param holdNanos 持有时长（纳秒）
+   * @param busyNanos 持有期间执行语句的时间（纳秒），空闲时间为 {@code holdNanos - busyNanos}
+   * @param maxDepth  持有期间连接的最大打开次数（嵌套深度）
+   */
+  void released(long holdNanos, long busyNanos, int maxDepth);
+}
@@ -0,0 +1,23 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * 数据库连接持有阶段
+ */
+public enum ConnectionPhase {
+  /**
+   * 从数据源获取连接
+   */
+  ACQUIRE,
+  /**
+   * 从获取连接至释放连接（包括提交或回滚）
+   */
+  HOLD,
+  /**
+   * 持有期间执行语句（设置参数、执行、读取结果）的时间
+   */
+  BUSY,
+  /**
+   * 持有期间未执行语句的时间
+   */
+  IDLE
+}
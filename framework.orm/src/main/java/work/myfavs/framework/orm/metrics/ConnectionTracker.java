@@ -0,0 +1,172 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBConfig;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 数据库连接持有情况跟踪
+ * <p>
+ * 由 {@link work.myfavs.framework.orm.JdbcConnFactory} 在获取、释放连接时调用：记录获取连接的耗时、持有时长、持有期间执行语句（忙碌）
+ * 与未执行语句（空闲）的时间及嵌套打开的深度，写入 {@link ConnectionMetrics}。设置 {@link DBConfig#getConnectionHoldMillis()} 后，
+ * 获取连接时记录调用栈，持有时长超出阈值的连接在释放时交给监听器处理。
+ */
+public final class ConnectionTracker {
+
+  private static final Logger log = LoggerFactory.getLogger(ConnectionTracker.class);
+
+  /**
+   * 默认的监听器，以 WARN 级别输出到日志
+   */
+  public static final Consumer<ConnectionHold> LOGGER = hold -> log.warn("{}", hold);
+
+  /**
+   * 不记录任何指标，也不检测持有时长
+   */
+  public static final ConnectionTracker NOOP = new ConnectionTracker("", new DBConfig(), ConnectionMetrics.NOOP, hold -> { });
+
+  private final String                   dsName;
+  private final DBConfig                 dbConfig;
+  private final ConnectionMetrics        metrics;
+  private final Consumer<ConnectionHold> listener;
+  private final long                     thresholdNanos;
+
+  /**
+   * 构造方法
+   *
+   * @param dsName   数据源名称
+   * @param dbConfig 数据库配置
+   * @param metrics  {@link ConnectionMetrics}
+   * @param listener 监听器，在释放连接的线程中调用
+   */
+  public ConnectionTracker(String dsName, DBConfig dbConfig, ConnectionMetrics metrics, Consumer<ConnectionHold> listener) {
+    this.dsName = dsName;
+    this.dbConfig = dbConfig;
+    this.metrics = Objects.requireNonNull(metrics, "ConnectionMetrics is required.");
+    this.listener = Objects.requireNonNull(listener, "Connection hold listener is required.");
+    this.thresholdNanos = dbConfig.getConnectionHoldMillis() > 0
+        ? TimeUnit.MILLISECONDS.toNanos(dbConfig.getConnectionHoldMillis())
+        : Long.MAX_VALUE;
+  }
+
+  /**
+   * 获取数据源名称
+   *
+   * @return 数据源名称
+   */
+  public String getDsName() {
+    return dsName;
+  }
+
+  /**
+   * 记录一次获取连接
+   *
+   * @param start 开始获取连接的时间（纳秒）
+   * @return 本次持有的 {@link Hold}
+   */
+  public Hold acquired(long start) {
+    final long acquiredAt = System.nanoTime();
+    metrics.acquired(acquiredAt - start);
+
+    final StackTraceElement[] stack = thresholdNanos == Long.MAX_VALUE
+        ? null
+        : CallSites.callerStack(dbConfig.getSlowQueryStackDepth());
+    return new Hold(acquiredAt, acquiredAt - start, stack);
+  }
+
+  /**
+   * 记录一次释放连接，持有时长超出阈值时交给监听器处理
+   *
+   * @param hold 获取连接时返回的 {@link Hold}
+   */
+  public void released(Hold hold) {
+    final long holdNanos = hold.getHoldNanos();
+    metrics.released(holdNanos, hold.busyNanos, hold.maxDepth);
+    if (holdNanos < thresholdNanos) return;
+
+    try {
+      listener.accept(new ConnectionHold(dsName, hold.acquireNanos, holdNanos, hold.busyNanos, hold.statements,
+                                         hold.maxDepth, hold.stack));
+    } catch (RuntimeException ex) {
+      log.warn("处理长时间持有连接时发生异常: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * 单次持有连接的状态，只在持有连接的线程中访问
+   */
+  public static final class Hold {
+
+    private final long                acquiredAt;
+    private final long                acquireNanos;
+    private final StackTraceElement[] stack;
+    private       long                busyNanos;
+    private       int                 statements;
+    private       int                 maxDepth = 1;
+
+    private Hold(long acquiredAt, long acquireNanos, StackTraceElement[] stack) {
+      this.acquiredAt = acquiredAt;
+      this.acquireNanos = acquireNanos;
+      this.stack = stack;
+    }
+
+    /**
+     * 记录连接被再次打开
+     *
+     * @param depth 当前打开次数
+     */
+    public void opened(int depth) {
+      if (depth > maxDepth) maxDepth = depth;
+    }
+
+    /**
+     * 记录一次语句执行
+     *
+     * @param elapsedNanos 执行耗时（纳秒）
+     */
+    public void executed(long elapsedNanos) {
+      busyNanos += elapsedNanos;
+      statements++;
+    }
+
+    /**
+     * 获取已持有连接的时长
+     *
+     * @return 持有时长（纳秒）
+     */
+    public long getHoldNanos() {
+      return System.nanoTime() - acquiredAt;
+    }
+
+    /**
+     * 获取执行语句的时长
+     *
+     * @return 执行时长（纳秒）
+     */
+    public long getBusyNanos() {
+      return busyNanos;
+    }
+
+    /**
+     * 获取执行的语句数量
+     *
+     * @return 语句数量
+     */
+    public int getStatements() {
+      return statements;
+    }
+
+    /**
+     * 获取连接的最大打开次数
+     *
+     * @return 最大打开次数
+     */
+    public int getMaxDepth() {
+      return maxDepth;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.Parameters;
+import work.myfavs.framework.orm.util.common.Constant;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 各数据库获取执行计划的方式，以及从执行计划中识别全表扫描的规则
+ */
+enum ExplainDialect {
+
+  /**
+   * {@code EXPLAIN}，每行输出为 {@code 列名=值, ...}，{@code type=ALL} 为全表扫描
+   */
+  MYSQL(Pattern.compile("table=([^,]+),.*\\btype=ALL\\b")) {
+    @Override
+    String explain(Connection connection, String sql, Object[] parameters) throws SQLException {
+      return query(connection, "EXPLAIN " + sql, parameters);
+    }
+  },
+
+  /**
+   * {@code EXPLAIN}，执行计划中以 {@code 表名.tableScan} 注释标记全表扫描
+   */
+  H2(Pattern.compile("/\\*\\s*([\\w.\"]+)\\.tableScan\\b")) {
+    @Override
+    String explain(Connection connection, String sql, Object[] parameters) throws SQLException {
+      return query(connection, "EXPLAIN " + sql, parameters);
+    }
+  },
+
+  /**
+   * {@code EXPLAIN (FORMAT JSON)}，{@code "Node Type": "Seq Scan"} 为全表扫描
+   */
+  POSTGRE_SQL(Pattern.compile("\"Node Type\":\\s*\"Seq Scan\"[^{}]*?\"Relation Name\":\\s*\"([^\"]+)\"")) {
+    @Override
+    String explain(Connection connection, String sql, Object[] parameters) throws SQLException {
+      return query(connection, "EXPLAIN (FORMAT JSON) " + sql, parameters);
+    }
+  },
+
+  /**
+   * {@code SET SHOWPLAN_XML ON} 后执行语句得到 XML 执行计划（语句不会被执行），表扫描、聚集索引扫描及缺失索引提示视为全表扫描
+   */
+  SQL_SERVER(Pattern.compile("PhysicalOp=\"(?:Table Scan|Clustered Index Scan)\"[\\s\\S]*?<Object[^>]*Table=\"\\[?([^\"\\]]+)\\]?\""
+                                 + "|<MissingIndex\\b[^>]*Table=\"\\[?([^\"\\]]+)\\]?\"")) {
+    @Override
+    String explain(Connection connection, String sql, Object[] parameters) throws SQLException {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("SET SHOWPLAN_XML ON");
+        try {
+          return query(connection, sql, parameters);
+        } finally {
+          statement.execute("SET SHOWPLAN_XML OFF");
+        }
+      }
+    }
+  },
+
+  /**
+   * {@code EXPLAIN PLAN} 写入 PLAN_TABLE 后通过 {@code DBMS_XPLAN.DISPLAY} 读取，{@code TABLE ACCESS FULL} 为全表扫描
+   */
+  ORACLE(Pattern.compile("TABLE ACCESS (?:STORAGE )?FULL\\s*\\|\\s*\"?(\\w+)")) {
+    @Override
+    String explain(Connection connection, String sql, Object[] parameters) throws SQLException {
+      final String statementId = "MYFAVS_" + Long.toHexString(System.nanoTime());
+      try (PreparedStatement statement = connection.prepareStatement("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + sql)) {
+        bind(statement, parameters);
+        statement.execute();
+      }
+      return query(connection, "SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY('PLAN_TABLE', ?, 'TYPICAL'))",
+                   new Object[]{statementId});
+    }
+  };
+
+  private final Pattern fullScanPattern;
+
+  ExplainDialect(Pattern fullScanPattern) {
+    this.fullScanPattern = fullScanPattern;
+  }
+
+  /**
+   * 获取数据库类型对应的方式
+   *
+   * @param dbType 数据库类型，参考 {@link DbType}
+   * @return {@link ExplainDialect}，不支持时返回 {@code null}
+   */
+  static ExplainDialect of(String dbType) {
+    if (null == dbType) return null;
+
+    switch (dbType) {
+      case DbType.MYSQL:
+        return MYSQL;
+      case DbType.H2:
+        return H2;
+      case DbType.POSTGRE_SQL:
+        return POSTGRE_SQL;
+      case DbType.SQL_SERVER:
+      case DbType.SQL_SERVER_2012:
+        return SQL_SERVER;
+      case DbType.ORACLE:
+        return ORACLE;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * 获取执行计划，不执行语句本身
+   *
+   * @param connection 数据库连接
+   * @param sql        SQL 语句
+   * @param parameters 参数值
+   * @return 执行计划文本
+   * @throws SQLException 获取执行计划时发生的异常
+   */
+  abstract String explain(Connection connection, String sql, Object[] parameters) throws SQLException;
+
+  /**
+   * 识别执行计划中全表扫描的数据表
+   *
+   * @param plan 执行计划文本
+   * @return 规范化后的数据表名称集合
+   */
+  Set<String> fullScanTables(String plan) {
+    final Set<String> tables  = new LinkedHashSet<>();
+    final Matcher     matcher = fullScanPattern.matcher(plan);
+    while (matcher.find()) {
+      for (int group = 1; group <= matcher.groupCount(); group++) {
+        final String table = matcher.group(group);
+        if (null != table) tables.add(DruidUtil.normalizeTableName(table.trim()));
+      }
+    }
+    return tables;
+  }
+
+  private static void bind(PreparedStatement statement, Object[] parameters) {
+    final Parameters params = new Parameters();
+    params.addParameters(Arrays.asList(parameters));
+    params.applyParameters(statement);
+  }
+
+  /**
+   * 执行查询，把结果集转换为文本：只有一列时每行输出值，否则每行输出 {@code 列名=值, ...}
+   */
+  private static String query(Connection connection, String sql, Object[] parameters) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      bind(statement, parameters);
+
+      final StringBuilder plan = new StringBuilder();
+      try (ResultSet resultSet = statement.executeQuery()) {
+        final ResultSetMetaData metaData    = resultSet.getMetaData();
+        final int               columnCount = metaData.getColumnCount();
+        while (resultSet.next()) {
+          if (plan.length() > 0) plan.append(Constant.LINE_SEPARATOR);
+          for (int i = 1; i <= columnCount; i++) {
+            if (columnCount > 1) {
+              if (i > 1) plan.append(", ");
+              plan.append(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT)).append('=');
+            }
+            plan.append(resultSet.getString(i));
+          }
+        }
+      }
+      return plan.toString();
+    }
+  }
+}
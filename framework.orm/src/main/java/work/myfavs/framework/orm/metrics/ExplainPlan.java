@@ -0,0 +1,101 @@
+package work.myfavs.framework.orm.metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 慢查询的执行计划
+ */
+public final class ExplainPlan {
+
+  private final String                   fingerprint;
+  private final String                   sql;
+  private final String                   plan;
+  private final long                     capturedAt;
+  private final long                     elapsedNanos;
+  private final Set<String>              fullScanTables;
+  private final Map<String, Set<String>> filterColumns;
+
+  ExplainPlan(String fingerprint, String sql, String plan, long elapsedNanos, Set<String> fullScanTables,
+              Map<String, Set<String>> filterColumns) {
+    this.fingerprint = fingerprint;
+    this.sql = sql;
+    this.plan = plan;
+    this.capturedAt = System.currentTimeMillis();
+    this.elapsedNanos = elapsedNanos;
+    this.fullScanTables = fullScanTables;
+    this.filterColumns = filterColumns;
+  }
+
+  /**
+   * 获取语句指纹
+   *
+   * @return 语句指纹
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * 获取触发获取执行计划的 SQL 语句
+   *
+   * @return SQL 语句
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * 获取数据库返回的执行计划文本
+   *
+   * @return 执行计划
+   */
+  public String getPlan() {
+    return plan;
+  }
+
+  /**
+   * 获取获取执行计划的时间
+   *
+   * @return 时间戳（毫秒）
+   */
+  public long getCapturedAt() {
+    return capturedAt;
+  }
+
+  /**
+   * 获取触发获取执行计划的慢查询耗时
+   *
+   * @return 耗时（纳秒）
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * 获取执行计划中全表扫描的数据表
+   *
+   * @return 规范化后（小写、不含 schema）的数据表名称集合
+   */
+  public Set<String> getFullScanTables() {
+    return fullScanTables;
+  }
+
+  /**
+   * 获取语句中用于过滤的字段
+   *
+   * @return 数据表名称 - 字段名称集合
+   */
+  public Map<String, Set<String>> getFilterColumns() {
+    return filterColumns;
+  }
+
+  /**
+   * 是否存在全表扫描
+   *
+   * @return 存在返回 {@code true}
+   */
+  public boolean isFullScan() {
+    return !fullScanTables.isEmpty();
+  }
+}
@@ -0,0 +1,513 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 在内存中按语句指纹汇总 SQL 执行指标
+ * <p>
+ * 语句指纹由 {@link DruidUtil#fingerprint(String, String)} 生成，同一语句的指纹从共享的指纹缓存中直接获取；
+ * 每个指纹的每个执行阶段记录一个 {@link LatencyHistogram}，另外累计返回和影响的行数。
+ * 指纹数量超过上限后，新的语句汇总到 {@link #OTHER} 中，避免占用过多内存。
+ * 数据库连接的获取、持有、忙碌及空闲时间汇总在 {@link Connections} 中，开启统计分配的内存时，
+ * 每次执行分配的内存按语句指纹累计，每次 ORM 操作分配的内存按方法名称汇总在 {@link Operations} 中。
+ */
+public class InMemorySqlMetrics implements SqlMetrics {
+
+  /**
+   * 超出指纹数量上限的语句使用的指纹
+   */
+  public static final String OTHER = "<other>";
+
+  private final int                       maxStatements;
+  private final Map<String, Statement>    byFingerprint = new ConcurrentHashMap<>();
+  private final List<Consumer<Statement>> listeners     = new CopyOnWriteArrayList<>();
+  private final Connections               connections   = new Connections();
+  private final Operations                operations    = new Operations();
+
+  /**
+   * 构造方法，最多记录 1000 个语句指纹
+   */
+  public InMemorySqlMetrics() {
+    this(1000);
+  }
+
+  /**
+   * 构造方法
+   *
+   * @param maxStatements 最多记录的语句指纹数量
+   */
+  public InMemorySqlMetrics(int maxStatements) {
+    this.maxStatements = Math.max(maxStatements, 1);
+  }
+
+  @Override
+  public StatementMetrics statement(String dbType, String sql) {
+    return resolve(DruidUtil.fingerprint(dbType, sql));
+  }
+
+  @Override
+  public Connections connection() {
+    return connections;
+  }
+
+  @Override
+  public Operations operation() {
+    return operations;
+  }
+
+  /**
+   * 获取全部语句指纹的指标快照
+   *
+   * @return 语句指纹 - 指标快照
+   */
+  public Map<String, StatementSnapshot> snapshot() {
+    final Map<String, StatementSnapshot> snapshot = new LinkedHashMap<>();
+    for (Statement statement : byFingerprint.values()) {
+      if (statement.isRecorded()) snapshot.put(statement.getFingerprint(), statement.snapshot());
+    }
+    return snapshot;
+  }
+
+  /**
+   * 获取 SQL 语句所属指纹的指标快照
+   *
+   * @param dbType 数据库类型
+   * @param sql    SQL 语句
+   * @return 指标快照，没有执行过时返回 {@code null}
+   */
+  public StatementSnapshot snapshot(String dbType, String sql) {
+    final Statement statement = byFingerprint.get(DruidUtil.fingerprint(dbType, sql));
+    return null == statement || !statement.isRecorded() ? null : statement.snapshot();
+  }
+
+  /**
+   * 获取全部语句指纹的指标记录器
+   *
+   * @return 指标记录器集合
+   */
+  public Collection<Statement> statements() {
+    return Collections.unmodifiableCollection(new ArrayList<>(byFingerprint.values()));
+  }
+
+  /**
+   * 监听语句指纹：立即通知已存在的指纹，之后出现新的指纹时再通知（并发情况下同一指纹可能被通知多次）
+   *
+   * @param listener 监听器
+   */
+  public void onStatement(Consumer<Statement> listener) {
+    listeners.add(listener);
+    byFingerprint.values().forEach(listener);
+  }
+
+  /**
+   * 清空全部语句指纹的指标，数据库连接及 ORM 操作的指标持续累计
+   * <p>
+   * 只清零已有的 {@link Statement}，不移除：通过 {@link #onStatement(Consumer)} 注册的监听器（如 Micrometer 指标）
+   * 仍引用原来的 {@link Statement}，替换后已注册的指标不会再更新
+   */
+  public void reset() {
+    byFingerprint.values().forEach(Statement::reset);
+  }
+
+  private Statement resolve(String fingerprint) {
+    final Statement existing = byFingerprint.get(fingerprint);
+    if (null != existing) return existing;
+
+    final String    key      = byFingerprint.size() < maxStatements ? fingerprint : OTHER;
+    final Statement created  = new Statement(key);
+    final Statement resolved = byFingerprint.putIfAbsent(key, created);
+    if (null != resolved) return resolved;
+
+    listeners.forEach(listener -> listener.accept(created));
+    return created;
+  }
+
+  /**
+   * 单个语句指纹的指标记录器，执行阶段的直方图在第一次记录时创建
+   */
+  public static final class Statement implements StatementMetrics {
+
+    private final String                                 fingerprint;
+    private final AtomicReferenceArray<LatencyHistogram> histograms   = new AtomicReferenceArray<>(Phase.values().length);
+    private final LongAdder                              rowsReturned = new LongAdder();
+    private final LongAdder                              rowsAffected = new LongAdder();
+    private final LongAdder                              allocations  = new LongAdder();
+    private final LongAdder                              allocated    = new LongAdder();
+
+    private Statement(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public void record(Phase phase, long nanos) {
+      LatencyHistogram histogram = histograms.get(phase.ordinal());
+      if (null == histogram) {
+        final LatencyHistogram created = new LatencyHistogram();
+        // 与 reset() 并发时其他线程设置的直方图可能已被清除，此时使用新创建的直方图
+        histogram = histograms.compareAndSet(phase.ordinal(), null, created) ? created : histograms.get(phase.ordinal());
+        if (null == histogram) histogram = created;
+      }
+      histogram.record(nanos);
+    }
+
+    @Override
+    public void rowsReturned(long rows) {
+      rowsReturned.add(rows);
+    }
+
+    @Override
+    public void rowsAffected(long rows) {
+      rowsAffected.add(rows);
+    }
+
+    @Override
+    public void allocated(long bytes) {
+      allocations.increment();
+      allocated.add(bytes);
+    }
+
+    /**
+     * 清零全部执行阶段的直方图及累计的行数、内存
+     */
+    private void reset() {
+      for (int i = 0; i < histograms.length(); i++) {
+        histograms.set(i, null);
+      }
+      rowsReturned.reset();
+      rowsAffected.reset();
+      allocations.reset();
+      allocated.reset();
+    }
+
+    /**
+     * 判断清零后是否记录过数据
+     */
+    private boolean isRecorded() {
+      for (int i = 0; i < histograms.length(); i++) {
+        if (null != histograms.get(i)) return true;
+      }
+      return allocations.sum() > 0;
+    }
+
+    /**
+     * 获取语句指纹
+     *
+     * @return 语句指纹
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * 获取执行阶段的记录次数
+     *
+     * @param phase 执行阶段
+     * @return 次数
+     */
+    public long getCount(Phase phase) {
+      final LatencyHistogram histogram = histograms.get(phase.ordinal());
+      return null == histogram ? 0 : histogram.getCount();
+    }
+
+    /**
+     * 获取执行阶段的总耗时
+     *
+     * @param phase 执行阶段
+     * @return 总耗时（纳秒）
+     */
+    public long getTotalNanos(Phase phase) {
+      final LatencyHistogram histogram = histograms.get(phase.ordinal());
+      return null == histogram ? 0 : histogram.getTotalNanos();
+    }
+
+    /**
+     * 获取执行阶段的最大耗时
+     *
+     * @param phase 执行阶段
+     * @return 最大耗时（纳秒）
+     */
+    public long getMaxNanos(Phase phase) {
+      final LatencyHistogram histogram = histograms.get(phase.ordinal());
+      return null == histogram ? 0 : histogram.getMaxNanos();
+    }
+
+    /**
+     * 获取查询返回的总行数
+     *
+     * @return 行数
+     */
+    public long getRowsReturned() {
+      return rowsReturned.sum();
+    }
+
+    /**
+     * 获取更新影响的总行数
+     *
+     * @return 行数
+     */
+    public long getRowsAffected() {
+      return rowsAffected.sum();
+    }
+
+    /**
+     * 获取统计了分配内存的执行次数
+     *
+     * @return 次数
+     */
+    public long getAllocations() {
+      return allocations.sum();
+    }
+
+    /**
+     * 获取执行时分配的总字节数
+     *
+     * @return 字节数
+     */
+    public long getAllocatedBytes() {
+      return allocated.sum();
+    }
+
+    /**
+     * 获取当前数据的快照
+     *
+     * @return {@link StatementSnapshot}
+     */
+    public StatementSnapshot snapshot() {
+      final Map<Phase, LatencyHistogram.Snapshot> phases = new EnumMap<>(Phase.class);
+      for (Phase phase : Phase.values()) {
+        final LatencyHistogram histogram = histograms.get(phase.ordinal());
+        if (null != histogram) phases.put(phase, histogram.snapshot());
+      }
+      return new StatementSnapshot(fingerprint, phases, getRowsReturned(), getRowsAffected(), getAllocations(), getAllocatedBytes());
+    }
+  }
+
+  /**
+   * 数据库连接的指标记录器，每个持有阶段记录一个 {@link LatencyHistogram}，另外记录当前持有的连接数量及最大嵌套深度
+   */
+  public static final class Connections implements ConnectionMetrics {
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[ConnectionPhase.values().length];
+    private final LongAdder          active     = new LongAdder();
+    private final AtomicLong         maxDepth   = new AtomicLong();
+
+    private Connections() {
+      for (ConnectionPhase phase : ConnectionPhase.values()) {
+        histograms[phase.ordinal()] = new LatencyHistogram();
+      }
+    }
+
+    @Override
+    public void acquired(long acquireNanos) {
+      histograms[ConnectionPhase.ACQUIRE.ordinal()].record(acquireNanos);
+      active.increment();
+    }
+
+    @Override
+    public void released(long holdNanos, long busyNanos, int maxDepth) {
+      histograms[ConnectionPhase.HOLD.ordinal()].record(holdNanos);
+      histograms[ConnectionPhase.BUSY.ordinal()].record(busyNanos);
+      histograms[ConnectionPhase.IDLE.ordinal()].record(holdNanos - busyNanos);
+      active.decrement();
+      if (maxDepth > this.maxDepth.get()) this.maxDepth.accumulateAndGet(maxDepth, Math::max);
+    }
+
+    /**
+     * 获取持有阶段的记录次数
+     *
+     * @param phase 持有阶段
+     * @return 次数
+     */
+    public long getCount(ConnectionPhase phase) {
+      return histograms[phase.ordinal()].getCount();
+    }
+
+    /**
+     * 获取持有阶段的总耗时
+     *
+     * @param phase 持有阶段
+     * @return 总耗时（纳秒）
+     */
+    public long getTotalNanos(ConnectionPhase phase) {
+      return histograms[phase.ordinal()].getTotalNanos();
+    }
+
+    /**
+     * 获取持有阶段的最大耗时
+     *
+     * @param phase 持有阶段
+     * @return 最大耗时（纳秒）
+     */
+    public long getMaxNanos(ConnectionPhase phase) {
+      return histograms[phase.ordinal()].getMaxNanos();
+    }
+
+    /**
+     * 获取持有阶段的直方图快照
+     *
+     * @param phase 持有阶段
+     * @return {@link LatencyHistogram.Snapshot}
+     */
+    public LatencyHistogram.Snapshot snapshot(ConnectionPhase phase) {
+      return histograms[phase.ordinal()].snapshot();
+    }
+
+    /**
+     * 获取当前持有的连接数量
+     *
+     * @return 连接数量
+     */
+    public long getActive() {
+      return active.sum();
+    }
+
+    /**
+     * 获取连接的最大打开次数（嵌套深度）
+     *
+     * @return 最大打开次数
+     */
+    public long getMaxDepth() {
+      return maxDepth.get();
+    }
+  }
+
+  /**
+   * ORM 操作的指标记录器，按 {@link work.myfavs.framework.orm.orm.Orm} 的方法名称汇总每次调用分配的内存
+   */
+  public static final class Operations implements OperationMetrics {
+
+    private final Map<String, Operation>    byName    = new ConcurrentHashMap<>();
+    private final List<Consumer<Operation>> listeners = new CopyOnWriteArrayList<>();
+
+    private Operations() {}
+
+    @Override
+    public void allocated(String operation, long bytes) {
+      Operation existing = byName.get(operation);
+      if (null == existing) {
+        final Operation created = new Operation(operation);
+        existing = byName.putIfAbsent(operation, created);
+        if (null == existing) {
+          existing = created;
+          listeners.forEach(listener -> listener.accept(created));
+        }
+      }
+      existing.allocated(bytes);
+    }
+
+    /**
+     * 获取 ORM 操作的指标
+     *
+     * @param operation 操作名称
+     * @return {@link Operation}，没有调用过时返回 {@code null}
+     */
+    public Operation get(String operation) {
+      return byName.get(operation);
+    }
+
+    /**
+     * 获取全部 ORM 操作的指标
+     *
+     * @return {@link Operation} 集合
+     */
+    public Collection<Operation> values() {
+      return Collections.unmodifiableCollection(new ArrayList<>(byName.values()));
+    }
+
+    /**
+     * 监听 ORM 操作：立即通知已存在的操作，之后出现新的操作时再通知
+     *
+     * @param listener 监听器
+     */
+    public void onOperation(Consumer<Operation> listener) {
+      listeners.add(listener);
+      byName.values().forEach(listener);
+    }
+  }
+
+  /**
+   * 单个 ORM 操作分配内存的汇总
+   */
+  public static final class Operation {
+
+    private final String     name;
+    private final LongAdder  count     = new LongAdder();
+    private final LongAdder  allocated = new LongAdder();
+    private final AtomicLong max       = new AtomicLong();
+
+    private Operation(String name) {
+      this.name = name;
+    }
+
+    private void allocated(long bytes) {
+      count.increment();
+      allocated.add(bytes);
+      if (bytes > max.get()) max.accumulateAndGet(bytes, Math::max);
+    }
+
+    /**
+     * 获取操作名称
+     *
+     * @return {@link work.myfavs.framework.orm.orm.Orm} 的方法名称
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * 获取调用次数
+     *
+     * @return 次数
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * 获取分配的总字节数
+     *
+     * @return 字节数
+     */
+    public long getAllocatedBytes() {
+      return allocated.sum();
+    }
+
+    /**
+     * 获取单次调用分配的最大字节数
+     *
+     * @return 字节数
+     */
+    public long getMaxAllocatedBytes() {
+      return max.get();
+    }
+
+    /**
+     * 获取平均每次调用分配的字节数
+     *
+     * @return 字节数，没有调用时返回 0
+     */
+    public long getAllocatedBytesPerCall() {
+      final long calls = getCount();
+      return 0 == calls ? 0 : getAllocatedBytes() / calls;
+    }
+
+    @Override
+    public String toString() {
+      return name + ": " + getCount() + " 次, " + getAllocatedBytesPerCall() + " B/次, 最大 " + getMaxAllocatedBytes() + " B";
+    }
+  }
+}
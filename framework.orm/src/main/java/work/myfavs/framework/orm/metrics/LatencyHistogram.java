@@ -0,0 +1,179 @@
+package work.myfavs.framework.orm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 纳秒延迟直方图
+ * <p>
+ * 按对数分桶，每个 2 的幂区间再分为 8 个子桶，相对误差不超过 12.5%；超过约 73 分钟的值计入最后一个桶。
+ * 记录时只做无锁的原子累加（次数和总耗时使用分段计数的 {@link LongAdder}），不分配对象。
+ */
+public final class LatencyHistogram {
+
+  private static final int  SUB_BITS     = 3;
+  private static final int  SUB_COUNT    = 1 << SUB_BITS;
+  private static final int  MAX_EXPONENT = 41;
+  private static final long MAX_VALUE    = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  /**
+   * 桶数量
+   */
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder       count   = new LongAdder();
+  private final LongAdder       total   = new LongAdder();
+  private final AtomicLong      max     = new AtomicLong();
+
+  /**
+   * 记录一次耗时
+   *
+   * @param nanos 耗时（纳秒），小于 0 时按 0 计算
+   */
+  public void record(long nanos) {
+    final long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+    buckets.incrementAndGet(bucketOf(value));
+    count.increment();
+    total.add(value);
+    if (value > max.get()) max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * 获取记录次数
+   *
+   * @return 次数
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * 获取总耗时
+   *
+   * @return 总耗时（纳秒）
+   */
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  /**
+   * 获取最大耗时
+   *
+   * @return 最大耗时（纳秒）
+   */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * 获取当前数据的快照
+   *
+   * @return {@link Snapshot}
+   */
+  public Snapshot snapshot() {
+    final long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return new Snapshot(counts, getTotalNanos(), getMaxNanos());
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) return (int) value;
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    return (exponent - SUB_BITS + 1) * SUB_COUNT + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+  }
+
+  /**
+   * 桶内的最大值
+   */
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_COUNT) return bucket;
+    final int  exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+    final long sub      = bucket % SUB_COUNT;
+    return ((SUB_COUNT + sub + 1) << (exponent - SUB_BITS)) - 1;
+  }
+
+  /**
+   * 直方图快照
+   */
+  public static final class Snapshot {
+
+    /**
+     * 没有记录的快照
+     */
+    public static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0);
+
+    private final long[] counts;
+    private final long   count;
+    private final long   totalNanos;
+    private final long   maxNanos;
+
+    private Snapshot(long[] counts, long totalNanos, long maxNanos) {
+      long count = 0;
+      for (long c : counts) {
+        count += c;
+      }
+      this.counts = counts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /**
+     * 获取记录次数
+     *
+     * @return 次数
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * 获取总耗时
+     *
+     * @return 总耗时（纳秒）
+     */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /**
+     * 获取最大耗时
+     *
+     * @return 最大耗时（纳秒）
+     */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * 获取平均耗时
+     *
+     * @return 平均耗时（纳秒），没有记录时返回 0
+     */
+    public double getMeanNanos() {
+      return 0 == count ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * 获取百分位耗时，返回所在桶的上界（不超过最大耗时）
+     *
+     * @param percentile 百分位，取值 0 ~ 1，例如 0.99
+     * @return 耗时（纳秒），没有记录时返回 0
+     */
+    public long getPercentileNanos(double percentile) {
+      if (0 == count) return 0;
+
+      final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+      long       seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) return Math.min(upperBoundOf(i), maxNanos);
+      }
+      return maxNanos;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * {@link work.myfavs.framework.orm.orm.Orm} 操作的指标记录器，由 {@link SqlMetrics#operation()} 获取，
+ * 在 {@link work.myfavs.framework.orm.DBConfig#setTrackAllocations(boolean)} 开启时记录每次调用分配的内存
+ */
+public interface OperationMetrics {
+
+  /**
+   * 不记录任何指标
+   */
+  OperationMetrics NOOP = (operation, bytes) -> { };
+
+  /**
+   * 记录一次操作当前线程分配的内存，嵌套调用只记录最外层的操作
+   *
+   * @param operation 操作名称，即 {@link work.myfavs.framework.orm.orm.Orm} 的方法名称
+   * @param bytes     分配的字节数
+   */
+  void allocated(String operation, long bytes);
+}
@@ -0,0 +1,27 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * SQL 语句执行阶段
+ */
+public enum Phase {
+  /**
+   * 创建 {@link java.sql.PreparedStatement}
+   */
+  PREPARE,
+  /**
+   * 设置参数
+   */
+  BIND,
+  /**
+   * 执行 executeQuery、executeUpdate 或 executeBatch
+   */
+  EXECUTE,
+  /**
+   * 读取 {@link java.sql.ResultSet} 并转换为结果集合
+   */
+  FETCH,
+  /**
+   * 读取并设置数据库生成的主键
+   */
+  GENERATED_KEYS
+}
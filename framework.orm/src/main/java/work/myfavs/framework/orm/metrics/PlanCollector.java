@@ -0,0 +1,134 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 慢查询执行计划收集器
+ * <p>
+ * 作为 {@link SlowQueryLog} 的监听器在后台线程中运行：对慢查询中的 SELECT 语句，使用独立的数据库连接按数据库类型获取执行计划
+ * （MySQL、H2 使用 {@code EXPLAIN}，PostgreSQL 使用 {@code EXPLAIN (FORMAT JSON)}，SQL Server 使用 {@code SET SHOWPLAN_XML}，
+ * Oracle 使用 {@code EXPLAIN PLAN}），同一语句指纹在 {@link DBConfig#getExplainIntervalSeconds()} 内只获取一次。
+ * 收集的执行计划通过 {@link #report()} 汇总为 {@link WorkloadReport}。
+ */
+public final class PlanCollector implements Consumer<SlowQuery> {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanCollector.class);
+
+  /**
+   * 最多记录的语句指纹数量
+   */
+  private static final int MAX_STATEMENTS = 1000;
+
+  private final DataSource dataSource;
+  private final DBConfig   dbConfig;
+
+  private final Map<String, ExplainPlan> plans        = new ConcurrentHashMap<>();
+  private final Map<String, Long>        lastCaptured = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder>   slowQueries  = new ConcurrentHashMap<>();
+
+  /**
+   * 构造方法
+   *
+   * @param dataSource 获取执行计划使用的数据源
+   * @param dbConfig   数据库配置
+   */
+  public PlanCollector(DataSource dataSource, DBConfig dbConfig) {
+    this.dataSource = dataSource;
+    this.dbConfig = dbConfig;
+  }
+
+  @Override
+  public void accept(SlowQuery slowQuery) {
+    final ExplainDialect dialect = ExplainDialect.of(slowQuery.getDbType());
+    if (null == dialect || !isSelect(slowQuery.getSql())) return;
+
+    final String    fingerprint = slowQuery.getFingerprint();
+    final LongAdder counter     = counter(fingerprint);
+    if (null == counter) return;
+    counter.increment();
+
+    final long now  = System.nanoTime();
+    final Long last = lastCaptured.get(fingerprint);
+    if (null != last && now - last < TimeUnit.SECONDS.toNanos(dbConfig.getExplainIntervalSeconds())) return;
+    lastCaptured.put(fingerprint, now);
+
+    try (Connection connection = dataSource.getConnection()) {
+      final String plan = dialect.explain(connection, slowQuery.getSql(), slowQuery.getParameterValues());
+      if (!connection.getAutoCommit()) connection.rollback();
+
+      plans.put(fingerprint, new ExplainPlan(fingerprint, slowQuery.getSql(), plan, slowQuery.getElapsedNanos(),
+                                             dialect.fullScanTables(plan), filterColumns(slowQuery)));
+    } catch (SQLException | RuntimeException ex) {
+      log.warn("获取语句 {} 的执行计划时发生异常: {}", fingerprint, ex.getMessage());
+    }
+  }
+
+  /**
+   * 获取已收集的执行计划，每个语句指纹保留最近一次
+   *
+   * @return 执行计划集合
+   */
+  public Collection<ExplainPlan> getPlans() {
+    return Collections.unmodifiableCollection(new ArrayList<>(plans.values()));
+  }
+
+  /**
+   * 汇总已收集的执行计划，按数据表（实体）列出全表扫描的语句及建议建立索引的字段
+   *
+   * @return {@link WorkloadReport}
+   */
+  public WorkloadReport report() {
+    final Map<String, Long> counts = new HashMap<>();
+    slowQueries.forEach((fingerprint, counter) -> counts.put(fingerprint, counter.sum()));
+    return new WorkloadReport(getPlans(), counts);
+  }
+
+  /**
+   * 清空已收集的执行计划
+   */
+  public void reset() {
+    plans.clear();
+    lastCaptured.clear();
+    slowQueries.clear();
+  }
+
+  private LongAdder counter(String fingerprint) {
+    final LongAdder counter = slowQueries.get(fingerprint);
+    if (null != counter || slowQueries.size() >= MAX_STATEMENTS) return counter;
+    return slowQueries.computeIfAbsent(fingerprint, key -> new LongAdder());
+  }
+
+  private static Map<String, Set<String>> filterColumns(SlowQuery slowQuery) {
+    try {
+      return DruidUtil.getConditionColumns(DruidUtil.convert(slowQuery.getDbType()), slowQuery.getSql());
+    } catch (RuntimeException ex) {
+      return Collections.emptyMap();
+    }
+  }
+
+  /**
+   * 只获取查询语句的执行计划，部分数据库获取更新语句的执行计划时有副作用
+   */
+  private static boolean isSelect(String sql) {
+    final String statement = sql.trim().toUpperCase(Locale.ROOT);
+    return statement.startsWith("SELECT") || statement.startsWith("WITH");
+  }
+}
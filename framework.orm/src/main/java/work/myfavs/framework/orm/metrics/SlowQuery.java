@@ -0,0 +1,207 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.util.common.Constant;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢查询日志条目
+ * <p>
+ * 在执行查询的线程中只复制参数值和调用栈，参数的格式化、截断及语句指纹的解析在读取时进行（通常在后台输出线程中）。
+ */
+public final class SlowQuery {
+
+  private final long                timestamp;
+  private final String              dsName;
+  private final String              dbType;
+  private final String              sql;
+  private final Object[]            parameters;
+  private final int                 batchSize;
+  private final long                rows;
+  private final long                elapsedNanos;
+  private final long                connectionHoldNanos;
+  private final String              threadName;
+  private final StackTraceElement[] stack;
+  private final int                 maxParamLength;
+
+  private volatile List<String> formattedParameters;
+
+  SlowQuery(String dsName, String dbType, String sql, Object[] parameters, int batchSize, long rows, long elapsedNanos,
+            long connectionHoldNanos, StackTraceElement[] stack, int maxParamLength) {
+    this.timestamp = System.currentTimeMillis();
+    this.dsName = dsName;
+    this.dbType = dbType;
+    this.sql = sql;
+    this.parameters = parameters;
+    this.batchSize = batchSize;
+    this.rows = rows;
+    this.elapsedNanos = elapsedNanos;
+    this.connectionHoldNanos = connectionHoldNanos;
+    this.threadName = Thread.currentThread().getName();
+    this.stack = stack;
+    this.maxParamLength = maxParamLength;
+  }
+
+  /**
+   * 获取执行完成的时间
+   *
+   * @return 时间戳（毫秒）
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * 获取数据源名称
+   *
+   * @return 数据源名称
+   */
+  public String getDsName() {
+    return dsName;
+  }
+
+  /**
+   * 获取 SQL 语句
+   *
+   * @return SQL 语句
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * 获取数据库类型
+   *
+   * @return 数据库类型，参考 {@link work.myfavs.framework.orm.meta.DbType}
+   */
+  public String getDbType() {
+    return dbType;
+  }
+
+  /**
+   * 获取语句指纹
+   *
+   * @return 语句指纹
+   */
+  public String getFingerprint() {
+    return DruidUtil.fingerprint(dbType, sql);
+  }
+
+  /**
+   * 获取格式化后的参数，超出最大长度的参数被截断；批量执行时为第一批次的参数
+   *
+   * @return 参数集合
+   */
+  public List<String> getParameters() {
+    if (null == formattedParameters) {
+      final SimpleDateFormat dateFormat = new SimpleDateFormat(Constant.DATE_FORMAT_STR);
+      final List<String>     formatted  = new ArrayList<>(parameters.length);
+      for (Object parameter : parameters) {
+        formatted.add(truncate(format(parameter, dateFormat)));
+      }
+      formattedParameters = Collections.unmodifiableList(formatted);
+    }
+    return formattedParameters;
+  }
+
+  /**
+   * 获取原始参数值，用于重新执行语句（如获取执行计划）
+   *
+   * @return 参数值
+   */
+  Object[] getParameterValues() {
+    return parameters;
+  }
+
+  /**
+   * 获取批量执行的批次数量，非批量执行时为 1
+   *
+   * @return 批次数量
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * 获取返回（查询）或影响（更新）的行数
+   *
+   * @return 行数
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * 获取执行耗时，包括参数绑定、执行及读取结果
+   *
+   * @return 耗时（纳秒）
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * 获取执行完成时已持有数据库连接的时长
+   *
+   * @return 持有时长（纳秒），无法获知时返回 -1
+   */
+  public long getConnectionHoldNanos() {
+    return connectionHoldNanos;
+  }
+
+  /**
+   * 获取执行查询的线程名称
+   *
+   * @return 线程名称
+   */
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * 获取调用栈，不包含框架内部的调用
+   *
+   * @return 调用栈
+   */
+  public StackTraceElement[] getStack() {
+    return stack.clone();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("慢查询 [").append(dsName).append("] ")
+           .append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append(" ms, ")
+           .append(rows).append(" 行");
+    if (batchSize > 1) builder.append(", ").append(batchSize).append(" 批次");
+    if (connectionHoldNanos >= 0)
+      builder.append(", 连接已持有 ").append(TimeUnit.NANOSECONDS.toMillis(connectionHoldNanos)).append(" ms");
+    builder.append(", 线程 ").append(threadName);
+    builder.append(Constant.LINE_SEPARATOR).append(sql);
+    if (parameters.length > 0)
+      builder.append(Constant.LINE_SEPARATOR).append("参数: ").append(String.join(", ", getParameters()));
+    for (StackTraceElement element : stack) {
+      builder.append(Constant.LINE_SEPARATOR).append("\tat ").append(element);
+    }
+    return builder.toString();
+  }
+
+  private String truncate(String value) {
+    if (maxParamLength <= 0 || value.length() <= maxParamLength) return value;
+    return value.substring(0, maxParamLength).concat("...");
+  }
+
+  private static String format(Object param, SimpleDateFormat dateFormat) {
+    if (null == param) return "null";
+    if (param instanceof Number) return param.toString();
+    if (param instanceof Date) return String.format("'%s'", dateFormat.format(param));
+    if (param instanceof byte[]) return String.format("byte[%d]", ((byte[]) param).length);
+    return String.format("'%s'", param);
+  }
+}
@@ -0,0 +1,206 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.meta.BatchParameters;
+import work.myfavs.framework.orm.meta.Parameters;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 异步采样慢查询日志
+ * <p>
+ * 语句执行耗时达到阈值（默认阈值为 {@link DBConfig#getSlowQueryMillis()}，可按语句指纹单独设置）并命中采样时，
+ * 在执行查询的线程中复制参数值和调用栈，放入固定容量的无锁环形缓冲区后立即返回，由后台线程取出并交给监听器输出；
+ * 缓冲区满时丢弃新的慢查询并计数，不会阻塞或拖慢查询。后台线程在第一次出现慢查询时启动。
+ */
+public final class SlowQueryLog {
+
+  private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+  /**
+   * 默认的监听器，以 WARN 级别输出到日志
+   */
+  public static final Consumer<SlowQuery> LOGGER = slowQuery -> log.warn("{}", slowQuery);
+
+  /**
+   * 后台线程空闲时的最长等待时间
+   */
+  private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final String              dsName;
+  private final DBConfig            dbConfig;
+  private final Consumer<SlowQuery> listener;
+  private final long                defaultThresholdNanos;
+
+  private final Map<String, Long> thresholdByFingerprint = new ConcurrentHashMap<>();
+
+  private final AtomicReferenceArray<SlowQuery> ring;
+  private final AtomicLong                      tail    = new AtomicLong();
+  private volatile long                         head;
+  private final LongAdder                       dropped = new LongAdder();
+  private final AtomicBoolean                   started = new AtomicBoolean();
+  private volatile Thread                       writer;
+
+  /**
+   * 构造方法
+   *
+   * @param dsName   数据源名称
+   * @param dbConfig 数据库配置
+   * @param listener 慢查询监听器，在后台线程中调用
+   */
+  public SlowQueryLog(String dsName, DBConfig dbConfig, Consumer<SlowQuery> listener) {
+    this.dsName = dsName;
+    this.dbConfig = dbConfig;
+    this.listener = Objects.requireNonNull(listener, "Slow query listener is required.");
+    this.defaultThresholdNanos = toThresholdNanos(dbConfig.getSlowQueryMillis());
+    this.ring = new AtomicReferenceArray<>(Math.max(dbConfig.getSlowQueryBufferSize(), 1));
+  }
+
+  /**
+   * 获取 SQL 语句的慢查询阈值，每次创建 {@link work.myfavs.framework.orm.Query} 时调用一次
+   *
+   * @param sql SQL 语句
+   * @return 阈值（纳秒），不记录时返回 {@link Long#MAX_VALUE}
+   */
+  public long thresholdNanos(String sql) {
+    if (thresholdByFingerprint.isEmpty()) return defaultThresholdNanos;
+
+    final Long custom = thresholdByFingerprint.get(DruidUtil.fingerprint(dbConfig.getDbType(), sql));
+    return null == custom ? defaultThresholdNanos : custom;
+  }
+
+  /**
+   * 为 SQL 语句所属的指纹单独设置慢查询阈值
+   *
+   * @param sql    SQL 语句
+   * @param millis 阈值（毫秒），小于等于 0 表示该指纹不记录慢查询
+   * @return {@link SlowQueryLog}
+   */
+  public SlowQueryLog setThreshold(String sql, long millis) {
+    thresholdByFingerprint.put(DruidUtil.fingerprint(dbConfig.getDbType(), sql), toThresholdNanos(millis));
+    return this;
+  }
+
+  /**
+   * 记录一次达到阈值的执行，未命中采样或缓冲区已满时直接返回
+   *
+   * @param sql                 SQL 语句
+   * @param parameters          执行时的参数
+   * @param rows                返回或影响的行数
+   * @param elapsedNanos        执行耗时（纳秒）
+   * @param connectionHoldNanos 已持有数据库连接的时长（纳秒），无法获知时为 -1
+   */
+  public void offer(String sql, BatchParameters parameters, long rows, long elapsedNanos, long connectionHoldNanos) {
+    final double sampleRate = dbConfig.getSlowQuerySampleRate();
+    if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return;
+
+    int        batchSize = 0;
+    Parameters first     = null;
+    for (Parameters batch : parameters.getBatchParameters().values()) {
+      if (batch.isEmpty()) continue;
+      if (null == first) first = batch;
+      batchSize++;
+    }
+
+    final SlowQuery slowQuery = new SlowQuery(dsName, dbConfig.getDbType(), sql,
+                                              null == first ? new Object[0] : first.getParameters().values().toArray(),
+                                              Math.max(batchSize, 1), rows, elapsedNanos, connectionHoldNanos,
+                                              CallSites.callerStack(dbConfig.getSlowQueryStackDepth()),
+                                              dbConfig.getSlowQueryMaxParamLength());
+    if (!enqueue(slowQuery)) {
+      dropped.increment();
+      return;
+    }
+    startWriter();
+    LockSupport.unpark(writer);
+  }
+
+  /**
+   * 停止后台输出线程，之后记录的慢查询不再输出
+   */
+  public void close() {
+    started.set(true);
+    final Thread thread = writer;
+    if (null != thread) thread.interrupt();
+  }
+
+  /**
+   * 获取因缓冲区已满而丢弃的慢查询数量
+   *
+   * @return 数量
+   */
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  private boolean enqueue(SlowQuery slowQuery) {
+    final int capacity = ring.length();
+    for (; ; ) {
+      final long position = tail.get();
+      if (position - head >= capacity) return false;
+      if (tail.compareAndSet(position, position + 1)) {
+        ring.set((int) (position % capacity), slowQuery);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * 只由后台线程调用
+   */
+  private SlowQuery poll() {
+    final long position = head;
+    if (position == tail.get()) return null;
+
+    final int       index     = (int) (position % ring.length());
+    final SlowQuery slowQuery = ring.get(index);
+    // 位置已被占用但尚未写入
+    if (null == slowQuery) return null;
+
+    ring.set(index, null);
+    head = position + 1;
+    return slowQuery;
+  }
+
+  private void startWriter() {
+    if (started.get() || !started.compareAndSet(false, true)) return;
+
+    final Thread thread = new Thread(this::drain, "orm-slow-query-" + dsName);
+    thread.setDaemon(true);
+    writer = thread;
+    thread.start();
+  }
+
+  private void drain() {
+    while (!Thread.currentThread().isInterrupted()) {
+      final SlowQuery slowQuery = poll();
+      if (null == slowQuery) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        continue;
+      }
+
+      try {
+        listener.accept(slowQuery);
+      } catch (RuntimeException ex) {
+        log.warn("输出慢查询日志时发生异常: {}", ex.getMessage(), ex);
+      }
+    }
+  }
+
+  private static long toThresholdNanos(long millis) {
+    return millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : Long.MAX_VALUE;
+  }
+}
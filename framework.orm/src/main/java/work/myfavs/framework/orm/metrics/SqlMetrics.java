@@ -0,0 +1,42 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * SQL 执行指标扩展点，通过 {@link work.myfavs.framework.orm.DBTemplate.Builder#metrics(SqlMetrics)} 设置，默认不记录指标
+ * <p>
+ * 内置实现 {@link InMemorySqlMetrics} 按语句指纹在内存中汇总延迟直方图和行数，可直接读取快照，或通过 Spring Boot Starter 中的
+ * {@code SqlMetricsBinder} 注册到 Micrometer。
+ */
+public interface SqlMetrics {
+
+  /**
+   * 不记录任何指标
+   */
+  SqlMetrics NOOP = (dbType, sql) -> StatementMetrics.NOOP;
+
+  /**
+   * 获取 SQL 语句的指标记录器，每次创建 {@link work.myfavs.framework.orm.Query} 时调用一次
+   *
+   * @param dbType 数据库类型，参考 {@link work.myfavs.framework.orm.meta.DbType}
+   * @param sql    SQL 语句
+   * @return {@link StatementMetrics}
+   */
+  StatementMetrics statement(String dbType, String sql);
+
+  /**
+   * 获取数据库连接的指标记录器，创建 {@link work.myfavs.framework.orm.DBTemplate} 时调用一次
+   *
+   * @return {@link ConnectionMetrics}，默认不记录
+   */
+  default ConnectionMetrics connection() {
+    return ConnectionMetrics.NOOP;
+  }
+
+  /**
+   * 获取 {@link work.myfavs.framework.orm.orm.Orm} 操作的指标记录器，开启统计分配的内存时，每次创建 Orm 时调用一次
+   *
+   * @return {@link OperationMetrics}，默认不记录
+   */
+  default OperationMetrics operation() {
+    return OperationMetrics.NOOP;
+  }
+}
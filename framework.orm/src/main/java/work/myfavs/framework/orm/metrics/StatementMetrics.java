@@ -0,0 +1,52 @@
+package work.myfavs.framework.orm.metrics;
+
+/**
+ * 单个 SQL 语句的指标记录器，由 {@link SqlMetrics#statement(String, String)} 在创建 {@link work.myfavs.framework.orm.Query} 时获取，
+ * 执行过程中的记录方法在热路径上调用，实现不应分配对象或加锁
+ */
+public interface StatementMetrics {
+
+  /**
+   * 不记录任何指标
+   */
+  StatementMetrics NOOP = new StatementMetrics() {
+    @Override
+    public void record(Phase phase, long nanos) {}
+
+    @Override
+    public void rowsReturned(long rows) {}
+
+    @Override
+    public void rowsAffected(long rows) {}
+  };
+
+  /**
+   * 记录执行阶段耗时
+   *
+   * @param phase 执行阶段
+   * @param nanos 耗时（纳秒）
+   */
+  void record(Phase phase, long nanos);
+
+  /**
+   * 记录查询返回的行数
+   *
+   * @param rows 行数
+   */
+  void rowsReturned(long rows);
+
+  /**
+   * 记录更新影响的行数
+   *
+   * @param rows 行数
+   */
+  void rowsAffected(long rows);
+
+  /**
+   * 记录一次执行（包括创建语句、设置参数、执行及读取结果）当前线程分配的内存，
+   * 只在 {@link work.myfavs.framework.orm.DBConfig#setTrackAllocations(boolean)} 开启时调用
+   *
+   * @param bytes 分配的字节数
+   */
+  default void allocated(long bytes) {}
+}
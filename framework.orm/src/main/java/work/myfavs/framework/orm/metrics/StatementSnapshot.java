@@ -0,0 +1,100 @@
+package work.myfavs.framework.orm.metrics;
+
+import java.util.Map;
+
+/**
+ * 单个语句指纹的指标快照
+ */
+public final class StatementSnapshot {
+
+  private final String                               fingerprint;
+  private final Map<Phase, LatencyHistogram.Snapshot> phases;
+  private final long                                 rowsReturned;
+  private final long                                 rowsAffected;
+  private final long                                 allocations;
+  private final long                                 allocatedBytes;
+
+  StatementSnapshot(String fingerprint, Map<Phase, LatencyHistogram.Snapshot> phases, long rowsReturned, long rowsAffected,
+                    long allocations, long allocatedBytes) {
+    this.fingerprint = fingerprint;
+    this.phases = phases;
+    this.rowsReturned = rowsReturned;
+    this.rowsAffected = rowsAffected;
+    this.allocations = allocations;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * 获取语句指纹
+   *
+   * @return 语句指纹
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * 获取执行阶段的延迟直方图快照
+   *
+   * @param phase 执行阶段
+   * @return 直方图快照，没有记录时次数为 0
+   */
+  public LatencyHistogram.Snapshot getPhase(Phase phase) {
+    return phases.getOrDefault(phase, LatencyHistogram.Snapshot.EMPTY);
+  }
+
+  /**
+   * 获取执行次数（{@link Phase#EXECUTE} 阶段的记录次数）
+   *
+   * @return 执行次数
+   */
+  public long getExecutions() {
+    return getPhase(Phase.EXECUTE).getCount();
+  }
+
+  /**
+   * 获取查询返回的总行数
+   *
+   * @return 行数
+   */
+  public long getRowsReturned() {
+    return rowsReturned;
+  }
+
+  /**
+   * 获取更新影响的总行数
+   *
+   * @return 行数
+   */
+  public long getRowsAffected() {
+    return rowsAffected;
+  }
+
+  /**
+   * 获取执行时分配的总字节数，只在开启统计分配的内存时记录
+   *
+   * @return 字节数
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * 获取平均每次执行分配的字节数
+   *
+   * @return 字节数，没有统计时返回 0
+   */
+  public long getAllocatedBytesPerExecution() {
+    return 0 == allocations ? 0 : allocatedBytes / allocations;
+  }
+
+  /**
+   * 获取平均每行（返回或影响的行）分配的字节数，开启统计分配的内存前执行的行数也计算在内
+   *
+   * @return 字节数，没有统计或没有行时返回 0
+   */
+  public long getAllocatedBytesPerRow() {
+    final long rows = rowsReturned + rowsAffected;
+    return 0 == allocations || 0 == rows ? 0 : allocatedBytes / rows;
+  }
+}
@@ -0,0 +1,66 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 读取当前线程累计分配的内存
+ * <p>
+ * 使用 {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}（HotSpot、OpenJ9 支持），
+ * 两次读取的差值即为期间当前线程分配的字节数（包括已被回收的对象）。JVM 不支持时 {@link #current()} 返回 {@code -1}。
+ */
+public final class ThreadAllocations {
+
+  private static final Logger log = LoggerFactory.getLogger(ThreadAllocations.class);
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+  private ThreadAllocations() {}
+
+  /**
+   * 是否支持统计线程分配的内存
+   *
+   * @return 支持返回 {@code true}
+   */
+  public static boolean isSupported() {
+    return null != THREAD_MX_BEAN;
+  }
+
+  /**
+   * 获取当前线程累计分配的字节数
+   *
+   * @return 字节数，不支持时返回 {@code -1}
+   */
+  public static long current() {
+    if (null == THREAD_MX_BEAN) return -1;
+    return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * 获取当前线程自 {@code start} 以来分配的字节数
+   *
+   * @param start {@link #current()} 的返回值
+   * @return 字节数，不支持或 {@code start} 小于 0 时返回 {@code -1}
+   */
+  public static long since(long start) {
+    if (start < 0) return -1;
+    return current() - start;
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    try {
+      final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+
+      final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) bean;
+      if (!threadMXBean.isThreadAllocatedMemorySupported()) return null;
+      if (!threadMXBean.isThreadAllocatedMemoryEnabled()) threadMXBean.setThreadAllocatedMemoryEnabled(true);
+      return threadMXBean;
+    } catch (LinkageError | RuntimeException ex) {
+      log.warn("当前 JVM 不支持统计线程分配的内存: {}", ex.toString());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package work.myfavs.framework.orm.metrics;
+
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.util.common.Constant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢查询执行计划汇总报告
+ * <p>
+ * 按数据表（映射的 {@code @Table} 实体）汇总全表扫描的语句：全表扫描的语句在该表上存在过滤条件时，
+ * 过滤字段作为建议建立索引的字段（缺失索引）。数据表按相关慢查询次数从多到少排列。
+ */
+public final class WorkloadReport {
+
+  private final List<ExplainPlan>        plans;
+  private final Map<String, Long>        slowQueries;
+  private final Map<String, TableReport> tables;
+
+  WorkloadReport(Collection<ExplainPlan> plans, Map<String, Long> slowQueries) {
+    this.slowQueries = slowQueries;
+
+    final List<ExplainPlan> sorted = new ArrayList<>(plans);
+    sorted.sort(Comparator.comparingLong((ExplainPlan plan) -> getSlowQueries(plan.getFingerprint())).reversed());
+    this.plans = Collections.unmodifiableList(sorted);
+
+    final Map<String, TableReport> reports = new LinkedHashMap<>();
+    for (ExplainPlan plan : sorted) {
+      for (String table : plan.getFullScanTables()) {
+        reports.computeIfAbsent(table, TableReport::new).add(plan, getSlowQueries(plan.getFingerprint()));
+      }
+    }
+    final List<TableReport> tableReports = new ArrayList<>(reports.values());
+    tableReports.sort(Comparator.comparingLong(TableReport::getSlowQueries).reversed());
+
+    final Map<String, TableReport> tables = new LinkedHashMap<>();
+    for (TableReport report : tableReports) {
+      tables.put(report.getTable(), report);
+    }
+    this.tables = Collections.unmodifiableMap(tables);
+  }
+
+  /**
+   * 获取全部执行计划，按慢查询次数从多到少排列
+   *
+   * @return 执行计划集合
+   */
+  public List<ExplainPlan> getPlans() {
+    return plans;
+  }
+
+  /**
+   * 获取语句指纹的慢查询次数（包括未获取执行计划的次数）
+   *
+   * @param fingerprint 语句指纹
+   * @return 次数
+   */
+  public long getSlowQueries(String fingerprint) {
+    return slowQueries.getOrDefault(fingerprint, 0L);
+  }
+
+  /**
+   * 获取存在全表扫描的数据表，按相关慢查询次数从多到少排列
+   *
+   * @return 数据表报告集合
+   */
+  public Collection<TableReport> getTables() {
+    return tables.values();
+  }
+
+  /**
+   * 获取数据表的报告
+   *
+   * @param table 数据表名称（小写、不含 schema）
+   * @return 数据表报告，不存在全表扫描时返回 {@code null}
+   */
+  public TableReport getTable(String table) {
+    return tables.get(table);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("执行计划报告: ").append(plans.size()).append(" 个语句, ")
+           .append(tables.size()).append(" 个数据表存在全表扫描");
+    for (TableReport table : tables.values()) {
+      builder.append(Constant.LINE_SEPARATOR).append(table);
+      for (ExplainPlan plan : table.getFullScans()) {
+        builder.append(Constant.LINE_SEPARATOR).append("\t").append(getSlowQueries(plan.getFingerprint())).append(" 次, ")
+               .append(TimeUnit.NANOSECONDS.toMillis(plan.getElapsedNanos())).append(" ms: ").append(plan.getFingerprint());
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * 单个数据表的全表扫描汇总
+   */
+  public static final class TableReport {
+
+    private final String            table;
+    private final Class<?>          entityClass;
+    private final List<ExplainPlan> fullScans    = new ArrayList<>();
+    private final Set<String>       indexColumns = new LinkedHashSet<>();
+    private       long              slowQueries;
+
+    private TableReport(String table) {
+      final ClassMeta classMeta = Metadata.findEntityMeta(table);
+      this.table = table;
+      this.entityClass = null == classMeta ? null : classMeta.getClazz();
+    }
+
+    private void add(ExplainPlan plan, long slowQueries) {
+      this.fullScans.add(plan);
+      this.slowQueries += slowQueries;
+      this.indexColumns.addAll(plan.getFilterColumns().getOrDefault(table, Collections.emptySet()));
+    }
+
+    /**
+     * 获取数据表名称
+     *
+     * @return 数据表名称（小写、不含 schema）
+     */
+    public String getTable() {
+      return table;
+    }
+
+    /**
+     * 获取映射该数据表的实体类
+     *
+     * @return 实体类，没有对应的实体类或实体类尚未使用过时返回 {@code null}
+     */
+    public Class<?> getEntityClass() {
+      return entityClass;
+    }
+
+    /**
+     * 获取在该数据表上全表扫描的语句的执行计划
+     *
+     * @return 执行计划集合
+     */
+    public List<ExplainPlan> getFullScans() {
+      return Collections.unmodifiableList(fullScans);
+    }
+
+    /**
+     * 获取相关的慢查询次数
+     *
+     * @return 次数
+     */
+    public long getSlowQueries() {
+      return slowQueries;
+    }
+
+    /**
+     * 获取建议建立索引的字段：全表扫描的语句在该表上的过滤字段
+     *
+     * @return 字段名称集合（小写）
+     */
+    public Set<String> getSuggestedIndexColumns() {
+      return Collections.unmodifiableSet(indexColumns);
+    }
+
+    /**
+     * 是否缺失索引：全表扫描的语句在该表上存在过滤条件
+     *
+     * @return 缺失索引返回 {@code true}
+     */
+    public boolean isMissingIndex() {
+      return !indexColumns.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder builder = new StringBuilder(table);
+      if (null != entityClass) builder.append(" (").append(entityClass.getSimpleName()).append(")");
+      builder.append(": 全表扫描 ").append(fullScans.size()).append(" 个语句, 慢查询 ").append(slowQueries).append(" 次");
+      if (isMissingIndex()) builder.append(", 建议索引字段: ").append(String.join(", ", indexColumns));
+      return builder.toString();
+    }
+  }
+}
@@ -0,0 +1,366 @@
+package work.myfavs.framework.orm.orm;
+
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.TableAlias;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.pagination.IPageable;
+import work.myfavs.framework.orm.meta.pagination.Page;
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.partition.TableRouter;
+import work.myfavs.framework.orm.util.exception.DBException;
+import work.myfavs.framework.orm.util.func.ThrowingConsumer;
+import work.myfavs.framework.orm.util.func.ThrowingFunction;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 异步 ORM，方法返回 {@link CompletableFuture}，在 {@link DBTemplate#getAsyncExecutor()} 中执行
+ * <p>
+ * 数据库连接绑定在线程上，因此每次调用都在执行线程中使用独立的 {@link Database} 及连接，
+ * 与调用方当前的事务无关；{@link #tx(ThrowingFunction)} 中的全部操作在同一线程、同一连接中执行并提交，
+ * 发生异常时回滚。相互独立的查询可并行执行：
+ *
+ * <pre>
+ * AsyncOrm async = dbTemplate.createAsyncOrm();
+ * CompletableFuture&lt;List&lt;Product&gt;&gt; products = async.find(Product.class, productSql);
+ * CompletableFuture&lt;Long&gt;          total    = async.count(countSql);
+ * </pre>
+ */
+public class AsyncOrm {
+
+  private final DBTemplate dbTemplate;
+
+  /**
+   * 构造方法，建议通过 {@link DBTemplate#createAsyncOrm()} 创建
+   *
+   * @param dbTemplate {@link DBTemplate}
+   */
+  public AsyncOrm(DBTemplate dbTemplate) {
+    this.dbTemplate = dbTemplate;
+  }
+
+  /**
+   * 在事务中异步执行 {@link ThrowingFunction#apply(Object)}
+   *
+   * @param func      {@link ThrowingFunction} function
+   * @param <TResult> function 返回结果类型
+   * @return {@link CompletableFuture}
+   */
+  public <TResult> CompletableFuture<TResult> tx(ThrowingFunction<Orm, TResult, SQLException> func) {
+    return submit(func, true);
+  }
+
+  /**
+   * 在事务中异步执行 {@link ThrowingConsumer#accept(Object)}，没有返回结果，
+   * 与 {@link #tx(ThrowingFunction)} 区分命名以免 lambda 重载歧义
+   *
+   * @param consumer {@link ThrowingConsumer} consumer
+   * @return {@link CompletableFuture}
+   */
+  public CompletableFuture<Void> txVoid(ThrowingConsumer<Orm, SQLException> consumer) {
+    return submit(orm -> {
+      consumer.accept(orm);
+      return null;
+    }, true);
+  }
+
+  private <TResult> CompletableFuture<TResult> submit(ThrowingFunction<Orm, TResult, SQLException> func) {
+    return submit(func, false);
+  }
+
+  /**
+   * 提交异步任务
+   *
+   * @param func    任务
+   * @param primary 是否固定使用主库，事务中的读取需与写入在同一主库连接上执行
+   */
+  private <TResult> CompletableFuture<TResult> submit(ThrowingFunction<Orm, TResult, SQLException> func, boolean primary) {
+    return CompletableFuture.supplyAsync(() -> run(func, primary), dbTemplate.getAsyncExecutor());
+  }
+
+  private <TResult> TResult run(ThrowingFunction<Orm, TResult, SQLException> func, boolean primary) {
+    try (Database database = primary ? dbTemplate.createDatabase().usePrimary() : dbTemplate.createDatabase()) {
+      try {
+        TResult result = func.apply(database.createOrm());
+        database.commit();
+        return result;
+      } catch (SQLException e) {
+        database.rollback();
+        throw new CompletionException(new DBException(e, "执行事务过程中发生异常: %s", e.getMessage()));
+      } catch (RuntimeException e) {
+        database.rollback();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * 异步执行 SQL 语句
+   *
+   * @param sql SQL
+   * @return 影响行数
+   */
+  public CompletableFuture<Integer> execute(Sql sql) {
+    return submit(orm -> orm.execute(sql));
+  }
+
+  /**
+   * 异步创建实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> CompletableFuture<Integer> create(Class<TModel> modelClass, TModel entity) {
+    return submit(orm -> orm.create(modelClass, entity));
+  }
+
+  /**
+   * 异步批量创建实体
+   *
+   * @param modelClass 实体类型
+   * @param entities   实体集合
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> CompletableFuture<Integer> create(Class<TModel> modelClass, Collection<TModel> entities) {
+    return submit(orm -> orm.create(modelClass, entities));
+  }
+
+  /**
+   * 异步更新实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> CompletableFuture<Integer> update(Class<TModel> modelClass, TModel entity) {
+    return submit(orm -> orm.update(modelClass, entity));
+  }
+
+  /**
+   * 异步删除实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> CompletableFuture<Integer> delete(Class<TModel> modelClass, TModel entity) {
+    return submit(orm -> orm.delete(modelClass, entity));
+  }
+
+  /**
+   * 异步根据ID删除记录
+   *
+   * @param modelClass 实体类型
+   * @param id         主键
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> CompletableFuture<Integer> deleteById(Class<TModel> modelClass, Object id) {
+    return submit(orm -> orm.deleteById(modelClass, id));
+  }
+
+  /**
+   * 异步执行 SQL 语句，返回多行数据
+   *
+   * @param viewClass 结果集类型
+   * @param sql       SQL
+   * @param <TView>   结果集类型泛型
+   * @return 结果集
+   */
+  public <TView> CompletableFuture<List<TView>> find(Class<TView> viewClass, Sql sql) {
+    return submit(orm -> orm.find(viewClass, sql));
+  }
+
+  /**
+   * 异步执行 SQL 语句，返回指定行数的结果集
+   *
+   * @param viewClass 结果集类型
+   * @param top       行数
+   * @param sql       SQL
+   * @param <TView>   结果集类型泛型
+   * @return 结果集
+   */
+  public <TView> CompletableFuture<List<TView>> findTop(Class<TView> viewClass, int top, Sql sql) {
+    return submit(orm -> orm.findTop(viewClass, top, sql));
+  }
+
+  /**
+   * 异步根据条件查询实体集合
+   *
+   * @param viewClass 结果类型
+   * @param cond      条件
+   * @param <TView>   结果类型泛型
+   * @return 实体集合
+   */
+  public <TView> CompletableFuture<List<TView>> findByCond(Class<TView> viewClass, Cond cond) {
+    return submit(orm -> orm.findByCond(viewClass, cond));
+  }
+
+  /**
+   * 异步执行 SQL 语句，返回多行数据
+   *
+   * @param sql SQL
+   * @return 结果集
+   */
+  public CompletableFuture<List<Record>> findRecords(Sql sql) {
+    return submit(orm -> orm.findRecords(sql));
+  }
+
+  /**
+   * 异步执行 SQL 语句，返回第一行数据
+   *
+   * @param viewClass 结果类型
+   * @param sql       SQL
+   * @param <TView>   结果类型泛型
+   * @return 记录
+   */
+  public <TView> CompletableFuture<TView> get(Class<TView> viewClass, Sql sql) {
+    return submit(orm -> orm.get(viewClass, sql));
+  }
+
+  /**
+   * 异步根据主键获取记录
+   *
+   * @param viewClass 结果类型
+   * @param id        主键
+   * @param <TView>   结果类型泛型
+   * @return 记录
+   */
+  public <TView> CompletableFuture<TView> getById(Class<TView> viewClass, Object id) {
+    return submit(orm -> orm.getById(viewClass, id));
+  }
+
+  /**
+   * 异步根据多个主键ID查询实体集合
+   *
+   * @param viewClass 结果类型
+   * @param ids       主键ID集合
+   * @param <TView>   结果类型泛型
+   * @return 实体集合
+   */
+  public <TView> CompletableFuture<List<TView>> findByIds(Class<TView> viewClass, Collection<?> ids) {
+    return submit(orm -> orm.findByIds(viewClass, ids));
+  }
+
+  /**
+   * 异步获取 SQL 语句返回的行数
+   *
+   * @param sql SQL
+   * @return 行数
+   */
+  public CompletableFuture<Long> count(Sql sql) {
+    return submit(orm -> orm.count(sql));
+  }
+
+  /**
+   * 异步根据条件获取行数
+   *
+   * @param viewClass 实体类型
+   * @param cond      条件
+   * @param <TView>   实体类型泛型
+   * @return 行数
+   */
+  public <TView> CompletableFuture<Long> countByCond(Class<TView> viewClass, Cond cond) {
+    return submit(orm -> orm.countByCond(viewClass, cond));
+  }
+
+  /**
+   * 异步判断 SQL 语句是否返回记录
+   *
+   * @param sql SQL
+   * @return 是否存在记录
+   */
+  public CompletableFuture<Boolean> exists(Sql sql) {
+    return submit(orm -> orm.exists(sql));
+  }
+
+  /**
+   * 异步执行分页查询
+   *
+   * @param viewClass 结果类型
+   * @param sql       SQL
+   * @param pageable  {@link IPageable} 对象
+   * @param <TView>   结果类型泛型
+   * @return 分页结果
+   */
+  public <TView> CompletableFuture<Page<TView>> findPage(Class<TView> viewClass, Sql sql, IPageable pageable) {
+    return submit(orm -> orm.findPage(viewClass, sql, pageable));
+  }
+
+  /**
+   * 分表范围查询：只在分表键范围 [from, to] 覆盖的物理表上并行执行条件查询，按物理表顺序合并结果
+   *
+   * @param viewClass 实体类型，需通过 {@link DBTemplate.Builder#tableRouter(Class, TableRouter)} 注册分表路由
+   * @param from      分表键范围起始值（包含）
+   * @param to        分表键范围结束值（包含）
+   * @param cond      附加条件，可为 {@code null}
+   * @param <TView>   实体类型泛型
+   * @return 实体集合
+   */
+  public <TView> CompletableFuture<List<TView>> findByRange(Class<TView> viewClass, Object from, Object to, Cond cond) {
+    final List<CompletableFuture<List<TView>>> futures = scatterRange(viewClass, from, to, cond, Orm::findByCond);
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(v -> {
+                              final List<TView> result = new ArrayList<>();
+                              futures.forEach(future -> result.addAll(future.join()));
+                              return result;
+                            });
+  }
+
+  /**
+   * 分表范围计数：只在分表键范围 [from, to] 覆盖的物理表上并行计数，返回总数
+   *
+   * @param viewClass 实体类型，需通过 {@link DBTemplate.Builder#tableRouter(Class, TableRouter)} 注册分表路由
+   * @param from      分表键范围起始值（包含）
+   * @param to        分表键范围结束值（包含）
+   * @param cond      附加条件，可为 {@code null}
+   * @param <TView>   实体类型泛型
+   * @return 行数
+   */
+  public <TView> CompletableFuture<Long> countByRange(Class<TView> viewClass, Object from, Object to, Cond cond) {
+    final List<CompletableFuture<Long>> futures = scatterRange(viewClass, from, to, cond, Orm::countByCond);
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(v -> futures.stream().mapToLong(CompletableFuture::join).sum());
+  }
+
+  private <TView, TResult> List<CompletableFuture<TResult>> scatterRange(Class<TView> viewClass, Object from, Object to, Cond cond,
+                                                                          RangeQuery<TView, TResult> query) {
+    final ClassMeta   classMeta   = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = dbTemplate.getTableRouter(viewClass);
+    if (null == tableRouter)
+      throw new DBException("类型 %s 未注册分表路由", viewClass.getName());
+
+    final Attribute partitionKey = null == classMeta.getPartitionKey() ? classMeta.checkPrimaryKey() : classMeta.getPartitionKey();
+    final Cond      rangeCond    = Cond.between(partitionKey.getColumnName(), from, to);
+    if (null != cond) rangeCond.and(cond);
+
+    final List<CompletableFuture<TResult>> futures = new ArrayList<>();
+    for (String tableName : tableRouter.routeRange(classMeta.getTableName(), from, to)) {
+      futures.add(submit(orm -> TableAlias.supplier(tableName, () -> query.apply(orm, viewClass, rangeCond))));
+    }
+    return futures;
+  }
+
+  @FunctionalInterface
+  private interface RangeQuery<TView, TResult> {
+
+    TResult apply(Orm orm, Class<TView> viewClass, Cond cond);
+  }
+}
@@ -0,0 +1,463 @@
+package work.myfavs.framework.orm.orm;
+
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.pagination.IPageable;
+import work.myfavs.framework.orm.meta.pagination.Page;
+import work.myfavs.framework.orm.meta.pagination.PageLite;
+import work.myfavs.framework.orm.metrics.OperationMetrics;
+import work.myfavs.framework.orm.metrics.ThreadAllocations;
+import work.myfavs.framework.orm.tracing.SqlSpan;
+import work.myfavs.framework.orm.tracing.SqlTracer;
+import work.myfavs.framework.orm.util.func.ThrowingConsumer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 为每次调用 {@link Orm} 方法创建 span 并统计当前线程分配的内存，由 {@link OrmFactory#createOrm(Database)}
+ * 在设置链路追踪或开启统计分配的内存时包装 Orm 实例
+ * <p>
+ * 在 Orm 方法中再调用其他 Orm 实例的方法时（例如 {@link Orm#cached()} 返回的实例），只记录最外层的调用；
+ * 返回 {@link Orm} 的方法不创建 span，返回的实例同样被包装。方法中执行的 SQL 语句作为子 span。
+ */
+final class InstrumentedOrm implements Orm {
+
+  private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+  private final Orm              orm;
+  private final SqlTracer        tracer;
+  private final OperationMetrics metrics;
+  private final String           dsName;
+  private final String           dbType;
+
+  /**
+   * 构造方法
+   *
+   * @param orm      {@link Orm}
+   * @param database {@link Database}
+   */
+  InstrumentedOrm(Orm orm, Database database) {
+    this.orm = orm;
+    this.tracer = database.getDbTemplate().getTracer();
+    this.metrics = database.getDbConfig().isTrackAllocations() && ThreadAllocations.isSupported()
+        ? database.getDbTemplate().getMetrics().operation() : null;
+    this.dsName = database.getDbTemplate().getDsName();
+    this.dbType = database.getDbConfig().getDbType();
+  }
+
+  private InstrumentedOrm(Orm orm, InstrumentedOrm parent) {
+    this.orm = orm;
+    this.tracer = parent.tracer;
+    this.metrics = parent.metrics;
+    this.dsName = parent.dsName;
+    this.dbType = parent.dbType;
+  }
+
+  @Override
+  public int execute(String sql, Collection<?> params, ThrowingConsumer<PreparedStatement, SQLException> configConsumer) {
+    return operation("execute", null, () -> orm.execute(sql, params, configConsumer));
+  }
+
+  @Override
+  public int execute(String sql, Collection<?> params, int timeout) {
+    return operation("execute", null, () -> orm.execute(sql, params, timeout));
+  }
+
+  @Override
+  public int execute(String sql, Collection<?> params) {
+    return operation("execute", null, () -> orm.execute(sql, params));
+  }
+
+  @Override
+  public int execute(Sql sql, int timeout) {
+    return operation("execute", null, () -> orm.execute(sql, timeout));
+  }
+
+  @Override
+  public int execute(Sql sql) {
+    return operation("execute", null, () -> orm.execute(sql));
+  }
+
+  @Override
+  public int[] execute(List<Sql> sqlList) {
+    return operation("execute", null, () -> orm.execute(sqlList));
+  }
+
+  @Override
+  public int[] execute(List<Sql> sqlList, int timeout) {
+    return operation("execute", null, () -> orm.execute(sqlList, timeout));
+  }
+
+  @Override
+  public int[] execute(List<Sql> sqlList, ThrowingConsumer<PreparedStatement, SQLException> configConsumer) {
+    return operation("execute", null, () -> orm.execute(sqlList, configConsumer));
+  }
+
+  @Override
+  public <TModel> int create(Class<TModel> modelClass, TModel entity) {
+    return operation("create", modelClass, () -> orm.create(modelClass, entity));
+  }
+
+  @Override
+  public <TModel> int create(Class<TModel> modelClass, Collection<TModel> entities) {
+    return operation("create", modelClass, () -> orm.create(modelClass, entities));
+  }
+
+  @Override
+  public <TModel> int update(Class<TModel> modelClass, TModel entity) {
+    return operation("update", modelClass, () -> orm.update(modelClass, entity));
+  }
+
+  @Override
+  public <TModel> int updateIgnoreNull(Class<TModel> modelClass, TModel entity) {
+    return operation("updateIgnoreNull", modelClass, () -> orm.updateIgnoreNull(modelClass, entity));
+  }
+
+  @Override
+  public <TModel> int update(Class<TModel> modelClass, TModel entity, String[] columns) {
+    return operation("update", modelClass, () -> orm.update(modelClass, entity, columns));
+  }
+
+  @Override
+  public <TModel> int update(Class<TModel> modelClass, Collection<TModel> entities, String[] columns) {
+    return operation("update", modelClass, () -> orm.update(modelClass, entities, columns));
+  }
+
+  @Override
+  public <TModel> int update(Class<TModel> modelClass, Collection<TModel> entities) {
+    return operation("update", modelClass, () -> orm.update(modelClass, entities));
+  }
+
+  @Override
+  public <TModel> int createOrUpdate(Class<TModel> modelClass, TModel entity) {
+    return operation("createOrUpdate", modelClass, () -> orm.createOrUpdate(modelClass, entity));
+  }
+
+  @Override
+  public <TModel> int delete(Class<TModel> modelClass, TModel entity) {
+    return operation("delete", modelClass, () -> orm.delete(modelClass, entity));
+  }
+
+  @Override
+  public <TModel> int delete(Class<TModel> modelClass, Collection<TModel> entities) {
+    return operation("delete", modelClass, () -> orm.delete(modelClass, entities));
+  }
+
+  @Override
+  public <TModel> int deleteByIds(Class<TModel> modelClass, Collection<?> ids) {
+    return operation("deleteByIds", modelClass, () -> orm.deleteByIds(modelClass, ids));
+  }
+
+  @Override
+  public <TModel> int deleteById(Class<TModel> modelClass, Object id) {
+    return operation("deleteById", modelClass, () -> orm.deleteById(modelClass, id));
+  }
+
+  @Override
+  public <TModel> int deleteByCond(Class<TModel> modelClass, Cond cond) {
+    return operation("deleteByCond", modelClass, () -> orm.deleteByCond(modelClass, cond));
+  }
+
+  @Override
+  public <TModel> void truncate(Class<TModel> modelClass) {
+    operation("truncate", modelClass, () -> {
+      orm.truncate(modelClass);
+      return null;
+    });
+  }
+
+  @Override
+  public <TView> List<TView> find(Class<TView> viewClass, String sql, Collection<?> params) {
+    return operation("find", viewClass, () -> orm.find(viewClass, sql, params));
+  }
+
+  @Override
+  public <TView> List<TView> find(Class<TView> viewClass, Sql sql) {
+    return operation("find", viewClass, () -> orm.find(viewClass, sql));
+  }
+
+  @Override
+  public List<Record> findRecords(String sql, Collection<?> params) {
+    return operation("findRecords", null, () -> orm.findRecords(sql, params));
+  }
+
+  @Override
+  public List<Record> findRecords(Sql sql) {
+    return operation("findRecords", null, () -> orm.findRecords(sql));
+  }
+
+  @Override
+  public <TKey, TView> Map<TKey, TView> findMap(Class<TView> viewClass, String keyField, String sql, Collection<?> params) {
+    return operation("findMap", viewClass, () -> orm.findMap(viewClass, keyField, sql, params));
+  }
+
+  @Override
+  public <TKey, TView> Map<TKey, TView> findMap(Class<TView> viewClass, String keyField, Sql sql) {
+    return operation("findMap", viewClass, () -> orm.findMap(viewClass, keyField, sql));
+  }
+
+  @Override
+  public <TView> List<TView> findTop(Class<TView> viewClass, int top, String sql, Collection<?> params) {
+    return operation("findTop", viewClass, () -> orm.findTop(viewClass, top, sql, params));
+  }
+
+  @Override
+  public <TView> List<TView> findTop(Class<TView> viewClass, int top, Sql sql) {
+    return operation("findTop", viewClass, () -> orm.findTop(viewClass, top, sql));
+  }
+
+  @Override
+  public List<Record> findTopRecords(int top, String sql, Collection<?> params) {
+    return operation("findTopRecords", null, () -> orm.findTopRecords(top, sql, params));
+  }
+
+  @Override
+  public List<Record> findTopRecords(int top, Sql sql) {
+    return operation("findTopRecords", null, () -> orm.findTopRecords(top, sql));
+  }
+
+  @Override
+  public <TView> TView get(Class<TView> viewClass, String sql, Collection<?> params) {
+    return operation("get", viewClass, () -> orm.get(viewClass, sql, params));
+  }
+
+  @Override
+  public <TView> TView get(Class<TView> viewClass, Sql sql) {
+    return operation("get", viewClass, () -> orm.get(viewClass, sql));
+  }
+
+  @Override
+  public Record getRecord(String sql, Collection<?> params) {
+    return operation("getRecord", null, () -> orm.getRecord(sql, params));
+  }
+
+  @Override
+  public Record getRecord(Sql sql) {
+    return operation("getRecord", null, () -> orm.getRecord(sql));
+  }
+
+  @Override
+  public <TView> TView getById(Class<TView> viewClass, Object id) {
+    return operation("getById", viewClass, () -> orm.getById(viewClass, id));
+  }
+
+  @Override
+  public <TView> TView getByField(Class<TView> viewClass, String field, Object param) {
+    return operation("getByField", viewClass, () -> orm.getByField(viewClass, field, param));
+  }
+
+  @Override
+  public <TView> TView getByCond(Class<TView> viewClass, Cond cond) {
+    return operation("getByCond", viewClass, () -> orm.getByCond(viewClass, cond));
+  }
+
+  @Override
+  public <TView> TView getByCriteria(Class<TView> viewClass, Object object) {
+    return operation("getByCriteria", viewClass, () -> orm.getByCriteria(viewClass, object));
+  }
+
+  @Override
+  public <TView> TView getByCriteria(Class<TView> viewClass, Object object, Class<?> criteriaGroup) {
+    return operation("getByCriteria", viewClass, () -> orm.getByCriteria(viewClass, object, criteriaGroup));
+  }
+
+  @Override
+  public <TView> List<TView> findByIds(Class<TView> viewClass, Collection<?> ids) {
+    return operation("findByIds", viewClass, () -> orm.findByIds(viewClass, ids));
+  }
+
+  @Override
+  public <TView> List<TView> findByField(Class<TView> viewClass, String field, Object param) {
+    return operation("findByField", viewClass, () -> orm.findByField(viewClass, field, param));
+  }
+
+  @Override
+  public <TView> List<TView> findByField(Class<TView> viewClass, String field, Collection<?> params) {
+    return operation("findByField", viewClass, () -> orm.findByField(viewClass, field, params));
+  }
+
+  @Override
+  public <TView> List<TView> findByCond(Class<TView> viewClass, Cond cond) {
+    return operation("findByCond", viewClass, () -> orm.findByCond(viewClass, cond));
+  }
+
+  @Override
+  public <TView> List<TView> findByCriteria(Class<TView> viewClass, Object object) {
+    return operation("findByCriteria", viewClass, () -> orm.findByCriteria(viewClass, object));
+  }
+
+  @Override
+  public <TView> List<TView> findByCriteria(Class<TView> viewClass, Object object, Class<?> criteriaGroup) {
+    return operation("findByCriteria", viewClass, () -> orm.findByCriteria(viewClass, object, criteriaGroup));
+  }
+
+  @Override
+  public long count(String sql, Collection<?> params) {
+    return operation("count", null, () -> orm.count(sql, params));
+  }
+
+  @Override
+  public long count(Sql sql) {
+    return operation("count", null, () -> orm.count(sql));
+  }
+
+  @Override
+  public <TView> long countByCond(Class<TView> viewClass, Cond cond) {
+    return operation("countByCond", viewClass, () -> orm.countByCond(viewClass, cond));
+  }
+
+  @Override
+  public boolean exists(Sql sql) {
+    return operation("exists", null, () -> orm.exists(sql));
+  }
+
+  @Override
+  public boolean exists(String sql, Collection<?> params) {
+    return operation("exists", null, () -> orm.exists(sql, params));
+  }
+
+  @Override
+  public <TModel> boolean exists(Class<TModel> modelClass, TModel entity) {
+    return operation("exists", modelClass, () -> orm.exists(modelClass, entity));
+  }
+
+  @Override
+  public <TView> boolean existsByCond(Class<TView> viewClass, Cond cond) {
+    return operation("existsByCond", viewClass, () -> orm.existsByCond(viewClass, cond));
+  }
+
+  @Override
+  public <TView> PageLite<TView> findPageLite(Class<TView> viewClass, String sql, Collection<?> params, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findPageLite", viewClass, () -> orm.findPageLite(viewClass, sql, params, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public <TView> PageLite<TView> findPageLite(Class<TView> viewClass, Sql sql, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findPageLite", viewClass, () -> orm.findPageLite(viewClass, sql, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public <TView> PageLite<TView> findPageLite(Class<TView> viewClass, String sql, Collection<?> params, IPageable pageable) {
+    return operation("findPageLite", viewClass, () -> orm.findPageLite(viewClass, sql, params, pageable));
+  }
+
+  @Override
+  public <TView> PageLite<TView> findPageLite(Class<TView> viewClass, Sql sql, IPageable pageable) {
+    return operation("findPageLite", viewClass, () -> orm.findPageLite(viewClass, sql, pageable));
+  }
+
+  @Override
+  public PageLite<Record> findRecordsPageLite(String sql, Collection<?> params, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findRecordsPageLite", null, () -> orm.findRecordsPageLite(sql, params, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public PageLite<Record> findRecordsPageLite(Sql sql, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findRecordsPageLite", null, () -> orm.findRecordsPageLite(sql, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public PageLite<Record> findRecordsPageLite(String sql, Collection<?> params, IPageable pageable) {
+    return operation("findRecordsPageLite", null, () -> orm.findRecordsPageLite(sql, params, pageable));
+  }
+
+  @Override
+  public PageLite<Record> findRecordsPageLite(Sql sql, IPageable pageable) {
+    return operation("findRecordsPageLite", null, () -> orm.findRecordsPageLite(sql, pageable));
+  }
+
+  @Override
+  public <TView> Page<TView> findPage(Class<TView> viewClass, String sql, Collection<?> params, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findPage", viewClass, () -> orm.findPage(viewClass, sql, params, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public <TView> Page<TView> findPage(Class<TView> viewClass, Sql sql, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findPage", viewClass, () -> orm.findPage(viewClass, sql, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public <TView> Page<TView> findPage(Class<TView> viewClass, String sql, Collection<?> params, IPageable pageable) {
+    return operation("findPage", viewClass, () -> orm.findPage(viewClass, sql, params, pageable));
+  }
+
+  @Override
+  public <TView> Page<TView> findPage(Class<TView> viewClass, Sql sql, IPageable pageable) {
+    return operation("findPage", viewClass, () -> orm.findPage(viewClass, sql, pageable));
+  }
+
+  @Override
+  public Page<Record> findRecordsPage(String sql, Collection<?> params, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findRecordsPage", null, () -> orm.findRecordsPage(sql, params, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public Page<Record> findRecordsPage(Sql sql, boolean enablePage, int currentPage, int pageSize) {
+    return operation("findRecordsPage", null, () -> orm.findRecordsPage(sql, enablePage, currentPage, pageSize));
+  }
+
+  @Override
+  public Page<Record> findRecordsPage(String sql, Collection<?> params, IPageable pageable) {
+    return operation("findRecordsPage", null, () -> orm.findRecordsPage(sql, params, pageable));
+  }
+
+  @Override
+  public Page<Record> findRecordsPage(Sql sql, IPageable pageable) {
+    return operation("findRecordsPage", null, () -> orm.findRecordsPage(sql, pageable));
+  }
+
+  @Override
+  public <TParent, TChild> List<TChild> prefetch(Collection<TParent> parents, Class<TChild> childClass, String foreignKey,
+                                                 Function<TParent, ?> parentKey, BiConsumer<TParent, List<TChild>> setter) {
+    return operation("prefetch", null, () -> orm.prefetch(parents, childClass, foreignKey, parentKey, setter));
+  }
+
+  @Override
+  public Sql select(Class<?> viewClass, String... columns) {
+    return operation("select", viewClass, () -> orm.select(viewClass, columns));
+  }
+
+  @Override
+  public Orm cached() {
+    return new InstrumentedOrm(invoke("cached", null, SqlTracer.NOOP, () -> orm.cached()), this);
+  }
+
+  @Override
+  public Orm cached(int ttl) {
+    return new InstrumentedOrm(invoke("cached", null, SqlTracer.NOOP, () -> orm.cached(ttl)), this);
+  }
+
+  private <T> T operation(String operation, Class<?> modelClass, Supplier<T> body) {
+    return invoke(operation, modelClass, tracer, body);
+  }
+
+  private <T> T invoke(String operation, Class<?> modelClass, SqlTracer tracer, Supplier<T> body) {
+    final int[] depth = DEPTH.get();
+    if (0 != depth[0]) return body.get();
+
+    depth[0]++;
+    final long    start = null == metrics ? -1 : ThreadAllocations.current();
+    final SqlSpan span  = tracer.operation(dsName, dbType, operation, modelClass);
+    try {
+      final T result = body.get();
+      if (result instanceof Collection) span.rows(((Collection<?>) result).size());
+      return result;
+    } catch (RuntimeException | Error ex) {
+      span.error(ex);
+      throw ex;
+    } finally {
+      span.end();
+      depth[0]--;
+      if (start >= 0) metrics.allocated(operation, ThreadAllocations.since(start));
+    }
+  }
+}
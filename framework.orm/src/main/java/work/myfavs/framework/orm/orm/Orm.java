@@ -15,6 +15,8 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * ORM 实体操作
@@ -757,4 +759,49 @@ public interface Orm {
    * @return {@link Page} 结果集
    */
   Page<Record> findRecordsPage(Sql sql, IPageable pageable);
+
+  /**
+   * 批量预加载一对多关联数据：收集父实体的关联键，按 {@code DBConfig#getPrefetchBatchSize()} 分批执行 {@code IN} 查询，
+   * 按外键分组后通过 setter 设置到每个父实体（没有子实体时设置空集合）。
+   * <p>
+   * 返回全部子实体，可继续作为下一级预加载的父实体，实现多级预加载
+   *
+   * @param parents    父实体集合
+   * @param childClass 子实体类型
+   * @param foreignKey 子实体中关联父实体的字段（数据库字段名）
+   * @param parentKey  获取父实体关联键的方法
+   * @param setter     设置父实体子实体集合的方法
+   * @param <TParent>  父实体类型泛型
+   * @param <TChild>   子实体类型泛型
+   * @return 全部子实体
+   */
+  <TParent, TChild> List<TChild> prefetch(Collection<TParent> parents, Class<TChild> childClass, String foreignKey,
+                                          Function<TParent, ?> parentKey, BiConsumer<TParent, List<TChild>> setter);
+
+  /**
+   * 创建只查询指定字段的 SELECT 语句，结果只映射这些字段，可继续拼接条件后用于 {@link #find(Class, Sql)} 等查询方法
+   * <pre>
+   * orm.find(User.class, orm.select(User.class, "id", "name").where(Cond.eq("status", 1)));
+   * </pre>
+   *
+   * @param viewClass 结果类型
+   * @param columns   字段（数据库字段名），为空时查询实体类映射的全部字段
+   * @return SELECT {@link Sql}
+   */
+  Sql select(Class<?> viewClass, String... columns);
+
+  /**
+   * 返回缓存查询结果的 {@link Orm}，使用 {@code DBConfig#getQueryCacheTtl()} 作为有效期
+   *
+   * @return {@link Orm}
+   */
+  Orm cached();
+
+  /**
+   * 返回缓存查询结果的 {@link Orm}，通过它执行的查询按 SQL 语句和参数缓存结果，查询涉及的数据表通过 ORM 写入时自动删除缓存
+   *
+   * @param ttl 有效期（秒），小于等于 0 时使用默认有效期
+   * @return {@link Orm}
+   */
+  Orm cached(int ttl);
 }
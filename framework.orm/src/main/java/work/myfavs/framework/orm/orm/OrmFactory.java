@@ -2,7 +2,9 @@ package work.myfavs.framework.orm.orm;
 
 import work.myfavs.framework.orm.Database;
 import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.metrics.ThreadAllocations;
 import work.myfavs.framework.orm.orm.impl.*;
+import work.myfavs.framework.orm.tracing.SqlTracer;
 import work.myfavs.framework.orm.util.exception.DBException;
 
 /**
@@ -11,12 +13,27 @@ import work.myfavs.framework.orm.util.exception.DBException;
 public class OrmFactory {
 
   /**
-   * 创建 ORM 实例
+   * 创建 ORM 实例，设置链路追踪或开启统计分配的内存时，以 {@link InstrumentedOrm} 包装，为每次调用创建 span 并统计分配的内存；
+   * 需要访问方言实现时使用 {@link #newOrm(Database)}
    *
    * @param database {@link Database}
    * @return {@link Orm}
    */
   public static Orm createOrm(Database database) {
+    final AbstractOrm orm = newOrm(database);
+    if (SqlTracer.NOOP == database.getDbTemplate().getTracer()
+        && (!database.getDbConfig().isTrackAllocations() || !ThreadAllocations.isSupported())) return orm;
+
+    return new InstrumentedOrm(orm, database);
+  }
+
+  /**
+   * 创建数据库类型对应的 ORM 实例
+   *
+   * @param database {@link Database}
+   * @return {@link AbstractOrm}
+   */
+  public static AbstractOrm newOrm(Database database) {
     String dbType = database.getDbConfig().getDbType();
     switch (dbType) {
       case DbType.SQL_SERVER:
@@ -10,6 +10,7 @@ import work.myfavs.framework.orm.DBConfig;
 import work.myfavs.framework.orm.DBTemplate;
 import work.myfavs.framework.orm.Database;
 import work.myfavs.framework.orm.Query;
+import work.myfavs.framework.orm.cache.EntityCache;
 import work.myfavs.framework.orm.meta.Record;
 import work.myfavs.framework.orm.meta.TableAlias;
 import work.myfavs.framework.orm.meta.annotation.Criteria;
@@ -24,17 +25,23 @@ import work.myfavs.framework.orm.meta.schema.Attribute;
 import work.myfavs.framework.orm.meta.schema.ClassMeta;
 import work.myfavs.framework.orm.meta.schema.Metadata;
 import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.orm.OrmFactory;
+import work.myfavs.framework.orm.partition.TableRouter;
+import work.myfavs.framework.orm.tracking.DirtyTracker;
 import work.myfavs.framework.orm.util.common.CollectionUtil;
 import work.myfavs.framework.orm.util.common.DruidUtil;
 import work.myfavs.framework.orm.util.exception.DBException;
 import work.myfavs.framework.orm.util.func.ThrowingConsumer;
-import work.myfavs.framework.orm.util.id.PKGenerator;
 import work.myfavs.framework.orm.util.reflection.ReflectUtil;
 
 import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -42,10 +49,24 @@ import java.util.stream.Collectors;
  */
 public abstract class AbstractOrm implements Orm {
 
+  /**
+   * 通用 SELECT 语句缓存：实体类型 - 数据表名 - SELECT 语句
+   */
+  private static final Map<Class<?>, Map<String, String>> SELECT_CACHE = new ConcurrentHashMap<>();
+  /**
+   * 只更新变更字段的 UPDATE 语句缓存：实体类型 - 数据表名 - 变更字段 - UPDATE 语句
+   */
+  private static final Map<Class<?>, Map<String, Map<BitSet, String>>> UPDATE_CACHE = new ConcurrentHashMap<>();
+
   protected final Database   database;
   protected final DBTemplate dbTemplate;
   protected final DBConfig   dbConfig;
 
+  /**
+   * 查询结果缓存有效期（秒），0 表示不缓存，小于 0 表示使用默认有效期
+   */
+  private int queryCacheTtl = 0;
+
   public AbstractOrm(Database database) {
     this.database = database;
     this.dbTemplate = this.database.getDbTemplate();
@@ -62,6 +83,232 @@ public abstract class AbstractOrm implements Orm {
     return TableAlias.getOpt().orElse(entityMeta.getTableName());
   }
 
+  /**
+   * 获取实体所在的表名，未设置 TableAlias 且实体注册了 {@link TableRouter} 时，按分表键路由到物理表
+   *
+   * @param entityMeta 实体类元数据
+   * @param entity     实体
+   * @param <TModel>   实体类泛型
+   * @return 实际执行的数据表名称
+   */
+  protected <TModel> String getTableName(ClassMeta entityMeta, TModel entity) {
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null == tableRouter) return getTableName(entityMeta);
+
+    return tableRouter.route(entityMeta.getTableName(), getPartitionKey(entityMeta).getValue(entity));
+  }
+
+  /**
+   * 获取实体的分表路由，已设置 TableAlias 时以 TableAlias 为准，返回 {@code null}
+   *
+   * @param entityMeta 实体类元数据
+   * @return {@link TableRouter}，未注册时返回 {@code null}
+   */
+  protected TableRouter getTableRouter(ClassMeta entityMeta) {
+    if (null != TableAlias.get()) return null;
+    return this.dbTemplate.getTableRouter(entityMeta.getClazz());
+  }
+
+  /**
+   * 获取分表键，未使用 {@code @PartitionKey} 标记时使用主键
+   *
+   * @param entityMeta 实体类元数据
+   * @return 分表键
+   */
+  protected static Attribute getPartitionKey(ClassMeta entityMeta) {
+    final Attribute partitionKey = entityMeta.getPartitionKey();
+    return null == partitionKey ? entityMeta.checkPrimaryKey() : partitionKey;
+  }
+
+  /**
+   * 按物理表名称对实体分组
+   *
+   * @param entityMeta  实体类元数据
+   * @param tableRouter 分表路由
+   * @param entities    实体集合
+   * @param <TModel>    实体类泛型
+   * @return 物理表名称 - 实体集合
+   */
+  protected static <TModel> Map<String, List<TModel>> partition(ClassMeta entityMeta, TableRouter tableRouter, Collection<TModel> entities) {
+    final Attribute                 partitionKey = getPartitionKey(entityMeta);
+    final Map<String, List<TModel>> groups       = new LinkedHashMap<>();
+    for (TModel entity : entities) {
+      final String tableName = tableRouter.route(entityMeta.getTableName(), partitionKey.getValue(entity));
+      groups.computeIfAbsent(tableName, k -> new ArrayList<>()).add(entity);
+    }
+    return groups;
+  }
+
+  /**
+   * 按分表键的值对主键或字段值分组
+   *
+   * @param entityMeta  实体类元数据
+   * @param tableRouter 分表路由
+   * @param values      分表键的值
+   * @return 物理表名称 - 值集合
+   */
+  private static Map<String, List<Object>> partitionValues(ClassMeta entityMeta, TableRouter tableRouter, Collection<?> values) {
+    final Map<String, List<Object>> groups = new LinkedHashMap<>();
+    for (Object value : values) {
+      groups.computeIfAbsent(tableRouter.route(entityMeta.getTableName(), value), k -> new ArrayList<>()).add(value);
+    }
+    return groups;
+  }
+
+  /**
+   * 判断字段是否为分表键
+   *
+   * @param entityMeta 实体类元数据
+   * @param field      字段名（数据库字段名）
+   * @return 是分表键返回 {@code true}
+   */
+  private static boolean isPartitionKey(ClassMeta entityMeta, String field) {
+    return getPartitionKey(entityMeta).getColumnName().equalsIgnoreCase(field);
+  }
+
+  /**
+   * 在分表路由的全部物理表上执行无法按分表键路由的操作，按物理表顺序返回结果；
+   * 分表路由无法列出全部物理表时抛出 {@link DBException}
+   *
+   * @param entityMeta  实体类元数据
+   * @param tableRouter 分表路由
+   * @param call        在每个物理表上执行的操作
+   * @param <T>         结果类型泛型
+   * @return 各物理表的结果
+   */
+  private static <T> List<T> scatter(ClassMeta entityMeta, TableRouter tableRouter, Supplier<T> call) {
+    return scatter(tableRouter.routeAll(entityMeta.getTableName()), call);
+  }
+
+  /**
+   * 在条件覆盖的物理表上执行操作，按物理表顺序返回结果，参考 {@link #route(ClassMeta, TableRouter, Cond)}
+   *
+   * @param entityMeta  实体类元数据
+   * @param tableRouter 分表路由
+   * @param cond        条件
+   * @param call        在每个物理表上执行的操作
+   * @param <T>         结果类型泛型
+   * @return 各物理表的结果
+   */
+  private static <T> List<T> scatter(ClassMeta entityMeta, TableRouter tableRouter, Cond cond, Supplier<T> call) {
+    return scatter(route(entityMeta, tableRouter, cond), call);
+  }
+
+  /**
+   * 在当前数据库连接上依次访问各物理表，与当前事务保持一致；需要并行访问多张物理表时使用
+   * {@link work.myfavs.framework.orm.orm.AsyncOrm#findByRange} 等方法
+   */
+  private static <T> List<T> scatter(List<String> tableNames, Supplier<T> call) {
+    final List<T> results = new ArrayList<>(tableNames.size());
+    for (String tableName : tableNames) {
+      results.add(TableAlias.supplier(tableName, call));
+    }
+    return results;
+  }
+
+  /**
+   * 按条件中分表键的取值（=、IN）或范围（BETWEEN、&gt;、&ge;、&lt;、&le;）确定需要访问的物理表，
+   * 条件使用 OR 拼接或未同时限定分表键的上下界时返回全部物理表
+   *
+   * @param entityMeta  实体类元数据
+   * @param tableRouter 分表路由
+   * @param cond        条件
+   * @return 物理表名称集合
+   */
+  private static List<String> route(ClassMeta entityMeta, TableRouter tableRouter, Cond cond) {
+    final String                 tableName    = entityMeta.getTableName();
+    final List<Cond.Restriction> restrictions = null == cond ? null : cond.getRestrictions();
+    if (null == restrictions) return tableRouter.routeAll(tableName);
+
+    final String column = DruidUtil.normalizeTableName(getPartitionKey(entityMeta).getColumnName());
+    Object       from   = null;
+    Object       to     = null;
+    for (Cond.Restriction restriction : restrictions) {
+      if (!column.equals(DruidUtil.normalizeTableName(restriction.getField()))) continue;
+
+      final List<Object> values = restriction.getValues();
+      switch (restriction.getOperator()) {
+        case "=":
+        case "IN":
+          final Set<String> tableNames = new LinkedHashSet<>();
+          for (Object value : values) {
+            tableNames.add(tableRouter.route(tableName, value));
+          }
+          return new ArrayList<>(tableNames);
+        case "BETWEEN":
+          if (null == from) from = values.get(0);
+          if (null == to) to = values.get(1);
+          break;
+        case ">":
+        case ">=":
+          if (null == from) from = values.get(0);
+          break;
+        default:
+          if (null == to) to = values.get(0);
+      }
+    }
+    return null != from && null != to ? tableRouter.routeRange(tableName, from, to) : tableRouter.routeAll(tableName);
+  }
+
+  /**
+   * 判断按主键查询时是否使用实体二级缓存：实体开启了缓存，未设置 TableAlias，且当前事务未写过该实体
+   *
+   * @param entityMeta 实体类元数据
+   * @return 是否使用缓存
+   */
+  protected boolean useEntityCache(ClassMeta entityMeta) {
+    return entityMeta.isCache()
+        && null == TableAlias.get()
+        && !this.dbTemplate.getConnectionFactory().isInWriteTransaction()
+        && !this.dbTemplate.getEntityCache().isDirty(entityMeta.getClazz());
+  }
+
+  /**
+   * 删除实体二级缓存
+   *
+   * @param entityMeta 实体类元数据
+   * @param ids        主键集合
+   */
+  protected void evictCache(ClassMeta entityMeta, Collection<?> ids) {
+    if (entityMeta.isCache()) this.dbTemplate.getEntityCache().invalidate(entityMeta.getClazz(), ids);
+  }
+
+  /**
+   * 删除实体二级缓存
+   *
+   * @param entityMeta 实体类元数据
+   * @param entities   实体集合
+   * @param <TModel>   实体类泛型
+   */
+  protected <TModel> void evictCacheByEntities(ClassMeta entityMeta, Collection<TModel> entities) {
+    if (!entityMeta.isCache()) return;
+
+    final Attribute    primaryKey = entityMeta.checkPrimaryKey();
+    final List<Object> ids        = new ArrayList<>(entities.size());
+    for (TModel entity : entities) {
+      ids.add(primaryKey.getValue(entity));
+    }
+    evictCache(entityMeta, ids);
+  }
+
+  /**
+   * 部分字段更新后停止跟踪实体的字段变更，避免快照与数据库不一致时漏掉变更，之后的 {@link #update(Class, Object)} 写入全部字段
+   *
+   * @param entities 实体集合
+   */
+  protected void untrack(Collection<?> entities) {
+    if (this.dbConfig.isDirtyTracking()) DirtyTracker.untrack(entities);
+  }
+
+  /**
+   * 删除实体类型的全部二级缓存
+   *
+   * @param entityMeta 实体类元数据
+   */
+  protected void evictCacheAll(ClassMeta entityMeta) {
+    if (entityMeta.isCache()) this.dbTemplate.getEntityCache().invalidateAll(entityMeta.getClazz());
+  }
+
   /**
    * Orm 实现类标记的数据库类型
    *
@@ -203,7 +450,10 @@ public abstract class AbstractOrm implements Orm {
     final Attribute      primaryKey  = classMeta.checkPrimaryKey();
     final Attribute      logicDelete = classMeta.getLogicDelete();
     final GenerationType strategy    = classMeta.getStrategy();
-    final String         tableName   = getTableName(classMeta);
+
+    // 按主键分表时，需要先生成主键才能计算物理表名称
+    if (strategy != GenerationType.IDENTITY) generatePrimaryKey(classMeta, entity);
+    final String tableName = getTableName(classMeta, entity);
 
     final Map<String /* columnName */, Attribute> updateAttributes = classMeta.getUpdateAttributes();
 
@@ -219,7 +469,7 @@ public abstract class AbstractOrm implements Orm {
     如果数据库主键策略为非自增，那么需要加入主键值作为参数
     获取实体主键标识字段是否为null：
     1.ASSIGNED 不允许为空；
-    2.UUID、SNOW_FLAKE如果主键标识字段为空，则生成值；
+    2.UUID、UUID_V7、SNOW_FLAKE、SEGMENT如果主键标识字段为空，则生成值；
     */
     if (strategy == GenerationType.IDENTITY) {
       autoGeneratedPK = true;
@@ -227,7 +477,7 @@ public abstract class AbstractOrm implements Orm {
       columns.add(DruidUtil.createColumn(primaryKey.getColumnName()));
       values.add(DruidUtil.createParam());
 
-      Object pkVal = generatePrimaryKey(strategy, primaryKey, entity);
+      Object pkVal = generatePrimaryKey(classMeta, entity);
       sql.getParams().add(pkVal);
     }
 
@@ -249,10 +499,12 @@ public abstract class AbstractOrm implements Orm {
     sql.append(insertStatement.toUnformattedString());
 
     try (Query query = this.database.createQuery(sql.toString(), autoGeneratedPK)) {
-      return query.addParameters(sql.getParams())
-                  .execute(null,
-                           rs -> primaryKey.setPrimaryKey(entity, rs));
+      result = query.addParameters(sql.getParams())
+                    .execute(null,
+                             rs -> primaryKey.setPrimaryKey(entity, rs));
     }
+    evictCache(classMeta, Collections.singletonList(primaryKey.getValue(entity)));
+    return result;
   }
 
   /**
@@ -269,6 +521,22 @@ public abstract class AbstractOrm implements Orm {
     final ClassMeta classMeta  = Metadata.entityMeta(modelClass);
     final boolean   isIdentity = classMeta.getStrategy().equals(GenerationType.IDENTITY);
 
+    final TableRouter tableRouter = getTableRouter(classMeta);
+    if (null != tableRouter) {
+      // 按物理表拆分为多个批次，每个批次使用 TableAlias 指定物理表；路由可能依赖主键，先按批次生成主键值
+      if (!isIdentity) {
+        for (List<TModel> batch : CollectionUtil.split(entities, batchSize(entities))) {
+          generatePrimaryKeys(classMeta, batch);
+        }
+      }
+
+      int result = 0;
+      for (Map.Entry<String, List<TModel>> group : partition(classMeta, tableRouter, entities).entrySet()) {
+        result += TableAlias.supplier(group.getKey(), () -> create(modelClass, group.getValue()));
+      }
+      return result;
+    }
+
     if (!this.database.isMySql()) {
       /*
        * 此处处理了一个MSSQL的JDBC驱动问题，当批量保存时，不能返回KEY，所以使用传统的方法遍历
@@ -305,21 +573,21 @@ public abstract class AbstractOrm implements Orm {
 
     final Map<String /* columnName */, Attribute> updateAttributes = entityMeta.getUpdateAttributes();
     final String                                  tableName        = getTableName(entityMeta);
-    final GenerationType                          strategy         = entityMeta.getStrategy();
     final Attribute                               primaryKey       = entityMeta.checkPrimaryKey();
 
     final List<Sql> sqlList = new ArrayList<>();
 
-    final int                batchSize = this.database.getDbConfig().getBatchSize();
-    final List<List<TModel>> batchList = CollectionUtil.split(entities, batchSize);
+    final List<List<TModel>> batchList = CollectionUtil.split(entities, batchSize(entities));
 
     for (List<TModel> entityList : batchList) {
+      generatePrimaryKeys(entityMeta, entityList);
+
       boolean insertClauseCompleted = false;
       Sql     insertClause          = Sql.New(String.format("INSERT INTO %s (", tableName));
       Sql     valuesClause          = Sql.New(") VALUES ");
 
       for (TModel entity : entityList) {
-        Object pkVal = generatePrimaryKey(strategy, primaryKey, entity);
+        Object pkVal = generatePrimaryKey(entityMeta, entity);
 
         if (!insertClauseCompleted) {
           insertClause.append(primaryKey.getColumnName() + ",");
@@ -356,6 +624,7 @@ public abstract class AbstractOrm implements Orm {
     for (Sql batchSql : sqlList) {
       result += this.execute(batchSql);
     }
+    evictCacheByEntities(entityMeta, entities);
     return result;
   }
 
@@ -370,64 +639,93 @@ public abstract class AbstractOrm implements Orm {
 
     boolean autoGeneratedPK = strategy == GenerationType.IDENTITY;
 
-    for (TModel entity : entities) {
-      final Collection<Object> params = new ArrayList<>();
-
-      /*
-      如果数据库主键策略为非自增，那么需要加入主键值作为参数
-      获取实体主键标识字段是否为null：
-      1.ASSIGNED 不允许为空；
-      2.UUID、SNOW_FLAKE如果主键标识字段为空，则生成值；
-      */
+    // 与 createInSqlBatch 一致，每批单独生成主键值，大批量插入不会一次性占用大量雪花主键序号
+    for (List<TModel> batch : CollectionUtil.split(entities, batchSize(entities))) {
       if (!autoGeneratedPK) {
-        params.add(generatePrimaryKey(strategy, primaryKey, entity));
+        generatePrimaryKeys(classMeta, batch);
       }
 
-      for (Attribute attr : updateAttributes.values()) {
-        params.add(attr.getFieldVisitor().getValue(entity));
-      }
+      for (TModel entity : batch) {
+        final Collection<Object> params = new ArrayList<>();
+
+        /*
+        如果数据库主键策略为非自增，那么需要加入主键值作为参数
+        获取实体主键标识字段是否为null：
+        1.ASSIGNED 不允许为空；
+        2.UUID、UUID_V7、SNOW_FLAKE、SEGMENT如果主键标识字段为空，则生成值；
+        */
+        if (!autoGeneratedPK) {
+          params.add(generatePrimaryKey(classMeta, entity));
+        }
 
-      paramsList.add(params);
+        for (Attribute attr : updateAttributes.values()) {
+          params.add(attr.getFieldVisitor().getValue(entity));
+        }
+
+        paramsList.add(params);
+      }
     }
 
     try (Query query = this.database.createQuery(sql.toString(), autoGeneratedPK)) {
       for (Collection<?> batchParams : paramsList) {
         query.addParameters(batchParams).addBatch();
       }
-      return query.executeBatch(rs -> primaryKey.setPrimaryKeys(entities, rs)).length;
+      final int result = query.executeBatch(rs -> primaryKey.setPrimaryKeys(entities, rs)).length;
+      evictCacheByEntities(classMeta, entities);
+      return result;
     }
   }
 
+  /**
+   * 获取批量创建时每批的实体数量，未设置 {@link work.myfavs.framework.orm.DBConfig#getBatchSize()} 时为全部实体
+   *
+   * @param entities 实体集合
+   * @return 每批的实体数量
+   */
+  private int batchSize(Collection<?> entities) {
+    final int batchSize = this.database.getDbConfig().getBatchSize();
+    return batchSize > 0 ? batchSize : Math.max(entities.size(), 1);
+  }
+
   /**
    * 如果实体的主键键值为 null，根据主键策略生成数据库主键值
    *
-   * @param strategy   {@link GenerationType}
-   * @param primaryKey 主键 {@link Attribute}
-   * @param entity     实体
-   * @param <TModel>   实体类泛型
+   * @param classMeta 实体类元数据
+   * @param entity    实体
+   * @param <TModel>  实体类泛型
    * @return 数据库主键值
    */
-  protected <TModel> Object generatePrimaryKey(GenerationType strategy, Attribute primaryKey, TModel entity) {
-    Object pkVal = primaryKey.getValue(entity);
+  protected <TModel> Object generatePrimaryKey(ClassMeta classMeta, TModel entity) {
+    return this.dbTemplate.getPkGenerator().generatePrimaryKey(classMeta, entity);
+  }
 
-    if (null == pkVal) {
-      PKGenerator pkGenerator = this.dbTemplate.getPkGenerator();
-      switch (strategy) {
-        case SNOW_FLAKE:
-          pkVal = pkGenerator.nextSnowFakeId();
-          break;
-        case UUID:
-          pkVal = pkGenerator.nextUUID();
-          break;
-        case ASSIGNED:
-          throw new DBException("使用 ASSIGNED 主键策略时，必须要为主键赋值.");
-        default:
-          throw new DBException("自动生成主键失败.");
+
+  /**
+   * 为主键键值为 null 的实体批量生成数据库主键值，雪花主键一次性占用所需数量的序号
+   *
+   * @param classMeta 实体类元数据
+   * @param entities  实体集合
+   * @param <TModel>  实体类泛型
+   */
+  protected <TModel> void generatePrimaryKeys(ClassMeta classMeta, Collection<TModel> entities) {
+    if (classMeta.getStrategy() != GenerationType.SNOW_FLAKE) {
+      for (TModel entity : entities) {
+        generatePrimaryKey(classMeta, entity);
       }
+      return;
+    }
 
-      primaryKey.setValue(entity, pkVal);
+    final Attribute primaryKey = classMeta.checkPrimaryKey();
+    final List<TModel> pending = new ArrayList<>();
+    for (TModel entity : entities) {
+      if (null == primaryKey.getValue(entity)) pending.add(entity);
+    }
+    if (pending.isEmpty()) return;
+
+    final long[] ids = this.dbTemplate.getPkGenerator().nextSnowFakeIds(pending.size());
+    for (int i = 0; i < ids.length; i++) {
+      primaryKey.setValue(pending.get(i), ids[i]);
     }
-    return pkVal;
   }
 
   /**
@@ -442,8 +740,15 @@ public abstract class AbstractOrm implements Orm {
 
     if (null == entity) return 0;
 
-    final Sql sql = this.update(modelClass, entity, false);
-    return execute(sql);
+    final ClassMeta entityMeta = Metadata.entityMeta(modelClass);
+    final BitSet    changes    = this.dbConfig.isDirtyTracking() ? DirtyTracker.changes(entityMeta, entity) : null;
+    if (null != changes && changes.isEmpty()) return 0;
+
+    final Sql sql    = null == changes ? this.update(modelClass, entity, false) : this.update(entityMeta, entity, changes);
+    final int result = execute(sql);
+    if (null != changes) this.database.registerCompletion(DirtyTracker.afterUpdate(entityMeta, entity));
+    evictCacheByEntities(entityMeta, Collections.singletonList(entity));
+    return result;
   }
 
   /**
@@ -485,8 +790,11 @@ public abstract class AbstractOrm implements Orm {
 
     if (null == entity) return 0;
 
-    final Sql sql = this.update(modelClass, entity, true);
-    return execute(sql);
+    final Sql sql    = this.update(modelClass, entity, true);
+    final int result = execute(sql);
+    untrack(Collections.singletonList(entity));
+    evictCacheByEntities(Metadata.entityMeta(modelClass), Collections.singletonList(entity));
+    return result;
   }
 
   /**
@@ -524,6 +832,14 @@ public abstract class AbstractOrm implements Orm {
 
     //在非 SQL Server 中，在 10000 条记录以内的更新，此方式速度较快
     final ClassMeta             entityMeta  = Metadata.entityMeta(modelClass);
+    final TableRouter           tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      for (Map.Entry<String, List<TModel>> group : partition(entityMeta, tableRouter, entities).entrySet()) {
+        result += TableAlias.supplier(group.getKey(), () -> update(modelClass, group.getValue(), columns));
+      }
+      return result;
+    }
+
     final Attribute             primaryKey  = entityMeta.checkPrimaryKey();
     final Attribute             logicDelete = entityMeta.getLogicDelete();
     final String                tableName   = getTableName(entityMeta);
@@ -603,6 +919,8 @@ public abstract class AbstractOrm implements Orm {
     }
 
     final int[] execute = this.execute(sqlList);
+    untrack(entities);
+    evictCacheByEntities(entityMeta, entities);
     return Arrays.stream(execute).sum();
   }
 
@@ -652,6 +970,8 @@ public abstract class AbstractOrm implements Orm {
     final ClassMeta classMeta = Metadata.entityMeta(modelClass);
     final Object    pkVal     = classMeta.getPrimaryKey().getValue(entity);
 
+    if (null != getTableRouter(classMeta))
+      return TableAlias.supplier(getTableName(classMeta, entity), () -> deleteById(classMeta, pkVal));
     return deleteById(classMeta, pkVal);
   }
 
@@ -669,7 +989,17 @@ public abstract class AbstractOrm implements Orm {
       return 0;
     }
 
-    final Attribute    primaryKey = Metadata.classMeta(modelClass).getPrimaryKey();
+    final ClassMeta   classMeta   = Metadata.entityMeta(modelClass);
+    final TableRouter tableRouter = getTableRouter(classMeta);
+    if (null != tableRouter) {
+      int result = 0;
+      for (Map.Entry<String, List<TModel>> group : partition(classMeta, tableRouter, entities).entrySet()) {
+        result += TableAlias.supplier(group.getKey(), () -> delete(modelClass, group.getValue()));
+      }
+      return result;
+    }
+
+    final Attribute    primaryKey = classMeta.getPrimaryKey();
     final List<Object> ids        = new ArrayList<>();
 
     for (TModel entity : entities) {
@@ -697,12 +1027,41 @@ public abstract class AbstractOrm implements Orm {
       return 0;
     }
 
-    final ClassMeta entityMeta   = Metadata.entityMeta(modelClass);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(modelClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      int result = 0;
+      if (null == entityMeta.getPartitionKey()) {
+        // 按主键分表，按主键路由到物理表
+        for (Map.Entry<String, List<Object>> group : partitionValues(entityMeta, tableRouter, ids).entrySet()) {
+          result += TableAlias.supplier(group.getKey(), () -> deleteByIds(modelClass, group.getValue()));
+        }
+      } else {
+        for (int rows : scatter(entityMeta, tableRouter, () -> deleteByIds(modelClass, ids))) {
+          result += rows;
+        }
+      }
+      return result;
+    }
+
+    return deleteByIds(entityMeta, ids);
+  }
+
+  /**
+   * 根据ID集合删除记录，已完成分表路由
+   *
+   * @param entityMeta 实体类元数据
+   * @param ids        ID集合
+   * @return 影响行数
+   */
+  protected int deleteByIds(ClassMeta entityMeta, Collection<?> ids) {
     final Attribute primaryKey   = entityMeta.checkPrimaryKey();
     final String    pkColumnName = primaryKey.getColumnName();
 
     final Cond deleteCond = Cond.in(pkColumnName, new ArrayList<>(ids), false);
-    return deleteByCond(entityMeta, deleteCond);
+    final int  result     = deleteByCond(entityMeta, deleteCond);
+    evictCache(entityMeta, ids);
+    return result;
   }
 
   /**
@@ -730,10 +1089,23 @@ public abstract class AbstractOrm implements Orm {
    * @return 影响行数
    */
   protected int deleteById(ClassMeta entityMeta, Object id) {
-    final String pkColumnName = entityMeta.getPrimaryKeyColumnName();
-    final Cond   deleteCond   = Cond.eq(pkColumnName, id);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      // 按主键分表时路由到物理表，按其他字段分表时在全部物理表上删除
+      if (null == entityMeta.getPartitionKey())
+        return TableAlias.supplier(tableRouter.route(entityMeta.getTableName(), id), () -> deleteById(entityMeta, id));
+
+      int result = 0;
+      for (int rows : scatter(entityMeta, tableRouter, () -> deleteById(entityMeta, id))) {
+        result += rows;
+      }
+      return result;
+    }
 
-    return deleteByCond(entityMeta, deleteCond);
+    final String pkColumnName = entityMeta.getPrimaryKeyColumnName();
+    final int    result       = deleteByCond(entityMeta, Cond.eq(pkColumnName, id));
+    evictCache(entityMeta, Collections.singletonList(id));
+    return result;
   }
 
   /**
@@ -750,8 +1122,19 @@ public abstract class AbstractOrm implements Orm {
       return 0;
     }
 
-    final ClassMeta entityMeta = Metadata.entityMeta(modelClass);
-    return deleteByCond(entityMeta, cond);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(modelClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      int result = 0;
+      for (int rows : scatter(entityMeta, tableRouter, cond, () -> deleteByCond(modelClass, cond))) {
+        result += rows;
+      }
+      return result;
+    }
+
+    final int result = deleteByCond(entityMeta, cond);
+    evictCacheAll(entityMeta);
+    return result;
   }
 
   /**
@@ -761,14 +1144,24 @@ public abstract class AbstractOrm implements Orm {
    * @param <TModel>   实体类型泛型
    */
   public <TModel> void truncate(Class<TModel> modelClass) {
-    final ClassMeta entityMeta = Metadata.entityMeta(modelClass);
-    final String    tableName  = getTableName(entityMeta);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(modelClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      scatter(entityMeta, tableRouter, () -> {
+        truncate(modelClass);
+        return null;
+      });
+      return;
+    }
+
+    final String tableName = getTableName(entityMeta);
 
     final SQLTruncateStatement truncateStatement = new SQLTruncateStatement();
 
     truncateStatement.getTableSources().add(new SQLExprTableSource(tableName));
 
     execute(new Sql(truncateStatement.toUnformattedString()));
+    evictCacheAll(entityMeta);
   }
 
   /**
@@ -779,6 +1172,9 @@ public abstract class AbstractOrm implements Orm {
    * @return 影响行数
    */
   protected int deleteByCond(ClassMeta entityMeta, Cond deleteCond) {
+    if (null != getTableRouter(entityMeta))
+      throw new DBException("类型 %s 已注册分表路由, 请指定物理表后再按条件删除", entityMeta.getClazz().getName());
+
     final String    tableName   = getTableName(entityMeta);
     final Attribute primaryKey  = entityMeta.checkPrimaryKey();
     final Attribute logicDelete = entityMeta.getLogicDelete();
@@ -803,6 +1199,38 @@ public abstract class AbstractOrm implements Orm {
    * @return 结果集
    */
   public <TView> List<TView> find(Class<TView> viewClass, String sql, Collection<?> params) {
+
+    return this.find(viewClass, sql, params, this.queryCacheTtl);
+  }
+
+  /**
+   * 执行 SQL，返回多行记录，cacheTtl 不为 0 时使用查询结果缓存
+   *
+   * @param viewClass 结果集类型
+   * @param sql       SQL语句
+   * @param params    参数
+   * @param cacheTtl  查询结果缓存有效期（秒），0 表示不缓存，小于 0 表示使用默认有效期
+   * @param <TView>   结果集类型泛型
+   * @return 结果集
+   */
+  protected <TView> List<TView> find(Class<TView> viewClass, String sql, Collection<?> params, int cacheTtl) {
+    if (0 == cacheTtl || this.dbTemplate.getConnectionFactory().isInWriteTransaction()) {
+      return this.query(viewClass, sql, params);
+    }
+    return this.dbTemplate.getQueryCache().find(viewClass, sql, params, cacheTtl, () -> this.query(viewClass, sql, params));
+  }
+
+  /**
+   * 执行查询，开启 {@link DBConfig#isSingleFlight()} 时合并并发执行的相同查询
+   */
+  private <TView> List<TView> query(Class<TView> viewClass, String sql, Collection<?> params) {
+    if (this.dbConfig.isSingleFlight() && !this.dbTemplate.getConnectionFactory().isInWriteTransaction()) {
+      return this.dbTemplate.getSingleFlight().execute(viewClass, sql, params, () -> this.executeQuery(viewClass, sql, params));
+    }
+    return this.executeQuery(viewClass, sql, params);
+  }
+
+  private <TView> List<TView> executeQuery(Class<TView> viewClass, String sql, Collection<?> params) {
     try (Query query = this.database.createQuery(sql)) {
       return query.addParameters(params).find(viewClass);
     }
@@ -818,7 +1246,17 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> List<TView> find(Class<TView> viewClass, Sql sql) {
 
-    return this.find(viewClass, sql.toString(), sql.getParams());
+    return this.find(viewClass, sql.toString(), sql.getParams(), cacheTtl(sql));
+  }
+
+  /**
+   * 获取 {@link Sql} 的查询结果缓存有效期，未设置时使用当前 Orm 的设置
+   *
+   * @param sql {@link Sql}
+   * @return 有效期（秒），0 表示不缓存
+   */
+  private int cacheTtl(Sql sql) {
+    return 0 == sql.getCacheTtl() ? this.queryCacheTtl : sql.getCacheTtl();
   }
 
   /**
@@ -987,7 +1425,8 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> TView get(Class<TView> viewClass, Sql sql) {
 
-    return this.get(viewClass, sql.toString(), sql.getParams());
+    final Iterator<TView> iterator = this.find(viewClass, sql).iterator();
+    return iterator.hasNext() ? iterator.next() : null;
   }
 
   /**
@@ -1027,10 +1466,39 @@ public abstract class AbstractOrm implements Orm {
       return null;
     }
 
-    final ClassMeta entityMeta  = Metadata.entityMeta(viewClass);
+    final ClassMeta entityMeta = Metadata.entityMeta(viewClass);
+    if (!useEntityCache(entityMeta)) return selectById(viewClass, entityMeta, id);
+
+    final EntityCache                entityCache = this.dbTemplate.getEntityCache();
+    final EntityCache.Lookup<TView> lookup      = entityCache.get(viewClass, id);
+    if (lookup.isHit()) return lookup.getValue();
+
+    final long  version = entityCache.version(viewClass);
+    final TView view    = selectById(viewClass, entityMeta, id);
+    entityCache.put(viewClass, id, view, version);
+    return view;
+  }
+
+  /**
+   * 从数据库中根据主键获取记录
+   *
+   * @param viewClass  结果类型
+   * @param entityMeta 实体类元数据
+   * @param id         主键
+   * @param <TView>    实体类型
+   * @return 记录
+   */
+  private <TView> TView selectById(Class<TView> viewClass, ClassMeta entityMeta, Object id) {
     final Attribute primaryKey  = entityMeta.checkPrimaryKey();
     final Attribute logicDelete = entityMeta.getLogicDelete();
 
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      if (null == entityMeta.getPartitionKey())
+        return TableAlias.supplier(tableRouter.route(entityMeta.getTableName(), id), () -> getById(viewClass, id));
+      return firstNonNull(scatter(entityMeta, tableRouter, () -> getById(viewClass, id)));
+    }
+
     final Sql sql = this.select(entityMeta)
                         .where(Cond.eq(primaryKey.getColumnName(), id))
                         .and(Cond.logicalDelete(logicDelete));
@@ -1049,7 +1517,14 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> TView getByField(Class<TView> viewClass, String field, Object param) {
 
-    final ClassMeta classMeta   = Metadata.entityMeta(viewClass);
+    final ClassMeta   classMeta   = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(classMeta);
+    if (null != tableRouter) {
+      if (null != param && isPartitionKey(classMeta, field))
+        return TableAlias.supplier(tableRouter.route(classMeta.getTableName(), param), () -> getByField(viewClass, field, param));
+      return firstNonNull(scatter(classMeta, tableRouter, () -> getByField(viewClass, field, param)));
+    }
+
     final Attribute logicDelete = classMeta.getLogicDelete();
 
     final Sql sql = this.select(classMeta)
@@ -1068,7 +1543,11 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> TView getByCond(Class<TView> viewClass, Cond cond) {
 
-    final ClassMeta classMeta   = Metadata.entityMeta(viewClass);
+    final ClassMeta   classMeta   = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(classMeta);
+    if (null != tableRouter)
+      return firstNonNull(scatter(classMeta, tableRouter, cond, () -> getByCond(viewClass, cond)));
+
     final Attribute logicDelete = classMeta.getLogicDelete();
 
     final Sql sql = this.select(classMeta)
@@ -1115,10 +1594,57 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> List<TView> findByIds(Class<TView> viewClass, Collection<?> ids) {
 
-    final ClassMeta entityMeta  = Metadata.entityMeta(viewClass);
+    final ClassMeta entityMeta = Metadata.entityMeta(viewClass);
+    if (!useEntityCache(entityMeta) || CollectionUtil.isEmpty(ids)) return selectByIds(viewClass, entityMeta, ids);
+
+    // 命中的主键从缓存读取，只查询未命中的主键
+    final EntityCache  entityCache = this.dbTemplate.getEntityCache();
+    final List<TView>  result      = new ArrayList<>();
+    final List<Object> missing     = new ArrayList<>();
+    for (Object id : new LinkedHashSet<>(ids)) {
+      final EntityCache.Lookup<TView> lookup = entityCache.get(viewClass, id);
+      if (!lookup.isHit()) {
+        missing.add(id);
+      } else if (null != lookup.getValue()) {
+        result.add(lookup.getValue());
+      }
+    }
+    if (missing.isEmpty()) return result;
+
+    final long        version = entityCache.version(viewClass);
+    final List<TView> loaded  = selectByIds(viewClass, entityMeta, missing);
+    entityCache.putAll(viewClass, missing, loaded, version);
+    result.addAll(loaded);
+    return result;
+  }
+
+  /**
+   * 从数据库中根据多个主键ID查询实体集合
+   *
+   * @param viewClass  结果类型
+   * @param entityMeta 实体类元数据
+   * @param ids        主键ID集合
+   * @param <TView>    实体类型
+   * @return 实体集合
+   */
+  private <TView> List<TView> selectByIds(Class<TView> viewClass, ClassMeta entityMeta, Collection<?> ids) {
+
     final Attribute primaryKey  = entityMeta.checkPrimaryKey();
     final Attribute logicDelete = entityMeta.getLogicDelete();
 
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter && CollectionUtil.isNotEmpty(ids)) {
+      final List<TView> result = new ArrayList<>();
+      if (null == entityMeta.getPartitionKey()) {
+        for (Map.Entry<String, List<Object>> group : partitionValues(entityMeta, tableRouter, ids).entrySet()) {
+          result.addAll(TableAlias.supplier(group.getKey(), () -> findByIds(viewClass, group.getValue())));
+        }
+      } else {
+        scatter(entityMeta, tableRouter, () -> findByIds(viewClass, ids)).forEach(result::addAll);
+      }
+      return result;
+    }
+
     final Sql sql = this.select(entityMeta)
                         .where()
                         .and(Cond.in(primaryKey.getColumnName(), ids, false))
@@ -1137,7 +1663,14 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> List<TView> findByField(Class<TView> viewClass, String field, Object param) {
 
-    final ClassMeta entityMeta  = Metadata.entityMeta(viewClass);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      if (null != param && isPartitionKey(entityMeta, field))
+        return TableAlias.supplier(tableRouter.route(entityMeta.getTableName(), param), () -> findByField(viewClass, field, param));
+      return flatten(scatter(entityMeta, tableRouter, () -> findByField(viewClass, field, param)));
+    }
+
     final Attribute logicDelete = entityMeta.getLogicDelete();
 
     final Sql sql = this.select(entityMeta)
@@ -1157,7 +1690,19 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> List<TView> findByField(Class<TView> viewClass, String field, Collection<?> params) {
 
-    final ClassMeta entityMeta  = Metadata.entityMeta(viewClass);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      if (CollectionUtil.isNotEmpty(params) && isPartitionKey(entityMeta, field)) {
+        final List<TView> result = new ArrayList<>();
+        for (Map.Entry<String, List<Object>> group : partitionValues(entityMeta, tableRouter, params).entrySet()) {
+          result.addAll(TableAlias.supplier(group.getKey(), () -> findByField(viewClass, field, group.getValue())));
+        }
+        return result;
+      }
+      return flatten(scatter(entityMeta, tableRouter, () -> findByField(viewClass, field, params)));
+    }
+
     final Attribute logicDelete = entityMeta.getLogicDelete();
 
     final Sql sql = this.select(entityMeta)
@@ -1177,7 +1722,11 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> List<TView> findByCond(Class<TView> viewClass, Cond cond) {
 
-    final ClassMeta entityMeta  = Metadata.entityMeta(viewClass);
+    final ClassMeta   entityMeta  = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter)
+      return flatten(scatter(entityMeta, tableRouter, cond, () -> findByCond(viewClass, cond)));
+
     final Attribute logicDelete = entityMeta.getLogicDelete();
 
     final Sql sql = this.select(entityMeta)
@@ -1235,7 +1784,8 @@ public abstract class AbstractOrm implements Orm {
    */
   public long count(Sql sql) {
 
-    return this.count(sql.toString(), sql.getParams());
+    final Sql countSql = this.countSql(sql.toString(), sql.getParams()).cached(cacheTtl(sql));
+    return this.get(Number.class, countSql).longValue();
   }
 
   /**
@@ -1248,7 +1798,16 @@ public abstract class AbstractOrm implements Orm {
    */
   public <TView> long countByCond(Class<TView> viewClass, Cond cond) {
 
-    final ClassMeta classMeta   = Metadata.entityMeta(viewClass);
+    final ClassMeta   classMeta   = Metadata.entityMeta(viewClass);
+    final TableRouter tableRouter = getTableRouter(classMeta);
+    if (null != tableRouter) {
+      long result = 0L;
+      for (long rows : scatter(classMeta, tableRouter, cond, () -> countByCond(viewClass, cond))) {
+        result += rows;
+      }
+      return result;
+    }
+
     final Attribute logicDelete = classMeta.getLogicDelete();
 
     final Sql sql = this.countSql(classMeta)
@@ -1266,7 +1825,7 @@ public abstract class AbstractOrm implements Orm {
    */
   public boolean exists(Sql sql) {
 
-    return exists(sql.toString(), sql.getParams());
+    return this.count(sql) > 0L;
   }
 
   /**
@@ -1298,6 +1857,9 @@ public abstract class AbstractOrm implements Orm {
 
     if (null == pkVal) return false;
 
+    if (null != getTableRouter(entityMeta))
+      return TableAlias.supplier(getTableName(entityMeta, entity), () -> exists(modelClass, entity));
+
     final Sql existSql = this.countSql(entityMeta).where(Cond.eq(primaryKey.getColumnName(), pkVal));
     return exists(existSql);
   }
@@ -1676,7 +2238,7 @@ public abstract class AbstractOrm implements Orm {
     final ClassMeta classMeta   = Metadata.classMeta(clazz);
     final Attribute primaryKey  = classMeta.checkPrimaryKey();
     final Attribute logicDelete = classMeta.getLogicDelete();
-    final String    tableName   = getTableName(classMeta);
+    final String    tableName   = getTableName(classMeta, model);
 
     final Map<String /* columnName */, Attribute> updateAttributes = classMeta.getUpdateAttributes();
 
@@ -1700,6 +2262,36 @@ public abstract class AbstractOrm implements Orm {
     return sql;
   }
 
+  /**
+   * 创建只更新变更字段的 UPDATE 语句，按实体类型、数据表名和变更字段缓存语句
+   *
+   * @param classMeta 实体类元数据
+   * @param model     实体
+   * @param changes   变更字段在 {@link ClassMeta#getUpdateAttributes()} 中的序号
+   * @param <TModel>  实体类型泛型
+   * @return {@link Sql}
+   */
+  protected <TModel> Sql update(ClassMeta classMeta, TModel model, BitSet changes) {
+
+    final Attribute       primaryKey = classMeta.checkPrimaryKey();
+    final List<Attribute> attributes = new ArrayList<>(classMeta.getUpdateAttributes().values());
+    final String          tableName  = getTableName(classMeta, model);
+
+    final String update = UPDATE_CACHE.computeIfAbsent(classMeta.getClazz(), k -> new ConcurrentHashMap<>())
+                                      .computeIfAbsent(tableName, k -> new ConcurrentHashMap<>())
+                                      .computeIfAbsent(changes, k -> {
+                                        final SQLUpdateStatement updateStatement = DruidUtil.createSQLUpdateStatement(tableName);
+                                        k.stream().forEach(i -> updateStatement.addItem(DruidUtil.createUpdateSetItem(attributes.get(i).getColumnName())));
+                                        updateStatement.addWhere(createCondition(primaryKey, classMeta.getLogicDelete()));
+                                        return updateStatement.toUnformattedString();
+                                      });
+
+    final Sql sql = new Sql(update);
+    changes.stream().forEach(i -> sql.getParams().add(attributes.get(i).getValue(model)));
+    sql.getParams().add(primaryKey.getValue(model));
+    return sql;
+  }
+
   /**
    * 把 SQL 重构为适用于分页查询的语句 (子类需实现)
    *
@@ -1712,14 +2304,73 @@ public abstract class AbstractOrm implements Orm {
   protected abstract Sql selectPage(String sql, Collection<?> params, int currentPage, int pageSize);
 
   /**
-   * 创建通用 SELECT 语句
+   * 创建通用 SELECT 语句，只查询实体类映射的字段，按实体类型、数据库类型和数据表名缓存
    *
    * @param entityMeta 实体类元数据
    * @return SELECT {@link Sql}
    */
   protected Sql select(ClassMeta entityMeta) {
 
-    return new Sql(String.format("SELECT * FROM %s", getTableName(entityMeta)));
+    final String tableName = getTableName(entityMeta);
+    final String select = SELECT_CACHE.computeIfAbsent(entityMeta.getClazz(), k -> new ConcurrentHashMap<>())
+                                      .computeIfAbsent(dbType() + ":" + tableName,
+                                                       k -> String.format("SELECT %s FROM %s", selectColumns(entityMeta.getQueryAttributes().values()), tableName));
+    return new Sql(select);
+  }
+
+  /**
+   * 创建只查询指定字段的 SELECT 语句，结果只映射这些字段，字段为空时查询实体类映射的全部字段
+   *
+   * @param viewClass 结果类型
+   * @param columns   字段（数据库字段名）
+   * @return SELECT {@link Sql}
+   */
+  public Sql select(Class<?> viewClass, String... columns) {
+
+    final ClassMeta classMeta = Metadata.entityMeta(viewClass);
+    if (null == columns || columns.length == 0) {
+      return this.select(classMeta);
+    }
+
+    final List<Attribute> attributes = new ArrayList<>();
+    for (String column : columns) {
+      final Attribute attribute = classMeta.getQueryAttributes().get(column.toUpperCase());
+      if (null == attribute) {
+        throw new DBException("类型 %s 中不存在字段 %s", viewClass.getName(), column);
+      }
+      attributes.add(attribute);
+    }
+    return new Sql(String.format("SELECT %s FROM %s", selectColumns(attributes), getTableName(classMeta)));
+  }
+
+  /**
+   * 拼接 SELECT 字段列表，没有映射字段时使用 {@code *}
+   */
+  private String selectColumns(Collection<Attribute> attributes) {
+    if (attributes.isEmpty()) return "*";
+    return attributes.stream().map(attribute -> quoteColumn(attribute.getColumnName())).collect(Collectors.joining(", "));
+  }
+
+  /**
+   * 引用字段名称：名称为 SQL 关键字（如 order、user、key）时使用 {@link #quote(String)} 引用，
+   * 其余字段及已引用的名称保持原样，不改变数据库对未引用名称的大小写规则
+   *
+   * @param column 字段名称
+   * @return 字段名称
+   */
+  protected String quoteColumn(String column) {
+    if (column.startsWith("`") || column.startsWith("\"") || column.startsWith("[")) return column;
+    return DruidUtil.isKeyword(column) ? quote(column) : column;
+  }
+
+  /**
+   * 引用标识符，默认按 SQL 标准使用双引号并转换为大写，与未引用的名称一致（如 Oracle）
+   *
+   * @param identifier 标识符
+   * @return 引用后的标识符
+   */
+  protected String quote(String identifier) {
+    return "\"" + identifier.toUpperCase(Locale.ROOT) + "\"";
   }
 
   /**
@@ -1749,4 +2400,95 @@ public abstract class AbstractOrm implements Orm {
         dbType, new SQLUtils.FormatOption(true, false));
     return new Sql(count, params);
   }
+
+  /**
+   * 批量预加载一对多关联数据，每 {@code DBConfig#getPrefetchBatchSize()} 个关联键执行一次 {@code IN} 查询
+   *
+   * @param parents    父实体集合
+   * @param childClass 子实体类型
+   * @param foreignKey 子实体中关联父实体的字段（数据库字段名）
+   * @param parentKey  获取父实体关联键的方法
+   * @param setter     设置父实体子实体集合的方法
+   * @param <TParent>  父实体类型泛型
+   * @param <TChild>   子实体类型泛型
+   * @return 全部子实体
+   */
+  public <TParent, TChild> List<TChild> prefetch(Collection<TParent> parents, Class<TChild> childClass, String foreignKey,
+                                                 Function<TParent, ?> parentKey, BiConsumer<TParent, List<TChild>> setter) {
+
+    if (CollectionUtil.isEmpty(parents)) {
+      return new ArrayList<>();
+    }
+
+    final Attribute foreignKeyAttr = Metadata.entityMeta(childClass).getQueryAttributes().get(foreignKey.toUpperCase());
+    if (null == foreignKeyAttr) {
+      throw new DBException("类型 %s 中不存在字段 %s", childClass.getName(), foreignKey);
+    }
+
+    final Set<Object> keys = new LinkedHashSet<>();
+    for (TParent parent : parents) {
+      final Object key = parentKey.apply(parent);
+      if (null != key) keys.add(prefetchKey(key));
+    }
+
+    final List<TChild>              children = new ArrayList<>();
+    final Map<Object, List<TChild>> groups   = new HashMap<>();
+    for (List<Object> chunk : CollectionUtil.split(keys, Math.max(this.dbConfig.getPrefetchBatchSize(), 1))) {
+      for (TChild child : this.findByField(childClass, foreignKey, chunk)) {
+        children.add(child);
+        groups.computeIfAbsent(prefetchKey(foreignKeyAttr.getValue(child)), k -> new ArrayList<>()).add(child);
+      }
+    }
+
+    for (TParent parent : parents) {
+      final Object       key   = parentKey.apply(parent);
+      final List<TChild> group = null == key ? null : groups.get(prefetchKey(key));
+      setter.accept(parent, null == group ? new ArrayList<>() : new ArrayList<>(group));
+    }
+    return children;
+  }
+
+  private static <T> List<T> flatten(List<List<T>> results) {
+    final List<T> list = new ArrayList<>();
+    results.forEach(list::addAll);
+    return list;
+  }
+
+  private static <T> T firstNonNull(List<T> results) {
+    for (T result : results) {
+      if (null != result) return result;
+    }
+    return null;
+  }
+
+  /**
+   * 统一整数类型的关联键，使 {@code Integer} 与 {@code Long} 类型的键可以匹配
+   */
+  private static Object prefetchKey(Object key) {
+    if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+      return ((Number) key).longValue();
+    }
+    return key;
+  }
+
+  /**
+   * 返回缓存查询结果的 {@link Orm}，使用 {@code DBConfig#getQueryCacheTtl()} 作为有效期
+   *
+   * @return {@link Orm}
+   */
+  public Orm cached() {
+    return cached(-1);
+  }
+
+  /**
+   * 返回缓存查询结果的 {@link Orm}，与当前 Orm 使用同一个 {@link Database}
+   *
+   * @param ttl 有效期（秒），小于等于 0 时使用默认有效期
+   * @return {@link Orm}
+   */
+  public Orm cached(int ttl) {
+    final AbstractOrm orm = OrmFactory.newOrm(this.database);
+    orm.queryCacheTtl = 0 == ttl ? -1 : ttl;
+    return orm;
+  }
 }
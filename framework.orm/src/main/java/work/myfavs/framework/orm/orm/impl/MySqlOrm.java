@@ -25,6 +25,11 @@ public class MySqlOrm extends AbstractOrm {
     return DbType.MYSQL;
   }
 
+  @Override
+  protected String quote(String identifier) {
+    return "`" + identifier + "`";
+  }
+
   @Override
   protected Sql selectPage(String sql, Collection<?> params, int currentPage, int pageSize) {
     int    offset   = pageSize * (currentPage - 1);
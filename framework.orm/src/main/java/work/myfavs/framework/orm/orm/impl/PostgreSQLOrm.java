@@ -3,6 +3,8 @@ package work.myfavs.framework.orm.orm.impl;
 import work.myfavs.framework.orm.Database;
 import work.myfavs.framework.orm.meta.DbType;
 
+import java.util.Locale;
+
 /**
  * Orm PostgreSQL实现
  */
@@ -15,4 +17,12 @@ public class PostgreSQLOrm extends MySqlOrm {
   protected String dbType() {
     return DbType.POSTGRE_SQL;
   }
+
+  /**
+   * PostgreSQL 把未引用的名称转换为小写，引用时同样使用小写
+   */
+  @Override
+  protected String quote(String identifier) {
+    return "\"" + identifier.toLowerCase(Locale.ROOT) + "\"";
+  }
 }
@@ -9,11 +9,13 @@ import com.alibaba.druid.sql.dialect.sqlserver.ast.SQLServerSelectQueryBlock;
 import work.myfavs.framework.orm.Database;
 import work.myfavs.framework.orm.Query;
 import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.TableAlias;
 import work.myfavs.framework.orm.meta.clause.Cond;
 import work.myfavs.framework.orm.meta.clause.Sql;
 import work.myfavs.framework.orm.meta.schema.Attribute;
 import work.myfavs.framework.orm.meta.schema.ClassMeta;
 import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.partition.TableRouter;
 import work.myfavs.framework.orm.util.common.CollectionUtil;
 import work.myfavs.framework.orm.util.common.Constant;
 import work.myfavs.framework.orm.util.common.DruidUtil;
@@ -22,6 +24,7 @@ import work.myfavs.framework.orm.util.exception.DBException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Orm SqlServer实现：2005以上，2012或以上版本请使用 {@link SqlServer2012Orm}
@@ -40,6 +43,11 @@ public class SqlServerOrm extends AbstractOrm {
     return DbType.SQL_SERVER;
   }
 
+  @Override
+  protected String quote(String identifier) {
+    return "[" + identifier + "]";
+  }
+
   /**
    * SQL Server 批量更新实现，由于2100个参数限制，所以使用批量更新方式
    *
@@ -56,6 +64,15 @@ public class SqlServerOrm extends AbstractOrm {
     Attribute             pk         = entityMeta.checkPrimaryKey();
     Collection<Attribute> updAttrs   = entityMeta.getUpdateAttributes(columns);
 
+    TableRouter tableRouter = getTableRouter(entityMeta);
+    if (null != tableRouter) {
+      int result = 0;
+      for (Map.Entry<String, List<TModel>> group : partition(entityMeta, tableRouter, entities).entrySet()) {
+        result += TableAlias.supplier(group.getKey(), () -> update(modelClass, group.getValue(), columns));
+      }
+      return result;
+    }
+
     String sql = this.update(entityMeta, columns);
 
     Collection<Collection<?>> paramsList;
@@ -74,29 +91,27 @@ public class SqlServerOrm extends AbstractOrm {
       paramsList.add(params);
     }
 
+    int result;
     try (Query query = this.database.createQuery(sql)) {
       for (Collection<?> batchParams : paramsList) {
         query.addParameters(batchParams).addBatch();
       }
-      return query.executeBatch().length;
+      result = query.executeBatch().length;
     }
+    untrack(entities);
+    evictCacheByEntities(entityMeta, entities);
+    return result;
   }
 
   /**
    * SQL Server 根据主键 ID 集合批量删除实现，由于2100个参数限制，需对传入 ID 集合进行切割拆分
    *
-   * @param modelClass 实体类型
+   * @param entityMeta 实体类元数据
    * @param ids        ID集合
-   * @param <TModel>   实体类型泛型
    * @return 影响行数
    */
   @Override
-  public <TModel> int deleteByIds(Class<TModel> modelClass, Collection<?> ids) {
-    if (CollectionUtil.isEmpty(ids)) {
-      return 0;
-    }
-
-    final ClassMeta entityMeta   = Metadata.entityMeta(modelClass);
+  protected int deleteByIds(ClassMeta entityMeta, Collection<?> ids) {
     final Attribute primaryKey   = entityMeta.checkPrimaryKey();
     final String    pkColumnName = primaryKey.getColumnName();
 
@@ -106,6 +121,7 @@ public class SqlServerOrm extends AbstractOrm {
       Cond deleteCond = Cond.in(pkColumnName, splitParam, false);
       ret += deleteByCond(entityMeta, deleteCond);
     }
+    evictCache(entityMeta, ids);
     return ret;
   }
 
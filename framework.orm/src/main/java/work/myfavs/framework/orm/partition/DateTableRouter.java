@@ -0,0 +1,162 @@
+package work.myfavs.framework.orm.partition;
+
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按日期分表，物理表名称为 {@code 逻辑表名_日期后缀}，如按月分表时 {@code tb_order_202410}
+ * <p>
+ * 分表键支持 {@link LocalDate}、{@link LocalDateTime}、{@link ZonedDateTime}、{@link OffsetDateTime}、
+ * {@link Instant} 及 {@link Date}，{@link Instant}、{@link Date} 按 {@link ZoneId#systemDefault()} 换算为日期
+ * <p>
+ * 物理表数量随时间增长，无法按分表键路由的操作（条件中没有分表键的取值或上下界）需要通过 {@link #bounded(Object, Object)}
+ * 设置已存在的物理表的日期范围，否则抛出 {@link DBException}
+ */
+public class DateTableRouter implements TableRouter {
+
+  /**
+   * 范围查询最多覆盖的物理表数量，防止范围过大时生成大量查询
+   */
+  private static final int MAX_RANGE_TABLES = 1000;
+
+  private final ChronoUnit        unit;
+  private final DateTimeFormatter formatter;
+  private final Object            first;
+  private final Object            last;
+
+  /**
+   * 构造方法
+   *
+   * @param unit    分表周期，支持 {@link ChronoUnit#DAYS}、{@link ChronoUnit#MONTHS}、{@link ChronoUnit#YEARS}
+   * @param pattern 日期后缀格式，如 {@code yyyyMM}
+   */
+  public DateTableRouter(ChronoUnit unit, String pattern) {
+    if (unit != ChronoUnit.DAYS && unit != ChronoUnit.MONTHS && unit != ChronoUnit.YEARS)
+      throw new DBException("不支持的分表周期: %s", unit);
+    this.unit = unit;
+    this.formatter = DateTimeFormatter.ofPattern(pattern);
+    this.first = null;
+    this.last = null;
+  }
+
+  private DateTableRouter(DateTableRouter router, Object first, Object last) {
+    this.unit = router.unit;
+    this.formatter = router.formatter;
+    this.first = first;
+    this.last = last;
+  }
+
+  /**
+   * 设置已存在的物理表覆盖的日期范围，无法按分表键路由的操作访问该范围内的全部物理表
+   *
+   * @param first 第一张物理表的日期（包含）
+   * @param last  最后一张物理表的日期（包含）
+   * @return 设置了日期范围的 {@link DateTableRouter}
+   */
+  public DateTableRouter bounded(Object first, Object last) {
+    toLocalDate("bounded", first);
+    toLocalDate("bounded", last);
+    return new DateTableRouter(this, first, last);
+  }
+
+  /**
+   * 按天分表，后缀格式为 {@code yyyyMMdd}
+   *
+   * @return {@link DateTableRouter}
+   */
+  public static DateTableRouter daily() {
+    return new DateTableRouter(ChronoUnit.DAYS, "yyyyMMdd");
+  }
+
+  /**
+   * 按月分表，后缀格式为 {@code yyyyMM}
+   *
+   * @return {@link DateTableRouter}
+   */
+  public static DateTableRouter monthly() {
+    return new DateTableRouter(ChronoUnit.MONTHS, "yyyyMM");
+  }
+
+  /**
+   * 按年分表，后缀格式为 {@code yyyy}
+   *
+   * @return {@link DateTableRouter}
+   */
+  public static DateTableRouter yearly() {
+    return new DateTableRouter(ChronoUnit.YEARS, "yyyy");
+  }
+
+  @Override
+  public String route(String tableName, Object partitionKey) {
+    return tableName + "_" + formatter.format(toLocalDate(tableName, partitionKey));
+  }
+
+  @Override
+  public List<String> routeRange(String tableName, Object from, Object to) {
+    final LocalDate start = truncate(toLocalDate(tableName, from));
+    final LocalDate end   = toLocalDate(tableName, to);
+
+    final List<String> tables = new ArrayList<>();
+    for (LocalDate date = start; !date.isAfter(end); date = date.plus(1, unit)) {
+      if (tables.size() == MAX_RANGE_TABLES)
+        throw new DBException("表 %s 的分表范围 [%s, %s] 超过 %d 张物理表", tableName, from, to, MAX_RANGE_TABLES);
+      tables.add(tableName + "_" + formatter.format(date));
+    }
+    return tables;
+  }
+
+  /**
+   * 返回 {@link #bounded(Object, Object)} 设置的日期范围内的物理表，未设置时抛出 {@link DBException}
+   *
+   * @param tableName 逻辑表名称
+   * @return 物理表名称集合，按分表顺序排列
+   */
+  @Override
+  public List<String> routeAll(String tableName) {
+    if (null == first)
+      throw new DBException("表 %s 按日期分表, 无法列出全部物理表: 请在条件中指定分表键的取值或范围, "
+                                + "或通过 DateTableRouter#bounded 设置物理表的日期范围", tableName);
+    return routeRange(tableName, first, last);
+  }
+
+  /**
+   * 把日期调整为分表周期的第一天
+   */
+  private LocalDate truncate(LocalDate date) {
+    switch (unit) {
+      case MONTHS:
+        return date.withDayOfMonth(1);
+      case YEARS:
+        return date.with(TemporalAdjusters.firstDayOfYear());
+      default:
+        return date;
+    }
+  }
+
+  private static LocalDate toLocalDate(String tableName, Object value) {
+    if (value instanceof LocalDate) return (LocalDate) value;
+    if (value instanceof LocalDateTime) return ((LocalDateTime) value).toLocalDate();
+    if (value instanceof ZonedDateTime) return ((ZonedDateTime) value).toLocalDate();
+    if (value instanceof OffsetDateTime) return ((OffsetDateTime) value).toLocalDate();
+    if (value instanceof Instant) return LocalDate.ofInstant((Instant) value, ZoneId.systemDefault());
+    if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate();
+    if (value instanceof Date)
+      return LocalDate.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault());
+
+    if (null == value)
+      throw new DBException("表 %s 的分表键不能为 null", tableName);
+    throw new DBException("表 %s 的分表键类型 %s 不是日期类型", tableName, value.getClass().getName());
+  }
+}
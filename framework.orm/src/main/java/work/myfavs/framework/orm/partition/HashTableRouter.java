@@ -0,0 +1,54 @@
+package work.myfavs.framework.orm.partition;
+
+import work.myfavs.framework.orm.shard.ShardFunction;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按哈希值分表，物理表名称为 {@code 逻辑表名_序号}，序号为 0 ~ (tableCount - 1)
+ * <p>
+ * 与分库相同使用 {@link ShardFunction#MOD}：整数类型的分表键按数值取模，其他类型按 {@link Object#hashCode()} 取模；范围查询覆盖全部物理表
+ */
+public class HashTableRouter implements TableRouter {
+
+  private final int tableCount;
+
+  /**
+   * 构造方法
+   *
+   * @param tableCount 物理表数量
+   */
+  public HashTableRouter(int tableCount) {
+    if (tableCount < 1)
+      throw new DBException("分表数量必须大于 0, 当前为 %d", tableCount);
+    this.tableCount = tableCount;
+  }
+
+  public int getTableCount() {
+    return tableCount;
+  }
+
+  @Override
+  public String route(String tableName, Object partitionKey) {
+    if (null == partitionKey)
+      throw new DBException("表 %s 的分表键不能为 null", tableName);
+
+    return tableName + "_" + ShardFunction.MOD.shard(partitionKey, tableCount);
+  }
+
+  @Override
+  public List<String> routeRange(String tableName, Object from, Object to) {
+    return routeAll(tableName);
+  }
+
+  @Override
+  public List<String> routeAll(String tableName) {
+    final List<String> tables = new ArrayList<>(tableCount);
+    for (int index = 0; index < tableCount; index++) {
+      tables.add(tableName + "_" + index);
+    }
+    return tables;
+  }
+}
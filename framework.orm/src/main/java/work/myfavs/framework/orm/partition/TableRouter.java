@@ -0,0 +1,48 @@
+package work.myfavs.framework.orm.partition;
+
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.List;
+
+/**
+ * 分表路由，根据分表键的值计算实体所在的物理表名称
+ * <p>
+ * 通过 {@link work.myfavs.framework.orm.DBTemplate.Builder#tableRouter(Class, TableRouter)} 为实体注册，
+ * 分表键为实体中使用 {@link work.myfavs.framework.orm.meta.annotation.PartitionKey @PartitionKey} 标记的属性，未标记时使用主键。
+ *
+ * @see DateTableRouter
+ * @see HashTableRouter
+ */
+public interface TableRouter {
+
+  /**
+   * 计算分表键所在的物理表名称
+   *
+   * @param tableName    逻辑表名称，即 {@code @Table} 中配置的表名
+   * @param partitionKey 分表键的值
+   * @return 物理表名称
+   */
+  String route(String tableName, Object partitionKey);
+
+  /**
+   * 计算分表键范围 [from, to] 覆盖的物理表名称
+   *
+   * @param tableName 逻辑表名称
+   * @param from      分表键范围起始值（包含）
+   * @param to        分表键范围结束值（包含）
+   * @return 物理表名称集合，按分表顺序排列
+   */
+  List<String> routeRange(String tableName, Object from, Object to);
+
+  /**
+   * 获取逻辑表的全部物理表名称，用于无法按分表键路由的操作（按条件删除、查询、计数，截断等）
+   * <p>
+   * 物理表数量不固定（如按日期分表）时无法列出，默认抛出 {@link DBException}，此时需使用 TableAlias 指定物理表
+   *
+   * @param tableName 逻辑表名称
+   * @return 物理表名称集合，按分表顺序排列
+   */
+  default List<String> routeAll(String tableName) {
+    throw new DBException("表 %s 的分表路由无法列出全部物理表, 请按分表键操作或使用 TableAlias 指定物理表", tableName);
+  }
+}
@@ -0,0 +1,109 @@
+package work.myfavs.framework.orm.replica;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只读副本
+ * <p>
+ * 记录查询耗时的指数移动平均值用于负载均衡，连续失败达到阈值后在一段时间内摘除。
+ */
+public class Replica {
+
+  /**
+   * 指数移动平均的平滑系数为 1 / 2^EWMA_SHIFT
+   */
+  private static final int EWMA_SHIFT = 3;
+
+  private final DataSource    dataSource;
+  private final int           weight;
+  private final AtomicInteger failures = new AtomicInteger();
+
+  private volatile long latencyNanos = 0L;
+  private volatile long ejectedUntil = System.nanoTime();
+
+  /**
+   * 构造方法
+   *
+   * @param dataSource 数据源
+   * @param weight     权重
+   */
+  public Replica(DataSource dataSource, int weight) {
+    this.dataSource = dataSource;
+    this.weight = Math.max(weight, 1);
+  }
+
+  /**
+   * 从副本数据源获取数据库连接
+   *
+   * @return 数据库连接
+   * @throws SQLException 获取连接失败时抛出
+   */
+  public Connection getConnection() throws SQLException {
+    return dataSource.getConnection();
+  }
+
+  /**
+   * 记录一次成功的查询
+   *
+   * @param elapsedNanos 查询耗时（纳秒）
+   */
+  public void success(long elapsedNanos) {
+    failures.set(0);
+    final long current = latencyNanos;
+    // 并发更新时允许丢失个别样本
+    latencyNanos = current == 0L ? elapsedNanos : current + ((elapsedNanos - current) >> EWMA_SHIFT);
+  }
+
+  /**
+   * 记录一次失败，连续失败达到阈值后摘除
+   *
+   * @param maxFailures 连续失败阈值
+   * @param ejectNanos  摘除时长（纳秒）
+   * @return 是否因本次失败被摘除
+   */
+  public boolean failure(int maxFailures, long ejectNanos) {
+    if (failures.incrementAndGet() < maxFailures) return false;
+
+    failures.set(0);
+    ejectedUntil = System.nanoTime() + ejectNanos;
+    return true;
+  }
+
+  /**
+   * 副本是否可用，摘除时间结束后重新参与负载均衡
+   *
+   * @return 是否可用
+   */
+  public boolean isHealthy() {
+    return System.nanoTime() - ejectedUntil >= 0;
+  }
+
+  /**
+   * 负载评分，越小越优先：平均耗时 / 权重
+   *
+   * @return 负载评分
+   */
+  long score() {
+    return (latencyNanos + 1) / weight;
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  /**
+   * 获取查询耗时的指数移动平均值（纳秒）
+   *
+   * @return 平均耗时
+   */
+  public long getLatencyNanos() {
+    return latencyNanos;
+  }
+}
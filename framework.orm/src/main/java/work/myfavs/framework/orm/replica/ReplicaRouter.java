@@ -0,0 +1,172 @@
+package work.myfavs.framework.orm.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBConfig;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写分离路由
+ * <p>
+ * 事务外的查询按权重随机选取两个可用副本，使用平均耗时 / 权重较小的一个（Power of Two Choices）；
+ * 没有可用副本时使用主库；副本查询发生连接类异常时记录失败并回退到主库。以下情况查询使用主库：
+ * <ul>
+ *   <li>当前处于写事务中（{@link work.myfavs.framework.orm.Database#tx} 或 Spring 非只读事务）；</li>
+ *   <li>当前主库连接上已执行过写操作；</li>
+ *   <li>{@link work.myfavs.framework.orm.Database#usePrimary()} 固定使用主库（如 AsyncOrm 事务、号段及终端ID租约）；</li>
+ *   <li>开启读己之写（readYourWritesMillis）时，当前线程最近一次写操作后的时间窗口内。</li>
+ * </ul>
+ */
+public class ReplicaRouter {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+  private final List<Replica> replicas;
+  private final int           totalWeight;
+  private final int           maxFailures;
+  private final long          ejectNanos;
+  private final long          readYourWritesNanos;
+
+  private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+  /**
+   * 构造方法
+   *
+   * @param replicas 只读副本
+   * @param dbConfig 数据库配置
+   */
+  public ReplicaRouter(List<Replica> replicas, DBConfig dbConfig) {
+    this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+    this.totalWeight = replicas.stream().mapToInt(Replica::getWeight).sum();
+    this.maxFailures = Math.max(dbConfig.getReplicaMaxFailures(), 1);
+    this.ejectNanos = TimeUnit.SECONDS.toNanos(dbConfig.getReplicaEjectSeconds());
+    this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(dbConfig.getReadYourWritesMillis());
+  }
+
+  /**
+   * 选择只读副本
+   *
+   * @param primary 当前线程的主库连接
+   * @return 只读副本，需要使用主库时返回 {@code null}
+   */
+  public Replica select(Connection primary) {
+    final State current = state.get();
+    if (current.writeTxDepth > 0) return null;
+    if (current.written) {
+      if (null != primary && primary == current.pendingWrite.get()) return null;
+      if (System.nanoTime() - current.lastWriteAt < readYourWritesNanos) return null;
+    }
+
+    final Replica first = pick();
+    if (null == first) return null;
+
+    final Replica second = pick();
+    return null == second || first.score() <= second.score() ? first : second;
+  }
+
+  /**
+   * 按权重随机选取一个可用副本
+   */
+  private Replica pick() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    int                     offset = random.nextInt(totalWeight);
+    Replica                 chosen = null;
+    for (Replica replica : replicas) {
+      offset -= replica.getWeight();
+      if (offset < 0) {
+        chosen = replica;
+        break;
+      }
+    }
+    if (null != chosen && chosen.isHealthy()) return chosen;
+
+    // 选中的副本被摘除时，退化为第一个可用副本
+    for (Replica replica : replicas) {
+      if (replica.isHealthy()) return replica;
+    }
+    return null;
+  }
+
+  /**
+   * 记录副本查询失败
+   *
+   * @param replica 只读副本
+   * @param cause   异常
+   */
+  public void failure(Replica replica, Exception cause) {
+    if (replica.failure(maxFailures, ejectNanos))
+      log.warn("Replica {} ejected for {}s after {} consecutive failures: {}",
+               replica.getDataSource(), TimeUnit.NANOSECONDS.toSeconds(ejectNanos), maxFailures, cause.getMessage());
+  }
+
+  /**
+   * 判断异常是否为连接类异常（SQLState 08xxx 或连接异常类型），只有连接类异常才说明副本不可用
+   * <p>
+   * SQL 语法错误、约束冲突、超时等异常在主库上同样会发生，不应摘除副本或回退到主库重试
+   *
+   * @param ex 异常
+   * @return 连接类异常返回 {@code true}
+   */
+  public static boolean isConnectionFailure(SQLException ex) {
+    for (Throwable cause = ex; null != cause; cause = cause.getCause()) {
+      if (cause instanceof SQLTransientConnectionException || cause instanceof SQLNonTransientConnectionException)
+        return true;
+      if (cause instanceof SQLException) {
+        final String sqlState = ((SQLException) cause).getSQLState();
+        if (null != sqlState && sqlState.startsWith("08")) return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 记录当前线程在主库连接上执行了写操作
+   *
+   * @param primary 主库连接
+   */
+  public void markWrite(Connection primary) {
+    final State current = state.get();
+    current.written = true;
+    current.pendingWrite = new WeakReference<>(primary);
+    current.lastWriteAt = System.nanoTime();
+  }
+
+  /**
+   * 进入写事务
+   */
+  public void beginWriteTx() {
+    state.get().writeTxDepth++;
+  }
+
+  /**
+   * 退出写事务
+   */
+  public void endWriteTx() {
+    final State current = state.get();
+    if (current.writeTxDepth > 0) current.writeTxDepth--;
+  }
+
+  public List<Replica> getReplicas() {
+    return replicas;
+  }
+
+  private static class State {
+    private int                       writeTxDepth = 0;
+    private boolean                   written      = false;
+    /**
+     * 执行过写操作的主库连接，连接归还连接池后不再阻止读取副本
+     */
+    private WeakReference<Connection> pendingWrite;
+    private long                      lastWriteAt;
+  }
+}
@@ -0,0 +1,24 @@
+package work.myfavs.framework.orm.shard;
+
+/**
+ * 分片函数，根据分片键计算记录所在的分片序号
+ */
+@FunctionalInterface
+public interface ShardFunction {
+
+  /**
+   * 默认分片函数：数字类型按数值取模，其他类型按 {@link Object#hashCode()} 取模
+   */
+  ShardFunction MOD = (shardKey, shardCount) -> shardKey instanceof Number
+      ? Math.floorMod(((Number) shardKey).longValue(), shardCount)
+      : Math.floorMod(shardKey.hashCode(), shardCount);
+
+  /**
+   * 计算分片序号
+   *
+   * @param shardKey   分片键的值，不为 {@code null}
+   * @param shardCount 分片数量
+   * @return 分片序号，范围为 0 ~ shardCount - 1
+   */
+  int shard(Object shardKey, int shardCount);
+}
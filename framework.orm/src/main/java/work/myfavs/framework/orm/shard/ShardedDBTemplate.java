@@ -0,0 +1,498 @@
+package work.myfavs.framework.orm.shard;
+
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.orm.AsyncOrm;
+import work.myfavs.framework.orm.util.common.CollectionUtil;
+import work.myfavs.framework.orm.util.exception.DBException;
+import work.myfavs.framework.orm.util.id.PKGenerator;
+import work.myfavs.framework.orm.util.lang.Snowflake;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 分库模板，把实体按分片键路由到多个 {@link DBTemplate} 中的一个
+ * <p>
+ * 分片键为实体中使用 {@link work.myfavs.framework.orm.meta.annotation.ShardKey @ShardKey} 标记的属性，未标记时使用主键。
+ * 写操作及按主键查询只访问一个分片；按条件查询、计数在全部分片上并行执行后合并结果。
+ * <p>
+ * 分片键不是主键且主键策略为 {@link GenerationType#SNOW_FLAKE} 时，生成的雪花主键低位携带分片序号（分片提示），
+ * 按主键查询、删除时先访问分片提示指向的分片。主键并非由本类生成时（调用方指定、分库前的历史数据）低位不代表分片，
+ * 因此分片提示指向的分片未命中时再访问其余分片。
+ * <p>
+ * 每生成一个携带分片提示的主键占用 2^hintBits 个连续序号（hintBits 为表示分片序号所需的位数），
+ * 单个节点每毫秒可生成的此类主键数量为 4096 / 2^hintBits，例如 8 个分片时为 512 个。
+ * <p>
+ * 每个分片的写操作在各自的事务中执行，不保证跨分片的原子性。
+ */
+public class ShardedDBTemplate {
+
+  private final List<DBTemplate> shards;
+  private final ShardFunction    shardFunction;
+  private final PKGenerator      pkGenerator;
+  /**
+   * 分片提示占用的雪花主键低位数量
+   */
+  private final int              hintBits;
+
+  private ShardedDBTemplate(Builder builder) {
+    this.shards = Collections.unmodifiableList(new ArrayList<>(builder.shards));
+    this.shardFunction = builder.shardFunction;
+    // 全部分片使用同一个主键生成器，避免不同 DBTemplate 使用相同终端ID时生成重复主键
+    this.pkGenerator = this.shards.get(0).getPkGenerator();
+    this.hintBits = 32 - Integer.numberOfLeadingZeros(this.shards.size() - 1);
+  }
+
+  /**
+   * 获取分片数量
+   *
+   * @return 分片数量
+   */
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  /**
+   * 获取分片
+   *
+   * @param index 分片序号
+   * @return 分片 {@link DBTemplate}
+   */
+  public DBTemplate getShard(int index) {
+    return shards.get(index);
+  }
+
+  // region Route
+
+  /**
+   * 计算实体所在的分片序号，主键为空时先生成主键
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 分片序号
+   */
+  public <TModel> int shardOf(Class<TModel> modelClass, TModel entity) {
+    final ClassMeta classMeta  = Metadata.entityMeta(modelClass);
+    final Attribute primaryKey = classMeta.checkPrimaryKey();
+    final Attribute shardKey   = getShardKey(classMeta);
+
+    if (shardKey == primaryKey) {
+      if (null == primaryKey.getValue(entity) && classMeta.getStrategy() != GenerationType.IDENTITY)
+        pkGenerator.generatePrimaryKey(classMeta, entity);
+      return shardFunction.shard(requireShardKey(classMeta, primaryKey.getValue(entity)), shards.size());
+    }
+
+    final int shard = shardFunction.shard(requireShardKey(classMeta, shardKey.getValue(entity)), shards.size());
+    if (null == primaryKey.getValue(entity)) {
+      if (classMeta.getStrategy() == GenerationType.SNOW_FLAKE) {
+        primaryKey.setValue(entity, nextHintedId(shard));
+      } else if (classMeta.getStrategy() != GenerationType.IDENTITY) {
+        pkGenerator.generatePrimaryKey(classMeta, entity);
+      }
+    }
+    return shard;
+  }
+
+  /**
+   * 根据主键计算分片序号
+   * <p>
+   * 分片键为主键时结果是确定的；否则为雪花主键低位的分片提示，需配合 {@link #isHinted(ClassMeta)} 在未命中时访问其余分片
+   *
+   * @param classMeta 实体类元数据
+   * @param id        主键
+   * @return 分片序号，无法确定时返回 -1
+   */
+  private int shardOfId(ClassMeta classMeta, Object id) {
+    final Attribute shardKey = getShardKey(classMeta);
+    if (shardKey.isPrimaryKey())
+      return shardFunction.shard(requireShardKey(classMeta, id), shards.size());
+
+    if (classMeta.getStrategy() == GenerationType.SNOW_FLAKE && id instanceof Number) {
+      final int shard = (int) (((Number) id).longValue() & ((1L << hintBits) - 1));
+      if (shard < shards.size()) return shard;
+    }
+    return -1;
+  }
+
+  /**
+   * 根据主键计算的分片序号是否仅为分片提示（分片键不是主键）
+   *
+   * @param classMeta 实体类元数据
+   * @return 仅为分片提示时返回 {@code true}
+   */
+  private static boolean isHinted(ClassMeta classMeta) {
+    return !getShardKey(classMeta).isPrimaryKey();
+  }
+
+  /**
+   * 生成低位携带分片序号的雪花主键：占用 2^hintBits 个连续的主键，取其中低位等于分片序号的一个
+   *
+   * @param shard 分片序号
+   * @return 雪花主键
+   */
+  private long nextHintedId(int shard) {
+    final int  blockSize = 1 << hintBits;
+    final long firstId   = pkGenerator.reserveSnowFakeIds(blockSize);
+    return firstId + Math.floorMod(shard - firstId, blockSize);
+  }
+
+  private static Attribute getShardKey(ClassMeta classMeta) {
+    final Attribute shardKey = classMeta.getShardKey();
+    return null == shardKey ? classMeta.checkPrimaryKey() : shardKey;
+  }
+
+  private static Object requireShardKey(ClassMeta classMeta, Object value) {
+    if (null == value)
+      throw new DBException("类型 %s 的分片键不能为 null", classMeta.getClazz().getName());
+    return value;
+  }
+
+  // endregion
+
+  // region Write
+
+  /**
+   * 创建实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> int create(Class<TModel> modelClass, TModel entity) {
+    if (null == entity) return 0;
+
+    final int shard = shardOf(modelClass, entity);
+    return join(async(shard).create(modelClass, entity));
+  }
+
+  /**
+   * 批量创建实体，按分片分组后在各分片并行执行
+   *
+   * @param modelClass 实体类型
+   * @param entities   实体集合
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> int create(Class<TModel> modelClass, Collection<TModel> entities) {
+    if (CollectionUtil.isEmpty(entities)) return 0;
+
+    final Map<Integer, List<TModel>> groups = new LinkedHashMap<>();
+    for (TModel entity : entities) {
+      groups.computeIfAbsent(shardOf(modelClass, entity), k -> new ArrayList<>()).add(entity);
+    }
+
+    return sum(scatter(groups.keySet(), shard -> async(shard).create(modelClass, groups.get(shard))));
+  }
+
+  /**
+   * 更新实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> int update(Class<TModel> modelClass, TModel entity) {
+    if (null == entity) return 0;
+
+    return join(async(shardOf(modelClass, entity)).update(modelClass, entity));
+  }
+
+  /**
+   * 删除实体
+   *
+   * @param modelClass 实体类型
+   * @param entity     实体
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> int delete(Class<TModel> modelClass, TModel entity) {
+    if (null == entity) return 0;
+
+    final int shard = shardOf(modelClass, entity);
+    return join(async(shard).delete(modelClass, entity));
+  }
+
+  /**
+   * 根据主键删除记录，无法根据主键确定分片时在全部分片上执行
+   *
+   * @param modelClass 实体类型
+   * @param id         主键
+   * @param <TModel>   实体类型泛型
+   * @return 影响行数
+   */
+  public <TModel> int deleteById(Class<TModel> modelClass, Object id) {
+    if (null == id) return 0;
+
+    final ClassMeta classMeta = Metadata.entityMeta(modelClass);
+    final int       shard     = shardOfId(classMeta, id);
+    if (shard >= 0) {
+      final int rows = join(async(shard).deleteById(modelClass, id));
+      if (rows > 0 || !isHinted(classMeta)) return rows;
+    }
+    return sum(scatter(others(shard), index -> async(index).deleteById(modelClass, id)));
+  }
+
+  // endregion
+
+  // region Read
+
+  /**
+   * 根据主键获取记录，无法根据主键确定分片或分片提示未命中时在其余分片上并行查询
+   *
+   * @param viewClass 结果类型
+   * @param id        主键
+   * @param <TView>   结果类型泛型
+   * @return 记录
+   */
+  public <TView> TView getById(Class<TView> viewClass, Object id) {
+    if (null == id) return null;
+
+    final ClassMeta classMeta = Metadata.entityMeta(viewClass);
+    final int       shard     = shardOfId(classMeta, id);
+    if (shard >= 0) {
+      final TView view = join(async(shard).getById(viewClass, id));
+      if (null != view || !isHinted(classMeta)) return view;
+    }
+    for (TView view : scatter(others(shard), index -> async(index).getById(viewClass, id))) {
+      if (null != view) return view;
+    }
+    return null;
+  }
+
+  /**
+   * 根据多个主键查询，按分片分组后并行查询；无法确定分片的主键在全部分片上查询，分片提示未命中的主键在其余分片上查询
+   *
+   * @param viewClass 结果类型
+   * @param ids       主键集合
+   * @param <TView>   结果类型泛型
+   * @return 实体集合
+   */
+  public <TView> List<TView> findByIds(Class<TView> viewClass, Collection<?> ids) {
+    if (CollectionUtil.isEmpty(ids)) return new ArrayList<>();
+
+    final ClassMeta                  classMeta = Metadata.entityMeta(viewClass);
+    final Map<Integer, List<Object>> groups    = new HashMap<>();
+    final List<Object>               unknown   = new ArrayList<>();
+    for (Object id : ids) {
+      final int shard = shardOfId(classMeta, id);
+      if (shard < 0) {
+        unknown.add(id);
+      } else {
+        groups.computeIfAbsent(shard, k -> new ArrayList<>()).add(id);
+      }
+    }
+    if (!unknown.isEmpty()) {
+      for (int index = 0; index < shards.size(); index++) {
+        groups.computeIfAbsent(index, k -> new ArrayList<>()).addAll(unknown);
+      }
+    }
+
+    final List<TView> result = flatten(scatter(groups.keySet(), index -> async(index).findByIds(viewClass, groups.get(index))));
+    if (!isHinted(classMeta)) return result;
+
+    // 分片提示未命中的主键，在提示分片以外的分片上查询
+    final Attribute   primaryKey = classMeta.checkPrimaryKey();
+    final Set<Object> found      = new HashSet<>();
+    for (TView view : result) {
+      found.add(idKey(primaryKey.getValue(view)));
+    }
+    final Map<Integer, List<Object>> retries = new HashMap<>();
+    for (Object id : ids) {
+      final int shard = shardOfId(classMeta, id);
+      if (shard < 0 || found.contains(idKey(id))) continue;
+      for (Integer index : others(shard)) {
+        retries.computeIfAbsent(index, k -> new ArrayList<>()).add(id);
+      }
+    }
+    if (!retries.isEmpty())
+      result.addAll(flatten(scatter(retries.keySet(), index -> async(index).findByIds(viewClass, retries.get(index)))));
+    return result;
+  }
+
+  /**
+   * 主键比较时使用的键，数字类型统一为 long，避免 Integer、Long 不相等
+   */
+  private static Object idKey(Object id) {
+    return id instanceof Number ? (Object) ((Number) id).longValue() : id;
+  }
+
+  /**
+   * 在全部分片上并行执行条件查询，合并结果
+   *
+   * @param viewClass 结果类型
+   * @param cond      条件
+   * @param <TView>   结果类型泛型
+   * @return 实体集合
+   */
+  public <TView> List<TView> findByCond(Class<TView> viewClass, Cond cond) {
+    return flatten(scatter(targets(-1), index -> async(index).findByCond(viewClass, cond)));
+  }
+
+  /**
+   * 在全部分片上并行执行已排序的查询，按 comparator 多路归并
+   *
+   * @param viewClass  结果类型
+   * @param sql        SQL，ORDER BY 与 comparator 一致
+   * @param comparator 排序比较器
+   * @param <TView>    结果类型泛型
+   * @return 有序的结果集
+   */
+  public <TView> List<TView> find(Class<TView> viewClass, Sql sql, Comparator<? super TView> comparator) {
+    return CollectionUtil.mergeSorted(scatter(targets(-1), index -> async(index).find(viewClass, sql)), comparator, -1);
+  }
+
+  /**
+   * 在全部分片上并行查询前 top 条记录，按 comparator 多路归并后返回全局前 top 条
+   *
+   * @param viewClass  结果类型
+   * @param top        行数
+   * @param sql        SQL，ORDER BY 与 comparator 一致
+   * @param comparator 排序比较器
+   * @param <TView>    结果类型泛型
+   * @return 有序的结果集
+   */
+  public <TView> List<TView> findTop(Class<TView> viewClass, int top, Sql sql, Comparator<? super TView> comparator) {
+    final List<List<TView>> results = scatter(targets(-1), index -> async(index).findTop(viewClass, top, sql));
+    return CollectionUtil.mergeSorted(results, comparator, top);
+  }
+
+  /**
+   * 在全部分片上并行计数，返回总数
+   *
+   * @param sql SQL
+   * @return 行数
+   */
+  public long count(Sql sql) {
+    return scatter(targets(-1), index -> async(index).count(sql)).stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * 在全部分片上并行按条件计数，返回总数
+   *
+   * @param viewClass 实体类型
+   * @param cond      条件
+   * @param <TView>   实体类型泛型
+   * @return 行数
+   */
+  public <TView> long countByCond(Class<TView> viewClass, Cond cond) {
+    return scatter(targets(-1), index -> async(index).countByCond(viewClass, cond)).stream().mapToLong(Long::longValue).sum();
+  }
+
+  // endregion
+
+  // region Scatter / Gather
+
+  private AsyncOrm async(int shard) {
+    return shards.get(shard).createAsyncOrm();
+  }
+
+  private Collection<Integer> targets(int shard) {
+    if (shard >= 0) return Collections.singletonList(shard);
+
+    final List<Integer> all = new ArrayList<>(shards.size());
+    for (int index = 0; index < shards.size(); index++) {
+      all.add(index);
+    }
+    return all;
+  }
+
+  /**
+   * 除指定分片以外的全部分片，分片序号小于 0 时为全部分片
+   */
+  private Collection<Integer> others(int shard) {
+    final List<Integer> others = new ArrayList<>(shards.size());
+    for (int index = 0; index < shards.size(); index++) {
+      if (index != shard) others.add(index);
+    }
+    return others;
+  }
+
+  /**
+   * 在指定分片上并行执行，按分片顺序返回结果
+   */
+  private static <T> List<T> scatter(Collection<Integer> targets, Function<Integer, CompletableFuture<T>> call) {
+    final List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+    for (Integer target : targets) {
+      futures.add(call.apply(target));
+    }
+
+    final List<T> results = new ArrayList<>(futures.size());
+    for (CompletableFuture<T> future : futures) {
+      results.add(join(future));
+    }
+    return results;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new DBException(e.getCause(), "分片执行过程中发生异常: %s", e.getCause().getMessage());
+    }
+  }
+
+  private static int sum(List<Integer> results) {
+    return results.stream().mapToInt(Integer::intValue).sum();
+  }
+
+  private static <T> List<T> flatten(List<List<T>> results) {
+    final List<T> list = new ArrayList<>();
+    results.forEach(list::addAll);
+    return list;
+  }
+
+  // endregion
+
+  public static class Builder {
+
+    private final List<DBTemplate> shards        = new ArrayList<>();
+    private       ShardFunction    shardFunction = ShardFunction.MOD;
+
+    /**
+     * 添加分片，分片序号为添加的顺序
+     *
+     * @param dbTemplate 分片 {@link DBTemplate}
+     * @return Builder
+     */
+    public Builder shard(DBTemplate dbTemplate) {
+
+      this.shards.add(Objects.requireNonNull(dbTemplate, "DBTemplate is required."));
+      return this;
+    }
+
+    /**
+     * 设置分片函数，默认为 {@link ShardFunction#MOD}
+     *
+     * @param shardFunction 分片函数
+     * @return Builder
+     */
+    public Builder shardFunction(ShardFunction shardFunction) {
+
+      this.shardFunction = Objects.requireNonNull(shardFunction, "ShardFunction is required.");
+      return this;
+    }
+
+    public ShardedDBTemplate build() {
+
+      if (this.shards.isEmpty())
+        throw new DBException("至少需要一个分片.");
+      // 每个携带分片提示的主键占用不小于分片数量的连续序号，不能超过雪花主键每毫秒的序号数量
+      if (this.shards.size() > Snowflake.MAX_RESERVE_SIZE)
+        throw new DBException("分片数量不能超过 %d, 当前为 %d", Snowflake.MAX_RESERVE_SIZE, this.shards.size());
+
+      return new ShardedDBTemplate(this);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package work.myfavs.framework.orm.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * 基于 OpenTelemetry 的 {@link SqlTracer}，需要引入 {@code io.opentelemetry:opentelemetry-api}
+ * <p>
+ * Orm 操作创建 {@code INTERNAL} span，名称为 {@code Orm.<方法名>}；SQL 语句创建 {@code CLIENT} span，名称为 {@code db.operation}（例如 {@code SELECT}），
+ * 属性遵循数据库语义约定：{@code db.system}、{@code db.operation}、{@code db.statement}，另外记录以下属性：
+ * <ul>
+ *   <li>{@code myfavs.orm.datasource}：数据源名称；</li>
+ *   <li>{@code myfavs.orm.operation}：Orm 方法名称，或 find、execute、executeBatch；</li>
+ *   <li>{@code myfavs.orm.model}：实体类型；</li>
+ *   <li>{@code myfavs.orm.fingerprint}：语句指纹；</li>
+ *   <li>{@code myfavs.orm.rows}：返回或影响的行数；</li>
+ *   <li>{@code myfavs.orm.batch_size}：批量执行的参数数量。</li>
+ * </ul>
+ * 未被采样的 span 只传递上下文，不计算语句指纹等属性。
+ * <pre>
+ * DBTemplate dbTemplate = new DBTemplate.Builder()
+ *     .dataSource(dataSource)
+ *     .tracer(new OpenTelemetryTracer(openTelemetry))
+ *     .build();
+ * </pre>
+ */
+public class OpenTelemetryTracer implements SqlTracer {
+
+  /**
+   * instrumentation scope 名称
+   */
+  public static final String INSTRUMENTATION_NAME = "work.myfavs.framework.orm";
+
+  static final AttributeKey<String> DB_SYSTEM    = AttributeKey.stringKey("db.system");
+  static final AttributeKey<String> DB_OPERATION = AttributeKey.stringKey("db.operation");
+  static final AttributeKey<String> DB_STATEMENT = AttributeKey.stringKey("db.statement");
+  static final AttributeKey<String> DATASOURCE   = AttributeKey.stringKey("myfavs.orm.datasource");
+  static final AttributeKey<String> OPERATION    = AttributeKey.stringKey("myfavs.orm.operation");
+  static final AttributeKey<String> MODEL        = AttributeKey.stringKey("myfavs.orm.model");
+  static final AttributeKey<String> FINGERPRINT  = AttributeKey.stringKey("myfavs.orm.fingerprint");
+  static final AttributeKey<Long>   ROWS         = AttributeKey.longKey("myfavs.orm.rows");
+  static final AttributeKey<Long>   BATCH_SIZE   = AttributeKey.longKey("myfavs.orm.batch_size");
+
+  private final Tracer tracer;
+
+  /**
+   * 构造方法
+   *
+   * @param openTelemetry {@link OpenTelemetry}
+   */
+  public OpenTelemetryTracer(OpenTelemetry openTelemetry) {
+    this(openTelemetry.getTracer(INSTRUMENTATION_NAME));
+  }
+
+  /**
+   * 构造方法
+   *
+   * @param tracer {@link Tracer}
+   */
+  public OpenTelemetryTracer(Tracer tracer) {
+    this.tracer = Objects.requireNonNull(tracer, "Tracer is required.");
+  }
+
+  @Override
+  public SqlSpan operation(String dsName, String dbType, String operation, Class<?> modelClass) {
+    final Span span = tracer.spanBuilder("Orm." + operation)
+                            .setSpanKind(SpanKind.INTERNAL)
+                            .setAttribute(DB_SYSTEM, dbSystem(dbType))
+                            .setAttribute(DATASOURCE, dsName)
+                            .setAttribute(OPERATION, operation)
+                            .startSpan();
+    if (span.isRecording() && null != modelClass) span.setAttribute(MODEL, modelClass.getName());
+    return new OpenTelemetrySpan(span);
+  }
+
+  @Override
+  public SqlSpan statement(String dsName, String dbType, String operation, String sql) {
+    final String dbOperation = dbOperation(sql);
+    final Span span = tracer.spanBuilder(dbOperation)
+                            .setSpanKind(SpanKind.CLIENT)
+                            .setAttribute(DB_SYSTEM, dbSystem(dbType))
+                            .setAttribute(DB_OPERATION, dbOperation)
+                            .setAttribute(DATASOURCE, dsName)
+                            .setAttribute(OPERATION, operation)
+                            .startSpan();
+    if (span.isRecording()) {
+      span.setAttribute(DB_STATEMENT, sql);
+      span.setAttribute(FINGERPRINT, DruidUtil.fingerprint(dbType, sql));
+    }
+    return new OpenTelemetrySpan(span);
+  }
+
+  @Override
+  public Executor wrap(Executor executor) {
+    return Context.taskWrapping(executor);
+  }
+
+  /**
+   * 转换为语义约定中的 {@code db.system}
+   */
+  private static String dbSystem(String dbType) {
+    switch (dbType) {
+      case DbType.SQL_SERVER:
+      case DbType.SQL_SERVER_2012:
+        return "mssql";
+      default:
+        return dbType;
+    }
+  }
+
+  /**
+   * SQL 语句的第一个关键字，例如 {@code SELECT}、{@code INSERT}
+   */
+  private static String dbOperation(String sql) {
+    int start = 0;
+    while (start < sql.length() && !Character.isLetter(sql.charAt(start))) start++;
+    int end = start;
+    while (end < sql.length() && Character.isLetter(sql.charAt(end))) end++;
+    return start == end ? "DB" : sql.substring(start, end).toUpperCase(Locale.ROOT);
+  }
+
+  private static final class OpenTelemetrySpan implements SqlSpan {
+
+    private final Span  span;
+    private final Scope scope;
+
+    private OpenTelemetrySpan(Span span) {
+      this.span = span;
+      this.scope = span.makeCurrent();
+    }
+
+    @Override
+    public boolean isRecording() {
+      return span.isRecording();
+    }
+
+    @Override
+    public void rows(long rows) {
+      if (span.isRecording()) span.setAttribute(ROWS, rows);
+    }
+
+    @Override
+    public void batchSize(int batchSize) {
+      if (span.isRecording()) span.setAttribute(BATCH_SIZE, (long) batchSize);
+    }
+
+    @Override
+    public void error(Throwable error) {
+      if (!span.isRecording()) return;
+
+      span.recordException(error);
+      span.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+    }
+
+    @Override
+    public void end() {
+      scope.close();
+      span.end();
+    }
+  }
+}
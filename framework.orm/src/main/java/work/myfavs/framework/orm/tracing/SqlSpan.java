@@ -0,0 +1,62 @@
+package work.myfavs.framework.orm.tracing;
+
+/**
+ * {@link SqlTracer} 创建的 span，只在创建的线程中使用，必须调用 {@link #end()} 结束
+ */
+public interface SqlSpan {
+
+  /**
+   * 不追踪
+   */
+  SqlSpan NOOP = new SqlSpan() {
+    @Override
+    public boolean isRecording() {
+      return false;
+    }
+
+    @Override
+    public void rows(long rows) {}
+
+    @Override
+    public void batchSize(int batchSize) {}
+
+    @Override
+    public void error(Throwable error) {}
+
+    @Override
+    public void end() {}
+  };
+
+  /**
+   * 是否记录，未被采样时返回 {@code false}，调用方可以跳过计算属性
+   *
+   * @return 记录返回 {@code true}
+   */
+  boolean isRecording();
+
+  /**
+   * 记录返回或影响的行数
+   *
+   * @param rows 行数
+   */
+  void rows(long rows);
+
+  /**
+   * 记录批量执行的参数数量
+   *
+   * @param batchSize 参数数量
+   */
+  void batchSize(int batchSize);
+
+  /**
+   * 记录异常
+   *
+   * @param error 异常
+   */
+  void error(Throwable error);
+
+  /**
+   * 结束 span，并恢复开始前的上下文
+   */
+  void end();
+}
@@ -0,0 +1,60 @@
+package work.myfavs.framework.orm.tracing;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 链路追踪，为 {@link work.myfavs.framework.orm.orm.Orm} 的操作及 {@link work.myfavs.framework.orm.Query} 的每次执行创建 span，
+ * 通过 {@code DBTemplate.Builder#tracer} 设置，每个 {@link work.myfavs.framework.orm.DBTemplate} 一个实例；
+ * 未设置时为 {@link #NOOP}，不包装 Orm 实例，也不创建任何对象。
+ *
+ * @see OpenTelemetryTracer
+ */
+public interface SqlTracer {
+
+  /**
+   * 不追踪
+   */
+  SqlTracer NOOP = new SqlTracer() {
+    @Override
+    public SqlSpan operation(String dsName, String dbType, String operation, Class<?> modelClass) {
+      return SqlSpan.NOOP;
+    }
+
+    @Override
+    public SqlSpan statement(String dsName, String dbType, String operation, String sql) {
+      return SqlSpan.NOOP;
+    }
+  };
+
+  /**
+   * 开始一次 {@link work.myfavs.framework.orm.orm.Orm} 操作，返回的 span 在结束前作为当前线程的上下文
+   *
+   * @param dsName     数据源名称
+   * @param dbType     数据库类型
+   * @param operation  操作名称，即 {@link work.myfavs.framework.orm.orm.Orm} 的方法名称
+   * @param modelClass 实体类型，没有时为 {@code null}
+   * @return {@link SqlSpan}
+   */
+  SqlSpan operation(String dsName, String dbType, String operation, Class<?> modelClass);
+
+  /**
+   * 开始执行一条 SQL 语句，返回的 span 在结束前作为当前线程的上下文
+   *
+   * @param dsName    数据源名称
+   * @param dbType    数据库类型
+   * @param operation find、execute 或 executeBatch
+   * @param sql       SQL 语句
+   * @return {@link SqlSpan}
+   */
+  SqlSpan statement(String dsName, String dbType, String operation, String sql);
+
+  /**
+   * 包装异步执行器，提交任务时的上下文传递到执行任务的线程
+   *
+   * @param executor 执行器
+   * @return 包装后的执行器
+   */
+  default Executor wrap(Executor executor) {
+    return executor;
+  }
+}
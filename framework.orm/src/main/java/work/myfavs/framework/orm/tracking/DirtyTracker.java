@@ -0,0 +1,178 @@
+package work.myfavs.framework.orm.tracking;
+
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 实体字段变更跟踪
+ * <p>
+ * 开启 {@link DBConfig#isDirtyTracking()} 后，查询得到的实体记录一份可更新字段的快照，保存在以实体为弱引用键的旁路表中，
+ * 不需要修改实体类，实体被回收后快照随之清除。更新实体时与快照比较，得到发生变更的字段。
+ * <p>
+ * 快照保存字段值而不是哈希值，避免哈希冲突导致漏掉变更：不可变类型直接引用，{@link Date} 与 {@code byte[]} 保存副本，
+ * 其他类型可能被原地修改，总是视为已变更。
+ * <p>
+ * 更新实体后的新快照由 {@link #afterUpdate(ClassMeta, Object)} 在写操作提交后才替换原快照；未提交或无法确定是否提交时停止跟踪实体，
+ * 避免快照与数据库不一致时误判为没有变更。
+ */
+public final class DirtyTracker {
+
+  /**
+   * 无法保存快照的字段值，比较时总是视为已变更
+   */
+  private static final Object        UNKNOWN         = new Object();
+  private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+      Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class);
+
+  private static final Map<IdentityKey, Object[]> SNAPSHOTS = new ConcurrentHashMap<>();
+  private static final ReferenceQueue<Object>     QUEUE     = new ReferenceQueue<>();
+
+  private DirtyTracker() {}
+
+  /**
+   * 记录实体可更新字段的快照，已存在时覆盖
+   *
+   * @param classMeta 实体类元数据
+   * @param entity    实体
+   */
+  public static void snapshot(ClassMeta classMeta, Object entity) {
+    expunge();
+    SNAPSHOTS.put(new IdentityKey(entity, QUEUE), values(classMeta, entity));
+  }
+
+  /**
+   * 记录实体更新后可更新字段的值，返回在写操作所在事务结束时调用的回调：
+   * 已提交时替换原快照，未提交或无法确定是否提交时停止跟踪实体，之后的更新写入全部字段
+   *
+   * @param classMeta 实体类元数据
+   * @param entity    实体
+   * @return 回调，参数为写操作是否已提交
+   */
+  public static Consumer<Boolean> afterUpdate(ClassMeta classMeta, Object entity) {
+    final Object[] values = values(classMeta, entity);
+    return committed -> {
+      if (!committed) {
+        SNAPSHOTS.remove(new IdentityKey(entity, null));
+        return;
+      }
+      expunge();
+      SNAPSHOTS.put(new IdentityKey(entity, QUEUE), values);
+    };
+  }
+
+  /**
+   * 与快照比较，获取发生变更的字段
+   *
+   * @param classMeta 实体类元数据
+   * @param entity    实体
+   * @return 变更字段在 {@link ClassMeta#getUpdateAttributes()} 中的序号，实体没有快照时返回 {@code null}
+   */
+  public static BitSet changes(ClassMeta classMeta, Object entity) {
+    final Object[] values = SNAPSHOTS.get(new IdentityKey(entity, null));
+    if (null == values) return null;
+
+    final Collection<Attribute> attributes = classMeta.getUpdateAttributes().values();
+    if (values.length != attributes.size()) return null;
+
+    final BitSet changes = new BitSet(values.length);
+    int          i       = 0;
+    for (Attribute attribute : attributes) {
+      final Object value = attribute.getValue(entity);
+      if (UNKNOWN == values[i] || !Objects.deepEquals(values[i], value)) changes.set(i);
+      i++;
+    }
+    return changes;
+  }
+
+  /**
+   * 停止跟踪实体，之后的更新写入全部字段
+   *
+   * @param entities 实体集合
+   */
+  public static void untrack(Collection<?> entities) {
+    for (Object entity : entities) {
+      if (null != entity) SNAPSHOTS.remove(new IdentityKey(entity, null));
+    }
+  }
+
+  /**
+   * 实体是否有快照
+   *
+   * @param entity 实体
+   * @return 有快照时返回 {@code true}
+   */
+  public static boolean isTracked(Object entity) {
+    return null != entity && SNAPSHOTS.containsKey(new IdentityKey(entity, null));
+  }
+
+  private static Object[] values(ClassMeta classMeta, Object entity) {
+    final Collection<Attribute> attributes = classMeta.getUpdateAttributes().values();
+    final Object[]              values     = new Object[attributes.size()];
+    int                         i          = 0;
+    for (Attribute attribute : attributes) {
+      values[i++] = copy(attribute.getValue(entity));
+    }
+    return values;
+  }
+
+  private static Object copy(Object value) {
+    if (null == value || IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum) return value;
+    if (value.getClass().getName().startsWith("java.time.")) return value;
+    if (value instanceof Date) return ((Date) value).clone();
+    if (value instanceof byte[]) return ((byte[]) value).clone();
+    return UNKNOWN;
+  }
+
+  /**
+   * 清除已被回收的实体的快照
+   */
+  private static void expunge() {
+    Reference<?> reference;
+    while (null != (reference = QUEUE.poll())) {
+      SNAPSHOTS.remove(reference);
+    }
+  }
+
+  /**
+   * 按实体对象标识（而不是 {@code equals}）比较的弱引用键，实体的 {@code hashCode} 随字段变化时仍能找到快照
+   */
+  private static final class IdentityKey extends WeakReference<Object> {
+
+    private final int hash;
+
+    private IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof IdentityKey)) return false;
+      final Object referent = get();
+      return null != referent && referent == ((IdentityKey) obj).get();
+    }
+  }
+}
@@ -2,8 +2,10 @@ package work.myfavs.framework.orm.util.common;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.function.Function;
 
 /**
@@ -49,6 +51,50 @@ public class CollectionUtil {
     return result;
   }
 
+  /**
+   * 多路归并：把多个已按 comparator 排序的列表合并为一个有序列表
+   *
+   * @param sortedLists 已排序的列表
+   * @param comparator  排序比较器
+   * @param limit       最多返回的元素数量，小于 0 时不限制
+   * @param <T>         集合类型泛型
+   * @return 合并后的有序列表
+   */
+  public static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<? super T> comparator, int limit) {
+    final int total = sortedLists.stream().mapToInt(List::size).sum();
+    final int size  = limit < 0 ? total : Math.min(total, limit);
+
+    final List<T>                  result = new ArrayList<>(size);
+    final PriorityQueue<Cursor<T>> heap   = new PriorityQueue<>(Math.max(sortedLists.size(), 1),
+                                                                (a, b) -> comparator.compare(a.head, b.head));
+    for (List<T> list : sortedLists) {
+      final Iterator<T> iterator = list.iterator();
+      if (iterator.hasNext()) heap.add(new Cursor<>(iterator));
+    }
+
+    while (result.size() < size) {
+      final Cursor<T> cursor = heap.poll();
+      if (null == cursor) break;
+
+      result.add(cursor.head);
+      if (cursor.iterator.hasNext()) {
+        cursor.head = cursor.iterator.next();
+        heap.add(cursor);
+      }
+    }
+    return result;
+  }
+
+  private static class Cursor<T> {
+    private final Iterator<T> iterator;
+    private       T           head;
+
+    private Cursor(Iterator<T> iterator) {
+      this.iterator = iterator;
+      this.head = iterator.next();
+    }
+  }
+
   /**
    * 判断集合是否不为空
    *
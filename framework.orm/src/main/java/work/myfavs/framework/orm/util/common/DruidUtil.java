@@ -6,12 +6,35 @@ import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
 import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
 import com.alibaba.druid.sql.ast.statement.*;
+import com.alibaba.druid.sql.parser.Keywords;
+import com.alibaba.druid.sql.visitor.ParameterizedOutputVisitorUtils;
+import com.alibaba.druid.sql.visitor.SchemaStatVisitor;
+import com.alibaba.druid.stat.TableStat;
 import com.alibaba.druid.util.JdbcConstants;
+import work.myfavs.framework.orm.cache.TinyLfuCache;
 import work.myfavs.framework.orm.util.exception.DBException;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class DruidUtil {
+
+  /**
+   * 语句指纹缓存的最大条目数量
+   */
+  private static final int FINGERPRINT_CACHE_SIZE = 10000;
+
+  /**
+   * 数据库类型及原语句 - 语句指纹缓存，容量有限，超出后淘汰访问较少的语句而不是每次重新解析
+   */
+  private static final TinyLfuCache<FingerprintKey, String> FINGERPRINTS = new TinyLfuCache<>(FINGERPRINT_CACHE_SIZE);
+
   public static com.alibaba.druid.DbType convert(String dbType) {
     switch (dbType) {
       case work.myfavs.framework.orm.meta.DbType.SQL_SERVER:
@@ -72,4 +95,137 @@ public class DruidUtil {
   public static SQLExprTableSource createTableSource(String tableName) {
     return new SQLExprTableSource(tableName);
   }
+
+  /**
+   * 解析 SQL 语句中引用的数据表名称，名称去除引号和 schema 前缀并转换为小写
+   *
+   * @param dbType 数据库类型
+   * @param sql    SQL 语句
+   * @return 数据表名称集合
+   */
+  public static Set<String> getTableNames(DbType dbType, String sql) {
+    final List<SQLStatement> stmtList = SQLUtils.parseStatements(sql, dbType);
+    final SchemaStatVisitor  visitor  = SQLUtils.createSchemaStatVisitor(dbType);
+    for (SQLStatement stmt : stmtList) {
+      stmt.accept(visitor);
+    }
+
+    final Set<String> tableNames = new HashSet<>();
+    for (TableStat.Name name : visitor.getTables().keySet()) {
+      tableNames.add(normalizeTableName(name.getName()));
+    }
+    return tableNames;
+  }
+
+  /**
+   * 解析 SQL 语句中用于过滤（等值、范围、IN、LIKE 条件）的字段，名称规范化规则与 {@link #normalizeTableName(String)} 相同
+   *
+   * @param dbType 数据库类型
+   * @param sql    SQL 语句
+   * @return 数据表名称 - 过滤字段名称集合
+   */
+  public static Map<String, Set<String>> getConditionColumns(DbType dbType, String sql) {
+    final List<SQLStatement> stmtList = SQLUtils.parseStatements(sql, dbType);
+    final SchemaStatVisitor  visitor  = SQLUtils.createSchemaStatVisitor(dbType);
+    for (SQLStatement stmt : stmtList) {
+      stmt.accept(visitor);
+    }
+
+    final Map<String, Set<String>> columns = new LinkedHashMap<>();
+    for (TableStat.Condition condition : visitor.getConditions()) {
+      final String operator = condition.getOperator();
+      if ("!=".equals(operator) || "<>".equals(operator) || operator.startsWith("NOT")) continue;
+
+      final TableStat.Column column = condition.getColumn();
+      if (null == column.getTable() || "UNKNOWN".equalsIgnoreCase(column.getTable())) continue;
+
+      columns.computeIfAbsent(normalizeTableName(column.getTable()), key -> new LinkedHashSet<>())
+             .add(normalizeTableName(column.getName()));
+    }
+    return columns;
+  }
+
+  /**
+   * 生成 SQL 语句指纹，参考 {@link #fingerprint(DbType, String)}
+   * <p>
+   * 结果按数据库类型及原语句缓存在容量有限的共享缓存中，同一语句只在第一次遇到或被淘汰后重新解析
+   *
+   * @param dbType 数据库类型，参考 {@link work.myfavs.framework.orm.meta.DbType}
+   * @param sql    SQL 语句
+   * @return 语句指纹，不支持的数据库类型或无法解析时返回合并空白后的原语句
+   */
+  public static String fingerprint(String dbType, String sql) {
+    final FingerprintKey key    = new FingerprintKey(dbType, sql);
+    final String         cached = FINGERPRINTS.get(key);
+    if (null != cached) return cached;
+
+    String fingerprint;
+    try {
+      fingerprint = fingerprint(convert(dbType), sql);
+    } catch (RuntimeException ex) {
+      fingerprint = sql.replaceAll("\\s+", " ").trim();
+    }
+    FINGERPRINTS.put(key, fingerprint, 0);
+    return fingerprint;
+  }
+
+  /**
+   * 生成 SQL 语句指纹：常量替换为 {@code ?}、IN 列表合并，并统一格式，参数数量或常量不同的同类语句得到相同的指纹
+   *
+   * @param dbType 数据库类型
+   * @param sql    SQL 语句
+   * @return 语句指纹，无法解析时返回合并空白后的原语句
+   */
+  public static String fingerprint(DbType dbType, String sql) {
+    try {
+      return ParameterizedOutputVisitorUtils.parameterize(sql, dbType).replaceAll("\\s+", " ").trim();
+    } catch (RuntimeException ex) {
+      return sql.replaceAll("\\s+", " ").trim();
+    }
+  }
+
+  /**
+   * 判断名称是否为 SQL 关键字（如 order、user、key），作为字段名称时需要引用
+   *
+   * @param name 名称
+   * @return 是否为关键字
+   */
+  public static boolean isKeyword(String name) {
+    return null != Keywords.DEFAULT_KEYWORDS.getKeyword(name.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * 规范化数据表名称：去除引号和 schema 前缀并转换为小写
+   *
+   * @param tableName 数据表名称
+   * @return 规范化后的名称
+   */
+  public static String normalizeTableName(String tableName) {
+    final String name = tableName.replaceAll("[`\"\\[\\]]", "");
+    return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+  }
+
+  private static final class FingerprintKey {
+
+    private final String dbType;
+    private final String sql;
+
+    private FingerprintKey(String dbType, String sql) {
+      this.dbType = dbType;
+      this.sql = sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof FingerprintKey)) return false;
+      final FingerprintKey other = (FingerprintKey) o;
+      return Objects.equals(dbType, other.dbType) && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hashCode(dbType) + sql.hashCode();
+    }
+  }
 }
@@ -6,6 +6,7 @@ import work.myfavs.framework.orm.meta.handler.PropertyHandlerFactory;
 import work.myfavs.framework.orm.meta.schema.Attribute;
 import work.myfavs.framework.orm.meta.schema.ClassMeta;
 import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.tracking.DirtyTracker;
 import work.myfavs.framework.orm.util.common.Constant;
 import work.myfavs.framework.orm.util.reflection.ReflectUtil;
 
@@ -33,6 +34,22 @@ public class DBConvert {
   public static <TModel> List<TModel> toList(Class<TModel> modelClass, ResultSet rs)
       throws SQLException {
 
+    return toList(modelClass, rs, false);
+  }
+
+  /**
+   * 把ResultSet转换为指定类型的List
+   *
+   * @param modelClass    Class
+   * @param rs            ResultSet
+   * @param dirtyTracking 是否为实体记录字段快照，参考 {@link DirtyTracker}
+   * @param <TModel>      Class TModel
+   * @return List
+   * @throws SQLException SQLException
+   */
+  public static <TModel> List<TModel> toList(Class<TModel> modelClass, ResultSet rs, boolean dirtyTracking)
+      throws SQLException {
+
     if (modelClass == Record.class) {
       return toRecords(modelClass, rs);
     }
@@ -41,14 +58,15 @@ public class DBConvert {
       return toScalar(modelClass, rs);
     }
 
-    return toEntities(modelClass, rs);
+    return toEntities(modelClass, rs, dirtyTracking);
   }
 
   private static <TModel> List<TModel> toEntities(
-      Class<TModel> modelClass, ResultSet rs) throws SQLException {
+      Class<TModel> modelClass, ResultSet rs, boolean dirtyTracking) throws SQLException {
 
     ClassMeta                                   classMeta  = Metadata.classMeta(modelClass);
     final Map<String /*columnName*/, Attribute> attributes = classMeta.getQueryAttributes();
+    final boolean                               snapshot   = dirtyTracking && classMeta.isEntity() && null != classMeta.getPrimaryKey();
 
     final List<TModel>      result      = new ArrayList<>();
     final ResultSetMetaData metaData    = rs.getMetaData();
@@ -63,6 +81,7 @@ public class DBConvert {
         if (null == attr) continue;
         attr.setValue(model, rs, columnIndex);
       }
+      if (snapshot) DirtyTracker.snapshot(classMeta, model);
       result.add(model);
     }
 
@@ -1,6 +1,10 @@
 package work.myfavs.framework.orm.util.id;
 
+import work.myfavs.framework.orm.meta.schema.Attribute;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.util.exception.DBException;
 import work.myfavs.framework.orm.util.lang.Snowflake;
+import work.myfavs.framework.orm.util.lang.UUIDv7;
 
 import java.util.UUID;
 
@@ -9,9 +13,12 @@ import java.util.UUID;
  *
  * @author tanqimin
  */
-public class PKGenerator {
+public class PKGenerator implements AutoCloseable {
 
-  private final Snowflake snowflake;
+  private final Snowflake            snowflake;
+  private final UUIDv7               uuidV7 = new UUIDv7();
+  private final SegmentAllocator     segmentAllocator;
+  private final WorkerIdLeaseManager leaseManager;
 
   /**
    * 主键生成器
@@ -20,7 +27,32 @@ public class PKGenerator {
    * @param dataCenterId 数据中心ID
    */
   public PKGenerator(long workerId, long dataCenterId) {
-    snowflake = new Snowflake(workerId, dataCenterId);
+    this(workerId, dataCenterId, null);
+  }
+
+  /**
+   * 主键生成器
+   *
+   * @param workerId         终端ID
+   * @param dataCenterId     数据中心ID
+   * @param segmentAllocator 号段主键分配器
+   */
+  public PKGenerator(long workerId, long dataCenterId, SegmentAllocator segmentAllocator) {
+    this.snowflake = new Snowflake(workerId, dataCenterId);
+    this.segmentAllocator = segmentAllocator;
+    this.leaseManager = null;
+  }
+
+  /**
+   * 主键生成器，终端ID、数据中心ID由租约管理器申领，租约失效时拒绝生成雪花主键
+   *
+   * @param leaseManager     已申领槽位的终端ID租约管理器
+   * @param segmentAllocator 号段主键分配器
+   */
+  public PKGenerator(WorkerIdLeaseManager leaseManager, SegmentAllocator segmentAllocator) {
+    this.snowflake = new Snowflake(leaseManager.getWorkerId(), leaseManager.getDataCenterId());
+    this.segmentAllocator = segmentAllocator;
+    this.leaseManager = leaseManager;
   }
 
   /**
@@ -33,12 +65,105 @@ public class PKGenerator {
     return UUID.randomUUID().toString();
   }
 
+  /**
+   * 获取按时间排序的 UUID (Version 7) 主键值
+   *
+   * @return UUID v7 主键值
+   */
+  public UUID nextUUIDv7() {
+
+    return uuidV7.next();
+  }
+
   /**
    * 获取 雪花 主键值
    *
    * @return 雪花主键值
    */
   public long nextSnowFakeId() {
+    if (null != leaseManager) leaseManager.checkLease();
     return snowflake.nextId();
   }
+
+  /**
+   * 批量获取 雪花 主键值，一次占用连续的序号，避免逐个生成
+   *
+   * @param n 主键数量
+   * @return 雪花主键值数组
+   */
+  public long[] nextSnowFakeIds(int n) {
+    if (null != leaseManager) leaseManager.checkLease();
+    return snowflake.nextIds(n);
+  }
+
+  /**
+   * 占用连续的 n 个 雪花 主键值，返回第一个主键值，占用的主键值为 [firstId, firstId + n)
+   *
+   * @param n 占用数量，范围为 1 ~ {@link Snowflake#MAX_RESERVE_SIZE}
+   * @return 第一个雪花主键值
+   */
+  public long reserveSnowFakeIds(int n) {
+    if (null != leaseManager) leaseManager.checkLease();
+    return snowflake.reserve(n);
+  }
+
+  /**
+   * 获取 号段 主键值
+   *
+   * @param bizTag 业务标识
+   * @return 号段主键值
+   */
+  public long nextSegmentId(String bizTag) {
+    if (null == segmentAllocator)
+      throw new DBException("未配置号段主键分配器 SegmentAllocator.");
+
+    return segmentAllocator.nextId(bizTag);
+  }
+
+  /**
+   * 如果实体的主键键值为 null，根据主键策略生成主键值并赋值给实体
+   *
+   * @param classMeta 实体类元数据
+   * @param entity    实体
+   * @param <TModel>  实体类泛型
+   * @return 主键值
+   */
+  public <TModel> Object generatePrimaryKey(ClassMeta classMeta, TModel entity) {
+    final Attribute primaryKey = classMeta.checkPrimaryKey();
+    Object          pkVal      = primaryKey.getValue(entity);
+
+    if (null == pkVal) {
+      switch (classMeta.getStrategy()) {
+        case SNOW_FLAKE:
+          pkVal = nextSnowFakeId();
+          break;
+        case SEGMENT:
+          pkVal = nextSegmentId(classMeta.getTableName());
+          break;
+        case UUID:
+          pkVal = nextUUID();
+          break;
+        case UUID_V7:
+          final UUID uuid = nextUUIDv7();
+          pkVal = primaryKey.getFieldVisitor().getType() == UUID.class ? uuid : uuid.toString();
+          break;
+        case ASSIGNED:
+          throw new DBException("使用 ASSIGNED 主键策略时，必须要为主键赋值.");
+        default:
+          throw new DBException("自动生成主键失败.");
+      }
+
+      primaryKey.setValue(entity, pkVal);
+    }
+    return pkVal;
+  }
+
+  /**
+   * 释放终端ID租约并停止号段预加载
+   */
+  @Override
+  public void close() {
+    if (null != leaseManager) leaseManager.close();
+    if (null != segmentAllocator) segmentAllocator.close();
+  }
 }
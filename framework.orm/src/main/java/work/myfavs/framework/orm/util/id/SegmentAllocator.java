@@ -0,0 +1,220 @@
+package work.myfavs.framework.orm.util.id;
+
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.util.convert.ConvertUtil;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 号段（hi/lo）主键分配器
+ * <p>
+ * 从号段表中按业务标识（默认为数据表名称）租用一段连续的ID，在内存中逐个分配。
+ * 每个业务标识使用双缓冲：当前号段使用比例达到 {@link DBConfig#getSegmentPrefetchRatio()} 时，
+ * 在后台线程预取下一个号段，当前号段用完后直接切换，稳定状态下分配ID无需等待数据库。
+ * <p>
+ * 号段的租用在独立线程的独立连接中执行，与调用方的事务无关。多个节点租用同一业务标识时，
+ * 通过对 max_id 的乐观更新保证各节点获得的号段互不重叠。
+ * <p>
+ * 号段表结构：
+ *
+ * <pre>
+ * CREATE TABLE id_segment (
+ *   biz_tag VARCHAR(128) NOT NULL PRIMARY KEY,
+ *   max_id  BIGINT       NOT NULL,
+ *   step    INT          NOT NULL
+ * )
+ * </pre>
+ */
+public class SegmentAllocator implements AutoCloseable {
+
+  /**
+   * 租用号段的最大尝试次数
+   */
+  private static final int MAX_LEASE_ATTEMPTS = 16;
+
+  private final DBTemplate                 dbTemplate;
+  private final Map<String, SegmentBuffer> buffers = new ConcurrentHashMap<>();
+  private final ExecutorService            executor;
+
+  /**
+   * 构造方法
+   *
+   * @param dbTemplate 号段表所在的 {@link DBTemplate}
+   */
+  public SegmentAllocator(DBTemplate dbTemplate) {
+    this.dbTemplate = dbTemplate;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "id-segment-loader-" + dbTemplate.getDsName());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * 获取下一个ID
+   *
+   * @param bizTag 业务标识
+   * @return ID
+   */
+  public long nextId(String bizTag) {
+    return buffers.computeIfAbsent(bizTag, SegmentBuffer::new).nextId();
+  }
+
+  /**
+   * 停止号段预加载线程，已加载的号段仍可继续使用
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * 从号段表租用一个号段
+   * <p>
+   * 使用乐观更新 {@code UPDATE ... SET max_id = ? WHERE biz_tag = ? AND max_id = ?}，
+   * 更新失败说明号段已被其他节点租用，重新读取后重试。
+   *
+   * @param bizTag 业务标识
+   * @return 号段
+   */
+  protected Segment lease(String bizTag) {
+    final String table = dbTemplate.getDbConfig().getSegmentTable();
+    final int    step  = dbTemplate.getDbConfig().getSegmentStep();
+
+    final Sql selectSql = new Sql(String.format("SELECT max_id, step FROM %s WHERE biz_tag = ?", table), bizTag);
+
+    for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+      try (Database database = dbTemplate.createDatabase().usePrimary()) {
+        final Orm    orm    = database.createOrm();
+        final Record record = orm.getRecord(selectSql);
+
+        if (null == record) {
+          insertSegment(database, orm, table, bizTag, step);
+          continue;
+        }
+
+        // 按列序号读取，避免不同数据库返回列名大小写不一致
+        final Iterator<Object> values  = record.values().iterator();
+        final long             maxId   = ConvertUtil.toLong(values.next());
+        final long             stepVal = ConvertUtil.toLong(values.next());
+
+        final int rows = orm.execute(new Sql(String.format("UPDATE %s SET max_id = ? WHERE biz_tag = ? AND max_id = ?", table),
+                                             maxId + stepVal, bizTag, maxId));
+        database.commit();
+
+        if (rows == 1) return new Segment(maxId + 1, maxId + stepVal);
+      }
+    }
+    throw new DBException("租用号段 %s 失败, 已重试 %d 次", bizTag, MAX_LEASE_ATTEMPTS);
+  }
+
+  /**
+   * 首次使用业务标识时插入号段记录，其他节点同时插入导致主键冲突时忽略
+   */
+  private static void insertSegment(Database database, Orm orm, String table, String bizTag, int step) {
+    try {
+      orm.execute(new Sql(String.format("INSERT INTO %s (biz_tag, max_id, step) VALUES (?, ?, ?)", table), bizTag, 0L, step));
+      database.commit();
+    } catch (DBException e) {
+      database.rollback();
+    }
+  }
+
+  private Future<Segment> submitLease(String bizTag) {
+    try {
+      return executor.submit(() -> lease(bizTag));
+    } catch (RejectedExecutionException e) {
+      throw new DBException(e, "号段分配器已关闭，无法获取号段 %s", bizTag);
+    }
+  }
+
+  /**
+   * 号段，ID 范围为 [min, max]
+   */
+  protected static class Segment {
+    private final long       min;
+    private final long       max;
+    private final AtomicLong cursor;
+
+    protected Segment(long min, long max) {
+      this.min = min;
+      this.max = max;
+      this.cursor = new AtomicLong(min);
+    }
+
+    private long size() {
+      return max - min + 1;
+    }
+  }
+
+  /**
+   * 双缓冲：当前号段及预取中的下一个号段
+   */
+  private class SegmentBuffer {
+    private final String        bizTag;
+    private final ReentrantLock switchLock = new ReentrantLock();
+
+    private volatile Segment         current = new Segment(0L, -1L);
+    private volatile Future<Segment> next;
+
+    private SegmentBuffer(String bizTag) {
+      this.bizTag = bizTag;
+    }
+
+    private long nextId() {
+      while (true) {
+        final Segment segment = current;
+        final long    id      = segment.cursor.getAndIncrement();
+        if (id <= segment.max) {
+          prefetchIfNecessary(segment, id);
+          return id;
+        }
+        switchSegment(segment);
+      }
+    }
+
+    private void prefetchIfNecessary(Segment segment, long id) {
+      if (null != next || executor.isShutdown()) return;
+
+      final double used = (double) (id - segment.min + 1) / segment.size();
+      if (used < dbTemplate.getDbConfig().getSegmentPrefetchRatio()) return;
+
+      if (switchLock.tryLock()) {
+        try {
+          if (null == next && segment == current) next = submitLease(bizTag);
+        } finally {
+          switchLock.unlock();
+        }
+      }
+    }
+
+    private void switchSegment(Segment exhausted) {
+      switchLock.lock();
+      try {
+        if (exhausted != current) return;
+
+        Future<Segment> future = next;
+        if (null == future) future = submitLease(bizTag);
+        next = null;
+        current = future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DBException(e, "获取号段 %s 时线程被中断", bizTag);
+      } catch (ExecutionException e) {
+        throw new DBException(e.getCause(), "获取号段 %s 时发生异常: %s", bizTag, e.getCause().getMessage());
+      } finally {
+        switchLock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package work.myfavs.framework.orm.util.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.util.convert.ConvertUtil;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法终端ID租约管理器
+ * <p>
+ * 从租约表中申领一个未被占用（或租约已过期）的槽位，槽位换算为唯一的 终端ID + 数据中心ID 组合，
+ * 并在后台线程按 {@code TTL / 3} 的间隔续约，水平扩容时无需为每个节点单独配置 workerId / dataCenterId。
+ * <p>
+ * 续约失败超过 TTL 或租约已被其他节点接管时，{@link #checkLease()} 抛出异常，拒绝继续生成雪花主键，
+ * 以免与接管该槽位的节点产生重复主键。租约过期时间使用本地时钟计算，TTL 应远大于各节点之间的时钟偏差。
+ * <p>
+ * 租约表结构：
+ *
+ * <pre>
+ * CREATE TABLE id_worker_lease (
+ *   slot      INT          NOT NULL PRIMARY KEY,
+ *   owner     VARCHAR(64)  NOT NULL,
+ *   expire_at BIGINT       NOT NULL
+ * )
+ * </pre>
+ */
+public class WorkerIdLeaseManager implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(WorkerIdLeaseManager.class);
+
+  /**
+   * 终端ID、数据中心ID的取值范围均为 1 ~ 30
+   */
+  private static final int ID_RANGE  = 30;
+  /**
+   * 可申领的槽位数量
+   */
+  public static final  int MAX_SLOTS = ID_RANGE * ID_RANGE;
+
+  private static final int MAX_ACQUIRE_ATTEMPTS = 16;
+
+  private final DBTemplate               dbTemplate;
+  private final String                   table;
+  private final long                     ttl;
+  private final String                   owner = UUID.randomUUID().toString();
+  private final ScheduledExecutorService heartbeat;
+
+  private volatile int     slot     = -1;
+  private volatile long    expireAt = 0L;
+  private volatile boolean lost     = false;
+
+  /**
+   * 构造方法
+   *
+   * @param dbTemplate 租约表所在的 {@link DBTemplate}
+   */
+  public WorkerIdLeaseManager(DBTemplate dbTemplate) {
+    this.dbTemplate = dbTemplate;
+    this.table = dbTemplate.getDbConfig().getWorkerIdLeaseTable();
+    this.ttl = TimeUnit.SECONDS.toMillis(dbTemplate.getDbConfig().getWorkerIdLeaseTtl());
+    this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "worker-id-lease-" + dbTemplate.getDsName());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * 申领槽位并启动续约
+   *
+   * @return 当前租约管理器
+   */
+  public synchronized WorkerIdLeaseManager acquire() {
+    if (slot >= 0) return this;
+
+    for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+      if (tryAcquire()) {
+        final long period = Math.max(ttl / 3, 1L);
+        heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        log.info("Leased snowflake slot {} (workerId={}, dataCenterId={}) from {}", slot, getWorkerId(), getDataCenterId(), table);
+        return this;
+      }
+    }
+    throw new DBException("从 %s 申领终端ID失败, 已重试 %d 次", table, MAX_ACQUIRE_ATTEMPTS);
+  }
+
+  /**
+   * 读取全部租约后，选择编号最小的空闲槽位：无记录则插入，租约过期则按原过期时间乐观更新
+   *
+   * @return 是否申领成功
+   */
+  private boolean tryAcquire() {
+    try (Database database = dbTemplate.createDatabase().usePrimary()) {
+      final Orm                orm     = database.createOrm();
+      final Map<Integer, Long> leases  = new HashMap<>();
+      final List<Record>       records = orm.findRecords(new Sql(String.format("SELECT slot, expire_at FROM %s", table)));
+      for (Record record : records) {
+        final Iterator<Object> values = record.values().iterator();
+        leases.put(ConvertUtil.toInt(values.next()), ConvertUtil.toLong(values.next()));
+      }
+
+      final long now = System.currentTimeMillis();
+      for (int candidate = 0; candidate < MAX_SLOTS; candidate++) {
+        final Long leaseExpireAt = leases.get(candidate);
+        if (null != leaseExpireAt && leaseExpireAt >= now) continue;
+
+        final int rows;
+        try {
+          rows = null == leaseExpireAt
+              ? orm.execute(new Sql(String.format("INSERT INTO %s (slot, owner, expire_at) VALUES (?, ?, ?)", table),
+                                    candidate, owner, now + ttl))
+              : orm.execute(new Sql(String.format("UPDATE %s SET owner = ?, expire_at = ? WHERE slot = ? AND expire_at = ?", table),
+                                    owner, now + ttl, candidate, leaseExpireAt));
+          database.commit();
+        } catch (DBException e) {
+          // 其他节点同时插入了该槽位
+          database.rollback();
+          return false;
+        }
+        if (rows != 1) return false;
+
+        this.slot = candidate;
+        this.expireAt = now + ttl;
+        return true;
+      }
+    }
+    throw new DBException("%s 中 %d 个槽位均已被占用", table, MAX_SLOTS);
+  }
+
+  /**
+   * 续约
+   */
+  private void renew() {
+    final long now = System.currentTimeMillis();
+    try (Database database = dbTemplate.createDatabase().usePrimary()) {
+      final int rows = database.createOrm()
+                               .execute(new Sql(String.format("UPDATE %s SET expire_at = ? WHERE slot = ? AND owner = ?", table),
+                                                now + ttl, slot, owner));
+      database.commit();
+
+      if (rows == 1) {
+        expireAt = now + ttl;
+      } else {
+        lost = true;
+        heartbeat.shutdown();
+        log.error("Snowflake slot {} in {} has been taken over by another node", slot, table);
+      }
+    } catch (Exception e) {
+      log.warn("Renew snowflake slot {} in {} failed: {}", slot, table, e.getMessage());
+    }
+  }
+
+  /**
+   * 检查租约是否有效，无效时抛出 {@link DBException}
+   */
+  public void checkLease() {
+    if (lost)
+      throw new DBException("终端ID租约(槽位 %d)已被其他节点接管, 拒绝生成雪花主键", slot);
+    if (System.currentTimeMillis() >= expireAt)
+      throw new DBException("终端ID租约(槽位 %d)已过期, 拒绝生成雪花主键", slot);
+  }
+
+  /**
+   * 获取租用的槽位
+   *
+   * @return 槽位，未申领时为 -1
+   */
+  public int getSlot() {
+    return slot;
+  }
+
+  /**
+   * 获取租用的终端ID
+   *
+   * @return 终端ID
+   */
+  public long getWorkerId() {
+    return slot % ID_RANGE + 1;
+  }
+
+  /**
+   * 获取租用的数据中心ID
+   *
+   * @return 数据中心ID
+   */
+  public long getDataCenterId() {
+    return slot / ID_RANGE + 1;
+  }
+
+  /**
+   * 停止续约并释放槽位
+   */
+  @Override
+  public synchronized void close() {
+    heartbeat.shutdownNow();
+    if (slot < 0 || lost) return;
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm()
+              .execute(new Sql(String.format("DELETE FROM %s WHERE slot = ? AND owner = ?", table), slot, owner));
+      database.commit();
+    }
+    lost = true;
+  }
+}
@@ -0,0 +1,42 @@
+package work.myfavs.framework.orm.util.lang;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步 ORM 执行器工厂
+ * <p>
+ * JDK 21 以下使用固定线程数的守护线程池，线程数即最大并发数，应与连接池大小一致；
+ * JDK 21 及以上由多版本 jar 中的同名类替换为虚拟线程实现。
+ */
+public final class AsyncExecutors {
+
+  private static final long KEEP_ALIVE_SECONDS = 60L;
+
+  private AsyncExecutors() {
+  }
+
+  /**
+   * 创建执行器
+   *
+   * @param name        线程名称前缀
+   * @param parallelism 最大并发数
+   * @return 执行器
+   */
+  public static Executor create(String name, int parallelism) {
+    final AtomicInteger counter = new AtomicInteger();
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        parallelism, parallelism, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        });
+    // 空闲时回收全部线程，未使用异步 API 的 DBTemplate 不占用线程
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -3,6 +3,7 @@ package work.myfavs.framework.orm.util.lang;
 import work.myfavs.framework.orm.util.exception.DBException;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Twitter的Snowflake 算法<br>
@@ -22,6 +23,9 @@ import java.io.Serializable;
  * <p>
  * 并且可以通过生成的id反推出生成时间,datacenterId和workerId
  * <p>
+ * 时间戳与序号打包保存在同一个 {@link AtomicLong} 中，通过 CAS 推进，生成过程无锁；
+ * 批量生成时可通过 {@link #reserve(int)} 一次占用同一毫秒内连续的多个序号。
+ * <p>
  * 参考：<a href="http://www.cnblogs.com/relucent/p/4955340.html">...</a><br>
  * 关于长度是18还是19的问题见：<a href="https://blog.csdn.net/unifirst/article/details/80408050">...</a>
  *
@@ -59,6 +63,10 @@ public class Snowflake implements Serializable {
   private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATA_CENTER_ID_BITS;
   // 序列掩码，用于限定序列最大值不能超过4095
   private static final long SEQUENCE_MASK        = ~(-1L << SEQUENCE_BITS);// 4095
+  /**
+   * 单次可占用的最大序号数量，即每毫秒可生成的ID数量
+   */
+  public static final  int  MAX_RESERVE_SIZE     = (int) SEQUENCE_MASK + 1;
 
   /**
    * 初始化时间点
@@ -73,10 +81,10 @@ public class Snowflake implements Serializable {
 
 
   /**
-   * 自增序号，当高频模式下时，同一毫秒内生成N个ID，则这个序号在同一毫秒下，自增以避免ID重复。
+   * 最后一次生成ID的状态：高位为时间戳，低 12 位为该毫秒内已使用的最后一个序号。
+   * 当高频模式下时，同一毫秒内生成N个ID，则这个序号在同一毫秒下，自增以避免ID重复。
    */
-  private long sequence      = 0L;
-  private long lastTimestamp = -1L;
+  private final AtomicLong state = new AtomicLong(-1L);
 
   /**
    * 构造
@@ -133,30 +141,84 @@ public class Snowflake implements Serializable {
    *
    * @return ID
    */
-  public synchronized long nextId() {
-    long timestamp = genTime();
-    if (timestamp < this.lastTimestamp) {
-      if (this.lastTimestamp - timestamp < timeOffset) {
-        // 容忍指定的回拨，避免NTP校时造成的异常
-        timestamp = lastTimestamp;
-      } else {
-        // 如果服务器时间有问题(时钟后退) 报错。
-        throw new IllegalStateException(String.format("Clock moved backwards. Refusing to generate id for %d ms", lastTimestamp - timestamp));
+  public long nextId() {
+    return reserve(1);
+  }
+
+  /**
+   * 批量生成ID
+   *
+   * @param n 生成数量
+   * @return ID 数组，按生成顺序递增
+   */
+  public long[] nextIds(int n) {
+    if (n < 0) throw new DBException("生成ID的数量不能小于 0. ");
+
+    final long[] ids   = new long[n];
+    int          index = 0;
+    while (index < n) {
+      final int  size    = Math.min(n - index, MAX_RESERVE_SIZE);
+      final long firstId = reserve(size);
+      for (int i = 0; i < size; i++) {
+        ids[index++] = firstId + i;
       }
     }
+    return ids;
+  }
+
+  /**
+   * 占用同一毫秒内连续的 n 个序号，返回第一个ID，占用的ID为 [firstId, firstId + n)
+   *
+   * @param n 占用数量，范围为 1 ~ {@link #MAX_RESERVE_SIZE}
+   * @return 第一个ID
+   */
+  public long reserve(int n) {
+    if (n < 1 || n > MAX_RESERVE_SIZE)
+      throw new DBException("占用序号的数量必须在 %d 和 %d 的范围内. ", 1, MAX_RESERVE_SIZE);
+
+    while (true) {
+      final long current       = state.get();
+      final long lastTimestamp = current < 0 ? -1L : current >>> SEQUENCE_BITS;
+      final long lastSequence  = current & SEQUENCE_MASK;
 
-    if (timestamp == this.lastTimestamp) {
-      final long sequence = (this.sequence + 1) & SEQUENCE_MASK;
-      if (sequence == 0) {
-        timestamp = tilNextMillis(lastTimestamp);
+      long timestamp = genTime();
+      if (timestamp < lastTimestamp) {
+        if (lastTimestamp - timestamp < timeOffset) {
+          // 容忍指定的回拨，避免NTP校时造成的异常
+          timestamp = lastTimestamp;
+        } else {
+          // 如果服务器时间有问题(时钟后退) 报错。
+          throw new IllegalStateException(String.format("Clock moved backwards. Refusing to generate id for %d ms", lastTimestamp - timestamp));
+        }
       }
-      this.sequence = sequence;
-    } else {
-      sequence = 0L;
-    }
 
-    lastTimestamp = timestamp;
+      final long firstSequence;
+      if (timestamp == lastTimestamp) {
+        firstSequence = lastSequence + 1;
+        if (firstSequence + n - 1 > SEQUENCE_MASK) {
+          // 当前毫秒内剩余序号不足，等待下一毫秒后重试
+          tilNextMillis(lastTimestamp);
+          continue;
+        }
+      } else {
+        firstSequence = 0L;
+      }
 
+      final long next = (timestamp << SEQUENCE_BITS) | (firstSequence + n - 1);
+      if (state.compareAndSet(current, next)) {
+        return toId(timestamp, firstSequence);
+      }
+    }
+  }
+
+  /**
+   * 根据时间戳及序号组装ID
+   *
+   * @param timestamp 时间戳
+   * @param sequence  序号
+   * @return ID
+   */
+  private long toId(long timestamp, long sequence) {
     return ((timestamp - twepoch) << TIMESTAMP_LEFT_SHIFT)
         | (dataCenterId << DATA_CENTER_ID_SHIFT)
         | (workerId << WORKER_ID_SHIFT)
@@ -182,15 +244,16 @@ public class Snowflake implements Serializable {
    */
   private long tilNextMillis(long lastTimestamp) {
     long timestamp = genTime();
-    // 循环直到操作系统时间戳变化
-    while (timestamp == lastTimestamp) {
+    // 循环直到操作系统时间戳超过上次记录的时间（容忍范围内的回拨同样等待追上）
+    while (timestamp <= lastTimestamp) {
+      if (lastTimestamp - timestamp >= timeOffset) {
+        // 如果发现新的时间戳比上次记录的时间戳数值小，说明操作系统时间发生了倒退，报错
+        throw new IllegalStateException(
+            String.format("Clock moved backwards. Refusing to generate id for %d ms", lastTimestamp - timestamp));
+      }
+      Thread.onSpinWait();
       timestamp = genTime();
     }
-    if (timestamp < lastTimestamp) {
-      // 如果发现新的时间戳比上次记录的时间戳数值小，说明操作系统时间发生了倒退，报错
-      throw new IllegalStateException(
-          String.format("Clock moved backwards. Refusing to generate id for %d ms", lastTimestamp - timestamp));
-    }
     return timestamp;
   }
 
@@ -0,0 +1,93 @@
+package work.myfavs.framework.orm.util.lang;
+
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间排序的 UUID (RFC 9562 Version 7) 生成器<br>
+ * 随机 UUID 会导致聚集索引频繁分页，按时间递增的主键可使新记录始终追加到索引末尾。
+ *
+ * <p>
+ * UUID v7 的结构如下(每部分用-分开):<br>
+ *
+ * <pre>
+ * 毫秒时间戳（48bit）- 版本号（4bit）- 递增计数（12bit）- 变体（2bit）- 随机数（62bit）
+ * </pre>
+ * <p>
+ * 同一毫秒内通过 12 位计数保证单调递增，计数溢出时借用下一毫秒；时钟回拨时沿用上次的时间戳，
+ * 因此同一实例生成的 UUID 严格递增。随机数来源为 {@link ThreadLocalRandom}，不会因熵池阻塞。
+ * <p>
+ * 字节顺序与字符串（小写十六进制）顺序一致，以 BINARY(16) 或 CHAR(36) 存储均可保持时间顺序。
+ */
+public class UUIDv7 implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final long COUNTER_BITS = 12L;
+  private static final long COUNTER_MASK = ~(-1L << COUNTER_BITS);// 4095
+  /**
+   * 新的毫秒开始时，计数的随机初始值上限，保留一半的空间用于递增
+   */
+  private static final int  COUNTER_SEED = 1 << (COUNTER_BITS - 1);
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000000000000000L;
+  private static final long RAND_B  = 0x3FFFFFFFFFFFFFFFL;
+
+  /**
+   * 最后一次生成 UUID 的状态：高位为时间戳，低 12 位为计数
+   */
+  private final AtomicLong state = new AtomicLong(-1L);
+
+  /**
+   * 下一个 UUID
+   *
+   * @return UUID
+   */
+  public UUID next() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    long next;
+    while (true) {
+      final long current       = state.get();
+      final long lastTimestamp = current < 0 ? -1L : current >>> COUNTER_BITS;
+      final long timestamp     = System.currentTimeMillis();
+
+      if (timestamp > lastTimestamp) {
+        next = (timestamp << COUNTER_BITS) | random.nextInt(COUNTER_SEED);
+      } else if ((current & COUNTER_MASK) < COUNTER_MASK) {
+        // 同一毫秒或时钟回拨，沿用上次时间戳并递增计数
+        next = current + 1;
+      } else {
+        // 计数溢出，借用下一毫秒
+        next = ((lastTimestamp + 1) << COUNTER_BITS) | random.nextInt(COUNTER_SEED);
+      }
+
+      if (state.compareAndSet(current, next)) break;
+    }
+
+    final long msb = ((next >>> COUNTER_BITS) << 16) | VERSION | (next & COUNTER_MASK);
+    final long lsb = VARIANT | (random.nextLong() & RAND_B);
+    return new UUID(msb, lsb);
+  }
+
+  /**
+   * 下一个 UUID（字符串形式）
+   *
+   * @return UUID 字符串形式
+   */
+  public String nextStr() {
+    return next().toString();
+  }
+
+  /**
+   * 获取 UUID v7 的生成时间
+   *
+   * @param uuid UUID v7
+   * @return 生成的时间
+   */
+  public static long getGenerateDateTime(UUID uuid) {
+    return uuid.getMostSignificantBits() >>> 16;
+  }
+}
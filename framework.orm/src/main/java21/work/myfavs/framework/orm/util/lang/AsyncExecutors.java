@@ -0,0 +1,38 @@
+package work.myfavs.framework.orm.util.lang;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 异步 ORM 执行器工厂（JDK 21+）
+ * <p>
+ * 每个任务使用一个虚拟线程，并通过信号量把并发数限制为连接池大小，避免任务在连接池上排队超时。
+ * 等待信号量时虚拟线程让出载体线程。
+ */
+public final class AsyncExecutors {
+
+  private AsyncExecutors() {
+  }
+
+  /**
+   * 创建执行器
+   *
+   * @param name        线程名称前缀
+   * @param parallelism 最大并发数
+   * @return 执行器
+   */
+  public static Executor create(String name, int parallelism) {
+    final ThreadFactory factory = Thread.ofVirtual().name(name + "-", 0).factory();
+    final Semaphore     permits = new Semaphore(parallelism);
+
+    return task -> factory.newThread(() -> {
+      permits.acquireUninterruptibly();
+      try {
+        task.run();
+      } finally {
+        permits.release();
+      }
+    }).start();
+  }
+}
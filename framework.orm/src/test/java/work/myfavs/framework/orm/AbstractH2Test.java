@@ -0,0 +1,112 @@
+package work.myfavs.framework.orm;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.AfterClass;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.orm.Orm;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * 基于 H2 内存库的测试基类
+ * <p>
+ * 统一创建连接池与 {@link DBTemplate}，在测试类结束时按创建的相反顺序关闭；
+ * 子类只需在 {@code @BeforeClass} 中声明自己的配置与建表语句
+ */
+public abstract class AbstractH2Test {
+
+  private static final int                  DEFAULT_POOL_SIZE = 10;
+  private static final Deque<AutoCloseable> RESOURCES         = new ArrayDeque<>();
+
+  /**
+   * 创建 H2 内存库连接池，关闭自动提交
+   *
+   * @param name 内存库名称
+   * @return 连接池
+   */
+  protected static HikariDataSource createDataSource(String name) {
+    return createDataSource(name, DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * 创建 H2 内存库连接池，关闭自动提交
+   *
+   * @param name            内存库名称
+   * @param maximumPoolSize 最大连接数
+   * @return 连接池
+   */
+  protected static HikariDataSource createDataSource(String name, int maximumPoolSize) {
+    HikariConfig configuration = new HikariConfig();
+    configuration.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    configuration.setAutoCommit(false);
+    configuration.setMaximumPoolSize(maximumPoolSize);
+    return register(new HikariDataSource(configuration));
+  }
+
+  /**
+   * 创建 H2 方言的 {@link DBTemplate}
+   *
+   * @param dsName     数据源名称
+   * @param dataSource 数据源
+   * @return {@link DBTemplate}
+   */
+  protected static DBTemplate createDBTemplate(String dsName, DataSource dataSource) {
+    return createDBTemplate(dsName, dataSource, config -> { });
+  }
+
+  /**
+   * 创建 H2 方言的 {@link DBTemplate}
+   *
+   * @param dsName     数据源名称
+   * @param dataSource 数据源
+   * @param consumer   在 H2 方言之上追加的配置
+   * @return {@link DBTemplate}
+   */
+  protected static DBTemplate createDBTemplate(String dsName, DataSource dataSource, Consumer<DBConfig> consumer) {
+    return createDBTemplate(new DBTemplate.Builder(dsName).dataSource(dataSource), consumer);
+  }
+
+  /**
+   * 使用已设置监听器、路由等选项的 {@link DBTemplate.Builder} 创建 H2 方言的 {@link DBTemplate}
+   *
+   * @param builder  {@link DBTemplate.Builder}
+   * @param consumer 在 H2 方言之上追加的配置
+   * @return {@link DBTemplate}
+   */
+  protected static DBTemplate createDBTemplate(DBTemplate.Builder builder, Consumer<DBConfig> consumer) {
+    return register(builder.config(config -> consumer.accept(config.setDbType(DbType.H2))).build());
+  }
+
+  /**
+   * 在同一连接中依次执行 SQL 语句并提交，用于建表、造数与清理
+   *
+   * @param dbTemplate {@link DBTemplate}
+   * @param sqls       SQL 语句
+   */
+  protected static void execute(DBTemplate dbTemplate, String... sqls) {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      for (String sql : sqls) {
+        orm.execute(new Sql(sql));
+      }
+      database.commit();
+    }
+  }
+
+  private static <T extends AutoCloseable> T register(T resource) {
+    RESOURCES.push(resource);
+    return resource;
+  }
+
+  @AfterClass
+  public static void closeResources() throws Exception {
+    while (!RESOURCES.isEmpty()) {
+      RESOURCES.pop().close();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package work.myfavs.framework.orm;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 测试用数据源代理，统计或记录执行的查询语句
+ */
+public final class CountingDataSource {
+
+  private CountingDataSource() {}
+
+  /**
+   * 包装数据源，每次以 SELECT 开头的 prepareStatement 计数一次
+   *
+   * @param target  数据源
+   * @param selects 计数器
+   * @return 代理数据源
+   */
+  public static DataSource wrap(DataSource target, AtomicInteger selects) {
+    return wrap(target, sql -> selects.incrementAndGet());
+  }
+
+  /**
+   * 包装数据源，每次以 SELECT 开头的 prepareStatement 通知一次查询语句
+   *
+   * @param target   数据源
+   * @param listener 接收查询语句
+   * @return 代理数据源
+   */
+  public static DataSource wrap(DataSource target, Consumer<String> listener) {
+    return (DataSource) Proxy.newProxyInstance(
+        DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+          final Object result = invoke(target, method, args);
+          if (!"getConnection".equals(method.getName())) return result;
+          final Connection connection = (Connection) result;
+          return Proxy.newProxyInstance(
+              Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (p, m, a) -> {
+                if ("prepareStatement".equals(m.getName()) && a[0].toString().trim().toUpperCase().startsWith("SELECT")) {
+                  listener.accept(a[0].toString());
+                }
+                return invoke(connection, m, a);
+              });
+        });
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException ex) {
+      throw ex.getCause();
+    }
+  }
+}
@@ -0,0 +1,627 @@
+package work.myfavs.framework.orm;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * 测试用的零延迟内存数据源，用于排除数据库及网络的耗时，单独测量框架本身的开销
+ * <p>
+ * 连接、{@link PreparedStatement}、{@link ResultSet} 均为内存中的动态代理：查询按 SQL 语句返回 {@link #result(Predicate, String[], Object[][])}
+ * 预设的结果（没有匹配时返回 {@link #result(String[], Object[][])} 设置的默认结果），更新返回 {@link #updateCount(int)} 设置的影响行数，
+ * 批量执行每个批次返回相同的影响行数，设置参数、提交、回滚等操作直接返回。
+ * <p>
+ * 数据源统计获取的连接、预编译的语句、与数据库的往返次数（执行语句）、读取的行数、提交及回滚次数，
+ * 开启 {@link #recordCalls(boolean)} 时按顺序记录对连接、语句、结果集的每次方法调用。
+ */
+public final class InMemoryDataSource implements DataSource {
+
+  private final    List<Script> scripts       = new CopyOnWriteArrayList<>();
+  private volatile Script       defaultScript = new Script(sql -> true, new String[0], new Object[0][]);
+  private volatile int          updateCount   = 1;
+  private volatile boolean      autoCommit    = true;
+  private volatile boolean      recordCalls   = true;
+
+  private final Queue<Call>   calls       = new ConcurrentLinkedQueue<>();
+  private final Queue<String> preparedSql = new ConcurrentLinkedQueue<>();
+  private final LongAdder     connections = new LongAdder();
+  private final LongAdder     closed      = new LongAdder();
+  private final LongAdder     statements  = new LongAdder();
+  private final LongAdder     roundTrips  = new LongAdder();
+  private final LongAdder     batches     = new LongAdder();
+  private final LongAdder     rows        = new LongAdder();
+  private final LongAdder     commits     = new LongAdder();
+  private final LongAdder     rollbacks   = new LongAdder();
+
+  /**
+   * 设置查询默认返回的结果
+   *
+   * @param columns 字段名称
+   * @param rows    查询结果，每行的值与字段名称一一对应
+   * @return 当前数据源
+   */
+  public InMemoryDataSource result(String[] columns, Object[][] rows) {
+    this.defaultScript = new Script(sql -> true, columns, rows);
+    return this;
+  }
+
+  /**
+   * 设置 SQL 语句满足条件时查询返回的结果，按设置的顺序匹配
+   *
+   * @param sql     SQL 语句的匹配条件
+   * @param columns 字段名称
+   * @param rows    查询结果，每行的值与字段名称一一对应
+   * @return 当前数据源
+   */
+  public InMemoryDataSource result(Predicate<String> sql, String[] columns, Object[][] rows) {
+    this.scripts.add(new Script(sql, columns, rows));
+    return this;
+  }
+
+  /**
+   * 设置更新语句（及批量执行的每个批次）返回的影响行数，默认为 1
+   *
+   * @param updateCount 影响行数
+   * @return 当前数据源
+   */
+  public InMemoryDataSource updateCount(int updateCount) {
+    this.updateCount = updateCount;
+    return this;
+  }
+
+  /**
+   * 设置新连接是否自动提交，默认为 {@code true}
+   *
+   * @param autoCommit 是否自动提交
+   * @return 当前数据源
+   */
+  public InMemoryDataSource autoCommit(boolean autoCommit) {
+    this.autoCommit = autoCommit;
+    return this;
+  }
+
+  /**
+   * 设置是否记录每次方法调用，默认记录；测量开销时关闭，避免记录本身的开销
+   *
+   * @param recordCalls 是否记录
+   * @return 当前数据源
+   */
+  public InMemoryDataSource recordCalls(boolean recordCalls) {
+    this.recordCalls = recordCalls;
+    return this;
+  }
+
+  /**
+   * 创建默认结果的 {@link ResultSet}，可直接用于测试结果转换
+   *
+   * @return {@link ResultSet}
+   */
+  public ResultSet createResultSet() {
+    return proxy(ResultSet.class, new ResultSetHandler(defaultScript));
+  }
+
+  /**
+   * 获取按顺序记录的方法调用
+   *
+   * @return 方法调用集合
+   */
+  public List<Call> getCalls() {
+    return Collections.unmodifiableList(new ArrayList<>(calls));
+  }
+
+  /**
+   * 获取按顺序记录的方法调用中指定名称的调用
+   *
+   * @param method 方法名称
+   * @return 方法调用集合
+   */
+  public List<Call> getCalls(String method) {
+    final List<Call> result = new ArrayList<>();
+    for (Call call : calls) {
+      if (call.getMethod().equals(method)) result.add(call);
+    }
+    return result;
+  }
+
+  /**
+   * 获取按顺序预编译的 SQL 语句
+   *
+   * @return SQL 语句集合
+   */
+  public List<String> getPreparedSql() {
+    return Collections.unmodifiableList(new ArrayList<>(preparedSql));
+  }
+
+  /**
+   * 获取连接次数
+   *
+   * @return 次数
+   */
+  public long getConnections() {
+    return connections.sum();
+  }
+
+  /**
+   * 获取未关闭的连接数量
+   *
+   * @return 数量
+   */
+  public long getOpenConnections() {
+    return connections.sum() - closed.sum();
+  }
+
+  /**
+   * 获取预编译（创建）的语句数量
+   *
+   * @return 数量
+   */
+  public long getStatements() {
+    return statements.sum();
+  }
+
+  /**
+   * 获取与数据库的往返次数，即执行语句的次数（批量执行按 1 次计算）
+   *
+   * @return 次数
+   */
+  public long getRoundTrips() {
+    return roundTrips.sum();
+  }
+
+  /**
+   * 获取批量执行中添加的批次数量
+   *
+   * @return 数量
+   */
+  public long getBatches() {
+    return batches.sum();
+  }
+
+  /**
+   * 获取从结果集中读取的行数
+   *
+   * @return 行数
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  /**
+   * 获取提交次数
+   *
+   * @return 次数
+   */
+  public long getCommits() {
+    return commits.sum();
+  }
+
+  /**
+   * 获取回滚次数
+   *
+   * @return 次数
+   */
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  /**
+   * 清空记录的方法调用及统计，不影响预设的结果
+   */
+  public void reset() {
+    calls.clear();
+    preparedSql.clear();
+    connections.reset();
+    closed.reset();
+    statements.reset();
+    roundTrips.reset();
+    batches.reset();
+    rows.reset();
+    commits.reset();
+    rollbacks.reset();
+  }
+
+  @Override
+  public Connection getConnection() {
+    connections.increment();
+    return proxy(Connection.class, new ConnectionHandler());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) {
+    return getConnection();
+  }
+
+  @Override
+  public PrintWriter getLogWriter() {
+    return null;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) {}
+
+  @Override
+  public void setLoginTimeout(int seconds) {}
+
+  @Override
+  public int getLoginTimeout() {
+    return 0;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) return iface.cast(this);
+    throw new SQLException("Not a wrapper for " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return iface.isInstance(this);
+  }
+
+  private Script script(String sql) {
+    for (Script script : scripts) {
+      if (script.sql.test(sql)) return script;
+    }
+    return defaultScript;
+  }
+
+  private void record(Class<?> type, Method method, Object[] args, String sql) {
+    if (recordCalls) calls.add(new Call(type, method.getName(), args, sql));
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(InMemoryDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+  }
+
+  /**
+   * 处理 {@link Object} 的方法，不是 {@link Object} 的方法时返回 {@code null}
+   */
+  private static Object objectMethod(Object proxy, Method method, Object[] args, String name) {
+    switch (method.getName()) {
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "equals":
+        return proxy == args[0];
+      case "toString":
+        return name + "@" + Integer.toHexString(System.identityHashCode(proxy));
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * 返回方法返回类型的默认值
+   */
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class) return null;
+    if (type == boolean.class) return false;
+    if (type == long.class) return 0L;
+    if (type == double.class) return 0D;
+    if (type == float.class) return 0F;
+    if (type == short.class) return (short) 0;
+    if (type == byte.class) return (byte) 0;
+    if (type == char.class) return (char) 0;
+    return 0;
+  }
+
+  /**
+   * 预设的查询结果
+   */
+  private static final class Script {
+
+    private final Predicate<String> sql;
+    private final String[]          columns;
+    private final Object[][]        rows;
+
+    private Script(Predicate<String> sql, String[] columns, Object[][] rows) {
+      this.sql = sql;
+      this.columns = columns;
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * 对连接、语句、结果集的一次方法调用
+   */
+  public static final class Call {
+
+    private final Class<?> type;
+    private final String   method;
+    private final Object[] args;
+    private final String   sql;
+
+    private Call(Class<?> type, String method, Object[] args, String sql) {
+      this.type = type;
+      this.method = method;
+      this.args = null == args ? new Object[0] : args.clone();
+      this.sql = sql;
+    }
+
+    /**
+     * 获取调用的接口
+     *
+     * @return {@link Connection}、{@link PreparedStatement}、{@link ResultSet} 等
+     */
+    public Class<?> getType() {
+      return type;
+    }
+
+    /**
+     * 获取方法名称
+     *
+     * @return 方法名称
+     */
+    public String getMethod() {
+      return method;
+    }
+
+    /**
+     * 获取调用参数
+     *
+     * @return 参数
+     */
+    public Object[] getArgs() {
+      return args.clone();
+    }
+
+    /**
+     * 获取语句或结果集对应的 SQL 语句
+     *
+     * @return SQL 语句，连接上的调用为 {@code null}
+     */
+    public String getSql() {
+      return sql;
+    }
+
+    @Override
+    public String toString() {
+      return type.getSimpleName() + "." + method + Arrays.toString(args);
+    }
+  }
+
+  private final class ConnectionHandler implements InvocationHandler {
+
+    private boolean autoCommit = InMemoryDataSource.this.autoCommit;
+    private boolean closed;
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      final Object result = objectMethod(proxy, method, args, "InMemoryConnection");
+      if (null != result) return result;
+
+      record(Connection.class, method, args, null);
+      switch (method.getName()) {
+        case "prepareStatement":
+        case "prepareCall":
+          statements.increment();
+          preparedSql.add((String) args[0]);
+          return proxy(PreparedStatement.class, new StatementHandler(proxy, (String) args[0]));
+        case "createStatement":
+          statements.increment();
+          return proxy(PreparedStatement.class, new StatementHandler(proxy, null));
+        case "getAutoCommit":
+          return autoCommit;
+        case "setAutoCommit":
+          autoCommit = (Boolean) args[0];
+          return null;
+        case "commit":
+          commits.increment();
+          return null;
+        case "rollback":
+          rollbacks.increment();
+          return null;
+        case "setSavepoint":
+          return proxy(Savepoint.class, (p, m, a) -> defaultValue(m.getReturnType()));
+        case "close":
+          if (!closed) InMemoryDataSource.this.closed.increment();
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "isValid":
+          return !closed;
+        case "getTransactionIsolation":
+          return Connection.TRANSACTION_READ_COMMITTED;
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    }
+  }
+
+  private final class StatementHandler implements InvocationHandler {
+
+    private final Object connection;
+    private final String sql;
+    private       int    batchSize;
+
+    private StatementHandler(Object connection, String sql) {
+      this.connection = connection;
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      final Object result = objectMethod(proxy, method, args, "InMemoryStatement");
+      if (null != result) return result;
+
+      // Statement 的 execute 系列方法由参数指定 SQL 语句
+      final String current = null != args && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+      record(null == sql ? Statement.class : PreparedStatement.class, method, args, current);
+      switch (method.getName()) {
+        case "executeQuery":
+          roundTrips.increment();
+          return proxy(ResultSet.class, new ResultSetHandler(script(current)));
+        case "executeUpdate":
+          roundTrips.increment();
+          return updateCount;
+        case "executeLargeUpdate":
+          roundTrips.increment();
+          return (long) updateCount;
+        case "execute":
+          roundTrips.increment();
+          return false;
+        case "addBatch":
+          batches.increment();
+          batchSize++;
+          return null;
+        case "clearBatch":
+          batchSize = 0;
+          return null;
+        case "executeBatch":
+          roundTrips.increment();
+          final int[] counts = new int[batchSize];
+          Arrays.fill(counts, updateCount);
+          batchSize = 0;
+          return counts;
+        case "getUpdateCount":
+          return updateCount;
+        case "getGeneratedKeys":
+        case "getResultSet":
+          return proxy(ResultSet.class, new ResultSetHandler(new Script(s -> true, new String[0], new Object[0][])));
+        case "getConnection":
+          return connection;
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    }
+  }
+
+  private final class ResultSetHandler implements InvocationHandler {
+
+    private final Script  script;
+    private       int     cursor = -1;
+    private       boolean wasNull;
+
+    private ResultSetHandler(Script script) {
+      this.script = script;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+      final Object result = objectMethod(proxy, method, args, "InMemoryResultSet");
+      if (null != result) return result;
+
+      record(ResultSet.class, method, args, null);
+      switch (method.getName()) {
+        case "next":
+          if (++cursor >= script.rows.length) return false;
+          rows.increment();
+          return true;
+        case "getMetaData":
+          return proxy(ResultSetMetaData.class, new MetaDataHandler(script));
+        case "wasNull":
+          return wasNull;
+        case "findColumn":
+          return findColumn((String) args[0]);
+        default:
+          if (method.getName().startsWith("get") && null != args && args.length > 0) {
+            return get(method, args);
+          }
+          return defaultValue(method.getReturnType());
+      }
+    }
+
+    private Object get(Method method, Object[] args) throws SQLException {
+      final int    column = args[0] instanceof String ? findColumn((String) args[0]) : (Integer) args[0];
+      final Object value  = script.rows[cursor][column - 1];
+      wasNull = null == value;
+      if (null == value) return defaultValue(method.getReturnType());
+
+      final Class<?> type = method.getReturnType();
+      if (type == Object.class || type.isInstance(value)) return value;
+      if (value instanceof Number) {
+        final Number number = (Number) value;
+        if (type == long.class) return number.longValue();
+        if (type == int.class) return number.intValue();
+        if (type == double.class) return number.doubleValue();
+        if (type == float.class) return number.floatValue();
+        if (type == short.class) return number.shortValue();
+        if (type == byte.class) return number.byteValue();
+      }
+      if (type == String.class) return value.toString();
+      if (type == boolean.class && value instanceof Boolean) return value;
+      throw new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    private int findColumn(String label) throws SQLException {
+      for (int i = 0; i < script.columns.length; i++) {
+        if (script.columns[i].equalsIgnoreCase(label)) return i + 1;
+      }
+      throw new SQLException("Column not found: " + label);
+    }
+  }
+
+  private static final class MetaDataHandler implements InvocationHandler {
+
+    private final Script script;
+
+    private MetaDataHandler(Script script) {
+      this.script = script;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      final Object result = objectMethod(proxy, method, args, "InMemoryResultSetMetaData");
+      if (null != result) return result;
+
+      switch (method.getName()) {
+        case "getColumnCount":
+          return script.columns.length;
+        case "getColumnLabel":
+        case "getColumnName":
+          return script.columns[(Integer) args[0] - 1];
+        case "getColumnType":
+          return columnType(sample((Integer) args[0] - 1));
+        case "getColumnClassName":
+          final Object value = sample((Integer) args[0] - 1);
+          return null == value ? Object.class.getName() : value.getClass().getName();
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    }
+
+    /**
+     * 按第一行的值推断字段类型
+     */
+    private Object sample(int index) {
+      return script.rows.length == 0 ? null : script.rows[0][index];
+    }
+
+    private static int columnType(Object value) {
+      if (value instanceof Long) return Types.BIGINT;
+      if (value instanceof Integer) return Types.INTEGER;
+      if (value instanceof String) return Types.VARCHAR;
+      if (value instanceof BigDecimal) return Types.DECIMAL;
+      if (value instanceof java.util.Date) return Types.TIMESTAMP;
+      if (value instanceof Boolean) return Types.BOOLEAN;
+      return Types.OTHER;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package work.myfavs.framework.orm.batch;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.CountingDataSource;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchLoaderTest extends AbstractH2Test {
+
+  private static final AtomicInteger SELECTS = new AtomicInteger();
+
+  private static DBTemplate dbTemplate;
+  private static DBTemplate windowTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    DataSource dataSource = CountingDataSource.wrap(createDataSource("batch_loader"), SELECTS);
+    dbTemplate = createDBTemplate("batch-loader", dataSource, config -> config.setBatchLoaderMaxSize(5));
+    windowTemplate = createDBTemplate("batch-loader-window", dataSource, config -> config.setBatchLoaderWindow(20));
+    execute(dbTemplate,
+            "CREATE TABLE tb_author (id BIGINT PRIMARY KEY, name VARCHAR(32))",
+            "CREATE TABLE tb_book (id BIGINT PRIMARY KEY, title VARCHAR(32))",
+            "INSERT INTO tb_author (id, name) VALUES (1, 'a1'), (2, 'a2'), (3, 'a3'), (4, 'a4')",
+            "INSERT INTO tb_book (id, title) VALUES (1, 'b1'), (2, 'b2')");
+  }
+
+  @Before
+  public void setUp() {
+    SELECTS.set(0);
+  }
+
+  @Test
+  public void pointLookupsBatchedPerEntityType() {
+    try (Database database = dbTemplate.createDatabase(); BatchLoader loader = database.createBatchLoader()) {
+      CompletableFuture<Author> a1      = loader.getById(Author.class, 1L);
+      CompletableFuture<Author> a2      = loader.getById(Author.class, 2);
+      CompletableFuture<Author> a2Again = loader.getById(Author.class, 2L);
+      CompletableFuture<Book>   b1      = loader.getById(Book.class, 1L);
+      CompletableFuture<Author> missing = loader.getById(Author.class, 9L);
+      assertEquals(4, loader.getPendingCount());
+      assertEquals(0, SELECTS.get());
+
+      // 等待任一结果时执行整个批次
+      assertEquals("a1", a1.join().getName());
+      assertEquals(2, SELECTS.get());
+      assertTrue(b1.isDone());
+      assertSame(a2.join(), a2Again.join());
+      assertNull(missing.join());
+      assertEquals("b1", b1.join().getTitle());
+    }
+  }
+
+  @Test
+  public void derivedFuturesForceDispatchAndMaxSizeSplits() {
+    try (BatchLoader loader = dbTemplate.createBatchLoader()) {
+      assertSame(loader, BatchLoader.current(dbTemplate));
+
+      List<CompletableFuture<String>> names = new ArrayList<>();
+      for (long id = 1; id <= 6; id++) {
+        names.add(loader.getById(Author.class, id).thenApply(author -> null == author ? null : author.getName()));
+      }
+      // 达到 batchLoaderMaxSize 时立即执行
+      assertEquals(1, SELECTS.get());
+      assertEquals(1, loader.getPendingCount());
+      assertEquals("a4", names.get(3).getNow("pending"));
+
+      assertNull(names.get(5).join());
+      assertEquals(2, SELECTS.get());
+    }
+    assertNull(BatchLoader.current(dbTemplate));
+  }
+
+  @Test
+  public void closeAndWindowDispatch() throws Exception {
+    CompletableFuture<Book> book;
+    try (BatchLoader loader = dbTemplate.createBatchLoader()) {
+      book = loader.getById(Book.class, 2L);
+    }
+    assertTrue(book.isDone());
+    assertEquals("b2", book.get().getTitle());
+
+    try (Database database = windowTemplate.createDatabase(); BatchLoader loader = database.createBatchLoader()) {
+      database.createOrm().execute(new Sql("INSERT INTO tb_author (id, name) VALUES (5, 'uncommitted')"));
+      CompletableFuture<Author> author = loader.getById(Author.class, 5L);
+      TimeUnit.MILLISECONDS.sleep(40);
+      assertFalse(author.isDone());
+
+      // 窗口时间到达后，下一次请求在当前线程中执行批次，能读到当前事务未提交的写入
+      CompletableFuture<Author> next = loader.getById(Author.class, 3L);
+      assertTrue(author.isDone());
+      assertEquals("uncommitted", author.get().getName());
+      assertEquals("a3", next.get().getName());
+      database.rollback();
+    }
+  }
+
+  @Test
+  public void errorCompletesEveryPendingResult() {
+    try (BatchLoader loader = dbTemplate.createBatchLoader()) {
+      CompletableFuture<BrokenBook> broken = loader.getById(BrokenBook.class, 1L);
+      CompletableFuture<Author>     author = loader.getById(Author.class, 1L);
+      try {
+        loader.dispatch();
+        fail();
+      } catch (ExceptionInInitializerError ignored) {
+      }
+      assertTrue(broken.isCompletedExceptionally());
+      assertEquals("a1", author.join().getName());
+    }
+  }
+
+  @Test
+  public void foreignThreadCannotDispatch() throws Exception {
+    try (BatchLoader loader = dbTemplate.createBatchLoader()) {
+      CompletableFuture<Author> author = loader.getById(Author.class, 1L);
+
+      // 其他线程等待尚未完成的结果时立即失败，不在其他线程的连接上执行批次
+      CompletableFuture<Throwable> foreign = CompletableFuture.supplyAsync(() -> {
+        try {
+          author.join();
+          return null;
+        } catch (Throwable e) {
+          return e;
+        }
+      });
+      assertTrue(foreign.get(10, TimeUnit.SECONDS) instanceof DBException);
+
+      // 其他线程加入的请求达到 batchLoaderMaxSize 时也不执行，由创建批量加载器的线程执行
+      CompletableFuture.runAsync(() -> {
+        for (long id = 2; id <= 5; id++) {
+          loader.getById(Author.class, id);
+        }
+      }).get(10, TimeUnit.SECONDS);
+      assertEquals(5, loader.getPendingCount());
+      assertEquals(0, SELECTS.get());
+
+      assertEquals("a1", author.join().getName());
+      assertEquals(1, SELECTS.get());
+    }
+  }
+
+  @Table(value = "tb_author", strategy = GenerationType.ASSIGNED)
+  public static class Author {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  @Table(value = "tb_book", strategy = GenerationType.ASSIGNED)
+  public static class BrokenBook {
+
+    private static final long BROKEN = broken();
+
+    @Column
+    @PrimaryKey
+    private Long id;
+
+    private static long broken() {
+      throw new IllegalStateException("broken");
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+  }
+
+  @Table(value = "tb_book", strategy = GenerationType.ASSIGNED)
+  public static class Book {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String title;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getTitle() {
+      return title;
+    }
+
+    public void setTitle(String title) {
+      this.title = title;
+    }
+  }
+}
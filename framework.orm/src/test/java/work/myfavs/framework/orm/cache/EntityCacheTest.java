@@ -0,0 +1,203 @@
+package work.myfavs.framework.orm.cache;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EntityCacheTest extends AbstractH2Test {
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate("entity-cache", createDataSource("entity_cache"));
+    execute(dbTemplate, "CREATE TABLE tb_product (id BIGINT PRIMARY KEY, name VARCHAR(32))");
+  }
+
+  @Before
+  public void setUp() {
+    execute(dbTemplate, "DELETE FROM tb_product", "INSERT INTO tb_product (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+    dbTemplate.getEntityCache().clear();
+  }
+
+  private static <T> T read(java.util.function.Function<Orm, T> reader) {
+    try (Database database = dbTemplate.createDatabase()) {
+      return reader.apply(database.createOrm());
+    }
+  }
+
+  private static void write(java.util.function.Consumer<Orm> writer) {
+    try (Database database = dbTemplate.createDatabase()) {
+      writer.accept(database.createOrm());
+      database.commit();
+    }
+  }
+
+  private static long hits() {
+    return dbTemplate.getEntityCache().getStats().getHitCount();
+  }
+
+  @Test
+  public void getByIdServedFromCache() {
+    long before = hits();
+    Product first = read(orm -> orm.getById(Product.class, 1L));
+    first.setName("changed");
+
+    Product second = read(orm -> orm.getById(Product.class, 1));
+    assertEquals("a", second.getName());
+    assertEquals(before + 1, hits());
+  }
+
+  @Test
+  public void negativeLookupIsCached() {
+    assertNull(read(orm -> orm.getById(Product.class, 9L)));
+
+    // 绕过 ORM 写入，空值缓存仍然有效
+    write(orm -> orm.execute(new Sql("INSERT INTO tb_product (id, name) VALUES (9, 'raw')")));
+    long before = hits();
+    assertNull(read(orm -> orm.getById(Product.class, 9L)));
+    assertEquals(before + 1, hits());
+
+    // 通过 ORM 写入时删除缓存
+    write(orm -> orm.deleteById(Product.class, 9L));
+    write(orm -> orm.create(Product.class, new Product(9L, "orm")));
+    assertEquals("orm", read(orm -> orm.getById(Product.class, 9L)).getName());
+  }
+
+  @Test
+  public void writesInvalidate() {
+    read(orm -> orm.getById(Product.class, 1L));
+    write(orm -> orm.update(Product.class, new Product(1L, "updated")));
+    assertEquals("updated", read(orm -> orm.getById(Product.class, 1L)).getName());
+
+    write(orm -> orm.update(Product.class, Arrays.asList(new Product(1L, "batch")), new String[]{"name"}));
+    assertEquals("batch", read(orm -> orm.getById(Product.class, 1L)).getName());
+
+    read(orm -> orm.getById(Product.class, 2L));
+    write(orm -> orm.deleteByCond(Product.class, Cond.eq("name", "b")));
+    assertNull(read(orm -> orm.getById(Product.class, 2L)));
+  }
+
+  @Test
+  public void findByIdsFetchesOnlyMissing() {
+    read(orm -> orm.getById(Product.class, 1L));
+    read(orm -> orm.getById(Product.class, 8L));
+
+    CacheStats      before   = dbTemplate.getEntityCache().getStats();
+    List<Product> products = read(orm -> orm.findByIds(Product.class, Arrays.asList(1L, 2L, 3L, 8L)));
+    CacheStats      after    = dbTemplate.getEntityCache().getStats();
+
+    assertEquals(3, products.size());
+    assertEquals(2, after.getHitCount() - before.getHitCount());
+    assertEquals(2, after.getMissCount() - before.getMissCount());
+
+    read(orm -> orm.findByIds(Product.class, Arrays.asList(1L, 2L, 3L, 8L)));
+    assertEquals(4, dbTemplate.getEntityCache().getStats().getHitCount() - after.getHitCount());
+  }
+
+  @Test
+  public void uncommittedWritesBypassCache() {
+    read(orm -> orm.getById(Product.class, 3L));
+
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      orm.update(Product.class, new Product(3L, "pending"));
+      assertEquals("pending", orm.getById(Product.class, 3L).getName());
+      database.rollback();
+    }
+
+    assertEquals("c", read(orm -> orm.getById(Product.class, 3L)).getName());
+  }
+
+  @Test
+  public void writesThroughModelInvalidateViewsOfSameTable() {
+    assertEquals("a", read(orm -> orm.getById(ProductName.class, 1L)).getName());
+    assertEquals(2, read(orm -> orm.findByIds(ProductName.class, Arrays.asList(1L, 2L))).size());
+
+    write(orm -> orm.update(Product.class, new Product(1L, "updated")));
+    assertEquals("updated", read(orm -> orm.getById(ProductName.class, 1L)).getName());
+
+    write(orm -> orm.deleteByCond(Product.class, Cond.eq("id", 2L)));
+    assertNull(read(orm -> orm.getById(ProductName.class, 2L)));
+  }
+
+  @Table(value = "tb_product", strategy = GenerationType.ASSIGNED, cache = true)
+  public static class Product {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "name")
+    private String name;
+
+    public Product() {
+    }
+
+    public Product(Long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  /**
+   * 映射到同一数据表的另一个结果类型
+   */
+  @Table(value = "tb_product", strategy = GenerationType.ASSIGNED, cache = true)
+  public static class ProductName {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "name")
+    private String name;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package work.myfavs.framework.orm.cache;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class QueryCacheTest extends AbstractH2Test {
+
+  private static DataSource dataSource;
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dataSource = createDataSource("query_cache");
+    dbTemplate = createDBTemplate("query-cache", dataSource);
+    execute(dbTemplate,
+            "CREATE TABLE tb_item (id BIGINT PRIMARY KEY, name VARCHAR(32))",
+            "CREATE TABLE tb_other (id BIGINT PRIMARY KEY)");
+  }
+
+  @Before
+  public void setUp() {
+    execute(dbTemplate, "DELETE FROM tb_item", "INSERT INTO tb_item (id, name) VALUES (1, 'a'), (2, 'b')");
+    dbTemplate.getQueryCache().clear();
+  }
+
+  private static <T> T read(Function<Orm, T> reader) {
+    try (Database database = dbTemplate.createDatabase()) {
+      return reader.apply(database.createOrm());
+    }
+  }
+
+  private static void write(Consumer<Orm> writer) {
+    try (Database database = dbTemplate.createDatabase()) {
+      writer.accept(database.createOrm());
+      database.commit();
+    }
+  }
+
+  /**
+   * 绕过 ORM 直接修改数据，缓存不会失效
+   */
+  private static void rawUpdate(String sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+      connection.commit();
+    }
+  }
+
+  private static Sql itemsSql() {
+    return new Sql("SELECT id, name FROM tb_item WHERE id >= ?  ORDER BY id", 1L);
+  }
+
+  @Test
+  public void cachedSqlServedUntilTableWritten() throws SQLException {
+    assertEquals(2, read(orm -> orm.find(Item.class, itemsSql().cached())).size());
+    assertEquals(2L, (long) read(orm -> orm.count(new Sql("SELECT id FROM tb_item").cached())));
+
+    rawUpdate("INSERT INTO tb_item (id, name) VALUES (3, 'raw')");
+    assertEquals(2, read(orm -> orm.find(Item.class, itemsSql().cached())).size());
+    assertEquals(2L, (long) read(orm -> orm.count(new Sql("SELECT id FROM tb_item").cached())));
+    // 未开启缓存的查询不受影响
+    assertEquals(3, read(orm -> orm.find(Item.class, itemsSql())).size());
+
+    // 写入其他数据表不影响缓存
+    write(orm -> orm.execute(new Sql("INSERT INTO tb_other (id) VALUES (1)")));
+    assertEquals(2, read(orm -> orm.find(Item.class, itemsSql().cached())).size());
+    write(orm -> orm.execute(new Sql("DELETE FROM tb_other")));
+
+    write(orm -> orm.create(Item.class, new Item(4L, "orm")));
+    assertEquals(4, read(orm -> orm.find(Item.class, itemsSql().cached())).size());
+    assertEquals(4L, (long) read(orm -> orm.count(new Sql("SELECT id FROM tb_item").cached())));
+  }
+
+  @Test
+  public void sqlAndParamsFormKey() {
+    long misses = dbTemplate.getQueryCache().getStats().getMissCount();
+    read(orm -> orm.findRecords(new Sql("SELECT * FROM tb_item WHERE id = ?", 1L).cached()));
+    read(orm -> orm.findRecords(new Sql("SELECT * FROM tb_item WHERE id = ?", 1L).cached()));
+    assertEquals(misses + 1, dbTemplate.getQueryCache().getStats().getMissCount());
+
+    read(orm -> orm.findRecords(new Sql("SELECT * FROM tb_item WHERE id = ?", 2L).cached()));
+    assertEquals(misses + 2, dbTemplate.getQueryCache().getStats().getMissCount());
+  }
+
+  @Test
+  public void whitespaceInLiteralsDistinguishesKeys() {
+    write(orm -> orm.execute(new Sql("INSERT INTO tb_item (id, name) VALUES (3, 'a  b')")));
+
+    assertEquals(0, read(orm -> orm.findRecords(new Sql("SELECT * FROM tb_item WHERE name = 'a b'").cached())).size());
+    assertEquals(1, read(orm -> orm.findRecords(new Sql("SELECT * FROM tb_item WHERE name = 'a  b'").cached())).size());
+  }
+
+  @Test
+  public void resultsAreCopies() {
+    List<Item> first = read(orm -> orm.find(Item.class, itemsSql().cached()));
+    first.get(0).setName("changed");
+    first.clear();
+
+    List<Record> records  = read(orm -> orm.findRecords(new Sql("SELECT id, name FROM tb_item").cached()));
+    Record       original = new Record();
+    original.putAll(records.get(0));
+    records.get(0).replaceAll((column, value) -> "changed");
+
+    assertEquals("a", read(orm -> orm.find(Item.class, itemsSql().cached())).get(0).getName());
+    assertEquals(original, read(orm -> orm.findRecords(new Sql("SELECT id, name FROM tb_item").cached())).get(0));
+  }
+
+  @Test
+  public void cachedOrmAndEntityWrites() throws SQLException {
+    assertEquals("a", read(orm -> orm.cached().getById(Item.class, 1L)).getName());
+    rawUpdate("UPDATE tb_item SET name = 'raw' WHERE id = 1");
+    assertEquals("a", read(orm -> orm.cached(30).getById(Item.class, 1L)).getName());
+
+    write(orm -> orm.update(Item.class, new Item(1L, "updated")));
+    assertEquals("updated", read(orm -> orm.cached().getById(Item.class, 1L)).getName());
+  }
+
+  @Test
+  public void transactionBypassesCacheAfterWrite() {
+    read(orm -> orm.find(Item.class, itemsSql().cached()));
+
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      orm.create(Item.class, new Item(5L, "tx"));
+      assertEquals(3, orm.find(Item.class, itemsSql().cached()).size());
+      database.rollback();
+    }
+    assertEquals(2, read(orm -> orm.find(Item.class, itemsSql().cached())).size());
+  }
+
+  @Test
+  public void writesIgnoredUntilCacheUsed() {
+    DBTemplate  fresh  = createDBTemplate("query-cache-fresh", dataSource);
+    QueryCache  cache  = fresh.getQueryCache();
+    Set<String> tables = cache.tableNames(itemsSql().getSql().toString());
+
+    try (Database database = fresh.createDatabase()) {
+      database.createOrm().execute(new Sql("UPDATE tb_item SET name = name WHERE id = 1"));
+      assertFalse(cache.isDirty(tables));
+      database.commit();
+    }
+    assertEquals(0L, cache.version(tables));
+
+    try (Database database = fresh.createDatabase()) {
+      assertEquals(2, database.createOrm().find(Item.class, itemsSql().cached()).size());
+      database.createOrm().execute(new Sql("UPDATE tb_item SET name = name WHERE id = 1"));
+      assertTrue(cache.isDirty(tables));
+      database.commit();
+    }
+    assertEquals(2L, cache.version(tables));
+  }
+
+  @Test
+  public void writeInvalidatesOnlyWrittenTables() {
+    QueryCache  cache  = dbTemplate.getQueryCache();
+    Set<String> tables = cache.tableNames(itemsSql().getSql().toString());
+    read(orm -> orm.find(Item.class, itemsSql().cached()));
+
+    long version = cache.version(tables);
+    write(orm -> orm.execute(new Sql("INSERT INTO tb_other (id) VALUES (2)")));
+    write(orm -> orm.execute(new Sql("DELETE FROM tb_other")));
+    assertEquals(version, cache.version(tables));
+
+    // 未引用数据表或无法解析的写操作按全部数据表失效
+    write(orm -> orm.execute(new Sql("SET @flag = 1")));
+    assertTrue(cache.version(tables) > version);
+  }
+
+  @Table(value = "tb_item", strategy = GenerationType.ASSIGNED)
+  public static class Item {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Item() {}
+
+    public Item(Long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+}
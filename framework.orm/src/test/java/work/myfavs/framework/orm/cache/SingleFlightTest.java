@@ -0,0 +1,168 @@
+package work.myfavs.framework.orm.cache;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest extends AbstractH2Test {
+
+  private static final AtomicInteger EXECUTIONS = new AtomicInteger();
+
+  private static DBTemplate dbTemplate;
+  private static DBTemplate shortWaitTemplate;
+
+  /**
+   * H2 自定义函数，记录执行次数并模拟慢查询
+   */
+  public static int slow(int millis) throws InterruptedException {
+    EXECUTIONS.incrementAndGet();
+    Thread.sleep(millis);
+    return 1;
+  }
+
+  @BeforeClass
+  public static void beforeClass() {
+    DataSource dataSource = createDataSource("single_flight", 20);
+    dbTemplate = createDBTemplate("single-flight", dataSource, config -> config.setSingleFlight(true));
+    shortWaitTemplate = createDBTemplate("single-flight-short-wait", dataSource,
+                                         config -> config.setSingleFlight(true).setSingleFlightMaxWait(20));
+    execute(dbTemplate,
+            "CREATE ALIAS SLOW FOR \"" + SingleFlightTest.class.getName() + ".slow\"",
+            "CREATE TABLE tb_flight (id BIGINT PRIMARY KEY, name VARCHAR(32))");
+  }
+
+  @Before
+  public void setUp() {
+    execute(dbTemplate, "DELETE FROM tb_flight", "INSERT INTO tb_flight (id, name) VALUES (1, 'a')");
+    EXECUTIONS.set(0);
+  }
+
+  private static Sql slowSql(int millis) {
+    return new Sql("SELECT id, name FROM tb_flight WHERE SLOW(?) = 1", millis);
+  }
+
+  private static List<List<Flight>> concurrently(DBTemplate template, int threads, Sql sql) throws Exception {
+    final ExecutorService            executor = Executors.newFixedThreadPool(threads);
+    final CountDownLatch             start    = new CountDownLatch(1);
+    final List<Future<List<Flight>>> futures  = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try (Database database = template.createDatabase()) {
+            return database.createOrm().find(Flight.class, sql);
+          }
+        }));
+      }
+      start.countDown();
+      final List<List<Flight>> results = new ArrayList<>();
+      for (Future<List<Flight>> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void concurrentIdenticalQueriesExecuteOnce() throws Exception {
+    final List<List<Flight>> results = concurrently(dbTemplate, 8, slowSql(300));
+
+    assertEquals(1, EXECUTIONS.get());
+    final Map<Flight, Boolean> distinct = new IdentityHashMap<>();
+    for (List<Flight> result : results) {
+      assertEquals(1, result.size());
+      assertEquals("a", result.get(0).getName());
+      distinct.put(result.get(0), true);
+    }
+    // 每个线程拿到的都是副本
+    assertEquals(8, distinct.size());
+    assertEquals(0, dbTemplate.getSingleFlight().getInFlightCount());
+  }
+
+  @Test
+  public void followersQueryThemselvesAfterMaxWait() throws Exception {
+    concurrently(shortWaitTemplate, 4, slowSql(200));
+    assertTrue(EXECUTIONS.get() > 1);
+  }
+
+  @Test
+  public void writeStartsNewFlight() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<List<Flight>> leader = executor.submit(() -> {
+        try (Database database = dbTemplate.createDatabase()) {
+          return database.createOrm().find(Flight.class, slowSql(300));
+        }
+      });
+      Thread.sleep(100);
+
+      try (Database database = dbTemplate.createDatabase()) {
+        database.createOrm().update(Flight.class, new Flight(1L, "updated"));
+        database.commit();
+      }
+      try (Database database = dbTemplate.createDatabase()) {
+        assertEquals("updated", database.createOrm().find(Flight.class, slowSql(300)).get(0).getName());
+      }
+      assertEquals("a", leader.get().get(0).getName());
+      assertEquals(2, EXECUTIONS.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Table(value = "tb_flight", strategy = GenerationType.ASSIGNED)
+  public static class Flight {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Flight() {}
+
+    public Flight(Long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+}
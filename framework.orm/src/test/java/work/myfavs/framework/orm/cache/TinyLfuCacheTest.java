@@ -0,0 +1,132 @@
+package work.myfavs.framework.orm.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TinyLfuCacheTest {
+
+  @Test
+  public void boundedSize() {
+    TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, "v" + i, 0);
+    }
+    assertTrue(cache.size() <= 100);
+    assertTrue(cache.stats().getEvictionCount() > 0);
+  }
+
+  @Test
+  public void frequentKeysSurviveScan() {
+    TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+    for (int hot = 0; hot < 50; hot++) {
+      cache.put(hot, "hot", 0);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int hot = 0; hot < 50; hot++) {
+        assertNotNull(cache.get(hot));
+      }
+    }
+
+    // 扫描大量只访问一次的键，期间热点键仍持续被访问
+    for (int cold = 1000; cold < 5000; cold++) {
+      cache.put(cold, "cold", 0);
+      if (cold % 100 == 0) {
+        for (int hot = 0; hot < 50; hot++) {
+          cache.get(hot);
+        }
+      }
+    }
+
+    int survived = 0;
+    for (int hot = 0; hot < 50; hot++) {
+      if (null != cache.get(hot)) survived++;
+    }
+    assertEquals(50, survived);
+  }
+
+  @Test
+  public void expireAndInvalidate() throws InterruptedException {
+    TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+    cache.put("a", "1", 20);
+    cache.put("b", "2", 0);
+    cache.put("c", "3", 0);
+    assertEquals("1", cache.get("a"));
+
+    Thread.sleep(40);
+    assertNull(cache.get("a"));
+
+    cache.invalidate("b");
+    assertNull(cache.get("b"));
+    cache.invalidateIf("c"::equals);
+    assertNull(cache.get("c"));
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+    assertEquals(0.25, stats.getHitRatio(), 0.0001);
+  }
+
+  @Test
+  public void weightedCapacity() {
+    TinyLfuCache<Integer, int[]> cache = new TinyLfuCache<>(100, value -> value.length);
+    cache.put(0, new int[200], 0);
+    assertNull(cache.get(0));
+
+    for (int i = 1; i <= 20; i++) {
+      cache.put(i, new int[30], 0);
+      assertTrue(cache.weightedSize() <= 100);
+    }
+    assertTrue(cache.size() <= 3);
+
+    cache.invalidateIf(key -> true);
+    assertEquals(0, cache.weightedSize());
+  }
+
+  @Test
+  public void invalidateByTag() {
+    TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, value -> 1,
+                                                             key -> Arrays.asList(key.split(":")[0], "all"));
+    cache.put("user:1", "a", 0);
+    cache.put("user:2", "b", 0);
+    cache.put("order:1", "c", 0);
+
+    cache.invalidateAll("user");
+    assertNull(cache.get("user:1"));
+    assertNull(cache.get("user:2"));
+    assertEquals("c", cache.get("order:1"));
+
+    cache.invalidateAll("all");
+    assertNull(cache.get("order:1"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void concurrentAccessStaysBounded() throws InterruptedException {
+    TinyLfuCache<Integer, Integer> cache   = new TinyLfuCache<>(200);
+    Thread[]                       threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int seed = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 20_000; i++) {
+          int key = (i * 31 + seed) % 1000;
+          if (null == cache.get(key)) cache.put(key, key, 0);
+          if (i % 97 == 0) cache.invalidate(key);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertTrue(cache.size() <= 200);
+    assertTrue(cache.weightedSize() <= 200);
+    for (int key = 0; key < 1000; key++) {
+      Integer value = cache.get(key);
+      assertTrue(null == value || value == key);
+    }
+  }
+}
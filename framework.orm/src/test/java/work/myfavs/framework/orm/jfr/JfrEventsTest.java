@@ -0,0 +1,207 @@
+package work.myfavs.framework.orm.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class JfrEventsTest {
+
+  private static final String   SQL     = "SELECT id, name FROM tb_jfr WHERE id > 10";
+  private static final String[] COLUMNS = {"id", "name"};
+
+  private InMemoryDataSource dataSource;
+  private DBTemplate         dbTemplate;
+  private String             dsName;
+  private Recording          recording;
+
+  @Table(value = "tb_jfr", strategy = GenerationType.ASSIGNED)
+  public static class Jfr {
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Jfr() {}
+
+    Jfr(long id) {
+      this.id = id;
+      this.name = "name-" + id;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    dsName = "jfr-" + System.nanoTime();
+    dataSource = new InMemoryDataSource().recordCalls(false).result(COLUMNS, new Object[][]{{11L, "a"}, {12L, "b"}, {13L, "c"}});
+    dbTemplate = new DBTemplate.Builder(dsName)
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2).setBatchSize(2))
+        .build();
+    recording = new Recording();
+  }
+
+  @After
+  public void tearDown() {
+    recording.close();
+  }
+
+  @Test
+  public void recordsQueryAndConnectionEvents() throws IOException {
+    recording.enable(QueryEvent.NAME);
+    recording.enable(ConnectionAcquireEvent.NAME);
+    recording.enable(ConnectionReleaseEvent.NAME);
+
+    final List<RecordedEvent> events = record(() -> {
+      try (Database database = dbTemplate.createDatabase()) {
+        database.createOrm().find(Jfr.class, new Sql(SQL));
+        database.createOrm().find(Jfr.class, new Sql(SQL));
+      }
+    });
+
+    final List<RecordedEvent> queries = named(events, QueryEvent.NAME);
+    assertEquals(2, queries.size());
+    final RecordedEvent query = queries.get(0);
+    assertEquals(dsName, query.getString("dataSource"));
+    assertEquals("find", query.getString("operation"));
+    assertEquals(SQL, query.getString("sql"));
+    assertEquals("SELECT id, name FROM tb_jfr WHERE id > ?", query.getString("fingerprint"));
+    assertEquals(3, query.getLong("rows"));
+    assertFalse(query.getBoolean("replica"));
+    assertNotNull(query.getStackTrace());
+
+    final List<RecordedEvent> acquires = named(events, ConnectionAcquireEvent.NAME);
+    assertEquals(1, acquires.size());
+    assertEquals(dsName, acquires.get(0).getString("dataSource"));
+
+    final List<RecordedEvent> releases = named(events, ConnectionReleaseEvent.NAME);
+    assertEquals(1, releases.size());
+    final RecordedEvent release = releases.get(0);
+    assertEquals(dsName, release.getString("dataSource"));
+    assertEquals(2, release.getInt("statements"));
+    assertTrue(release.getInt("maxDepth") >= 1);
+    assertTrue(release.getDuration("holdTime").compareTo(release.getDuration("busyTime")) >= 0);
+  }
+
+  @Test
+  public void recordsBatchChunks() throws IOException {
+    recording.enable(QueryEvent.NAME);
+    recording.enable(BatchEvent.NAME);
+
+    final List<Jfr> entities = new ArrayList<>();
+    for (long id = 1; id <= 5; id++) {
+      entities.add(new Jfr(id));
+    }
+    final List<RecordedEvent> events = record(() -> {
+      try (Database database = dbTemplate.createDatabase()) {
+        database.createOrm().create(Jfr.class, entities);
+      }
+    });
+
+    // 每批 2 个参数，最后一批 1 个
+    final List<RecordedEvent> batches = named(events, BatchEvent.NAME);
+    assertEquals(3, batches.size());
+    assertEquals(1, batches.get(0).getInt("chunk"));
+    assertEquals(2, batches.get(0).getInt("parameters"));
+    assertEquals(3, batches.get(2).getInt("chunk"));
+    assertEquals(1, batches.get(2).getInt("parameters"));
+    assertEquals(5, batches.stream().mapToLong(e -> e.getLong("affectedRows")).sum());
+
+    final List<RecordedEvent> queries = named(events, QueryEvent.NAME);
+    assertEquals(1, queries.size());
+    assertEquals("executeBatch", queries.get(0).getString("operation"));
+  }
+
+  @Test
+  public void cacheEventDisabledByDefault() throws IOException {
+    recording.enable(QueryEvent.NAME);
+
+    final List<RecordedEvent> events = record(this::findCachedTwice);
+
+    assertEquals(1, named(events, QueryEvent.NAME).size());
+    assertTrue(named(events, CacheEvent.NAME).isEmpty());
+  }
+
+  @Test
+  public void recordsCacheHitAndMiss() throws IOException {
+    recording.enable(CacheEvent.NAME);
+
+    final List<RecordedEvent> events = record(this::findCachedTwice);
+
+    final List<RecordedEvent> caches = named(events, CacheEvent.NAME);
+    assertEquals(2, caches.size());
+    assertEquals(CacheEvent.QUERY, caches.get(0).getString("cache"));
+    assertEquals(CacheEvent.MISS, caches.get(0).getString("result"));
+    assertEquals(CacheEvent.HIT, caches.get(1).getString("result"));
+    assertEquals(Jfr.class.getName(), caches.get(1).getClass("type").getName());
+    assertEquals(SQL, caches.get(1).getString("key"));
+  }
+
+  @Test
+  public void disabledEventsAreNotRecorded() throws IOException {
+    recording.disable(QueryEvent.NAME);
+    recording.disable(ConnectionAcquireEvent.NAME);
+    recording.disable(ConnectionReleaseEvent.NAME);
+
+    final List<RecordedEvent> events = record(() -> {
+      try (Database database = dbTemplate.createDatabase()) {
+        database.createOrm().find(Jfr.class, new Sql(SQL));
+      }
+    });
+
+    assertTrue(named(events, QueryEvent.NAME).isEmpty());
+    assertTrue(named(events, ConnectionAcquireEvent.NAME).isEmpty());
+    assertTrue(named(events, ConnectionReleaseEvent.NAME).isEmpty());
+  }
+
+  private void findCachedTwice() {
+    try (Database database = dbTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      orm.cached().find(Jfr.class, new Sql(SQL));
+      orm.cached().find(Jfr.class, new Sql(SQL));
+    }
+  }
+
+  private List<RecordedEvent> record(Runnable runnable) throws IOException {
+    recording.start();
+    runnable.run();
+    recording.stop();
+
+    final Path file = Files.createTempFile("myfavs-orm-", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    return events.stream()
+                 .filter(event -> event.getEventType().getName().equals(name))
+                 .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                 .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,40 @@
+package work.myfavs.framework.orm.meta.handler.impls;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+public class UUIDBinaryPropertyHandlerTest {
+
+  UUID                      uuid            = UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8057");
+  UUIDBinaryPropertyHandler propertyHandler = new UUIDBinaryPropertyHandler();
+
+  @Test
+  public void convert() throws SQLException {
+    ResultSet rsMock = Mockito.mock(ResultSet.class);
+    Mockito.when(rsMock.getObject(1)).thenReturn(propertyHandler.toBytes(uuid));
+    Assert.assertEquals(uuid, propertyHandler.convert(rsMock, 1, UUID.class));
+  }
+
+  @Test
+  public void addParameter() throws SQLException {
+    PreparedStatement psMock = Mockito.mock(PreparedStatement.class);
+    propertyHandler.addParameter(psMock, 1, uuid);
+    Mockito.verify(psMock).setBytes(1, propertyHandler.toBytes(uuid));
+  }
+
+  @Test
+  public void mixedEndian() {
+    UUIDBinaryPropertyHandler guidHandler = new UUIDBinaryPropertyHandler(true);
+    byte[]                    bytes       = guidHandler.toBytes(uuid);
+    Assert.assertEquals((byte) 0x5d, bytes[0]);
+    Assert.assertEquals((byte) 0x01, bytes[3]);
+    Assert.assertEquals((byte) 0xbc, bytes[8]);
+    Assert.assertEquals(uuid, guidHandler.toUUID(bytes));
+  }
+}
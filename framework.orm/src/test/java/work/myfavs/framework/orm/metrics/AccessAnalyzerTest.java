@@ -0,0 +1,136 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class AccessAnalyzerTest extends AbstractH2Test {
+
+  private static       DBTemplate         warnTemplate;
+  private static       DBTemplate         failTemplate;
+  private static final List<AccessReport> reports = new CopyOnWriteArrayList<>();
+
+  @Table(value = "tb_access", strategy = GenerationType.ASSIGNED)
+  public static class AccessEntity {
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+  }
+
+  @BeforeClass
+  public static void beforeClass() {
+    DataSource dataSource = createDataSource("access_analyzer");
+    warnTemplate = createDBTemplate(new DBTemplate.Builder("access-warn")
+                                        .dataSource(dataSource)
+                                        .accessReportListener(reports::add),
+                                    config -> config.setRepeatedQueryThreshold(3));
+    failTemplate = createDBTemplate("access-fail", dataSource,
+                                    config -> config.setRepeatedQueryThreshold(3).setRepeatedQueryFail(true));
+    execute(warnTemplate,
+            "CREATE TABLE tb_access (id BIGINT PRIMARY KEY, name VARCHAR(32))",
+            "INSERT INTO tb_access (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e')");
+  }
+
+  @Before
+  public void setUp() {
+    reports.clear();
+  }
+
+  @Test
+  public void reportsRepeatedStatementsWithCallSite() {
+    try (Database database = warnTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      for (long id = 1; id <= 5; id++) {
+        assertNotNull(orm.getById(AccessEntity.class, id));
+      }
+      orm.find(AccessEntity.class, new Sql("SELECT id, name FROM tb_access"));
+
+      final AccessReport current = warnTemplate.getAccessAnalyzer().current();
+      assertEquals(6, current.getRoundTrips());
+      assertEquals(10, current.getRows());
+      assertTrue(reports.isEmpty());
+    }
+
+    assertEquals(1, reports.size());
+    final AccessReport report = reports.get(0);
+    assertEquals("access-warn", report.getDsName());
+    assertEquals(2, report.getStatements().size());
+    assertEquals(1, report.getViolations().size());
+
+    final AccessReport.Violation violation = report.getViolations().get(0);
+    assertEquals(5, violation.getExecutions());
+    assertEquals(5, report.getExecutions(violation.getFingerprint()));
+    assertEquals("getById", violation.getOrmMethod().getMethodName());
+    assertEquals(AccessAnalyzerTest.class.getName(), violation.getCallSite().getClassName());
+    assertEquals("reportsRepeatedStatementsWithCallSite", violation.getCallSite().getMethodName());
+    assertNull(warnTemplate.getAccessAnalyzer().current());
+  }
+
+  @Test
+  public void nestedScopesShareCounters() {
+    try (Database database = warnTemplate.createDatabase()) {
+      for (long id = 1; id <= 3; id++) {
+        database.createOrm().getById(AccessEntity.class, id);
+      }
+      // 嵌套打开的数据库共用同一个作用域
+      try (Database nested = warnTemplate.createDatabase()) {
+        nested.createOrm().getById(AccessEntity.class, 4L);
+      }
+      assertTrue(reports.isEmpty());
+    }
+    assertEquals(1, reports.size());
+    assertEquals(4, reports.get(0).getViolations().get(0).getExecutions());
+  }
+
+  @Test
+  public void ignoresStatementsWithinThreshold() {
+    for (long id = 1; id <= 5; id++) {
+      // 每次使用独立的作用域
+      try (Database database = warnTemplate.createDatabase()) {
+        database.createOrm().getById(AccessEntity.class, id);
+      }
+    }
+    try (Database database = warnTemplate.createDatabase()) {
+      for (long id = 1; id <= 3; id++) {
+        database.createOrm().getById(AccessEntity.class, id);
+      }
+    }
+    assertTrue(reports.isEmpty());
+  }
+
+  @Test
+  public void failsInTestMode() {
+    try (Database database = failTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      for (long id = 1; id <= 3; id++) {
+        orm.getById(AccessEntity.class, id);
+      }
+      try {
+        orm.getById(AccessEntity.class, 4L);
+        fail("expected DBException");
+      } catch (DBException ex) {
+        assertTrue(ex.getMessage().contains("getById"));
+        assertTrue(ex.getMessage().contains(AccessAnalyzerTest.class.getName() + ".failsInTestMode"));
+      }
+    }
+    assertNull(failTemplate.getAccessAnalyzer().current());
+  }
+}
@@ -0,0 +1,82 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Sql;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConnectionTrackerTest extends AbstractH2Test {
+
+  private static       DBTemplate           dbTemplate;
+  private static final InMemorySqlMetrics   metrics = new InMemorySqlMetrics();
+  private static final List<ConnectionHold> holds   = new CopyOnWriteArrayList<>();
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate(new DBTemplate.Builder("connection-tracker")
+                                      .dataSource(createDataSource("connection_tracker"))
+                                      .metrics(metrics)
+                                      .connectionHoldListener(holds::add),
+                                  config -> config.setConnectionHoldMillis(50));
+  }
+
+  @Before
+  public void setUp() {
+    holds.clear();
+  }
+
+  @Test
+  public void reportsLongHoldsWithOpeningStack() throws InterruptedException {
+    final InMemorySqlMetrics.Connections connections = metrics.connection();
+    final long                           released    = connections.getCount(ConnectionPhase.HOLD);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().find(Record.class, new Sql("SELECT 1"));
+      assertEquals(1, connections.getActive());
+      // 持有连接期间处理其他事务
+      Thread.sleep(60);
+      try (Database nested = dbTemplate.createDatabase()) {
+        nested.createOrm().find(Record.class, new Sql("SELECT 2"));
+      }
+    }
+
+    assertEquals(0, connections.getActive());
+    assertEquals(released + 1, connections.getCount(ConnectionPhase.HOLD));
+    assertEquals(2, connections.getMaxDepth());
+    assertTrue(connections.getTotalNanos(ConnectionPhase.IDLE) >= TimeUnit.MILLISECONDS.toNanos(60));
+
+    assertEquals(1, holds.size());
+    final ConnectionHold hold = holds.get(0);
+    assertEquals("connection-tracker", hold.getDsName());
+    assertEquals(2, hold.getStatements());
+    assertEquals(2, hold.getMaxDepth());
+    assertTrue(hold.getHoldNanos() >= TimeUnit.MILLISECONDS.toNanos(60));
+    assertTrue(hold.getBusyNanos() > 0);
+    assertTrue(hold.getIdleNanos() >= TimeUnit.MILLISECONDS.toNanos(60));
+    assertEquals(hold.getHoldNanos(), hold.getBusyNanos() + hold.getIdleNanos());
+
+    final StackTraceElement opener = hold.getStack().get(0);
+    assertEquals(ConnectionTrackerTest.class.getName(), opener.getClassName());
+    assertEquals("reportsLongHoldsWithOpeningStack", opener.getMethodName());
+  }
+
+  @Test
+  public void ignoresShortHolds() {
+    final long acquired = metrics.connection().getCount(ConnectionPhase.ACQUIRE);
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().find(Record.class, new Sql("SELECT 1"));
+    }
+    assertEquals(acquired + 1, metrics.connection().getCount(ConnectionPhase.ACQUIRE));
+    assertTrue(holds.isEmpty());
+  }
+}
@@ -0,0 +1,155 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.Query;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InMemorySqlMetricsTest extends AbstractH2Test {
+
+  private static final InMemorySqlMetrics METRICS = new InMemorySqlMetrics();
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate(new DBTemplate.Builder("sql-metrics")
+                                      .dataSource(createDataSource("sql_metrics"))
+                                      .metrics(METRICS),
+                                  config -> { });
+    execute(dbTemplate, "CREATE TABLE tb_metric (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(32))");
+  }
+
+  @Before
+  public void setUp() {
+    METRICS.reset();
+  }
+
+  @Test
+  public void recordsPhasesAndRowsPerFingerprint() {
+    try (Database database = dbTemplate.createDatabase()) {
+      try (Query query = database.createQuery("INSERT INTO tb_metric (name) VALUES (?)", true)) {
+        for (String name : Arrays.asList("a", "b", "c")) {
+          query.addParameter(name).execute(null, keys -> assertTrue(keys.next()));
+        }
+      }
+      // 参数数量不同的 IN 查询属于同一个指纹
+      database.createOrm().findRecords(new Sql("SELECT id, name FROM tb_metric").where(Cond.in("name", Arrays.asList("a", "b"))));
+      database.createOrm().findRecords(new Sql("SELECT id, name FROM tb_metric").where(Cond.in("name", Arrays.asList("a", "b", "c"))));
+      database.commit();
+    }
+
+    final Map<String, StatementSnapshot> snapshot = METRICS.snapshot();
+    assertEquals(2, snapshot.size());
+
+    final StatementSnapshot insert = METRICS.snapshot(DbType.H2, "INSERT INTO tb_metric (name) VALUES (?)");
+    assertEquals(3, insert.getExecutions());
+    assertEquals(3, insert.getRowsAffected());
+    assertEquals(3, insert.getPhase(Phase.BIND).getCount());
+    assertEquals(3, insert.getPhase(Phase.GENERATED_KEYS).getCount());
+    assertEquals(0, insert.getPhase(Phase.FETCH).getCount());
+
+    final StatementSnapshot select = METRICS.snapshot(DbType.H2, "SELECT id, name FROM tb_metric WHERE name IN (?)");
+    assertNotNull(select);
+    assertEquals(2, select.getExecutions());
+    assertEquals(2, select.getPhase(Phase.PREPARE).getCount());
+    assertEquals(2, select.getPhase(Phase.FETCH).getCount());
+    assertEquals(5, select.getRowsReturned());
+    assertTrue(select.getPhase(Phase.EXECUTE).getTotalNanos() > 0);
+  }
+
+  @Test
+  public void batchAndOverflowFingerprints() {
+    final InMemorySqlMetrics metrics = new InMemorySqlMetrics(1);
+    metrics.statement(DbType.H2, "SELECT 1 FROM tb_metric");
+    final StatementMetrics other = metrics.statement(DbType.H2, "SELECT 2 FROM tb_other");
+    assertEquals(InMemorySqlMetrics.OTHER, ((InMemorySqlMetrics.Statement) other).getFingerprint());
+
+    try (Database database = dbTemplate.createDatabase()) {
+      try (Query query = database.createQuery("UPDATE tb_metric SET name = ? WHERE id = ?")) {
+        query.addParameter("x").addParameter(-1).addBatch();
+        query.addParameter("y").addParameter(-2).addBatch();
+        query.executeBatch();
+      }
+      database.commit();
+    }
+    final StatementSnapshot update = METRICS.snapshot(DbType.H2, "UPDATE tb_metric SET name = ? WHERE id = ?");
+    assertEquals(1, update.getExecutions());
+    assertEquals(0, update.getRowsAffected());
+  }
+
+  @Test
+  public void resetKeepsStatementsBoundToListeners() {
+    final InMemorySqlMetrics                 metrics  = new InMemorySqlMetrics();
+    final List<InMemorySqlMetrics.Statement> notified = new ArrayList<>();
+    metrics.onStatement(notified::add);
+
+    final StatementMetrics before = metrics.statement(DbType.H2, "SELECT 1 FROM tb_metric");
+    before.record(Phase.EXECUTE, 100);
+    before.rowsReturned(3);
+    metrics.reset();
+
+    assertTrue(metrics.snapshot().isEmpty());
+    assertNull(metrics.snapshot(DbType.H2, "SELECT 1 FROM tb_metric"));
+    assertEquals(0, notified.get(0).getCount(Phase.EXECUTE));
+    assertEquals(0, notified.get(0).getRowsReturned());
+
+    // 同一指纹再次出现时继续使用已通知给监听器的 Statement
+    final StatementMetrics after = metrics.statement(DbType.H2, "SELECT 1 FROM tb_metric");
+    after.record(Phase.EXECUTE, 200);
+    assertSame(before, after);
+    assertEquals(1, notified.size());
+    assertEquals(1, notified.get(0).getCount(Phase.EXECUTE));
+    assertEquals(200, notified.get(0).getTotalNanos(Phase.EXECUTE));
+  }
+
+  @Test
+  public void histogramPercentilesAndAllocationFreeRecording() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000L);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100, snapshot.getCount());
+    assertEquals(100_000, snapshot.getMaxNanos());
+    assertEquals(50_500, snapshot.getMeanNanos(), 0.001);
+    // 分桶相对误差不超过 12.5%
+    assertEquals(50_000, snapshot.getPercentileNanos(0.5), 50_000 * 0.125);
+    assertEquals(99_000, snapshot.getPercentileNanos(0.99), 99_000 * 0.125);
+    assertEquals(0, LatencyHistogram.Snapshot.EMPTY.getPercentileNanos(0.99));
+
+    for (long value : new long[]{0, 7, 8, 15, 16, 1_000_000, Long.MAX_VALUE}) {
+      final int bucket = LatencyHistogram.bucketOf(Math.min(value, (1L << 42) - 1));
+      assertTrue(bucket < LatencyHistogram.BUCKETS);
+      assertTrue(LatencyHistogram.upperBoundOf(bucket) >= Math.min(value, (1L << 42) - 1));
+    }
+
+    final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final InMemorySqlMetrics.Statement     statement    = (InMemorySqlMetrics.Statement) new InMemorySqlMetrics().statement(DbType.H2, "SELECT 1");
+    for (int i = 0; i < 10_000; i++) {
+      statement.record(Phase.EXECUTE, i);
+    }
+    final long before = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    for (int i = 0; i < 100_000; i++) {
+      statement.record(Phase.EXECUTE, i);
+      statement.rowsReturned(1);
+    }
+    final long allocated = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    assertEquals(110_000, statement.getCount(Phase.EXECUTE));
+  }
+}
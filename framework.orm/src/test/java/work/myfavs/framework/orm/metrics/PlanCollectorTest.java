@@ -0,0 +1,115 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.util.common.DruidUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PlanCollectorTest extends AbstractH2Test {
+
+  private static DBTemplate dbTemplate;
+
+  public static int sleep(int millis) throws InterruptedException {
+    Thread.sleep(millis);
+    return millis;
+  }
+
+  @Table(value = "tb_plan", strategy = GenerationType.ASSIGNED)
+  public static class PlanEntity {
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+    @Column
+    private String code;
+    @Column
+    private Long   slept;
+  }
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate(new DBTemplate.Builder("plan-collector")
+                                      .dataSource(createDataSource("plan_collector"))
+                                      .slowQueryListener(slowQuery -> { }),
+                                  config -> config.setSlowQueryMillis(10).setExplainSlowQuery(true));
+    execute(dbTemplate,
+            "CREATE ALIAS PLAN_SLEEP FOR \"" + PlanCollectorTest.class.getName() + ".sleep\"",
+            "CREATE TABLE tb_plan (id BIGINT PRIMARY KEY, name VARCHAR(32), code VARCHAR(32))",
+            "CREATE INDEX idx_plan_code ON tb_plan (code)",
+            "INSERT INTO tb_plan (id, name, code) VALUES (1, 'a', 'x'), (2, 'b', 'y')");
+  }
+
+  @Test
+  public void capturesPlansAndReportsFullScans() throws InterruptedException {
+    final PlanCollector collector = dbTemplate.getPlanCollector();
+    try (Database database = dbTemplate.createDatabase()) {
+      // 没有索引的过滤字段，执行 2 次，只获取 1 次执行计划
+      database.createOrm().find(PlanEntity.class, new Sql("SELECT id, name, code, PLAN_SLEEP(20) AS slept FROM tb_plan WHERE name = ?", "a"));
+      database.createOrm().find(PlanEntity.class, new Sql("SELECT id, name, code, PLAN_SLEEP(20) AS slept FROM tb_plan WHERE name = ?", "b"));
+      // 使用索引
+      database.createOrm().find(PlanEntity.class, new Sql("SELECT id, name, code, PLAN_SLEEP(20) AS slept FROM tb_plan WHERE code = ?", "x"));
+      // 更新语句不获取执行计划
+      database.createOrm().execute(new Sql("UPDATE tb_plan SET name = name WHERE PLAN_SLEEP(10) > 0"));
+      database.commit();
+    }
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (collector.getPlans().size() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    final WorkloadReport report = collector.report();
+    assertEquals(2, report.getPlans().size());
+    assertEquals(2, report.getSlowQueries(fingerprint("SELECT id, name, code, PLAN_SLEEP(20) AS slept FROM tb_plan WHERE name = ?")));
+    assertEquals(1, report.getTables().size());
+
+    final WorkloadReport.TableReport table = report.getTable("tb_plan");
+    assertEquals(PlanEntity.class, table.getEntityClass());
+    assertEquals(1, table.getFullScans().size());
+    assertEquals(2, table.getSlowQueries());
+    assertTrue(table.isMissingIndex());
+    assertEquals(Collections.singleton("name"), table.getSuggestedIndexColumns());
+    assertTrue(table.getFullScans().get(0).getPlan().contains("tableScan"));
+    assertTrue(report.toString().contains("建议索引字段: name"));
+
+    final ExplainPlan indexed = report.getPlans().get(1);
+    assertFalse(indexed.isFullScan());
+    assertTrue(indexed.getPlan().toUpperCase().contains("IDX_PLAN_CODE"));
+  }
+
+  @Test
+  public void recognizesFullScansPerDialect() {
+    assertEquals(Collections.singleton("tb_order"), ExplainDialect.MYSQL.fullScanTables(
+        "id=1, select_type=SIMPLE, table=tb_order, partitions=null, type=ALL, possible_keys=null, key=null"));
+    assertTrue(ExplainDialect.MYSQL.fullScanTables(
+        "id=1, select_type=SIMPLE, table=tb_order, partitions=null, type=ref, possible_keys=idx, key=idx").isEmpty());
+    assertEquals(Collections.singleton("tb_order"), ExplainDialect.POSTGRE_SQL.fullScanTables(
+        "[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Parallel Aware\": false, \"Relation Name\": \"tb_order\", \"Alias\": \"tb_order\"}}]"));
+    assertEquals(new LinkedHashSet<>(Arrays.asList("tb_order", "tb_user")), ExplainDialect.SQL_SERVER.fullScanTables(
+        "<RelOp NodeId=\"0\" PhysicalOp=\"Clustered Index Scan\"><IndexScan><Object Database=\"[db]\" Schema=\"[dbo]\" Table=\"[tb_order]\" />"
+            + "</IndexScan></RelOp><MissingIndexes><MissingIndexGroup><MissingIndex Database=\"[db]\" Schema=\"[dbo]\" Table=\"[tb_user]\">"));
+    assertEquals(Collections.singleton("tb_order"), ExplainDialect.ORACLE.fullScanTables(
+        "|   1 |  TABLE ACCESS FULL| TB_ORDER |     1 |    26 |     2   (0)| 00:00:01 |"));
+    assertNull(ExplainDialect.of("unknown"));
+  }
+
+  private static String fingerprint(String sql) {
+    return DruidUtil.fingerprint(DbType.H2, sql);
+  }
+}
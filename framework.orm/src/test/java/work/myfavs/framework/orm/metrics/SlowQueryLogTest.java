@@ -0,0 +1,150 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBConfig;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.BatchParameters;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.clause.Sql;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+public class SlowQueryLogTest extends AbstractH2Test {
+
+  private static final String SLOW_SQL = "SELECT id, name, SLOW_SLEEP(30) AS slept FROM tb_slow WHERE name = ?";
+  private static final String FAST_SQL = "SELECT id, name FROM tb_slow WHERE name = ?";
+
+  private static DataSource dataSource;
+
+  /**
+   * 供 H2 调用的函数，模拟执行缓慢的语句
+   */
+  public static int sleep(int millis) throws InterruptedException {
+    Thread.sleep(millis);
+    return millis;
+  }
+  @BeforeClass
+  public static void beforeClass() {
+    dataSource = createDataSource("slow_query");
+
+    DBTemplate dbTemplate = build("slow-query-init", config -> { }, slowQuery -> { });
+    execute(dbTemplate,
+            "CREATE ALIAS SLOW_SLEEP FOR \"" + SlowQueryLogTest.class.getName() + ".sleep\"",
+            "CREATE TABLE tb_slow (id BIGINT PRIMARY KEY, name VARCHAR(512))",
+            "INSERT INTO tb_slow (id, name) VALUES (1, 'a'), (2, 'a'), (3, 'b'), (4, 'a123456789012345')");
+    // 预热，避免首次执行的类加载耗时超过阈值
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().findRecords(new Sql(FAST_SQL, "a"));
+    }
+  }
+
+  private static DBTemplate build(String dsName, Consumer<DBConfig> consumer,
+                                  Consumer<SlowQuery> listener) {
+    return createDBTemplate(new DBTemplate.Builder(dsName).dataSource(dataSource).slowQueryListener(listener), consumer);
+  }
+
+  @Test
+  public void slowQueryIsLoggedAsynchronously() throws InterruptedException {
+    final BlockingQueue<SlowQuery> logged     = new LinkedBlockingQueue<>();
+    final BlockingQueue<String>    threads    = new LinkedBlockingQueue<>();
+    final DBTemplate               dbTemplate = build("slow-query-threshold",
+                                                      config -> config.setSlowQueryMillis(20).setSlowQueryMaxParamLength(10),
+                                                      slowQuery -> {
+                                                        threads.add(Thread.currentThread().getName());
+                                                        logged.add(slowQuery);
+                                                      });
+
+    final String longName = "a123456789012345";
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().findRecords(new Sql(FAST_SQL, "a"));
+      final List<Record> records = database.createOrm().findRecords(new Sql(SLOW_SQL, "a"));
+      assertEquals(2, records.size());
+      database.createOrm().findRecords(new Sql(SLOW_SQL, longName));
+    }
+
+    final SlowQuery first = logged.poll(5, TimeUnit.SECONDS);
+    assertNotNull(first);
+    assertEquals(SLOW_SQL, first.getSql());
+    assertEquals(2, first.getRows());
+    assertEquals(1, first.getBatchSize());
+    assertEquals("'a'", first.getParameters().get(0));
+    assertTrue(first.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertTrue(first.getConnectionHoldNanos() >= first.getElapsedNanos());
+    assertEquals(Thread.currentThread().getName(), first.getThreadName());
+    // 调用栈从业务代码开始，不包含框架内部的调用
+    assertEquals(SlowQueryLogTest.class.getName(), first.getStack()[0].getClassName());
+    assertNotEquals(Thread.currentThread().getName(), threads.take());
+
+    final SlowQuery second = logged.poll(5, TimeUnit.SECONDS);
+    assertNotNull(second);
+    assertEquals(1, second.getRows());
+    assertEquals("'a12345678...", second.getParameters().get(0));
+    assertTrue(second.toString().contains(SLOW_SQL));
+
+    assertNull(logged.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void perFingerprintThresholdAndSampling() throws InterruptedException {
+    final BlockingQueue<SlowQuery> logged     = new LinkedBlockingQueue<>();
+    final DBTemplate               dbTemplate = build("slow-query-fingerprint", config -> { }, logged::add);
+    // 默认不记录，只为指定的指纹设置阈值，常量不同的同类语句属于同一个指纹
+    dbTemplate.getSlowQueryLog().setThreshold("SELECT id, name, SLOW_SLEEP(30) AS slept FROM tb_slow WHERE name = 'x'", 10);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().findRecords(new Sql("SELECT id, SLOW_SLEEP(30) AS slept FROM tb_slow WHERE name = ?", "a"));
+      database.createOrm().findRecords(new Sql(SLOW_SQL, "b"));
+    }
+    final SlowQuery slowQuery = logged.poll(5, TimeUnit.SECONDS);
+    assertNotNull(slowQuery);
+    assertEquals(SLOW_SQL, slowQuery.getSql());
+    assertNull(logged.poll(100, TimeUnit.MILLISECONDS));
+
+    final DBTemplate sampled = build("slow-query-sampled", config -> config.setSlowQueryMillis(10).setSlowQuerySampleRate(0), logged::add);
+    try (Database database = sampled.createDatabase()) {
+      database.createOrm().findRecords(new Sql(SLOW_SQL, "b"));
+    }
+    assertNull(logged.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void dropsWhenBufferIsFull() throws InterruptedException {
+    final CountDownLatch release      = new CountDownLatch(1);
+    final CountDownLatch taken        = new CountDownLatch(1);
+    final SlowQueryLog   slowQueryLog = new SlowQueryLog("slow-query-buffer",
+                                                       new DBConfig().setDbType(DbType.H2).setSlowQueryMillis(1).setSlowQueryBufferSize(2),
+                                                       slowQuery -> {
+                                                         taken.countDown();
+                                                         try {
+                                                           release.await();
+                                                         } catch (InterruptedException ex) {
+                                                           Thread.currentThread().interrupt();
+                                                         }
+                                                       });
+
+    final BatchParameters parameters = new BatchParameters();
+    parameters.addParameter(1, "x");
+    slowQueryLog.offer(FAST_SQL, parameters, 1, 1, -1);
+    assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+    // 后台线程阻塞在监听器中，缓冲区只能再容纳 2 条
+    final long start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      slowQueryLog.offer(FAST_SQL, parameters, 1, 1, -1);
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    assertEquals(8, slowQueryLog.getDropped());
+    release.countDown();
+  }
+}
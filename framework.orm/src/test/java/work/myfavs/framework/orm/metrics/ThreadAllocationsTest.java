@@ -0,0 +1,138 @@
+package work.myfavs.framework.orm.metrics;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ThreadAllocationsTest {
+
+  private static final String   SQL     = "SELECT id, name FROM tb_allocation WHERE id > ?";
+  private static final String[] COLUMNS = {"id", "name"};
+
+  private InMemoryDataSource dataSource;
+
+  @Table(value = "tb_allocation", strategy = GenerationType.ASSIGNED)
+  public static class Allocation {
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Allocation() {}
+
+    Allocation(long id) {
+      this.id = id;
+      this.name = "name-" + id;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    Assume.assumeTrue(ThreadAllocations.isSupported());
+
+    final Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[]{(long) i, "name-" + i};
+    }
+    dataSource = new InMemoryDataSource().recordCalls(false).result(COLUMNS, rows);
+  }
+
+  @Test
+  public void recordsAllocatedBytesPerStatement() {
+    final InMemorySqlMetrics metrics = new InMemorySqlMetrics();
+    final DBTemplate         dbTemplate = template("allocation-statement", metrics, true);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().find(Allocation.class, new Sql(SQL, 0));
+      database.createOrm().find(Allocation.class, new Sql(SQL, 1));
+    }
+
+    final StatementSnapshot snapshot = metrics.snapshot(DbType.H2, SQL);
+    assertEquals(2000, snapshot.getRowsReturned());
+    assertEquals(snapshot.getAllocatedBytes() / 2, snapshot.getAllocatedBytesPerExecution());
+    // 每行至少创建一个实体对象
+    assertTrue(snapshot.getAllocatedBytesPerRow() >= 16);
+  }
+
+  @Test
+  public void recordsAllocatedBytesPerOperation() {
+    final InMemorySqlMetrics metrics    = new InMemorySqlMetrics();
+    final DBTemplate         dbTemplate = template("allocation-operation", metrics, true);
+
+    final List<Allocation> entities = new ArrayList<>();
+    for (long id = 1; id <= 100; id++) {
+      entities.add(new Allocation(id));
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      orm.find(Allocation.class, new Sql(SQL, 0));
+      orm.create(Allocation.class, entities);
+      orm.cached().find(Allocation.class, new Sql(SQL, 0));
+    }
+
+    final InMemorySqlMetrics.Operations operations = metrics.operation();
+    assertEquals(2, operations.get("find").getCount());
+    assertEquals(1, operations.get("create").getCount());
+    assertEquals(1, operations.get("cached").getCount());
+    assertTrue(operations.get("find").getMaxAllocatedBytes() >= operations.get("find").getAllocatedBytesPerCall());
+    assertTrue(operations.get("find").getAllocatedBytes() >= 1000 * 16);
+    assertTrue(operations.get("create").getAllocatedBytes() > 0);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    final InMemorySqlMetrics metrics    = new InMemorySqlMetrics();
+    final DBTemplate         dbTemplate = template("allocation-disabled", metrics, false);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().find(Allocation.class, new Sql(SQL, 0));
+    }
+
+    assertEquals(0, metrics.snapshot(DbType.H2, SQL).getAllocatedBytes());
+    assertTrue(metrics.operation().values().isEmpty());
+  }
+
+  @Test
+  public void reportsCallSiteThroughInstrumentedOrm() {
+    final DBTemplate dbTemplate = new DBTemplate.Builder("allocation-call-site")
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2).setTrackAllocations(true)
+                                .setRepeatedQueryThreshold(1).setRepeatedQueryFail(true))
+        .build();
+
+    try (Database database = dbTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      orm.find(Allocation.class, new Sql(SQL, 0));
+      orm.find(Allocation.class, new Sql(SQL, 1));
+      fail();
+    } catch (DBException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("AbstractOrm.find"));
+      assertTrue(ex.getMessage(), ex.getMessage().contains(ThreadAllocationsTest.class.getName() + ".reportsCallSiteThroughInstrumentedOrm"));
+    }
+  }
+
+  private DBTemplate template(String dsName, SqlMetrics metrics, boolean trackAllocations) {
+    return new DBTemplate.Builder(dsName)
+        .dataSource(dataSource)
+        .metrics(metrics)
+        .config(config -> config.setDbType(DbType.H2).setTrackAllocations(trackAllocations))
+        .build();
+  }
+}
@@ -0,0 +1,146 @@
+package work.myfavs.framework.orm.orm;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.util.func.ThrowingConsumer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncOrmTest extends AbstractH2Test {
+
+  private static final int POOL_SIZE = 4;
+
+  private static DBTemplate dbTemplate;
+
+  private AsyncOrm asyncOrm;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate("async-orm", createDataSource("async_orm", POOL_SIZE), config -> config.setAsyncPoolSize(POOL_SIZE));
+    execute(dbTemplate, "CREATE TABLE tb_async (id BIGINT NOT NULL PRIMARY KEY, name VARCHAR(32))");
+  }
+
+  @Before
+  public void setUp() {
+    asyncOrm = dbTemplate.createAsyncOrm();
+    execute(dbTemplate, "DELETE FROM tb_async");
+  }
+
+  @Test
+  public void txCommit() {
+    asyncOrm.txVoid(orm -> {
+      orm.execute(new Sql("INSERT INTO tb_async (id, name) VALUES (?, ?)", 1L, "a"));
+      orm.execute(new Sql("INSERT INTO tb_async (id, name) VALUES (?, ?)", 2L, "b"));
+    }).join();
+
+    assertEquals(2L, (long) asyncOrm.count(new Sql("SELECT * FROM tb_async")).join());
+  }
+
+  @Test
+  public void txRollback() {
+    ThrowingConsumer<Orm, SQLException> insertThenFail = orm -> {
+      orm.execute(new Sql("INSERT INTO tb_async (id, name) VALUES (?, ?)", 1L, "a"));
+      throw new SQLException("rollback");
+    };
+    CompletableFuture<Void> future = asyncOrm.txVoid(insertThenFail);
+
+    try {
+      future.join();
+      fail();
+    } catch (CompletionException e) {
+      assertTrue(e.getCause().getMessage().contains("rollback"));
+    }
+    assertFalse(asyncOrm.exists(new Sql("SELECT * FROM tb_async")).join());
+  }
+
+  @Test
+  public void parallelQueries() throws Exception {
+    // 所有任务同时持有连接后才继续，验证查询在多个线程上并行执行
+    final CountDownLatch latch   = new CountDownLatch(POOL_SIZE);
+    final Set<String>    threads = ConcurrentHashMap.newKeySet();
+
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < POOL_SIZE; i++) {
+      futures.add(asyncOrm.tx(orm -> {
+        threads.add(Thread.currentThread().getName());
+        latch.countDown();
+        try {
+          if (!latch.await(10, TimeUnit.SECONDS)) throw new SQLException("not parallel");
+        } catch (InterruptedException e) {
+          throw new SQLException(e);
+        }
+        return orm.count(new Sql("SELECT * FROM tb_async"));
+      }));
+    }
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+    assertEquals(POOL_SIZE, threads.size());
+  }
+
+  @Test
+  public void condQueries() {
+    asyncOrm.create(Item.class, Arrays.asList(new Item(1L, "a"), new Item(2L, "b"), new Item(3L, "b"))).join();
+
+    assertEquals(2, asyncOrm.findByCond(Item.class, Cond.eq("name", "b")).join().size());
+    assertEquals(1L, (long) asyncOrm.countByCond(Item.class, Cond.eq("name", "a")).join());
+    assertEquals(Long.valueOf(1L), asyncOrm.findTop(Item.class, 1, new Sql("SELECT * FROM tb_async ORDER BY id")).join().get(0).getId());
+
+    assertEquals(1, (int) asyncOrm.delete(Item.class, new Item(2L, "b")).join());
+    assertEquals(2L, (long) asyncOrm.count(new Sql("SELECT * FROM tb_async")).join());
+  }
+
+  @Table(value = "tb_async", strategy = GenerationType.ASSIGNED)
+  public static class Item {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "name")
+    private String name;
+
+    public Item() {
+    }
+
+    public Item(Long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+}
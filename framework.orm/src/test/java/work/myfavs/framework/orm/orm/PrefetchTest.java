@@ -0,0 +1,291 @@
+package work.myfavs.framework.orm.orm;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.CountingDataSource;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PrefetchTest extends AbstractH2Test {
+
+  private static final AtomicInteger SELECTS = new AtomicInteger();
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate("prefetch", CountingDataSource.wrap(createDataSource("prefetch"), SELECTS));
+    execute(dbTemplate,
+            "CREATE TABLE tb_order (id BIGINT PRIMARY KEY)",
+            "CREATE TABLE tb_order_line (id BIGINT PRIMARY KEY, order_id BIGINT, sku VARCHAR(32))",
+            "CREATE TABLE tb_payment (id BIGINT PRIMARY KEY, order_id INT, amount INT)",
+            "CREATE TABLE tb_line_note (id BIGINT PRIMARY KEY, line_id BIGINT, note VARCHAR(32))",
+            "INSERT INTO tb_line_note (id, line_id, note) VALUES (1, 10, 'n1'), (2, 10, 'n2'), (3, 21, 'n3')");
+
+    List<Order>   orders   = new ArrayList<>();
+    List<Line>    lines    = new ArrayList<>();
+    List<Payment> payments = new ArrayList<>();
+    for (long id = 1; id <= 500; id++) {
+      orders.add(new Order(id));
+      lines.add(new Line(id * 10, id, "sku-" + id));
+      lines.add(new Line(id * 10 + 1, id, "sku-" + id));
+      // 偶数订单没有支付记录
+      if (id % 2 == 1) payments.add(new Payment(id, (int) id, 100));
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      database.tx(orm -> {
+        orm.create(Order.class, orders);
+        orm.create(Line.class, lines);
+        orm.create(Payment.class, payments);
+      });
+    }
+  }
+
+  @Before
+  public void setUp() {
+    SELECTS.set(0);
+  }
+
+  @Test
+  public void pageWithLinesAndPaymentsLoadsInThreeQueries() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm         orm    = database.createOrm();
+      List<Order> orders = orm.find(Order.class, new Sql("SELECT * FROM tb_order ORDER BY id"));
+
+      List<Line> lines = orm.prefetch(orders, Line.class, "order_id", Order::getId, Order::setLines);
+      orm.prefetch(orders, Payment.class, "order_id", Order::getId, Order::setPayments);
+      assertEquals(3, SELECTS.get());
+
+      assertEquals(1000, lines.size());
+      for (Order order : orders) {
+        assertEquals(2, order.getLines().size());
+        assertEquals(order.getId(), order.getLines().get(0).getOrderId());
+        assertEquals(order.getId() % 2 == 1 ? 1 : 0, order.getPayments().size());
+      }
+
+      // 多级预加载：以上一级返回的子实体作为父实体
+      orm.prefetch(lines, Note.class, "line_id", Line::getId, Line::setNotes);
+      assertEquals(4, SELECTS.get());
+      assertEquals(2, orders.get(0).getLines().get(0).getNotes().size());
+      assertEquals(0, orders.get(0).getLines().get(1).getNotes().size());
+      assertEquals("n3", orders.get(1).getLines().get(1).getNotes().get(0).getNote());
+    }
+  }
+
+  @Test
+  public void chunksByPrefetchBatchSize() {
+    dbTemplate.getDbConfig().setPrefetchBatchSize(200);
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm         orm    = database.createOrm();
+      List<Order> orders = orm.find(Order.class, new Sql("SELECT * FROM tb_order"));
+      orm.prefetch(orders, Line.class, "order_id", Order::getId, Order::setLines);
+      assertEquals(1 + 3, SELECTS.get());
+      assertTrue(orders.stream().allMatch(order -> order.getLines().size() == 2));
+    } finally {
+      dbTemplate.getDbConfig().setPrefetchBatchSize(1000);
+    }
+  }
+
+  @Test
+  public void emptyParentsAndUnknownField() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      assertTrue(orm.prefetch(Collections.<Order>emptyList(), Line.class, "order_id", Order::getId, Order::setLines).isEmpty());
+      assertEquals(0, SELECTS.get());
+
+      assertThrows(DBException.class,
+                   () -> orm.prefetch(Collections.singletonList(new Order(1L)), Line.class, "missing", Order::getId, Order::setLines));
+    }
+  }
+
+  @Table(value = "tb_order", strategy = GenerationType.ASSIGNED)
+  public static class Order {
+
+    @Column
+    @PrimaryKey
+    private Long          id;
+    private List<Line>    lines;
+    private List<Payment> payments;
+
+    public Order() {}
+
+    public Order(Long id) {
+      this.id = id;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public List<Line> getLines() {
+      return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+      this.lines = lines;
+    }
+
+    public List<Payment> getPayments() {
+      return payments;
+    }
+
+    public void setPayments(List<Payment> payments) {
+      this.payments = payments;
+    }
+  }
+
+  @Table(value = "tb_order_line", strategy = GenerationType.ASSIGNED)
+  public static class Line {
+
+    @Column
+    @PrimaryKey
+    private Long       id;
+    @Column
+    private Long       orderId;
+    @Column
+    private String     sku;
+    private List<Note> notes;
+
+    public Line() {}
+
+    public Line(Long id, Long orderId, String sku) {
+      this.id = id;
+      this.orderId = orderId;
+      this.sku = sku;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Long getOrderId() {
+      return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+      this.orderId = orderId;
+    }
+
+    public String getSku() {
+      return sku;
+    }
+
+    public void setSku(String sku) {
+      this.sku = sku;
+    }
+
+    public List<Note> getNotes() {
+      return notes;
+    }
+
+    public void setNotes(List<Note> notes) {
+      this.notes = notes;
+    }
+  }
+
+  /**
+   * 外键为 Integer 类型，与 Long 类型的订单主键匹配
+   */
+  @Table(value = "tb_payment", strategy = GenerationType.ASSIGNED)
+  public static class Payment {
+
+    @Column
+    @PrimaryKey
+    private Long    id;
+    @Column
+    private Integer orderId;
+    @Column
+    private Integer amount;
+
+    public Payment() {}
+
+    public Payment(Long id, Integer orderId, Integer amount) {
+      this.id = id;
+      this.orderId = orderId;
+      this.amount = amount;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Integer getOrderId() {
+      return orderId;
+    }
+
+    public void setOrderId(Integer orderId) {
+      this.orderId = orderId;
+    }
+
+    public Integer getAmount() {
+      return amount;
+    }
+
+    public void setAmount(Integer amount) {
+      this.amount = amount;
+    }
+  }
+
+  @Table(value = "tb_line_note", strategy = GenerationType.ASSIGNED)
+  public static class Note {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private Long   lineId;
+    @Column
+    private String note;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Long getLineId() {
+      return lineId;
+    }
+
+    public void setLineId(Long lineId) {
+      this.lineId = lineId;
+    }
+
+    public String getNote() {
+      return note;
+    }
+
+    public void setNote(String note) {
+      this.note = note;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package work.myfavs.framework.orm.orm;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.CountingDataSource;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class ProjectionTest extends AbstractH2Test {
+
+  private static final List<String> SELECTS = new CopyOnWriteArrayList<>();
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate("projection", CountingDataSource.wrap(createDataSource("projection"), SELECTS::add));
+    // 宽表：content 为实体未映射的大字段
+    execute(dbTemplate,
+            "CREATE TABLE tb_article (id BIGINT PRIMARY KEY, title VARCHAR(32), author VARCHAR(32), content CLOB)",
+            "INSERT INTO tb_article (id, title, author, content) VALUES (1, 't1', 'a1', 'c1'), (2, 't2', 'a2', 'c2')",
+            "CREATE TABLE tb_keyword (id BIGINT PRIMARY KEY, \"ORDER\" INT, \"KEY\" VARCHAR(32))",
+            "INSERT INTO tb_keyword (id, \"ORDER\", \"KEY\") VALUES (1, 10, 'k1')");
+  }
+
+  @Before
+  public void setUp() {
+    SELECTS.clear();
+  }
+
+  @Test
+  public void entityReadsSelectMappedColumnsOnly() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      assertEquals("t1", orm.getById(Article.class, 1L).getTitle());
+      assertEquals(2, orm.findByIds(Article.class, Arrays.asList(1L, 2L)).size());
+      assertEquals("a2", orm.findByCond(Article.class, Cond.eq("title", "t2")).get(0).getAuthor());
+    }
+
+    assertEquals(3, SELECTS.size());
+    for (String sql : SELECTS) {
+      assertTrue(sql, sql.startsWith("SELECT id, title, author FROM tb_article"));
+    }
+  }
+
+  @Test
+  public void selectMapsOnlyGivenColumns() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm           orm      = database.createOrm();
+      List<Article> articles = orm.find(Article.class, orm.select(Article.class, "id", "TITLE").where(Cond.eq("id", 2L)));
+
+      assertEquals(1, articles.size());
+      assertEquals(Long.valueOf(2L), articles.get(0).getId());
+      assertEquals("t2", articles.get(0).getTitle());
+      assertNull(articles.get(0).getAuthor());
+      assertEquals("SELECT id, title FROM tb_article WHERE id = ?", SELECTS.get(0));
+
+      assertEquals("SELECT id, title, author FROM tb_article", orm.select(Article.class).toString());
+      assertThrows(DBException.class, () -> orm.select(Article.class, "content"));
+    }
+  }
+
+  @Test
+  public void reservedWordColumnsAreQuoted() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm     orm     = database.createOrm();
+      Keyword keyword = orm.getById(Keyword.class, 1L);
+      assertEquals(Integer.valueOf(10), keyword.getOrder());
+      assertEquals("k1", keyword.getKey());
+
+      List<Keyword> keywords = orm.find(Keyword.class, orm.select(Keyword.class, "id", "order"));
+      assertEquals(Integer.valueOf(10), keywords.get(0).getOrder());
+      assertNull(keywords.get(0).getKey());
+    }
+    assertEquals("SELECT id, `order`, `key` FROM tb_keyword WHERE id = ?", SELECTS.get(0));
+  }
+
+  @Table(value = "tb_article", strategy = GenerationType.ASSIGNED)
+  public static class Article {
+
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String title;
+    @Column
+    private String author;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getTitle() {
+      return title;
+    }
+
+    public void setTitle(String title) {
+      this.title = title;
+    }
+
+    public String getAuthor() {
+      return author;
+    }
+
+    public void setAuthor(String author) {
+      this.author = author;
+    }
+  }
+
+  @Table(value = "tb_keyword", strategy = GenerationType.ASSIGNED)
+  public static class Keyword {
+
+    @Column
+    @PrimaryKey
+    private Long    id;
+    @Column
+    private Integer order;
+    @Column
+    private String  key;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Integer getOrder() {
+      return order;
+    }
+
+    public void setOrder(Integer order) {
+      this.order = order;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public void setKey(String key) {
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package work.myfavs.framework.orm.orm;
+
+import org.junit.Before;
+import org.junit.Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.meta.pagination.Page;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用内存数据源断言常用操作与数据库的往返次数，防止性能退化
+ */
+public class RoundTripTest {
+
+  private static final String[] COLUMNS = {"id", "name", "amount"};
+
+  private InMemoryDataSource dataSource;
+  private DBTemplate         dbTemplate;
+
+  @Table(value = "tb_round_trip", strategy = GenerationType.ASSIGNED)
+  public static class RoundTrip {
+    @Column
+    @PrimaryKey
+    private Long       id;
+    @Column
+    private String     name;
+    @Column
+    private BigDecimal amount;
+
+    public RoundTrip() {}
+
+    RoundTrip(Long id) {
+      this.id = id;
+      this.name = "name-" + id;
+      this.amount = BigDecimal.valueOf(id);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    dataSource = new InMemoryDataSource().autoCommit(false).result(COLUMNS, rows(100));
+    dbTemplate = new DBTemplate.Builder("round-trip-" + System.nanoTime())
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2).setBatchSize(1000))
+        .build();
+  }
+
+  @Test
+  public void findUsesSingleRoundTrip() {
+    final List<RoundTrip> entities;
+    try (Database database = dbTemplate.createDatabase()) {
+      entities = database.createOrm().find(RoundTrip.class, new Sql("SELECT id, name, amount FROM tb_round_trip WHERE id > ?", 0));
+    }
+
+    assertEquals(100, entities.size());
+    assertEquals(BigDecimal.valueOf(100), entities.get(99).amount);
+    assertEquals(1, dataSource.getConnections());
+    assertEquals(0, dataSource.getOpenConnections());
+    assertEquals(1, dataSource.getStatements());
+    assertEquals(1, dataSource.getRoundTrips());
+    assertEquals(100, dataSource.getRows());
+    assertEquals(1, dataSource.getCommits());
+
+    // 参数在执行前绑定，结果集读取 100 行后关闭
+    final List<InMemoryDataSource.Call> calls = dataSource.getCalls();
+    assertEquals(1, dataSource.getCalls("setObject").size() + dataSource.getCalls("setInt").size());
+    assertTrue(indexOf(calls, "prepareStatement") < indexOf(calls, "executeQuery"));
+    assertEquals(101, dataSource.getCalls("next").size());
+    assertEquals(1, dataSource.getCalls("close").stream().filter(call -> call.getType() == ResultSet.class).count());
+  }
+
+  @Test
+  public void scriptsResultsBySql() {
+    dataSource.result(sql -> sql.startsWith("SELECT COUNT"), new String[]{"cnt"}, new Object[][]{{250L}});
+
+    final Page<Record> page;
+    try (Database database = dbTemplate.createDatabase()) {
+      page = database.createOrm().findRecordsPage(new Sql("SELECT id, name, amount FROM tb_round_trip"), true, 1, 100);
+    }
+
+    assertEquals(250, page.getTotalRecords());
+    assertEquals(100, page.getData().size());
+    assertEquals(2, dataSource.getRoundTrips());
+    assertEquals(2, dataSource.getPreparedSql().size());
+  }
+
+  @Test
+  public void batchCreateUsesOneRoundTripPerBatch() {
+    final List<RoundTrip> entities = new ArrayList<>();
+    for (long id = 1; id <= 2500; id++) {
+      entities.add(new RoundTrip(id));
+    }
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().create(RoundTrip.class, entities);
+    }
+
+    assertEquals(1, dataSource.getStatements());
+    assertEquals(2500, dataSource.getBatches());
+    assertEquals(3, dataSource.getRoundTrips());
+    assertEquals(1, dataSource.getCommits());
+  }
+
+  @Test
+  public void explicitRollback() {
+    dataSource.recordCalls(false);
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().execute(new Sql("UPDATE tb_round_trip SET name = ?", "a"));
+      database.rollback();
+    }
+
+    assertTrue(dataSource.getCalls().isEmpty());
+    assertEquals(1, dataSource.getRoundTrips());
+    // 显式回滚 1 次，释放连接时提交后再回滚 1 次
+    assertEquals(2, dataSource.getRollbacks());
+    assertEquals(0, dataSource.getOpenConnections());
+  }
+
+  private static Object[][] rows(int count) {
+    final Object[][] rows = new Object[count][];
+    for (int i = 0; i < count; i++) {
+      rows[i] = new Object[]{(long) i + 1, "name-" + (i + 1), BigDecimal.valueOf(i + 1)};
+    }
+    return rows;
+  }
+
+  private static int indexOf(List<InMemoryDataSource.Call> calls, String method) {
+    for (int i = 0; i < calls.size(); i++) {
+      if (calls.get(i).getMethod().equals(method)) return i;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,327 @@
+package work.myfavs.framework.orm.partition;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PartitionKey;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TableRouterTest extends AbstractH2Test {
+
+  private static final String[] LOG_TABLES  = {"tb_log_202401", "tb_log_202402", "tb_log_202403"};
+  private static final String[] USER_TABLES = {"tb_user_0", "tb_user_1", "tb_user_2"};
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate(new DBTemplate.Builder("table-router")
+                                      .dataSource(createDataSource("table_router"))
+                                      .tableRouter(Log.class, DateTableRouter.monthly())
+                                      .tableRouter(User.class, new HashTableRouter(USER_TABLES.length)),
+                                  config -> { });
+    for (String table : LOG_TABLES) {
+      execute(dbTemplate, "CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, created TIMESTAMP, message VARCHAR(32))");
+    }
+    for (String table : USER_TABLES) {
+      execute(dbTemplate, "CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, name VARCHAR(32))");
+    }
+  }
+
+  @Before
+  public void setUp() {
+    for (String table : LOG_TABLES) {
+      execute(dbTemplate, "DELETE FROM " + table);
+    }
+    for (String table : USER_TABLES) {
+      execute(dbTemplate, "DELETE FROM " + table);
+    }
+  }
+
+  private static long count(String table) {
+    try (Database database = dbTemplate.createDatabase()) {
+      return database.createOrm().count(new Sql("SELECT * FROM " + table));
+    }
+  }
+
+  private static Date date(int year, int month, int day) {
+    return Timestamp.valueOf(LocalDateTime.of(year, month, day, 12, 0));
+  }
+
+  @Test
+  public void dateRouter() {
+    DateTableRouter monthly = DateTableRouter.monthly();
+    assertEquals("tb_log_202410", monthly.route("tb_log", LocalDate.of(2024, 10, 31)));
+    assertEquals("tb_log_202410", monthly.route("tb_log", LocalDateTime.of(2024, 10, 1, 0, 0)));
+    assertEquals(Arrays.asList("tb_log_202411", "tb_log_202412", "tb_log_202501"),
+                 monthly.routeRange("tb_log", LocalDate.of(2024, 11, 30), LocalDate.of(2025, 1, 1)));
+
+    assertEquals(Arrays.asList("tb_log_20241231", "tb_log_20250101"),
+                 DateTableRouter.daily().routeRange("tb_log", LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 1)));
+    assertEquals("tb_log_2024", DateTableRouter.yearly().route("tb_log", LocalDate.of(2024, 6, 1)));
+  }
+
+  @Test(expected = DBException.class)
+  public void dateRouterRejectsNonDate() {
+    DateTableRouter.monthly().route("tb_log", "2024-10-01");
+  }
+
+  @Test
+  public void hashRouter() {
+    HashTableRouter router = new HashTableRouter(4);
+    assertEquals("tb_user_1", router.route("tb_user", 5L));
+    assertEquals("tb_user_3", router.route("tb_user", -1));
+    assertEquals(4, router.routeRange("tb_user", null, null).size());
+  }
+
+  @Test
+  public void batchCreateSplitsAcrossTables() {
+    List<Log> logs = Arrays.asList(new Log(date(2024, 1, 5), "a"),
+                                   new Log(date(2024, 2, 5), "b"),
+                                   new Log(date(2024, 1, 20), "c"),
+                                   new Log(date(2024, 3, 1), "d"));
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(4, database.createOrm().create(Log.class, logs));
+      database.commit();
+    }
+
+    assertEquals(2L, count("tb_log_202401"));
+    assertEquals(1L, count("tb_log_202402"));
+    assertEquals(1L, count("tb_log_202403"));
+  }
+
+  @Test
+  public void updateAndDeleteRouteByPartitionKey() {
+    Log log = new Log(date(2024, 2, 10), "before");
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      orm.create(Log.class, log);
+
+      log.setMessage("after");
+      assertEquals(1, orm.update(Log.class, log));
+      assertEquals("after", orm.get(Log.class, new Sql("SELECT * FROM tb_log_202402")).getMessage());
+
+      assertEquals(1, orm.delete(Log.class, log));
+      database.commit();
+    }
+    assertEquals(0L, count("tb_log_202402"));
+  }
+
+  @Test
+  public void rangeQueryOnlyTouchesCoveredTables() {
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().create(Log.class, Arrays.asList(new Log(date(2024, 1, 5), "a"),
+                                                            new Log(date(2024, 2, 5), "b"),
+                                                            new Log(date(2024, 2, 25), "c"),
+                                                            new Log(date(2024, 3, 5), "d")));
+      database.commit();
+    }
+    // 2024-04 的物理表不存在，范围只覆盖 01 ~ 02 时不会访问到
+    List<Log> logs = dbTemplate.createAsyncOrm()
+                               .findByRange(Log.class, date(2024, 1, 1), date(2024, 2, 28), null)
+                               .join();
+    assertEquals(3, logs.size());
+    assertEquals("a", logs.get(0).getMessage());
+
+    long count = dbTemplate.createAsyncOrm()
+                           .countByRange(Log.class, date(2024, 2, 1), date(2024, 3, 31), Cond.ne("message", "c"))
+                           .join();
+    assertEquals(2L, count);
+  }
+
+  @Test
+  public void primaryKeyPartitionRoutesById() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      for (long id = 1; id <= 6; id++) {
+        User user = new User();
+        user.setId(id);
+        user.setName("user-" + id);
+        orm.create(User.class, user);
+      }
+
+      assertEquals("user-4", orm.getById(User.class, 4L).getName());
+      assertEquals(3, orm.findByIds(User.class, Arrays.asList(1L, 2L, 3L)).size());
+      assertEquals(1, orm.deleteById(User.class, 5L));
+      assertNull(orm.getById(User.class, 5L));
+      database.commit();
+    }
+
+    assertEquals(2L, count("tb_user_0"));
+    assertEquals(2L, count("tb_user_1"));
+    assertEquals(1L, count("tb_user_2"));
+  }
+
+  @Test
+  public void unroutableOperationsScatterAcrossTables() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      for (long id = 1; id <= 6; id++) {
+        User user = new User();
+        user.setId(id);
+        user.setName(id % 2 == 0 ? "even" : "odd");
+        orm.create(User.class, user);
+      }
+
+      assertEquals(3, orm.findByCond(User.class, Cond.eq("name", "even")).size());
+      assertEquals(3L, orm.countByCond(User.class, Cond.eq("name", "odd")));
+      assertEquals(2, orm.findByField(User.class, "id", Arrays.asList(2L, 3L)).size());
+      assertNotNull(orm.getByField(User.class, "name", "odd"));
+
+      User existing = new User();
+      existing.setId(4L);
+      assertTrue(orm.exists(User.class, existing));
+
+      assertEquals(3, orm.deleteByIds(User.class, Arrays.asList(1L, 2L, 3L)));
+      assertEquals(2, orm.deleteByCond(User.class, Cond.eq("name", "even")));
+      database.commit();
+    }
+
+    assertEquals(0L, count("tb_user_0"));
+    assertEquals(0L, count("tb_user_1"));
+    assertEquals(1L, count("tb_user_2"));
+  }
+
+  @Test
+  public void unroutableOperationsRejectedWithoutTableList() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      try {
+        orm.findByCond(Log.class, Cond.eq("message", "a"));
+        fail();
+      } catch (DBException ignored) {
+      }
+      try {
+        orm.deleteByIds(Log.class, Arrays.asList(1L, 2L));
+        fail();
+      } catch (DBException ignored) {
+      }
+    }
+  }
+
+  @Test
+  public void condOnPartitionKeyOnlyTouchesCoveredTables() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      orm.create(Log.class, Arrays.asList(new Log(date(2024, 1, 5), "a"),
+                                          new Log(date(2024, 2, 5), "b"),
+                                          new Log(date(2024, 2, 25), "c")));
+
+      // 2024-04 的物理表不存在，条件只覆盖 01 ~ 02 时不会访问到
+      assertEquals(3, orm.findByCond(Log.class, Cond.between("created", date(2024, 1, 1), date(2024, 2, 28))).size());
+      assertEquals(2L, orm.countByCond(Log.class, Cond.ge("created", date(2024, 2, 1))
+                                                      .and(Cond.lt("created", date(2024, 3, 1)))));
+      assertEquals(2, orm.findByCond(Log.class, Cond.in("created", Arrays.asList(date(2024, 1, 5), date(2024, 2, 5))))
+                         .size());
+      assertEquals(1, orm.deleteByCond(Log.class, Cond.eq("created", date(2024, 2, 25))
+                                                      .and(Cond.eq("message", "c"))));
+      database.commit();
+    }
+    assertEquals(1L, count("tb_log_202402"));
+  }
+
+  @Test
+  public void boundedDateRouterListsAllTables() {
+    assertEquals(Arrays.asList(LOG_TABLES),
+                 DateTableRouter.monthly().bounded(date(2024, 1, 1), date(2024, 3, 31)).routeAll("tb_log"));
+    try {
+      DateTableRouter.monthly().routeAll("tb_log");
+      fail();
+    } catch (DBException e) {
+      assertTrue(e.getMessage().contains("bounded"));
+    }
+  }
+
+  @Table(value = "tb_log", strategy = GenerationType.SNOW_FLAKE)
+  public static class Log {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "created")
+    @PartitionKey
+    private Date created;
+
+    @Column(value = "message")
+    private String message;
+
+    public Log() {
+    }
+
+    public Log(Date created, String message) {
+      this.created = created;
+      this.message = message;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Date getCreated() {
+      return created;
+    }
+
+    public void setCreated(Date created) {
+      this.created = created;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public void setMessage(String message) {
+      this.message = message;
+    }
+  }
+
+  @Table(value = "tb_user", strategy = GenerationType.ASSIGNED)
+  public static class User {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "name")
+    private String name;
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package work.myfavs.framework.orm.replica;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRouterTest extends AbstractH2Test {
+
+  private static final Sql SELECT_SOURCE = new Sql("SELECT source FROM tb_rw");
+
+  private static DataSource primary;
+  private static DataSource replica;
+
+  @BeforeClass
+  public static void beforeClass() {
+    primary = createDataSource("rw_primary");
+    replica = createDataSource("rw_replica");
+    init(primary, "primary");
+    init(replica, "replica");
+  }
+
+  private static void init(DataSource dataSource, String source) {
+    execute(createDBTemplate("rw-init-" + source, dataSource),
+            "CREATE TABLE tb_rw (id INT PRIMARY KEY, source VARCHAR(16))",
+            "INSERT INTO tb_rw (id, source) VALUES (1, '" + source + "')");
+  }
+
+  private static String readSource(Database database) {
+    return database.createOrm().getRecord(SELECT_SOURCE).values().iterator().next().toString();
+  }
+
+  @Test
+  public void replicaReadsDoNotAcquirePrimaryConnection() throws SQLException {
+    DataSource primarySpy = spy(primary);
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-lazy").dataSource(primarySpy).replica(replica),
+                                             config -> { });
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("replica", readSource(database));
+      assertEquals("replica", readSource(database));
+      database.commit();
+    }
+    verify(primarySpy, never()).getConnection();
+
+    // 第一次写操作时获取主库连接，之后的查询在同一连接上执行
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().execute(new Sql("UPDATE tb_rw SET source = source WHERE id = 1"));
+      assertEquals("primary", readSource(database));
+      database.commit();
+    }
+    verify(primarySpy, times(1)).getConnection();
+  }
+
+  @Test
+  public void readFromReplica() {
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-read").dataSource(primary).replica(replica),
+                                             config -> { });
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("replica", readSource(database));
+      String inTx = database.tx(orm -> {
+        return readSource(database);
+      });
+      assertEquals("primary", inTx);
+    }
+  }
+
+  @Test
+  public void readAfterWriteOnSameConnection() {
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-write").dataSource(primary).replica(replica),
+                                             config -> { });
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().execute(new Sql("UPDATE tb_rw SET source = source WHERE id = 1"));
+      assertEquals("primary", readSource(database));
+      database.commit();
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("replica", readSource(database));
+    }
+  }
+
+  @Test
+  public void readYourWrites() {
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-ryw").dataSource(primary).replica(replica),
+                                             config -> config.setReadYourWritesMillis(60_000));
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("replica", readSource(database));
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().execute(new Sql("UPDATE tb_rw SET source = source WHERE id = 1"));
+      database.commit();
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("primary", readSource(database));
+    }
+  }
+
+  @Test
+  public void ejectUnhealthyReplica() throws SQLException {
+    DataSource broken = mock(DataSource.class);
+    when(broken.getConnection()).thenThrow(new SQLException("replica down"));
+
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-eject").dataSource(primary).replica(broken),
+                                             config -> config.setReplicaMaxFailures(2));
+    Replica brokenReplica = dbTemplate.getReplicaRouter().getReplicas().get(0);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals("primary", readSource(database));
+      assertTrue(brokenReplica.isHealthy());
+      assertEquals("primary", readSource(database));
+      assertFalse(brokenReplica.isHealthy());
+      assertNull(database.selectReplica());
+    }
+  }
+
+  @Test
+  public void propagateNonConnectionFailure() {
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-syntax").dataSource(primary).replica(replica),
+                                             config -> config.setReplicaMaxFailures(1));
+    Replica replicaOnly = dbTemplate.getReplicaRouter().getReplicas().get(0);
+
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().getRecord(new Sql("SELECT missing_column FROM tb_rw"));
+      fail();
+    } catch (DBException ignored) {
+    }
+    assertTrue(replicaOnly.isHealthy());
+  }
+
+  @Test
+  public void connectionFailure() {
+    assertTrue(ReplicaRouter.isConnectionFailure(new SQLException("refused", "08S01")));
+    assertTrue(ReplicaRouter.isConnectionFailure(new SQLTransientConnectionException("timeout")));
+    assertTrue(ReplicaRouter.isConnectionFailure(new SQLException("wrapped", new SQLNonTransientConnectionException("closed"))));
+    assertFalse(ReplicaRouter.isConnectionFailure(new SQLException("syntax", "42000")));
+    assertFalse(ReplicaRouter.isConnectionFailure(new SQLException("unknown")));
+  }
+
+  @Test
+  public void usePrimary() {
+    DBTemplate dbTemplate = createDBTemplate(new DBTemplate.Builder("rw-primary").dataSource(primary).replica(replica),
+                                             config -> { });
+
+    try (Database database = dbTemplate.createDatabase().usePrimary()) {
+      assertEquals("primary", readSource(database));
+    }
+    assertEquals("primary", dbTemplate.createAsyncOrm().tx(orm -> {
+      return orm.getRecord(SELECT_SOURCE).values().iterator().next().toString();
+    }).join());
+    assertEquals("replica", dbTemplate.createAsyncOrm().findRecords(SELECT_SOURCE).join()
+                                      .get(0).values().iterator().next().toString());
+  }
+
+  @Test
+  public void preferLowerLatency() {
+    Replica fast = new Replica(replica, 1);
+    Replica slow = new Replica(replica, 1);
+    fast.success(1_000L);
+    slow.success(1_000_000L);
+
+    DBTemplate dbTemplate = createDBTemplate("rw-latency", primary);
+    ReplicaRouter router = new ReplicaRouter(List.of(fast, slow), dbTemplate.getDbConfig());
+
+    int fastCount = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (router.select(null) == fast) fastCount++;
+    }
+    // 两次随机选择中任意一次选中 fast 即使用 fast，期望约 75%
+    assertTrue(fastCount > 650);
+  }
+}
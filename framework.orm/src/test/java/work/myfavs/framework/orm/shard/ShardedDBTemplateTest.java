@@ -0,0 +1,222 @@
+package work.myfavs.framework.orm.shard;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.ShardKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Cond;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ShardedDBTemplateTest extends AbstractH2Test {
+
+  private static final Sql COUNT_ALL = new Sql("SELECT * FROM tb_shard_order");
+
+  private static ShardedDBTemplate sharded;
+
+  @BeforeClass
+  public static void beforeClass() {
+    sharded = new ShardedDBTemplate.Builder()
+        .shard(createDBTemplate("shard-0", createDataSource("shard_0")))
+        .shard(createDBTemplate("shard-1", createDataSource("shard_1")))
+        .build();
+    for (int index = 0; index < sharded.getShardCount(); index++) {
+      execute(sharded.getShard(index), "CREATE TABLE tb_shard_order (id BIGINT NOT NULL PRIMARY KEY, user_id BIGINT, amount BIGINT)");
+    }
+  }
+
+  @Before
+  public void setUp() {
+    for (int index = 0; index < sharded.getShardCount(); index++) {
+      execute(sharded.getShard(index), "DELETE FROM tb_shard_order");
+    }
+  }
+
+  private static long countOnShard(int index) {
+    return sharded.getShard(index).createAsyncOrm().count(COUNT_ALL).join();
+  }
+
+  @Test
+  public void createRoutesByShardKey() {
+    sharded.create(ShardOrder.class, new ShardOrder(10L, 1L));
+    sharded.create(ShardOrder.class, new ShardOrder(11L, 2L));
+    sharded.create(ShardOrder.class, new ShardOrder(12L, 3L));
+
+    assertEquals(2L, countOnShard(0));
+    assertEquals(1L, countOnShard(1));
+  }
+
+  @Test
+  public void snowflakeIdCarriesShardHint() {
+    List<ShardOrder> orders = new ArrayList<>();
+    for (long userId = 0; userId < 20; userId++) {
+      orders.add(new ShardOrder(userId, userId));
+    }
+    assertEquals(20, sharded.create(ShardOrder.class, orders));
+
+    for (ShardOrder order : orders) {
+      assertNotNull(order.getId());
+      assertEquals(order.getUserId() % 2, order.getId() & 1L);
+
+      ShardOrder found = sharded.getById(ShardOrder.class, order.getId());
+      assertNotNull(found);
+      assertEquals(order.getUserId(), found.getUserId());
+    }
+    assertEquals(10L, countOnShard(0));
+    assertEquals(10L, countOnShard(1));
+  }
+
+  @Test
+  public void findByIdsGroupsByShard() {
+    ShardOrder first  = new ShardOrder(1L, 1L);
+    ShardOrder second = new ShardOrder(2L, 2L);
+    sharded.create(ShardOrder.class, Arrays.asList(first, second));
+
+    List<ShardOrder> found = sharded.findByIds(ShardOrder.class, Arrays.asList(first.getId(), second.getId()));
+    assertEquals(2, found.size());
+  }
+
+  @Test
+  public void scatterGatherCount() {
+    for (long userId = 0; userId < 7; userId++) {
+      sharded.create(ShardOrder.class, new ShardOrder(userId, userId * 10));
+    }
+
+    assertEquals(7L, sharded.count(COUNT_ALL));
+    assertEquals(3L, sharded.countByCond(ShardOrder.class, Cond.ge("amount", 40L)));
+    assertEquals(3, sharded.findByCond(ShardOrder.class, Cond.ge("amount", 40L)).size());
+  }
+
+  @Test
+  public void findMergesOrderedResults() {
+    for (long userId = 0; userId < 9; userId++) {
+      sharded.create(ShardOrder.class, new ShardOrder(userId, (userId * 7) % 9));
+    }
+
+    Sql                    sql        = new Sql("SELECT * FROM tb_shard_order ORDER BY amount");
+    Comparator<ShardOrder> comparator = Comparator.comparing(ShardOrder::getAmount);
+
+    List<ShardOrder> all = sharded.find(ShardOrder.class, sql, comparator);
+    assertEquals(9, all.size());
+    for (int index = 0; index < all.size(); index++) {
+      assertEquals(Long.valueOf(index), all.get(index).getAmount());
+    }
+
+    List<ShardOrder> top = sharded.findTop(ShardOrder.class, 3, sql, comparator);
+    assertEquals(3, top.size());
+    assertEquals(Long.valueOf(2L), top.get(2).getAmount());
+  }
+
+  @Test
+  public void deleteById() {
+    ShardOrder order = new ShardOrder(3L, 30L);
+    sharded.create(ShardOrder.class, order);
+
+    assertEquals(1, sharded.deleteById(ShardOrder.class, order.getId()));
+    assertNull(sharded.getById(ShardOrder.class, order.getId()));
+    assertEquals(0L, sharded.count(COUNT_ALL));
+  }
+
+  @Test
+  public void assignedIdFallsBackWhenHintMisses() {
+    // 调用方指定的主键低位为 0，但按分片键路由到分片 1
+    ShardOrder order = new ShardOrder(1L, 10L);
+    order.setId(1000L);
+    sharded.create(ShardOrder.class, order);
+    assertEquals(1L, countOnShard(1));
+
+    assertNotNull(sharded.getById(ShardOrder.class, 1000L));
+    assertEquals(1, sharded.findByIds(ShardOrder.class, Arrays.asList(1000L)).size());
+    assertEquals(1, sharded.deleteById(ShardOrder.class, 1000L));
+    assertEquals(0L, sharded.count(COUNT_ALL));
+  }
+
+  @Test
+  public void updateRoutesToOwningShard() {
+    ShardOrder order = new ShardOrder(5L, 50L);
+    sharded.create(ShardOrder.class, order);
+
+    order.setAmount(55L);
+    assertEquals(1, sharded.update(ShardOrder.class, order));
+    assertEquals(Long.valueOf(55L), sharded.getById(ShardOrder.class, order.getId()).getAmount());
+  }
+
+  @Test
+  public void scatterReadsUseShardReplicas() {
+    DataSource primary = createDataSource("shard_rw_primary");
+    DataSource replica = createDataSource("shard_rw_replica");
+    for (DataSource dataSource : Arrays.asList(primary, replica)) {
+      execute(createDBTemplate("shard-rw-init-" + dataSource.hashCode(), dataSource),
+              "CREATE TABLE tb_shard_order (id BIGINT NOT NULL PRIMARY KEY, user_id BIGINT, amount BIGINT)");
+    }
+    // 只在只读副本中存在的记录，查询在主库上执行时读不到
+    execute(createDBTemplate("shard-rw-replica", replica), "INSERT INTO tb_shard_order (id, user_id, amount) VALUES (1, 1, 10)");
+
+    ShardedDBTemplate replicated = new ShardedDBTemplate.Builder()
+        .shard(createDBTemplate(new DBTemplate.Builder("shard-rw").dataSource(primary).replica(replica), config -> { }))
+        .build();
+    assertEquals(1, replicated.findByCond(ShardOrder.class, Cond.eq("amount", 10L)).size());
+    assertEquals(1L, replicated.countByCond(ShardOrder.class, Cond.eq("amount", 10L)));
+    assertEquals(1, replicated.findTop(ShardOrder.class, 1, COUNT_ALL, Comparator.comparing(ShardOrder::getId)).size());
+  }
+
+  @Table(value = "tb_shard_order", strategy = GenerationType.SNOW_FLAKE)
+  public static class ShardOrder {
+
+    @Column(value = "id")
+    @PrimaryKey
+    private Long id;
+
+    @Column(value = "user_id")
+    @ShardKey
+    private Long userId;
+
+    @Column(value = "amount")
+    private Long amount;
+
+    public ShardOrder() {
+    }
+
+    public ShardOrder(Long userId, Long amount) {
+      this.userId = userId;
+      this.amount = amount;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public Long getUserId() {
+      return userId;
+    }
+
+    public void setUserId(Long userId) {
+      this.userId = userId;
+    }
+
+    public Long getAmount() {
+      return amount;
+    }
+
+    public void setAmount(Long amount) {
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package work.myfavs.framework.orm.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.InMemoryDataSource;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.orm.Orm;
+import work.myfavs.framework.orm.orm.impl.AbstractOrm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OpenTelemetryTracerTest {
+
+  private static final String   SQL     = "SELECT id, name FROM tb_trace WHERE id > 10";
+  private static final String[] COLUMNS = {"id", "name"};
+
+  private InMemorySpanExporter exporter;
+  private SdkTracerProvider    tracerProvider;
+  private InMemoryDataSource   dataSource;
+
+  @Table(value = "tb_trace", strategy = GenerationType.ASSIGNED)
+  public static class Trace {
+    @Column
+    @PrimaryKey
+    private Long   id;
+    @Column
+    private String name;
+
+    public Trace() {}
+
+    Trace(long id) {
+      this.id = id;
+      this.name = "name-" + id;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    exporter = InMemorySpanExporter.create();
+    dataSource = new InMemoryDataSource().recordCalls(false).result(COLUMNS, new Object[][]{{11L, "a"}, {12L, "b"}, {13L, "c"}});
+  }
+
+  @After
+  public void tearDown() {
+    if (null != tracerProvider) tracerProvider.close();
+  }
+
+  @Test
+  public void tracesOrmOperationAndStatement() {
+    final DBTemplate dbTemplate = template("trace-find", Sampler.alwaysOn());
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(3, database.createOrm().find(Trace.class, new Sql(SQL)).size());
+    }
+
+    final SpanData statement = span("SELECT");
+    assertEquals(SpanKind.CLIENT, statement.getKind());
+    assertEquals("h2", statement.getAttributes().get(OpenTelemetryTracer.DB_SYSTEM));
+    assertEquals("SELECT", statement.getAttributes().get(OpenTelemetryTracer.DB_OPERATION));
+    assertEquals(SQL, statement.getAttributes().get(OpenTelemetryTracer.DB_STATEMENT));
+    assertEquals("SELECT id, name FROM tb_trace WHERE id > ?", statement.getAttributes().get(OpenTelemetryTracer.FINGERPRINT));
+    assertEquals("trace-find", statement.getAttributes().get(OpenTelemetryTracer.DATASOURCE));
+    assertEquals("find", statement.getAttributes().get(OpenTelemetryTracer.OPERATION));
+    assertEquals(Long.valueOf(3), statement.getAttributes().get(OpenTelemetryTracer.ROWS));
+
+    final SpanData operation = span("Orm.find");
+    assertEquals(SpanKind.INTERNAL, operation.getKind());
+    assertEquals(Trace.class.getName(), operation.getAttributes().get(OpenTelemetryTracer.MODEL));
+    assertEquals(Long.valueOf(3), operation.getAttributes().get(OpenTelemetryTracer.ROWS));
+    assertEquals(operation.getSpanId(), statement.getParentSpanId());
+    assertEquals(operation.getTraceId(), statement.getTraceId());
+  }
+
+  @Test
+  public void tracesBatchSize() {
+    final DBTemplate dbTemplate = template("trace-batch", Sampler.alwaysOn());
+
+    final List<Trace> entities = new ArrayList<>();
+    for (long id = 1; id <= 5; id++) {
+      entities.add(new Trace(id));
+    }
+    try (Database database = dbTemplate.createDatabase()) {
+      database.createOrm().create(Trace.class, entities);
+    }
+
+    final SpanData statement = span("INSERT");
+    assertEquals("executeBatch", statement.getAttributes().get(OpenTelemetryTracer.OPERATION));
+    assertEquals(Long.valueOf(5), statement.getAttributes().get(OpenTelemetryTracer.BATCH_SIZE));
+    assertEquals(span("Orm.create").getSpanId(), statement.getParentSpanId());
+  }
+
+  @Test
+  public void propagatesContextToAsyncOrm() {
+    final DBTemplate dbTemplate = template("trace-async", Sampler.alwaysOn());
+
+    final Span parent = tracerProvider.get("test").spanBuilder("request").startSpan();
+    try (Scope ignored = parent.makeCurrent()) {
+      assertEquals(3, dbTemplate.createAsyncOrm().find(Trace.class, new Sql(SQL)).join().size());
+    } finally {
+      parent.end();
+    }
+
+    final SpanData operation = span("Orm.find");
+    assertEquals(parent.getSpanContext().getSpanId(), operation.getParentSpanId());
+    assertEquals(operation.getSpanId(), span("SELECT").getParentSpanId());
+  }
+
+  @Test
+  public void recordsNothingWhenNotSampled() {
+    final DBTemplate dbTemplate = template("trace-off", Sampler.alwaysOff());
+
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(3, database.createOrm().find(Trace.class, new Sql(SQL)).size());
+    }
+
+    assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    assertFalse(Span.current().getSpanContext().isValid());
+  }
+
+  @Test
+  public void noDecoratorWithoutTracer() {
+    final DBTemplate dbTemplate = new DBTemplate.Builder("trace-none")
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2))
+        .build();
+
+    assertSame(SqlTracer.NOOP, dbTemplate.getTracer());
+    try (Database database = dbTemplate.createDatabase()) {
+      final Orm orm = database.createOrm();
+      assertTrue(orm instanceof AbstractOrm);
+      assertEquals(3, orm.find(Trace.class, new Sql(SQL)).size());
+    }
+  }
+
+  private DBTemplate template(String dsName, Sampler sampler) {
+    tracerProvider = SdkTracerProvider.builder()
+                                      .setSampler(sampler)
+                                      .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                                      .build();
+    return new DBTemplate.Builder(dsName)
+        .dataSource(dataSource)
+        .tracer(new OpenTelemetryTracer(tracerProvider.get(OpenTelemetryTracer.INSTRUMENTATION_NAME)))
+        .config(config -> config.setDbType(DbType.H2).setBatchSize(2))
+        .build();
+  }
+
+  private SpanData span(String name) {
+    final List<SpanData> spans = new ArrayList<>();
+    for (SpanData span : exporter.getFinishedSpanItems()) {
+      if (span.getName().equals(name)) spans.add(span);
+    }
+    assertEquals(name, 1, spans.size());
+    return spans.get(0);
+  }
+}
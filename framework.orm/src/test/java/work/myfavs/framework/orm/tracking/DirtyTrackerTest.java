@@ -0,0 +1,290 @@
+package work.myfavs.framework.orm.tracking;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.Database;
+import work.myfavs.framework.orm.meta.Record;
+import work.myfavs.framework.orm.meta.annotation.Column;
+import work.myfavs.framework.orm.meta.annotation.PrimaryKey;
+import work.myfavs.framework.orm.meta.annotation.Table;
+import work.myfavs.framework.orm.meta.clause.Sql;
+import work.myfavs.framework.orm.meta.enumeration.GenerationType;
+import work.myfavs.framework.orm.meta.schema.ClassMeta;
+import work.myfavs.framework.orm.meta.schema.Metadata;
+import work.myfavs.framework.orm.orm.Orm;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Objects;
+
+import static org.junit.Assert.*;
+
+public class DirtyTrackerTest extends AbstractH2Test {
+
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dbTemplate = createDBTemplate("dirty-tracker", createDataSource("dirty_tracker"), config -> config.setDirtyTracking(true));
+    execute(dbTemplate, "CREATE TABLE tb_account (id BIGINT PRIMARY KEY, name VARCHAR(32), email VARCHAR(64), balance INT, created TIMESTAMP)");
+  }
+
+  @Before
+  public void setUp() {
+    execute(dbTemplate, "DELETE FROM tb_account", "INSERT INTO tb_account (id, name, email, balance) VALUES (1, 'Aa', 'a@x', 10)");
+  }
+
+  /**
+   * 模拟其他事务修改 balance 字段
+   */
+  private static void concurrentWrite() {
+    execute(dbTemplate, "UPDATE tb_account SET balance = 99 WHERE id = 1");
+  }
+
+  private static Record row() {
+    try (Database database = dbTemplate.createDatabase()) {
+      return database.createOrm().getRecord(new Sql("SELECT name, email, balance FROM tb_account WHERE id = 1"));
+    }
+  }
+
+  @Test
+  public void updateWritesOnlyChangedColumns() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm     orm     = database.createOrm();
+      Account account = orm.getById(Account.class, 1L);
+      assertTrue(DirtyTracker.isTracked(account));
+
+      // 与原值哈希相同的新值也能识别为变更
+      account.setName("BB");
+      account.setEmail(null);
+      concurrentWrite();
+
+      assertEquals(1, orm.update(Account.class, account));
+      database.commit();
+    }
+
+    Record row = row();
+    assertEquals("BB", row.getStr("NAME"));
+    assertNull(row.getObj("EMAIL"));
+    assertEquals(99, row.getInt("BALANCE").intValue());
+  }
+
+  @Test
+  public void unchangedEntitySkipsUpdate() {
+    final Account account;
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      account = orm.getById(Account.class, 1L);
+      concurrentWrite();
+      assertEquals(0, orm.update(Account.class, account));
+
+      account.setName("n1");
+      assertEquals(1, orm.update(Account.class, account));
+      database.commit();
+    }
+
+    // 提交后重新记录快照，再次更新时没有变更
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(0, database.createOrm().update(Account.class, account));
+      database.commit();
+    }
+    assertEquals(99, row().getInt("BALANCE").intValue());
+  }
+
+  @Test
+  public void rollbackRetryWritesChanges() {
+    final Account account;
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      account = orm.getById(Account.class, 1L);
+      account.setName("n1");
+      assertEquals(1, orm.update(Account.class, account));
+      database.rollback();
+    }
+    assertEquals("Aa", row().getStr("NAME"));
+
+    // 回滚后重试仍写入变更字段
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(1, database.createOrm().update(Account.class, account));
+      database.commit();
+    }
+    assertEquals("n1", row().getStr("NAME"));
+  }
+
+  @Test
+  public void implicitCommitOnCloseRefreshesSnapshot() {
+    final Account account;
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm orm = database.createOrm();
+      account = orm.getById(Account.class, 1L);
+      account.setName("B");
+      assertEquals(1, orm.update(Account.class, account));
+    }
+    // 释放连接时提交
+    assertEquals("B", row().getStr("NAME"));
+
+    account.setName("Aa");
+    try (Database database = dbTemplate.createDatabase()) {
+      assertEquals(1, database.createOrm().update(Account.class, account));
+    }
+    assertEquals("Aa", row().getStr("NAME"));
+  }
+
+  @Test
+  public void autoCommitRefreshesSnapshot() throws Exception {
+    final Account account;
+    try (Database database = dbTemplate.createDatabase()) {
+      database.getConnection().setAutoCommit(true);
+      Orm orm = database.createOrm();
+      account = orm.getById(Account.class, 1L);
+      account.setName("B");
+      assertEquals(1, orm.update(Account.class, account));
+      assertEquals(0, orm.update(Account.class, account));
+
+      account.setName("Aa");
+      assertEquals(1, orm.update(Account.class, account));
+      database.getConnection().setAutoCommit(false);
+    }
+    assertEquals("Aa", row().getStr("NAME"));
+  }
+
+  @Test
+  public void savepointRollbackStopsTracking() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm     orm     = database.createOrm();
+      Account account = orm.getById(Account.class, 1L);
+      account.setName("B");
+      assertEquals(1, orm.update(Account.class, account));
+      assertTrue(DirtyTracker.isTracked(account));
+
+      database.rollback(database.setSavepoint());
+      assertFalse(DirtyTracker.isTracked(account));
+      database.commit();
+    }
+  }
+
+  @Test
+  public void untrackedEntityWritesAllColumns() {
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm     orm     = database.createOrm();
+      Account account = new Account(1L, "n1", "e1", 10);
+      assertFalse(DirtyTracker.isTracked(account));
+      concurrentWrite();
+      assertEquals(1, orm.update(Account.class, account));
+      database.commit();
+    }
+    assertEquals(10, row().getInt("BALANCE").intValue());
+
+    try (Database database = dbTemplate.createDatabase()) {
+      Orm     orm     = database.createOrm();
+      Account account = orm.getById(Account.class, 1L);
+      account.setName("n2");
+      orm.updateIgnoreNull(Account.class, account);
+      assertFalse(DirtyTracker.isTracked(account));
+      database.commit();
+    }
+  }
+
+  @Test
+  public void snapshotKeyedByIdentityAndCopiesMutableValues() {
+    final ClassMeta classMeta = Metadata.entityMeta(Account.class);
+    final Account   account   = new Account(1L, "a", "e", 1);
+    account.setCreated(new Date(0));
+    DirtyTracker.snapshot(classMeta, account);
+
+    // equals / hashCode 随字段变化时仍能找到快照
+    account.setName("b");
+    assertTrue(DirtyTracker.isTracked(account));
+    assertFalse(DirtyTracker.isTracked(new Account(1L, "b", "e", 1)));
+
+    // 原地修改 Date 也能识别
+    account.getCreated().setTime(1000);
+    final BitSet changes = DirtyTracker.changes(classMeta, account);
+    assertEquals(2, changes.cardinality());
+
+    DirtyTracker.untrack(Collections.singletonList(account));
+    assertNull(DirtyTracker.changes(classMeta, account));
+  }
+
+  @Table(value = "tb_account", strategy = GenerationType.ASSIGNED)
+  public static class Account {
+
+    @Column
+    @PrimaryKey
+    private Long    id;
+    @Column
+    private String  name;
+    @Column
+    private String  email;
+    @Column
+    private Integer balance;
+    @Column
+    private Date    created;
+
+    public Account() {}
+
+    public Account(Long id, String name, String email, Integer balance) {
+      this.id = id;
+      this.name = name;
+      this.email = email;
+      this.balance = balance;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public void setEmail(String email) {
+      this.email = email;
+    }
+
+    public Integer getBalance() {
+      return balance;
+    }
+
+    public void setBalance(Integer balance) {
+      this.balance = balance;
+    }
+
+    public Date getCreated() {
+      return created;
+    }
+
+    public void setCreated(Date created) {
+      this.created = created;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Account)) return false;
+      Account account = (Account) o;
+      return Objects.equals(id, account.id) && Objects.equals(name, account.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, name);
+    }
+  }
+}
@@ -1,9 +1,28 @@
 package work.myfavs.framework.orm.util;
 
 import org.junit.Test;
+import work.myfavs.framework.orm.util.id.PKGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class PKGeneratorTest {
 
+  private final PKGenerator pkGenerator = new PKGenerator(1L, 1L);
+
+  @Test
+  public void nextSnowFakeId() {
+    long first  = pkGenerator.nextSnowFakeId();
+    long second = pkGenerator.nextSnowFakeId();
+    assertTrue(second > first);
+  }
+
   @Test
-  public void nextSnowFakeId() {}
+  public void nextSnowFakeIds() {
+    long[] ids = pkGenerator.nextSnowFakeIds(10);
+    assertEquals(10, ids.length);
+    for (int i = 1; i < ids.length; i++) {
+      assertTrue(ids[i] > ids[i - 1]);
+    }
+  }
 }
@@ -10,9 +10,12 @@ import com.alibaba.druid.util.JdbcConstants;
 import org.junit.Test;
 import work.myfavs.framework.orm.meta.DbType;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class DruidUtilTest {
 
@@ -91,4 +94,24 @@ public class DruidUtilTest {
     String             formatSql          = sqlSelectStatement.toString();
     System.out.println(formatSql);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void getTableNames() {
+    assertEquals(new HashSet<>(Arrays.asList("tb_user", "tb_dept")),
+                 DruidUtil.getTableNames(com.alibaba.druid.DbType.sqlserver,
+                                         "SELECT * FROM dbo.[TB_USER] u JOIN tb_dept d ON u.dept_id = d.id WHERE u.id IN (SELECT user_id FROM TB_USER)"));
+    assertEquals(new HashSet<>(Arrays.asList("tb_user")),
+                 DruidUtil.getTableNames(com.alibaba.druid.DbType.mysql, "UPDATE `tb_user` SET name = ? WHERE id = ?"));
+  }
+
+  @Test
+  public void fingerprintCachedByDbTypeAndSql() {
+    final String sql   = "SELECT * FROM tb_user WHERE id = 1";
+    final String first = DruidUtil.fingerprint(DbType.H2, sql);
+    assertEquals("SELECT * FROM tb_user WHERE id = ?", first);
+    assertSame(first, DruidUtil.fingerprint(DbType.H2, sql));
+
+    // 不支持的数据库类型使用合并空白后的原语句，不受其他数据库类型缓存的影响
+    assertEquals(sql, DruidUtil.fingerprint("unknown", sql));
+  }
+}
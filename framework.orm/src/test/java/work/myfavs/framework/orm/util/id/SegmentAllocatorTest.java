@@ -0,0 +1,84 @@
+package work.myfavs.framework.orm.util.id;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class SegmentAllocatorTest extends AbstractH2Test {
+
+  private static DBTemplate node1;
+  private static DBTemplate node2;
+
+  @BeforeClass
+  public static void beforeClass() {
+    DataSource dataSource = createDataSource("segment", 8);
+    node1 = createDBTemplate("segment-node1", dataSource, config -> config.setSegmentStep(100).setSegmentPrefetchRatio(0.2));
+    node2 = createDBTemplate("segment-node2", dataSource, config -> config.setSegmentStep(100).setSegmentPrefetchRatio(0.2));
+    execute(node1, "CREATE TABLE id_segment (biz_tag VARCHAR(128) NOT NULL PRIMARY KEY, max_id BIGINT NOT NULL, step INT NOT NULL)");
+  }
+
+  @Test
+  public void nextId() {
+    SegmentAllocator allocator = new SegmentAllocator(node1);
+    long             first     = allocator.nextId("tb_sequential");
+    for (int i = 1; i < 250; i++) {
+      assertEquals(first + i, allocator.nextId("tb_sequential"));
+    }
+  }
+
+  @Test
+  public void nextSegmentId() {
+    PKGenerator pkGenerator = node1.getPkGenerator();
+    assertTrue(pkGenerator.nextSegmentId("tb_pk_generator") > 0);
+  }
+
+  @Test
+  public void nextIdConcurrentNodes() throws Exception {
+    final SegmentAllocator[] allocators = {new SegmentAllocator(node1), new SegmentAllocator(node2)};
+    final int                threads    = 8;
+    final int                perThread  = 500;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<long[]>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final SegmentAllocator allocator = allocators[t % allocators.length];
+        futures.add(executor.submit(() -> {
+          long[] ids = new long[perThread];
+          for (int i = 0; i < perThread; i++) {
+            ids[i] = allocator.nextId("tb_concurrent");
+          }
+          return ids;
+        }));
+      }
+
+      Set<Long> ids = new HashSet<>();
+      for (Future<long[]> future : futures) {
+        for (long id : future.get(30, TimeUnit.SECONDS)) {
+          assertTrue(id > 0);
+          assertTrue(ids.add(id));
+        }
+      }
+      assertEquals(threads * perThread, ids.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void nextIdWithoutAllocator() {
+    try {
+      new PKGenerator(1L, 1L).nextSegmentId("tb_none");
+      fail();
+    } catch (Exception e) {
+      assertTrue(e.getMessage().contains("SegmentAllocator"));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package work.myfavs.framework.orm.util.id;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import work.myfavs.framework.orm.AbstractH2Test;
+import work.myfavs.framework.orm.DBTemplate;
+import work.myfavs.framework.orm.meta.DbType;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.*;
+
+public class WorkerIdLeaseManagerTest extends AbstractH2Test {
+
+  private static DataSource dataSource;
+  private static DBTemplate dbTemplate;
+
+  @BeforeClass
+  public static void beforeClass() {
+    dataSource = createDataSource("worker_lease");
+    dbTemplate = createDBTemplate("worker-lease", dataSource);
+    execute(dbTemplate, "CREATE TABLE id_worker_lease (slot INT NOT NULL PRIMARY KEY, owner VARCHAR(64) NOT NULL, expire_at BIGINT NOT NULL)");
+  }
+
+  @Before
+  public void setUp() {
+    execute(dbTemplate, "DELETE FROM id_worker_lease");
+  }
+
+  @Test
+  public void acquireDistinctSlots() {
+    try (WorkerIdLeaseManager node1 = new WorkerIdLeaseManager(dbTemplate).acquire();
+         WorkerIdLeaseManager node2 = new WorkerIdLeaseManager(dbTemplate).acquire()) {
+      assertEquals(0, node1.getSlot());
+      assertEquals(1, node2.getSlot());
+      assertEquals(1L, node1.getWorkerId());
+      assertEquals(2L, node2.getWorkerId());
+      assertEquals(1L, node2.getDataCenterId());
+      node1.checkLease();
+      node2.checkLease();
+    }
+  }
+
+  @Test
+  public void acquireExpiredSlot() {
+    execute(dbTemplate, "INSERT INTO id_worker_lease (slot, owner, expire_at) VALUES (0, 'expired', 1)");
+    execute(dbTemplate, String.format("INSERT INTO id_worker_lease (slot, owner, expire_at) VALUES (1, 'alive', %d)", Long.MAX_VALUE));
+
+    try (WorkerIdLeaseManager manager = new WorkerIdLeaseManager(dbTemplate).acquire()) {
+      assertEquals(0, manager.getSlot());
+    }
+  }
+
+  @Test
+  public void releaseOnClose() {
+    WorkerIdLeaseManager manager = new WorkerIdLeaseManager(dbTemplate).acquire();
+    manager.close();
+
+    try {
+      manager.checkLease();
+      fail();
+    } catch (DBException ignored) {
+    }
+
+    try (WorkerIdLeaseManager next = new WorkerIdLeaseManager(dbTemplate).acquire()) {
+      assertEquals(0, next.getSlot());
+    }
+  }
+
+  @Test
+  public void pkGeneratorWithLease() {
+    DBTemplate leased = new DBTemplate.Builder("worker-lease-enabled")
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2).setWorkerIdLease(true))
+        .build();
+
+    try {
+      long id = leased.getPkGenerator().nextSnowFakeId();
+      assertTrue(id > 0);
+    } finally {
+      leased.close();
+    }
+  }
+
+  @Test
+  public void releaseOnTemplateClose() {
+    DBTemplate leased = new DBTemplate.Builder("worker-lease-closed")
+        .dataSource(dataSource)
+        .config(config -> config.setDbType(DbType.H2).setWorkerIdLease(true))
+        .build();
+    PKGenerator generator = leased.getPkGenerator();
+    leased.close();
+
+    try {
+      generator.nextSnowFakeId();
+      fail();
+    } catch (DBException ignored) {
+    }
+    try {
+      DBTemplate.get("worker-lease-closed");
+      fail();
+    } catch (DBException ignored) {
+    }
+
+    try (WorkerIdLeaseManager next = new WorkerIdLeaseManager(dbTemplate).acquire()) {
+      assertEquals(0, next.getSlot());
+    }
+  }
+}
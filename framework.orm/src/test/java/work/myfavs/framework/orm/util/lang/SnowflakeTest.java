@@ -0,0 +1,76 @@
+package work.myfavs.framework.orm.util.lang;
+
+import org.junit.Test;
+import work.myfavs.framework.orm.util.exception.DBException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SnowflakeTest {
+
+  private final Snowflake snowflake = new Snowflake(2L, 3L);
+
+  @Test
+  public void nextId() {
+    long id = snowflake.nextId();
+    assertEquals(2L, snowflake.getWorkerId(id));
+    assertEquals(3L, snowflake.getDataCenterId(id));
+    assertTrue(snowflake.getGenerateDateTime(id) <= System.currentTimeMillis());
+  }
+
+  @Test
+  public void nextIds() {
+    long[] ids = snowflake.nextIds(Snowflake.MAX_RESERVE_SIZE * 2 + 10);
+    assertEquals(Snowflake.MAX_RESERVE_SIZE * 2 + 10, ids.length);
+    for (int i = 1; i < ids.length; i++) {
+      assertTrue(ids[i] > ids[i - 1]);
+    }
+    assertEquals(0, snowflake.nextIds(0).length);
+  }
+
+  @Test
+  public void reserve() {
+    long first = snowflake.reserve(100);
+    long next  = snowflake.nextId();
+    assertTrue(next >= first + 100);
+    assertEquals(snowflake.getGenerateDateTime(first), snowflake.getGenerateDateTime(first + 99));
+  }
+
+  @Test(expected = DBException.class)
+  public void reserveOutOfRange() {
+    snowflake.reserve(Snowflake.MAX_RESERVE_SIZE + 1);
+  }
+
+  @Test
+  public void concurrentNextId() throws InterruptedException {
+    final int             threads   = 8;
+    final int             perThread = 20000;
+    final Set<Long>       ids       = ConcurrentHashMap.newKeySet();
+    final CountDownLatch  latch     = new CountDownLatch(threads);
+    final ExecutorService executor  = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      final boolean batch = t % 2 == 0;
+      executor.execute(() -> {
+        try {
+          if (batch) {
+            for (long id : snowflake.nextIds(perThread)) ids.add(id);
+          } else {
+            for (int i = 0; i < perThread; i++) ids.add(snowflake.nextId());
+          }
+        } finally {
+          latch.countDown();
+        }
+      });
+    }
+    assertTrue(latch.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertEquals(threads * perThread, ids.size());
+  }
+}
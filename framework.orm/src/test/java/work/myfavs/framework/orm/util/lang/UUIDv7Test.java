@@ -0,0 +1,32 @@
+package work.myfavs.framework.orm.util.lang;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UUIDv7Test {
+
+  private final UUIDv7 uuidV7 = new UUIDv7();
+
+  @Test
+  public void next() {
+    final long before = System.currentTimeMillis();
+    UUID       uuid   = uuidV7.next();
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertTrue(UUIDv7.getGenerateDateTime(uuid) >= before);
+  }
+
+  @Test
+  public void monotonic() {
+    String last = uuidV7.nextStr();
+    for (int i = 0; i < 100000; i++) {
+      String next = uuidV7.nextStr();
+      assertTrue(next.compareTo(last) > 0);
+      last = next;
+    }
+  }
+}